@@ -0,0 +1,55 @@
+package tdd.duo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tdd.duo.domain.Article;
+import tdd.duo.dto.ArticlePage;
+import tdd.duo.dto.ArticleSummary;
+import tdd.duo.service.ArticleService;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 글목록, 검색, 상세보기. 상세보기는 매번 다른 글을 읽어서 2차 캐시에만 의존하지 않도록 한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class ArticleServiceBenchmark {
+
+    @Param({"1", "100"})
+    public int pageNumber;
+
+    //모든 글에 있는 단어와, 한 글에만 있는 단어
+    @Param({"testtitle", "testcontent 777"})
+    public String query;
+
+    private ArticleService articleService;
+    private int articleCount;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase database) {
+        articleService = database.getBean(ArticleService.class);
+        articleCount = database.articleCount;
+    }
+
+    @Benchmark
+    public ArticlePage findsByPageNumber() {
+        return articleService.findsByPageNumber(pageNumber);
+    }
+
+    @Benchmark
+    public List<ArticleSummary> findsByQueryString() {
+        return articleService.findsByQueryString(query);
+    }
+
+    @Benchmark
+    public Article findById() {
+        long articleId = ThreadLocalRandom.current().nextLong(1, articleCount + 1);
+        return articleService.findById(articleId);
+    }
+}
@@ -0,0 +1,37 @@
+package tdd.duo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tdd.duo.domain.Comment;
+import tdd.duo.dto.CommentSummary;
+import tdd.duo.exception.ServiceBusyException;
+import tdd.duo.service.CommentService;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class CommentServiceBenchmark {
+
+    private CommentService commentService;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase database) {
+        commentService = database.getBean(CommentService.class);
+    }
+
+    @Benchmark
+    public Comment create(LoginRequest loginRequest) {
+        return commentService.create(new Comment(1L, "benchmark comment"));
+    }
+
+    //comment.write_behind.enabled=true 일때 요청 thread가 기다리는 시간
+    @Benchmark
+    @Threads(8)
+    public CommentSummary createAsync(LoginRequest loginRequest) throws ServiceBusyException {
+        return commentService.createAsync(new Comment(1L, "benchmark comment"));
+    }
+}
@@ -0,0 +1,27 @@
+package tdd.duo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import tdd.duo.service.SessionService;
+
+/**
+ * benchmark thread마다 로그인한 세션을 가진 요청을 하나씩 묶어둔다.
+ * SessionService.getCurrentUser()는 첫 호출 이후 요청 캐시에서 사용자를 읽는다.
+ */
+@State(Scope.Thread)
+public class LoginRequest {
+
+    @Setup(Level.Trial)
+    public void bind() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession(true).setAttribute(SessionService.SESSION_KEY_ID, SeededDatabase.USER_EMAIL);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Trial)
+    public void unbind() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+}
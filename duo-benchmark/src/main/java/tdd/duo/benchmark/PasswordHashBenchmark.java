@@ -0,0 +1,40 @@
+package tdd.duo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tdd.duo.domain.auth.PasswordHasher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cost(iterations)별 core 하나의 초당 로그인(비밀번호 검증) 수.
+ * password.hash.iterations를 정할때 (초당 로그인 목표 / 결과값) 만큼 password.hash.threads가 필요하다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+public class PasswordHashBenchmark {
+
+    @Param({"PBKDF2WithHmacSHA256"})
+    public String algorithm;
+
+    @Param({"10000", "50000", "100000", "300000", "600000"})
+    public int iterations;
+
+    private PasswordHasher passwordHasher;
+    private String encodedPassword;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        passwordHasher = new PasswordHasher(algorithm, iterations);
+        encodedPassword = passwordHasher.hash(SeededDatabase.USER_PASSWORD);
+    }
+
+    @Benchmark
+    public boolean loginsPerSecondPerCore() {
+        return passwordHasher.matches(SeededDatabase.USER_PASSWORD, encodedPassword);
+    }
+}
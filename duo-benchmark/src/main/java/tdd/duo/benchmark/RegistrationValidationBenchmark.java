@@ -0,0 +1,48 @@
+package tdd.duo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.StringUtils;
+import tdd.duo.domain.User;
+import tdd.duo.domain.validation.Errors;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 여러 thread에서 동시에 가입 검증을 할때, 매번 Pattern.compile 하던 이전 방식과 Validator를 비교한다.
+ * 할당량은 -prof gc 로 확인한다. ex) -PjmhArgs="RegistrationValidationBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Thread)
+public class RegistrationValidationBenchmark {
+
+    @Param({"someone.name@duo-board.co.kr", "not-an-email@"})
+    public String email;
+
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        user = new User(email, "password", "name", 20);
+    }
+
+    @Benchmark
+    public Errors validator() {
+        return user.validate();
+    }
+
+    //Validator 도입 전의 User.canRegistable()
+    @Benchmark
+    public boolean compilePatternPerCall() {
+        if (StringUtils.isEmpty(user.getEmail()))
+            return false;
+
+        boolean validEmail = Pattern.compile(User.EMAIL_PATTERN).matcher(user.getEmail()).matches();
+        return validEmail && !StringUtils.isEmpty(user.getName()) && user.getAge() > 0;
+    }
+}
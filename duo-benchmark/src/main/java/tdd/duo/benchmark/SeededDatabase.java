@@ -0,0 +1,68 @@
+package tdd.duo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import tdd.duo.bulk.GeneratedArticles;
+import tdd.duo.config.DBConfig;
+import tdd.duo.domain.Comment;
+import tdd.duo.domain.User;
+import tdd.duo.repository.CommentRepository;
+import tdd.duo.repository.UserRepository;
+import tdd.duo.service.ArticleImportService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 메모리 H2에 articleCount 만큼 글을 넣은 Spring context. 같은 크기의 benchmark끼리 한번만 만든다.
+ * db.properties 보다 먼저 읽히도록 DB 접속정보만 덮어쓴다.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+    public static final String USER_EMAIL = "benchmark@duo.com";
+    public static final String USER_PASSWORD = "password";
+    public static final int COMMENTS_PER_ARTICLE_SAMPLE = 10;
+
+    @Param({"1000", "100000", "1000000"})
+    public int articleCount;
+
+    public AnnotationConfigApplicationContext context;
+    public User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("database.url", "jdbc:h2:mem:duo-benchmark;DB_CLOSE_DELAY=-1");
+        properties.put("hibernate.hbm2ddl.auto", "create");
+        properties.put("hibernate.show_sql", "false");
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(DBConfig.class);
+        context.refresh();
+
+        user = context.getBean(UserRepository.class).save(new User(USER_EMAIL, USER_PASSWORD, "benchmark", 20));
+        context.getBean(ArticleImportService.class).importArticles(new GeneratedArticles(articleCount), user, null);
+
+        //상세보기 fetch join에 댓글이 포함되도록 앞쪽 글 몇개에 댓글을 단다
+        CommentRepository commentRepository = context.getBean(CommentRepository.class);
+        for (long articleId = 1; articleId <= COMMENTS_PER_ARTICLE_SAMPLE; articleId++) {
+            for (int i = 0; i < COMMENTS_PER_ARTICLE_SAMPLE; i++) {
+                Comment comment = new Comment(articleId, "comment_" + i);
+                comment.setAuthor(user);
+                commentRepository.save(comment);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
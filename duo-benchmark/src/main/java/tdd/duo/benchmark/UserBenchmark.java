@@ -0,0 +1,33 @@
+package tdd.duo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tdd.duo.domain.User;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DB 없이 도메인 검증만 잰다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserBenchmark {
+
+    @Param({"someone.name@duo-board.co.kr", "not-an-email@"})
+    public String email;
+
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        user = new User(email, "password", "name", 20);
+    }
+
+    @Benchmark
+    public boolean checkEmail() {
+        return user.checkEmail();
+    }
+}
@@ -0,0 +1,31 @@
+package tdd.duo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import tdd.duo.domain.auth.Authentication;
+import tdd.duo.service.UserService;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    private UserService userService;
+    private Authentication authentication;
+
+    @Setup(Level.Trial)
+    public void setUp(SeededDatabase database) {
+        userService = database.getBean(UserService.class);
+        authentication = new Authentication(SeededDatabase.USER_EMAIL, SeededDatabase.USER_PASSWORD);
+    }
+
+    @Benchmark
+    public Authentication login() throws Exception {
+        userService.login(authentication);
+        return authentication;
+    }
+}
@@ -0,0 +1,173 @@
+package tdd.duo.benchmark;
+
+import tdd.duo.metrics.Histogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 띄워둔 서버(WebServerLauncher)에 clients개의 연결로 글목록과 상세보기를 seconds초 동안 요청한다.
+ * 동시에 DB를 읽지 않는 로그인 화면을 따로 요청해서, DB가 밀릴때 connector thread가 남아 있는지(probe 응답 시간)를 본다.
+ * 같은 부하로 WEB_ASYNC_ENABLED=false/true, TOMCAT_MAX_THREADS를 바꿔가며 띄워서 비교한다.
+ * ex) java tdd.duo.benchmark.WebLoadTest http://localhost:8080 200 30 1000
+ */
+public class WebLoadTest {
+
+    private static final String EMAIL = "load@duo.com";
+    private static final String PASSWORD = "load1234";
+
+    private final String baseUrl;
+    private final int articleCount;
+
+    private final Histogram latencyMicros = new Histogram();
+    private final Histogram probeMicros = new Histogram();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder busy = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private volatile boolean running = true;
+
+    WebLoadTest(String baseUrl, int articleCount) {
+        this.baseUrl = baseUrl;
+        this.articleCount = articleCount;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int articleCount = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+        new WebLoadTest(baseUrl, articleCount).run(clients, seconds);
+    }
+
+    void run(int clients, int seconds) throws Exception {
+        //처음 한번만 성공하고 이후에는 이미 있는 사용자라서 실패한다
+        post("/user/register", "email=" + EMAIL + "&password=" + PASSWORD + "&name=load&age=20", null);
+        //로그인은 비밀번호 hash 때문에 느리므로 한번만 하고 세션을 같이 쓴다
+        String session = login();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++)
+            threads.add(new Thread(() -> client(session), "client-" + i));
+        threads.add(new Thread(this::probe, "probe"));
+
+        threads.forEach(Thread::start);
+        TimeUnit.SECONDS.sleep(seconds);
+        running = false;
+        for (Thread thread : threads)
+            thread.join();
+
+        System.out.printf("clients %d, %ds : %.1f req/s, ok %d, busy(503) %d, failed %d%n",
+                clients, seconds, (double) latencyMicros.getCount() / seconds, ok.sum(), busy.sum(), failed.sum());
+        print("article", latencyMicros);
+        print("probe", probeMicros);
+    }
+
+    private void client(String session) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (running) {
+            String path = random.nextBoolean()
+                    ? "/article/list?page=" + random.nextInt(1, Math.max(2, articleCount / 10))
+                    : "/article/" + random.nextInt(1, articleCount + 1);
+
+            long start = System.nanoTime();
+            try {
+                int status = get(path, session);
+                if (status == 503)
+                    busy.increment();
+                else if (status < 400)
+                    ok.increment();
+                else
+                    failed.increment();
+            } catch (IOException e) {
+                failed.increment();
+            }
+            latencyMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+    }
+
+    //DB를 읽지 않는 요청. connector thread가 모두 DB를 기다리고 있으면 같이 느려진다
+    private void probe() {
+        while (running) {
+            long start = System.nanoTime();
+            try {
+                get("/user/login", null);
+            } catch (IOException e) {
+                failed.increment();
+            }
+            probeMicros.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private String login() throws IOException {
+        HttpURLConnection connection = post("/user/login", "id=" + EMAIL + "&password=" + PASSWORD, null);
+        String cookie = connection.getHeaderField("Set-Cookie");
+        if (cookie == null)
+            throw new IOException("login failed : " + connection.getResponseCode());
+        return cookie.substring(0, cookie.indexOf(';'));
+    }
+
+    private int get(String path, String session) throws IOException {
+        HttpURLConnection connection = open(path, session);
+        int status = connection.getResponseCode();
+        drain(connection);
+        return status;
+    }
+
+    private HttpURLConnection post(String path, String form, String session) throws IOException {
+        HttpURLConnection connection = open(path, session);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(form.getBytes(StandardCharsets.UTF_8));
+        }
+        connection.getResponseCode();
+        drain(connection);
+        return connection;
+    }
+
+    private HttpURLConnection open(String path, String session) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setInstanceFollowRedirects(false);
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(30000);
+        if (session != null)
+            connection.setRequestProperty("Cookie", session);
+        return connection;
+    }
+
+    //keep-alive 연결을 다시 쓰려면 body를 끝까지 읽어야 한다
+    private static void drain(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getResponseCode() >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in == null)
+            return;
+
+        byte[] buffer = new byte[8192];
+        try (InputStream body = in) {
+            while (body.read(buffer) != -1) ;
+        }
+    }
+
+    private static void print(String name, Histogram histogram) {
+        System.out.printf("%-8s count %d, mean %.1fms, p50 %.1fms, p95 %.1fms, p99 %.1fms, max %.1fms%n", name, histogram.getCount(),
+                histogram.getMean() / 1000, histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(95) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0, histogram.getMax() / 1000.0);
+    }
+}
@@ -0,0 +1,258 @@
+package tdd.duo.bulk;
+
+import tdd.duo.domain.Article;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * CSV(title,content) 또는 JSONL({"title":..., "content":...}) 파일을 한 줄(record)씩 읽어 Article로 만든다.
+ * 파일 전체를 메모리에 올리지 않으므로 큰 파일도 ArticleService.importArticles에 그대로 넘길 수 있다.
+ */
+public class ArticleRecordReader implements Iterator<Article> {
+
+    public enum Format {
+        CSV, JSONL;
+
+        public static Format from(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CONTENT = "content";
+
+    private final BufferedReader reader;
+    private final Format format;
+
+    private long lineNumber;
+    private Article nextArticle;
+
+    public ArticleRecordReader(Reader reader, Format format) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.format = format;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextArticle == null)
+            nextArticle = readArticle();
+
+        return nextArticle != null;
+    }
+
+    @Override
+    public Article next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        Article article = nextArticle;
+        nextArticle = null;
+        return article;
+    }
+
+    private Article readArticle() {
+        try {
+            return format == Format.CSV ? readCsvArticle() : readJsonArticle();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Article readCsvArticle() throws IOException {
+        List<String> fields;
+
+        do {
+            fields = readCsvRecord();
+            if (fields == null)
+                return null;
+
+            //header와 빈 줄은 건너뛴다
+        } while ((fields.size() == 1 && fields.get(0).isEmpty())
+                || (lineNumber == 1 && FIELD_TITLE.equalsIgnoreCase(fields.get(0))));
+
+        if (fields.size() < 2)
+            throw new IllegalArgumentException("line " + lineNumber + " : title,content 형식이 아닙니다");
+
+        return new Article(null, fields.get(0), fields.get(1));
+    }
+
+    //RFC 4180. 따옴표로 감싼 값 안에서는 쉼표, 줄바꿈, "" 를 쓸 수 있다
+    private List<String> readCsvRecord() throws IOException {
+        String line = reader.readLine();
+        if (line == null)
+            return null;
+        lineNumber++;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted)
+                    break;
+
+                line = reader.readLine();
+                if (line == null)
+                    throw new IllegalArgumentException("line " + lineNumber + " : 따옴표가 닫히지 않았습니다");
+                lineNumber++;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"')
+                    field.append(c);
+                else if (i < line.length() && line.charAt(i) == '"')
+                    field.append(line.charAt(i++));
+                else
+                    quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private Article readJsonArticle() throws IOException {
+        String line;
+
+        do {
+            line = reader.readLine();
+            if (line == null)
+                return null;
+            lineNumber++;
+        } while (line.trim().isEmpty());
+
+        Map<String, String> values = new JsonLineParser(line, lineNumber).parseObject();
+        return new Article(null, values.get(FIELD_TITLE), values.get(FIELD_CONTENT));
+    }
+
+    /**
+     * 한 줄짜리 flat JSON object만 읽는다. 값은 문자열, 숫자, true/false/null 만 허용한다.
+     */
+    private static class JsonLineParser {
+
+        private final String line;
+        private final long lineNumber;
+        private int position;
+
+        JsonLineParser(String line, long lineNumber) {
+            this.line = line;
+            this.lineNumber = lineNumber;
+        }
+
+        Map<String, String> parseObject() {
+            Map<String, String> values = new HashMap<>();
+
+            expect('{');
+            if (peek() == '}') {
+                position++;
+                return values;
+            }
+
+            do {
+                String key = parseString();
+                expect(':');
+                values.put(key, parseValue());
+            } while (consumeIf(','));
+
+            expect('}');
+            if (peek() != 0)
+                throw error("object 뒤에 다른 값이 있습니다");
+
+            return values;
+        }
+
+        private String parseValue() {
+            char c = peek();
+            if (c == '"')
+                return parseString();
+
+            int start = position;
+            while (position < line.length() && ",} \t".indexOf(line.charAt(position)) < 0)
+                position++;
+
+            String literal = line.substring(start, position);
+            if (literal.isEmpty() || literal.startsWith("{") || literal.startsWith("["))
+                throw error("지원하지 않는 값입니다");
+
+            return "null".equals(literal) ? null : literal;
+        }
+
+        private String parseString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+
+            while (position < line.length()) {
+                char c = line.charAt(position++);
+                if (c == '"')
+                    return value.toString();
+
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+
+                if (position == line.length())
+                    break;
+
+                char escaped = line.charAt(position++);
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        if (position + 4 > line.length())
+                            throw error("잘못된 unicode escape 입니다");
+                        value.append((char) Integer.parseInt(line.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default: value.append(escaped);
+                }
+            }
+
+            throw error("문자열이 닫히지 않았습니다");
+        }
+
+        private char peek() {
+            while (position < line.length() && Character.isWhitespace(line.charAt(position)))
+                position++;
+
+            return position < line.length() ? line.charAt(position) : 0;
+        }
+
+        private boolean consumeIf(char expected) {
+            if (peek() != expected)
+                return false;
+
+            position++;
+            return true;
+        }
+
+        private void expect(char expected) {
+            if (!consumeIf(expected))
+                throw error("'" + expected + "' 가 필요합니다");
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("line " + lineNumber + ", column " + (position + 1) + " : " + message);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package tdd.duo.bulk;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * DBExporter가 chunk 파일에 값을 쓰는 방식. JDBC 타입(java.sql.Types)을 몇 가지로 묶는다.
+ */
+public enum ColumnType {
+
+    LONG, DOUBLE, DECIMAL, BOOLEAN, STRING, TIMESTAMP, BYTES;
+
+    public static ColumnType of(int sqlType) {
+        switch (sqlType) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return LONG;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return DOUBLE;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return DECIMAL;
+            case Types.BOOLEAN:
+            case Types.BIT:
+                return BOOLEAN;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return STRING;
+            case Types.TIMESTAMP:
+            case Types.DATE:
+            case Types.TIME:
+                return TIMESTAMP;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return BYTES;
+            default:
+                throw new IllegalArgumentException("지원하지 않는 컬럼 타입입니다 : " + sqlType);
+        }
+    }
+
+    //NULL이면 null
+    public Object read(ResultSet resultSet, int index) throws SQLException {
+        Object value;
+        switch (this) {
+            case LONG:
+                value = resultSet.getLong(index);
+                break;
+            case DOUBLE:
+                value = resultSet.getDouble(index);
+                break;
+            case DECIMAL:
+                value = resultSet.getBigDecimal(index);
+                break;
+            case BOOLEAN:
+                value = resultSet.getBoolean(index);
+                break;
+            case STRING:
+                value = resultSet.getString(index);
+                break;
+            case TIMESTAMP:
+                value = resultSet.getTimestamp(index);
+                break;
+            default:
+                value = resultSet.getBytes(index);
+        }
+
+        return resultSet.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,318 @@
+package tdd.duo.bulk;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 운영중인 DB를 멈추지 않고 테이블별로 내보낸다. 테이블마다 PK 순서로 chunkSize 행씩 끊어 읽고(keyset, WHERE pk > 마지막 pk)
+ * chunk 하나를 gzip 파일 하나(TableChunk)로 쓴다. 매 chunk가 짧은 select라서 쓰기를 막지 않고, 메모리는 thread당 chunk 하나만 쓴다.
+ * 테이블은 threads개씩 동시에 내보낸다. 테이블 사이는 같은 시점이 아니므로 복원한 DB의 집계(article_stat)는 reconcile이 맞춘다.
+ * 단 FK로 이어진 테이블은 부모를 다 읽은 뒤에 자식을 읽는다. 자식(댓글)을 먼저 읽으면 그 사이 삭제된 부모(글)가 export에 없어서 import가 FK에 걸린다.
+ * 부모를 먼저 읽으면 그 사이 삭제된 부모의 자식은 export에 없고, 새로 만든 자식은 settleMillis 이전 것만 담으므로 부모도 이미 읽은 것이다.
+ *
+ * created_time 컬럼이 있는 테이블(글, 댓글)은 이전 export의 manifest를 주면 그 watermark (created_time, id) 이후의 행만 내보낸다.
+ * 전체 export에서도 이 테이블들은 commit이 늦은 행을 watermark가 건너뛰지 않도록 settleMillis 보다 최근에 만든 행을 다음 export로 미룬다.
+ * incremental export는 새로 만든 행만 담고 수정과 삭제는 담지 않으므로, 주기적으로 전체 export를 받는다.
+ * created_time이 없는 테이블(사용자, 조회수, 집계)은 항상 전체를 내보낸다.
+ *
+ * ex) java tdd.duo.bulk.DBExporter jdbc:h2:tcp://localhost/~/duo root "" backup/0502 [backup/0501]
+ */
+public class DBExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DBExporter.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 10000;
+    public static final long DEFAULT_SETTLE_MILLIS = 60000;
+
+    public static final String WATERMARK_COLUMN = "CREATED_TIME";
+    //Flyway의 migration 기록은 복원할 DB에서 Flyway가 만든다
+    public static final String FLYWAY_TABLE = "SCHEMA_VERSION";
+
+    private static final String SELECT_SEQUENCES_SQL =
+            "SELECT SEQUENCE_NAME, CURRENT_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = SCHEMA()";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+    private final int threads;
+    private final long settleMillis;
+
+    public DBExporter(DataSource dataSource, int chunkSize, int threads, long settleMillis) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.chunkSize = chunkSize;
+        this.threads = threads;
+        this.settleMillis = settleMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("usage : DBExporter url user password dir [previous export dir]");
+            return;
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl(args[0]);
+        dataSource.setUsername(args[1]);
+        dataSource.setPassword(args[2]);
+        dataSource.setMaxTotal(threads);
+
+        try {
+            ExportManifest since = args.length > 4 ? ExportManifest.read(new File(args[4])) : null;
+            ExportManifest manifest = new DBExporter(dataSource, DEFAULT_CHUNK_SIZE, threads, DEFAULT_SETTLE_MILLIS).export(new File(args[3]), since);
+            for (ExportManifest.TableEntry table : manifest.getTables())
+                System.out.println(table);
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    //since가 null이면 전체 export
+    public ExportManifest export(File dir, ExportManifest since) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("cannot create " + dir);
+
+        long start = System.currentTimeMillis();
+        Timestamp cutoff = new Timestamp(start - settleMillis);
+        ExportManifest manifest = new ExportManifest(since != null, start);
+
+        List<ExportManifest.TableEntry> tables = readTables();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            //부모가 먼저 submit 되므로 자식이 기다리는 부모는 이미 돌고 있거나 끝났다
+            Map<String, Future<?>> futures = new LinkedHashMap<>();
+            for (ExportManifest.TableEntry table : tables) {
+                ExportManifest.TableEntry previous = since == null ? null : since.getTable(table.getName());
+                List<Future<?>> parents = new ArrayList<>();
+                for (String parent : table.getParents()) {
+                    if (futures.containsKey(parent))
+                        parents.add(futures.get(parent));
+                }
+
+                futures.put(table.getName(), executor.submit(() -> {
+                    for (Future<?> parent : parents)
+                        parent.get();
+                    exportTable(dir, table, previous, cutoff);
+                    return null;
+                }));
+            }
+
+            //submit한 순서대로 기다리므로 부모가 실패하면 부모의 예외를 던진다
+            for (Future<?> future : futures.values())
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("export interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IllegalStateException("export failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        tables.forEach(manifest::addTable);
+
+        //테이블을 다 읽은 뒤의 값이라 export한 어느 id보다 크다
+        jdbcTemplate.query(SELECT_SEQUENCES_SQL, (RowCallbackHandler) resultSet ->
+                manifest.putSequence(resultSet.getString(1), resultSet.getLong(2)));
+
+        manifest.write(dir);
+        logger.info("export finished : {} tables in {}ms to {}", tables.size(), System.currentTimeMillis() - start, dir.getAbsolutePath());
+        return manifest;
+    }
+
+    private void exportTable(File dir, ExportManifest.TableEntry table, ExportManifest.TableEntry previous, Timestamp cutoff) throws IOException {
+        long start = System.currentTimeMillis();
+        List<ColumnType> types = table.getColumnTypes();
+        int primaryKeyIndex = table.getColumns().indexOf(table.getPrimaryKey());
+        int watermarkIndex = types.get(primaryKeyIndex) == ColumnType.LONG ? table.getColumns().indexOf(WATERMARK_COLUMN) : -1;
+
+        if (watermarkIndex >= 0 && previous != null && previous.hasWatermark())
+            exportSince(dir, table, types, primaryKeyIndex, watermarkIndex, previous, cutoff);
+        else
+            exportAll(dir, table, types, primaryKeyIndex, watermarkIndex, cutoff);
+
+        //새 행이 없으면 이전 watermark를 이어서 쓴다
+        if (!table.hasWatermark() && previous != null && previous.hasWatermark())
+            table.setWatermark(previous.getWatermarkTime(), previous.getWatermarkId());
+
+        logger.info("exported {} in {}ms", table, System.currentTimeMillis() - start);
+    }
+
+    //PK 순서로 전체를 읽는다. created_time이 있으면 cutoff까지만 남기고 가장 늦은 (created_time, id)를 watermark로 남긴다
+    //cutoff를 WHERE에 넣으면 H2가 created_time index를 골라 chunk마다 전체를 정렬하므로 PK 범위만 읽고 여기서 거른다
+    private void exportAll(File dir, ExportManifest.TableEntry table, List<ColumnType> types, int primaryKeyIndex, int watermarkIndex,
+                           Timestamp cutoff) throws IOException {
+        String primaryKey = table.getPrimaryKey();
+        String firstSql = select(table, null, primaryKey);
+        String nextSql = select(table, primaryKey + " > ?", primaryKey);
+
+        Object lastKey = null;
+        while (true) {
+            TableChunk chunk = lastKey == null
+                    ? readChunk(firstSql, Collections.singletonList(chunkSize), types)
+                    : readChunk(nextSql, Arrays.asList(lastKey, chunkSize), types);
+            if (chunk.isEmpty())
+                return;
+
+            lastKey = chunk.get(chunk.size() - 1, primaryKeyIndex);
+            boolean last = !chunk.isFull();
+
+            if (watermarkIndex >= 0)
+                chunk = settled(table, chunk, types, primaryKeyIndex, watermarkIndex, cutoff);
+            if (!chunk.isEmpty())
+                writeChunk(dir, table, chunk);
+
+            if (last)
+                return;
+        }
+    }
+
+    private TableChunk settled(ExportManifest.TableEntry table, TableChunk chunk, List<ColumnType> types, int primaryKeyIndex, int watermarkIndex,
+                               Timestamp cutoff) {
+        TableChunk settled = new TableChunk(types, chunk.size());
+        for (int row = 0; row < chunk.size(); row++) {
+            Timestamp time = (Timestamp) chunk.get(row, watermarkIndex);
+            if (time != null && time.after(cutoff))
+                continue;
+
+            settled.add(chunk.getRow(row));
+            updateWatermark(table, time, (Long) chunk.get(row, primaryKeyIndex));
+        }
+        return settled;
+    }
+
+    //(created_time, id) 순서로 이전 watermark 다음부터 cutoff까지 읽는다. created_time >= ? 조건으로 index 범위를 읽는다
+    private void exportSince(File dir, ExportManifest.TableEntry table, List<ColumnType> types, int primaryKeyIndex, int watermarkIndex,
+                             ExportManifest.TableEntry previous, Timestamp cutoff) throws IOException {
+        String primaryKey = table.getPrimaryKey();
+        String sql = select(table, WATERMARK_COLUMN + " <= ? AND " + WATERMARK_COLUMN + " >= ? AND (" + WATERMARK_COLUMN + " > ? OR " + primaryKey + " > ?)",
+                WATERMARK_COLUMN + ", " + primaryKey);
+
+        Timestamp lastTime = previous.getWatermarkTime();
+        long lastId = previous.getWatermarkId();
+        while (true) {
+            TableChunk chunk = readChunk(sql, Arrays.asList(cutoff, lastTime, lastTime, lastId, chunkSize), types);
+            if (chunk.isEmpty())
+                return;
+
+            writeChunk(dir, table, chunk);
+            lastTime = (Timestamp) chunk.get(chunk.size() - 1, watermarkIndex);
+            lastId = (Long) chunk.get(chunk.size() - 1, primaryKeyIndex);
+            table.setWatermark(lastTime, lastId);
+
+            if (!chunk.isFull())
+                return;
+        }
+    }
+
+    private static void updateWatermark(ExportManifest.TableEntry table, Timestamp time, long id) {
+        if (time == null)
+            return;
+
+        if (!table.hasWatermark() || time.after(table.getWatermarkTime())
+                || (time.equals(table.getWatermarkTime()) && id > table.getWatermarkId()))
+            table.setWatermark(time, id);
+    }
+
+    private static String select(ExportManifest.TableEntry table, String condition, String orderBy) {
+        return "SELECT " + StringUtils.collectionToCommaDelimitedString(table.getColumns()) + " FROM " + table.getName()
+                + (condition == null ? "" : " WHERE " + condition) + " ORDER BY " + orderBy + " LIMIT ?";
+    }
+
+    private TableChunk readChunk(String sql, List<Object> args, List<ColumnType> types) {
+        TableChunk chunk = new TableChunk(types, chunkSize);
+        jdbcTemplate.query(sql, args.toArray(), (RowCallbackHandler) resultSet -> {
+            Object[] row = new Object[types.size()];
+            for (int column = 0; column < row.length; column++)
+                row[column] = types.get(column).read(resultSet, column + 1);
+            chunk.add(row);
+        });
+        return chunk;
+    }
+
+    private static void writeChunk(File dir, ExportManifest.TableEntry table, TableChunk chunk) throws IOException {
+        try (OutputStream out = new FileOutputStream(ExportManifest.chunkFile(dir, table.getName(), table.getChunks()))) {
+            chunk.writeTo(out);
+        }
+        table.chunkWritten(chunk.size());
+    }
+
+    //PK가 컬럼 하나인 테이블만 keyset으로 나눠 읽을 수 있다. 부모 테이블이 먼저 오도록 정렬한다
+    List<ExportManifest.TableEntry> readTables() {
+        String schema = jdbcTemplate.queryForObject("SELECT SCHEMA()", String.class);
+        return jdbcTemplate.execute((ConnectionCallback<List<ExportManifest.TableEntry>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, ExportManifest.TableEntry> tables = new TreeMap<>();
+
+            List<String> names = new ArrayList<>();
+            try (ResultSet resultSet = metaData.getTables(null, schema, "%", new String[]{"TABLE"})) {
+                while (resultSet.next()) {
+                    if (!FLYWAY_TABLE.equalsIgnoreCase(resultSet.getString("TABLE_NAME")))
+                        names.add(resultSet.getString("TABLE_NAME"));
+                }
+            }
+
+            for (String name : names) {
+                List<String> columns = new ArrayList<>();
+                List<Integer> sqlTypes = new ArrayList<>();
+                try (ResultSet resultSet = metaData.getColumns(null, schema, name, "%")) {
+                    while (resultSet.next()) {
+                        columns.add(resultSet.getString("COLUMN_NAME"));
+                        sqlTypes.add(resultSet.getInt("DATA_TYPE"));
+                    }
+                }
+
+                List<String> primaryKey = new ArrayList<>();
+                try (ResultSet resultSet = metaData.getPrimaryKeys(null, schema, name)) {
+                    while (resultSet.next())
+                        primaryKey.add(resultSet.getString("COLUMN_NAME"));
+                }
+                if (primaryKey.size() != 1)
+                    throw new IllegalStateException(name + " : primary key가 컬럼 하나인 테이블만 export 할 수 있습니다 " + primaryKey);
+
+                Set<String> parents = new TreeSet<>();
+                try (ResultSet resultSet = metaData.getImportedKeys(null, schema, name)) {
+                    while (resultSet.next()) {
+                        if (!name.equals(resultSet.getString("PKTABLE_NAME")))
+                            parents.add(resultSet.getString("PKTABLE_NAME"));
+                    }
+                }
+
+                tables.put(name, new ExportManifest.TableEntry(name, columns, sqlTypes.stream().mapToInt(Integer::intValue).toArray(),
+                        primaryKey.get(0), new ArrayList<>(parents)));
+            }
+
+            List<ExportManifest.TableEntry> ordered = new ArrayList<>();
+            for (String name : tables.keySet())
+                addWithParents(name, tables, ordered, new HashSet<>());
+            return ordered;
+        });
+    }
+
+    private static void addWithParents(String name, Map<String, ExportManifest.TableEntry> tables, List<ExportManifest.TableEntry> ordered, Set<String> visiting) {
+        ExportManifest.TableEntry table = tables.get(name);
+        if (table == null || ordered.contains(table) || !visiting.add(name))
+            return;
+
+        for (String parent : table.getParents())
+            addWithParents(parent, tables, ordered, visiting);
+        ordered.add(table);
+    }
+}
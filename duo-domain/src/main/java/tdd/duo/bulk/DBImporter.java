@@ -0,0 +1,167 @@
+package tdd.duo.bulk;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DBExporter로 내보낸 디렉토리를 Flyway로 schema를 만든 DB에 넣는다. chunk 파일 하나를 batch insert 한번, transaction 하나로 넣는다.
+ * FK가 가리키는 부모 테이블을 먼저 넣고, 서로 의존하지 않는 테이블은 threads개씩 동시에 넣는다.
+ * 전체 export는 테이블을 비우고 넣어서 export한 내용과 같게 만들고, incremental export는 이미 있는 행을 PK로 찾아 덮어쓴다(H2의 MERGE).
+ * 마지막으로 sequence를 export한 값 이후로 옮겨서 복원한 뒤에 만드는 id가 겹치지 않게 한다.
+ * hibernate 캐시와 검색 색인은 기동할때 만들어지므로 서버를 띄우기 전에 쓴다.
+ *
+ * ex) java tdd.duo.bulk.DBImporter jdbc:h2:tcp://localhost/~/duo-restore root "" backup/0502
+ */
+public class DBImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DBImporter.class);
+
+    private static final String SELECT_SEQUENCE_SQL =
+            "SELECT CURRENT_VALUE, INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = SCHEMA() AND SEQUENCE_NAME = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int threads;
+
+    public DBImporter(DataSource dataSource, int threads) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("usage : DBImporter url user password dir");
+            return;
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        BasicDataSource dataSource = new BasicDataSource();
+        dataSource.setUrl(args[0]);
+        dataSource.setUsername(args[1]);
+        dataSource.setPassword(args[2]);
+        dataSource.setMaxTotal(threads);
+
+        try {
+            System.out.println(new DBImporter(dataSource, threads).importAll(new File(args[3])));
+        } finally {
+            dataSource.close();
+        }
+    }
+
+    public ImportProgress importAll(File dir) throws IOException {
+        long start = System.currentTimeMillis();
+        ExportManifest manifest = ExportManifest.read(dir);
+        List<ExportManifest.TableEntry> tables = new ArrayList<>(manifest.getTables());
+
+        if (!manifest.isIncremental()) {
+            //자식 테이블부터 비운다
+            for (int i = tables.size() - 1; i >= 0; i--)
+                jdbcTemplate.update("DELETE FROM " + tables.get(i).getName());
+        }
+
+        LongAdder imported = new LongAdder();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (List<ExportManifest.TableEntry> level : levels(tables)) {
+                List<Future<?>> futures = new ArrayList<>();
+                for (ExportManifest.TableEntry table : level) {
+                    futures.add(executor.submit(() -> {
+                        imported.add(importTable(dir, table, manifest.isIncremental()));
+                        return null;
+                    }));
+                }
+
+                for (Future<?> future : futures)
+                    future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("import interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IllegalStateException("import failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (Map.Entry<String, Long> sequence : manifest.getSequences().entrySet())
+            advanceSequence(sequence.getKey(), sequence.getValue());
+
+        ImportProgress progress = new ImportProgress(imported.sum(), 0, System.currentTimeMillis() - start);
+        logger.info("import finished : {} from {}", progress, dir.getAbsolutePath());
+        return progress;
+    }
+
+    private long importTable(File dir, ExportManifest.TableEntry table, boolean merge) throws IOException {
+        long start = System.currentTimeMillis();
+        List<ColumnType> types = table.getColumnTypes();
+        String columns = StringUtils.collectionToCommaDelimitedString(table.getColumns());
+        String values = String.join(", ", Collections.nCopies(table.getColumns().size(), "?"));
+        String sql = merge
+                ? "MERGE INTO " + table.getName() + " (" + columns + ") KEY(" + table.getPrimaryKey() + ") VALUES (" + values + ")"
+                : "INSERT INTO " + table.getName() + " (" + columns + ") VALUES (" + values + ")";
+
+        long rows = 0;
+        for (int index = 0; index < table.getChunks(); index++) {
+            TableChunk chunk;
+            try (InputStream in = new FileInputStream(ExportManifest.chunkFile(dir, table.getName(), index))) {
+                chunk = TableChunk.readFrom(in, types);
+            }
+
+            List<Object[]> args = new ArrayList<>(chunk.size());
+            for (int row = 0; row < chunk.size(); row++)
+                args.add(chunk.getRow(row));
+
+            transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(sql, args, table.getSqlTypes()));
+            rows += chunk.size();
+        }
+
+        logger.info("imported {} rows into {} in {}ms", rows, table.getName(), System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    //다음 값이 export한 DB의 다음 값보다 작으면 그 값부터 나오게 한다
+    private void advanceSequence(String name, long exportedValue) {
+        jdbcTemplate.query(SELECT_SEQUENCE_SQL, new Object[]{name}, (RowCallbackHandler) resultSet -> {
+            long currentValue = resultSet.getLong(1);
+            long increment = resultSet.getLong(2);
+            if (currentValue < exportedValue)
+                jdbcTemplate.execute("ALTER SEQUENCE " + name + " RESTART WITH " + (exportedValue + increment));
+        });
+    }
+
+    //부모가 모두 앞 단계에 있는 테이블끼리 묶는다. manifest는 부모가 먼저 오도록 정렬되어 있다
+    static List<List<ExportManifest.TableEntry>> levels(List<ExportManifest.TableEntry> tables) {
+        Map<String, Integer> levelByTable = new HashMap<>();
+        List<List<ExportManifest.TableEntry>> levels = new ArrayList<>();
+
+        for (ExportManifest.TableEntry table : tables) {
+            int level = 0;
+            for (String parent : table.getParents())
+                level = Math.max(level, levelByTable.getOrDefault(parent, -1) + 1);
+
+            levelByTable.put(table.getName(), level);
+            while (levels.size() <= level)
+                levels.add(new ArrayList<>());
+            levels.get(level).add(table);
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,210 @@
+package tdd.duo.bulk;
+
+import org.springframework.util.StringUtils;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * DBExporter가 export 디렉토리에 남기는 manifest.properties. 테이블별 컬럼, chunk 수, 다음 incremental export의 기준(watermark)과
+ * export를 마친 시점의 sequence 값을 담는다. DBImporter는 이 파일만 보고 chunk를 읽는다.
+ */
+public class ExportManifest {
+
+    public static final String FILE_NAME = "manifest.properties";
+
+    private final boolean incremental;
+    private final long exportedTimeMillis;
+    private final Map<String, TableEntry> tables = new LinkedHashMap<>();
+    private final Map<String, Long> sequences = new LinkedHashMap<>();
+
+    public ExportManifest(boolean incremental, long exportedTimeMillis) {
+        this.incremental = incremental;
+        this.exportedTimeMillis = exportedTimeMillis;
+    }
+
+    //incremental이면 일부 테이블은 watermark 이후의 행만 있으므로 DBImporter가 덮어쓰지 않고 merge 한다
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public long getExportedTimeMillis() {
+        return exportedTimeMillis;
+    }
+
+    public void addTable(TableEntry table) {
+        tables.put(table.getName(), table);
+    }
+
+    public TableEntry getTable(String name) {
+        return tables.get(name);
+    }
+
+    //부모 테이블(FK가 가리키는 테이블)이 먼저 온다
+    public Collection<TableEntry> getTables() {
+        return tables.values();
+    }
+
+    public void putSequence(String name, long currentValue) {
+        sequences.put(name, currentValue);
+    }
+
+    public Map<String, Long> getSequences() {
+        return sequences;
+    }
+
+    public static File chunkFile(File dir, String table, int index) {
+        return new File(dir, String.format("%s-%05d.chunk.gz", table.toLowerCase(), index));
+    }
+
+    public void write(File dir) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("incremental", String.valueOf(incremental));
+        properties.setProperty("exported_time", String.valueOf(exportedTimeMillis));
+        properties.setProperty("tables", StringUtils.collectionToCommaDelimitedString(tables.keySet()));
+
+        for (TableEntry table : tables.values()) {
+            String prefix = "table." + table.name + ".";
+            properties.setProperty(prefix + "columns", StringUtils.collectionToCommaDelimitedString(table.columns));
+            properties.setProperty(prefix + "sql_types", StringUtils.arrayToCommaDelimitedString(Arrays.stream(table.sqlTypes).boxed().toArray()));
+            properties.setProperty(prefix + "primary_key", table.primaryKey);
+            properties.setProperty(prefix + "parents", StringUtils.collectionToCommaDelimitedString(table.parents));
+            properties.setProperty(prefix + "rows", String.valueOf(table.rows));
+            properties.setProperty(prefix + "chunks", String.valueOf(table.chunks));
+            if (table.watermarkTime != null) {
+                properties.setProperty(prefix + "watermark.time", table.watermarkTime.toString());
+                properties.setProperty(prefix + "watermark.id", String.valueOf(table.watermarkId));
+            }
+        }
+
+        for (Map.Entry<String, Long> sequence : sequences.entrySet())
+            properties.setProperty("sequence." + sequence.getKey(), String.valueOf(sequence.getValue()));
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(dir, FILE_NAME)), StandardCharsets.UTF_8)) {
+            properties.store(writer, "DBExporter");
+        }
+    }
+
+    public static ExportManifest read(File dir) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(new FileInputStream(new File(dir, FILE_NAME)), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        ExportManifest manifest = new ExportManifest(Boolean.parseBoolean(properties.getProperty("incremental")),
+                Long.parseLong(properties.getProperty("exported_time")));
+
+        for (String name : StringUtils.commaDelimitedListToStringArray(properties.getProperty("tables"))) {
+            String prefix = "table." + name + ".";
+            TableEntry table = new TableEntry(name,
+                    Arrays.asList(StringUtils.commaDelimitedListToStringArray(properties.getProperty(prefix + "columns"))),
+                    Arrays.stream(StringUtils.commaDelimitedListToStringArray(properties.getProperty(prefix + "sql_types"))).mapToInt(Integer::parseInt).toArray(),
+                    properties.getProperty(prefix + "primary_key"),
+                    Arrays.asList(StringUtils.commaDelimitedListToStringArray(properties.getProperty(prefix + "parents"))));
+            table.rows = Long.parseLong(properties.getProperty(prefix + "rows"));
+            table.chunks = Integer.parseInt(properties.getProperty(prefix + "chunks"));
+
+            String watermarkTime = properties.getProperty(prefix + "watermark.time");
+            if (watermarkTime != null)
+                table.setWatermark(Timestamp.valueOf(watermarkTime), Long.parseLong(properties.getProperty(prefix + "watermark.id")));
+
+            manifest.addTable(table);
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("sequence."))
+                manifest.putSequence(key.substring("sequence.".length()), Long.parseLong(properties.getProperty(key)));
+        }
+
+        return manifest;
+    }
+
+    /**
+     * 테이블 하나의 export 결과. watermark는 created_time 컬럼이 있는 테이블에서 마지막으로 내보낸 (created_time, id)다.
+     */
+    public static class TableEntry {
+
+        private final String name;
+        private final List<String> columns;
+        private final int[] sqlTypes;
+        private final String primaryKey;
+        private final List<String> parents;
+
+        private long rows;
+        private int chunks;
+        private Timestamp watermarkTime;
+        private long watermarkId;
+
+        public TableEntry(String name, List<String> columns, int[] sqlTypes, String primaryKey, List<String> parents) {
+            this.name = name;
+            this.columns = columns;
+            this.sqlTypes = sqlTypes;
+            this.primaryKey = primaryKey;
+            this.parents = parents;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> getColumns() {
+            return columns;
+        }
+
+        public int[] getSqlTypes() {
+            return sqlTypes;
+        }
+
+        public List<ColumnType> getColumnTypes() {
+            List<ColumnType> types = new ArrayList<>(sqlTypes.length);
+            for (int sqlType : sqlTypes)
+                types.add(ColumnType.of(sqlType));
+            return types;
+        }
+
+        public String getPrimaryKey() {
+            return primaryKey;
+        }
+
+        public List<String> getParents() {
+            return parents;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public int getChunks() {
+            return chunks;
+        }
+
+        public void chunkWritten(int rowCount) {
+            this.rows += rowCount;
+            this.chunks++;
+        }
+
+        public boolean hasWatermark() {
+            return watermarkTime != null;
+        }
+
+        public Timestamp getWatermarkTime() {
+            return watermarkTime;
+        }
+
+        public long getWatermarkId() {
+            return watermarkId;
+        }
+
+        public void setWatermark(Timestamp time, long id) {
+            this.watermarkTime = time;
+            this.watermarkId = id;
+        }
+
+        @Override
+        public String toString() {
+            return name + " rows=" + rows + ", chunks=" + chunks + (hasWatermark() ? ", watermark=" + watermarkTime + "/" + watermarkId : "");
+        }
+    }
+}
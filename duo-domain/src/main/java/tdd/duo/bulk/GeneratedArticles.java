@@ -0,0 +1,33 @@
+package tdd.duo.bulk;
+
+import tdd.duo.domain.Article;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 부하테스트용 글을 필요할때마다 하나씩 만든다. 몇백만건을 만들어도 메모리에 한번에 올리지 않는다.
+ */
+public class GeneratedArticles implements Iterator<Article> {
+
+    private final long count;
+    private long generated;
+
+    public GeneratedArticles(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return generated < count;
+    }
+
+    @Override
+    public Article next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        generated++;
+        return new Article(null, "TestTitle_" + generated, "TestContent_" + generated);
+    }
+}
@@ -0,0 +1,41 @@
+package tdd.duo.bulk;
+
+/**
+ * 대량 입력의 진행상황. chunk가 commit 될때마다 새로 만들어 전달한다.
+ */
+public class ImportProgress {
+
+    private final long imported;
+    private final long skipped;
+    private final long elapsedMillis;
+
+    public ImportProgress(long imported, long skipped, long elapsedMillis) {
+        this.imported = imported;
+        this.skipped = skipped;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? imported * 1000 : imported * 1000 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "imported=" + imported +
+                ", skipped=" + skipped +
+                ", elapsed=" + elapsedMillis + "ms" +
+                ", rows/sec=" + getRowsPerSecond();
+    }
+}
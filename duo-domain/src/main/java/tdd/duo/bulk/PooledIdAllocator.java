@@ -0,0 +1,32 @@
+package tdd.duo.bulk;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * JPA를 거치지 않고 insert 할때 hibernate의 pooled optimizer와 같은 방식으로 sequence에서 id를 받아쓴다.
+ * sequence에서 받은 값 hi에 대해 (hi - allocationSize, hi] 구간이 이 allocator의 몫이므로 JPA가 만든 id와 겹치지 않는다.
+ */
+public class PooledIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private final int allocationSize;
+
+    private long next = 1;
+    private long max = 0;
+
+    public PooledIdAllocator(JdbcTemplate jdbcTemplate, String nextValueSql, int allocationSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = nextValueSql;
+        this.allocationSize = allocationSize;
+    }
+
+    public synchronized long next() {
+        if (next > max) {
+            max = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+            next = Math.max(1, max - allocationSize + 1);
+        }
+
+        return next++;
+    }
+}
@@ -0,0 +1,214 @@
+package tdd.duo.bulk;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * DBExporter가 파일 하나에 쓰는 행 묶음. 값을 컬럼별로 모아서(columnar) gzip으로 쓰므로 같은 종류의 값이 붙어 있어 잘 줄어든다.
+ * 정수와 시각은 앞 행과의 차이를 가변길이로 쓴다. PK 순서로 읽은 id는 대부분 1 byte가 된다.
+ * 한 chunk만 메모리에 올리므로 테이블이 커도 쓰는 메모리는 capacity에 비례한다.
+ */
+public class TableChunk {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<ColumnType> types;
+    private final Object[][] columns;
+    private int size;
+
+    public TableChunk(List<ColumnType> types, int capacity) {
+        this.types = types;
+        this.columns = new Object[types.size()][capacity];
+    }
+
+    public void add(Object[] row) {
+        if (isFull())
+            throw new IllegalStateException("chunk is full : " + size);
+
+        for (int column = 0; column < columns.length; column++)
+            columns[column][size] = row[column];
+        size++;
+    }
+
+    public Object get(int row, int column) {
+        return columns[column][row];
+    }
+
+    public Object[] getRow(int row) {
+        Object[] values = new Object[columns.length];
+        for (int column = 0; column < columns.length; column++)
+            values[column] = columns[column][row];
+        return values;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isFull() {
+        return size == columns[0].length;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(gzip, 64 * 1024));
+
+        writeVarLong(data, FORMAT_VERSION);
+        writeVarLong(data, size);
+        for (int column = 0; column < columns.length; column++)
+            writeColumn(data, types.get(column), columns[column]);
+
+        data.flush();
+        gzip.finish();
+    }
+
+    public static TableChunk readFrom(InputStream in, List<ColumnType> types) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, 64 * 1024), 64 * 1024));
+
+        long version = readVarLong(data);
+        if (version != FORMAT_VERSION)
+            throw new IOException("지원하지 않는 chunk 형식입니다 : " + version);
+
+        TableChunk chunk = new TableChunk(types, (int) readVarLong(data));
+        for (int column = 0; column < types.size(); column++)
+            readColumn(data, types.get(column), chunk.columns[column]);
+        chunk.size = chunk.columns[0].length;
+        return chunk;
+    }
+
+    //null 표시(bitmap)를 먼저 쓰고 null이 아닌 값만 이어서 쓴다
+    private void writeColumn(DataOutputStream data, ColumnType type, Object[] values) throws IOException {
+        byte[] nulls = new byte[(size + 7) / 8];
+        for (int row = 0; row < size; row++) {
+            if (values[row] == null)
+                nulls[row / 8] |= 1 << (row % 8);
+        }
+        data.write(nulls);
+
+        long previous = 0;
+        for (int row = 0; row < size; row++) {
+            Object value = values[row];
+            if (value == null)
+                continue;
+
+            switch (type) {
+                case LONG:
+                    long number = ((Number) value).longValue();
+                    writeVarLong(data, zigZag(number - previous));
+                    previous = number;
+                    break;
+                case TIMESTAMP:
+                    Timestamp timestamp = toTimestamp(value);
+                    writeVarLong(data, zigZag(timestamp.getTime() - previous));
+                    writeVarLong(data, timestamp.getNanos() % 1000000);
+                    previous = timestamp.getTime();
+                    break;
+                case DOUBLE:
+                    data.writeDouble(((Number) value).doubleValue());
+                    break;
+                case DECIMAL:
+                    writeBytes(data, value.toString().getBytes(StandardCharsets.US_ASCII));
+                    break;
+                case BOOLEAN:
+                    data.writeBoolean((Boolean) value);
+                    break;
+                case STRING:
+                    writeBytes(data, value.toString().getBytes(StandardCharsets.UTF_8));
+                    break;
+                default:
+                    writeBytes(data, (byte[]) value);
+            }
+        }
+    }
+
+    private static void readColumn(DataInputStream data, ColumnType type, Object[] values) throws IOException {
+        byte[] nulls = new byte[(values.length + 7) / 8];
+        data.readFully(nulls);
+
+        long previous = 0;
+        for (int row = 0; row < values.length; row++) {
+            if ((nulls[row / 8] & (1 << (row % 8))) != 0)
+                continue;
+
+            switch (type) {
+                case LONG:
+                    previous += unZigZag(readVarLong(data));
+                    values[row] = previous;
+                    break;
+                case TIMESTAMP:
+                    previous += unZigZag(readVarLong(data));
+                    Timestamp timestamp = new Timestamp(previous);
+                    timestamp.setNanos(timestamp.getNanos() + (int) readVarLong(data));
+                    values[row] = timestamp;
+                    break;
+                case DOUBLE:
+                    values[row] = data.readDouble();
+                    break;
+                case DECIMAL:
+                    values[row] = new BigDecimal(new String(readBytes(data), StandardCharsets.US_ASCII));
+                    break;
+                case BOOLEAN:
+                    values[row] = data.readBoolean();
+                    break;
+                case STRING:
+                    values[row] = new String(readBytes(data), StandardCharsets.UTF_8);
+                    break;
+                default:
+                    values[row] = readBytes(data);
+            }
+        }
+    }
+
+    private static Timestamp toTimestamp(Object value) {
+        return value instanceof Timestamp ? (Timestamp) value : new Timestamp(((java.util.Date) value).getTime());
+    }
+
+    private static void writeBytes(DataOutputStream data, byte[] bytes) throws IOException {
+        writeVarLong(data, bytes.length);
+        data.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream data) throws IOException {
+        byte[] bytes = new byte[(int) readVarLong(data)];
+        data.readFully(bytes);
+        return bytes;
+    }
+
+    //음수 차이도 작은 값이 되도록 부호를 맨 아래 bit로 옮긴다
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    //7 bit씩 쓰고 뒤에 더 있으면 최상위 bit를 켠다
+    private static void writeVarLong(DataOutputStream data, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream data) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = data.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("varint가 너무 깁니다");
+    }
+}
@@ -1,20 +1,32 @@
 package tdd.duo.config;
 
+import com.zaxxer.hikari.HikariDataSource;
 import org.apache.commons.dbcp2.BasicDataSource;
+import org.flywaydb.core.Flyway;
 import org.hibernate.jpa.HibernatePersistenceProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.core.env.Environment;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.util.StringUtils;
+import tdd.duo.datasource.MonitoredDataSource;
+import tdd.duo.datasource.QueryMonitor;
+import tdd.duo.datasource.QueryMonitoringDataSource;
+import tdd.duo.datasource.ReplicaRoutingDataSource;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -35,36 +47,188 @@ public class DBConfig {
     private final String PROPERTY_KEY_DB_URL = "database.url";
     private final String PROPERTY_KEY_DB_USERNAME = "database.username";
     private final String PROPERTY_KEY_DB_PASSWORD = "database.password";
+    private final String PROPERTY_KEY_REPLICA_URLS = "database.replica.urls";
+    private final String PROPERTY_KEY_REPLICA_PIN_MILLIS = "database.replica.pin_millis";
+    private final String PROPERTY_KEY_SQL_MONITOR_ENABLED = "sql.monitor.enabled";
+    private final String PROPERTY_KEY_SQL_SLOW_QUERY_THRESHOLD_MILLIS = "sql.monitor.slow_query_threshold_millis";
+    private final String PROPERTY_KEY_SQL_N_PLUS_ONE_THRESHOLD = "sql.monitor.n_plus_one_threshold";
+    private final String PROPERTY_KEY_POOL_TYPE = "database.pool.type";
+    private final String PROPERTY_KEY_POOL_PREFIX = "database.pool.";
+    private final String POOL_TYPE_DBCP2 = "dbcp2";
+    private final String POOL_TYPE_HIKARI = "hikari";
     private final String PROPERTY_KEY_JPA_DIALECT = "hibernate.dialect";
     private final String PROPERTY_KEY_DB_FORMATSQL = "hibernate.format_sql";
     private final String PROPERTY_KEY_DB_NAMING_STRATEGY = "hibernate.ejb.naming_strategy";
     private final String PROPERTY_KEY_DB_SHOWSQL = "hibernate.show_sql";
     private final String PROPERTY_KEY_DB_JPATODDL = "hibernate.hbm2ddl.auto";
+    private final String HBM2DDL_NONE = "none";
+    private final String PROPERTY_KEY_FLYWAY_ENABLED = "database.schema.flyway.enabled";
+    private final String PROPERTY_KEY_FLYWAY_LOCATIONS = "database.schema.flyway.locations";
 
+    //2차 캐시, 쿼리 캐시 설정. db.properties에 없는 값은 hibernate 기본값을 사용한다
+    private final String[] PROPERTY_KEYS_CACHE = {
+            "hibernate.cache.use_second_level_cache",
+            "hibernate.cache.use_query_cache",
+            "hibernate.cache.region.factory_class",
+            "hibernate.cache.use_structured_entries",
+            "net.sf.ehcache.configurationResourceName",
+            "hibernate.generate_statistics",
+            "javax.persistence.sharedCache.mode"
+    };
+
+    //id 생성, batch 설정
+    private final String[] PROPERTY_KEYS_BATCH = {
+            "hibernate.id.new_generator_mappings",
+            "hibernate.jdbc.batch_size",
+            "hibernate.jdbc.batch_versioned_data",
+            "hibernate.order_inserts",
+            "hibernate.order_updates"
+    };
+
+    //startup.lazy_init=true일때 @Lazy(false)가 없는 bean은 처음 쓸때 만든다
+    @Bean
+    public static LazyInitBeanFactoryPostProcessor lazyInitBeanFactoryPostProcessor() {
+        return new LazyInitBeanFactoryPostProcessor();
+    }
+
+    //primary
+    @Lazy(false)
     @Bean(destroyMethod = "close")
-    public DataSource dataSource() {
+    public MonitoredDataSource dataSource() {
+        return monitoredDataSource(environment.getProperty(PROPERTY_KEY_DB_URL));
+    }
 
-        BasicDataSource dataSource = new BasicDataSource();
+    //database.replica.urls가 비어 있으면 모두 primary로 간다
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource replicaRoutingDataSource() {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : StringUtils.commaDelimitedListToStringArray(environment.getProperty(PROPERTY_KEY_REPLICA_URLS, ""))) {
+            if (StringUtils.hasText(url))
+                replicas.add(monitoredDataSource(url.trim()));
+        }
+
+        return new ReplicaRoutingDataSource(dataSource(), replicas, environment.getProperty(PROPERTY_KEY_REPLICA_PIN_MILLIS, Long.class, 3000L));
+    }
+
+    //transaction 시작이 아니라 첫 query에서 connection을 가져온다. 그래야 readOnly 여부를 보고 primary/replica를 고를 수 있다
+    @Bean
+    public DataSource routedDataSource() {
+        DataSource routed = new LazyConnectionDataSourceProxy(replicaRoutingDataSource());
+
+        //요청별 문장 수, DB 시간, slow query, N+1 측정. 끄면 proxy를 거치지 않는다
+        if (!environment.getProperty(PROPERTY_KEY_SQL_MONITOR_ENABLED, Boolean.class, true))
+            return routed;
+
+        return new QueryMonitoringDataSource(routed, queryMonitor());
+    }
+
+    @Bean
+    public QueryMonitor queryMonitor() {
+        return new QueryMonitor(
+                environment.getProperty(PROPERTY_KEY_SQL_SLOW_QUERY_THRESHOLD_MILLIS, Long.class, 200L),
+                environment.getProperty(PROPERTY_KEY_SQL_N_PLUS_ONE_THRESHOLD, Integer.class, 10));
+    }
+
+    private MonitoredDataSource monitoredDataSource(String url) {
 
         String driverClassName = environment.getProperty(PROPERTY_KEY_DB_DRIVERCLASSNAME);
-        String url = environment.getProperty(PROPERTY_KEY_DB_URL);
         String username = environment.getProperty(PROPERTY_KEY_DB_USERNAME);
         String password = environment.getProperty(PROPERTY_KEY_DB_PASSWORD);
 
+        DataSource pool;
+        if (POOL_TYPE_HIKARI.equals(environment.getProperty(PROPERTY_KEY_POOL_TYPE, POOL_TYPE_DBCP2)))
+            pool = hikariDataSource(driverClassName, url, username, password);
+        else
+            pool = dbcp2DataSource(driverClassName, url, username, password);
+
+        return new MonitoredDataSource(pool, poolProperty("leakDetectionThresholdMillis", Long.class, 30000L));
+    }
+
+    private DataSource dbcp2DataSource(String driverClassName, String url, String username, String password) {
+        BasicDataSource dataSource = new BasicDataSource();
+
         dataSource.setDriverClassName(driverClassName);
         dataSource.setUrl(url);
         dataSource.setUsername(username);
         dataSource.setPassword(password);
 
+        dataSource.setInitialSize(poolProperty("initialSize", Integer.class, 5));
+        dataSource.setMaxTotal(poolProperty("maxTotal", Integer.class, 20));
+        dataSource.setMaxIdle(poolProperty("maxIdle", Integer.class, 20));
+        dataSource.setMinIdle(poolProperty("minIdle", Integer.class, 5));
+        dataSource.setMaxWaitMillis(poolProperty("maxWaitMillis", Long.class, 3000L));
+
+        dataSource.setValidationQuery(poolProperty("validationQuery", String.class, "SELECT 1"));
+        dataSource.setValidationQueryTimeout(poolProperty("validationQueryTimeoutSeconds", Integer.class, 1));
+        dataSource.setTestOnBorrow(poolProperty("testOnBorrow", Boolean.class, false));
+        dataSource.setTestWhileIdle(poolProperty("testWhileIdle", Boolean.class, true));
+        dataSource.setTimeBetweenEvictionRunsMillis(poolProperty("timeBetweenEvictionRunsMillis", Long.class, 30000L));
+        dataSource.setMinEvictableIdleTimeMillis(poolProperty("minEvictableIdleTimeMillis", Long.class, 60000L));
+
+        dataSource.setPoolPreparedStatements(poolProperty("poolPreparedStatements", Boolean.class, true));
+        dataSource.setMaxOpenPreparedStatements(poolProperty("maxOpenPreparedStatements", Integer.class, 100));
+
+        //반납되지 않은 connection은 pool에서 회수하고 빌려간 위치를 로그로 남긴다
+        dataSource.setRemoveAbandonedOnMaintenance(poolProperty("removeAbandoned", Boolean.class, false));
+        dataSource.setRemoveAbandonedTimeout(poolProperty("removeAbandonedTimeoutSeconds", Integer.class, 300));
+        dataSource.setLogAbandoned(poolProperty("removeAbandoned", Boolean.class, false));
+
+        return dataSource;
+    }
+
+    private DataSource hikariDataSource(String driverClassName, String url, String username, String password) {
+        HikariDataSource dataSource = new HikariDataSource();
+
+        dataSource.setDriverClassName(driverClassName);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setPoolName("duo");
+
+        dataSource.setMaximumPoolSize(poolProperty("maxTotal", Integer.class, 20));
+        dataSource.setMinimumIdle(poolProperty("minIdle", Integer.class, 5));
+        dataSource.setConnectionTimeout(poolProperty("maxWaitMillis", Long.class, 3000L));
+        dataSource.setIdleTimeout(poolProperty("minEvictableIdleTimeMillis", Long.class, 60000L));
+        dataSource.setValidationTimeout(poolProperty("validationQueryTimeoutSeconds", Integer.class, 1) * 1000L);
+        dataSource.setLeakDetectionThreshold(poolProperty("leakDetectionThresholdMillis", Long.class, 30000L));
+
         return dataSource;
     }
 
+    private <T> T poolProperty(String name, Class<T> type, T defaultValue) {
+        return environment.getProperty(PROPERTY_KEY_POOL_PREFIX + name, type, defaultValue);
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(routedDataSource());
+    }
+
+    //database.schema.flyway.enabled=true면 기동시 sql/migration의 migration을 primary에 적용한다
+    @Lazy(false)
+    @Bean
+    public Flyway flyway() {
+        Flyway flyway = new Flyway();
+        flyway.setDataSource(dataSource());
+        flyway.setLocations(StringUtils.commaDelimitedListToStringArray(environment.getProperty(PROPERTY_KEY_FLYWAY_LOCATIONS, "classpath:sql/migration")));
+
+        if (environment.getProperty(PROPERTY_KEY_FLYWAY_ENABLED, Boolean.class, false))
+            flyway.migrate();
+
+        return flyway;
+    }
+
+    @Lazy(false)
     @Bean
     public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+        //hbm2ddl.auto=validate면 migration이 끝난 schema를 검사해야 하므로 먼저 만든다
+        flyway();
+
         LocalContainerEntityManagerFactoryBean entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
 
-        entityManagerFactoryBean.setDataSource(dataSource());
+        entityManagerFactoryBean.setDataSource(routedDataSource());
         entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaDialect(new ReadOnlyHibernateJpaDialect());
         entityManagerFactoryBean.setPackagesToScan(SCANNED_PACKED_NAME);
         entityManagerFactoryBean.setPersistenceProviderClass(HibernatePersistenceProvider.class);
 
@@ -79,7 +243,22 @@ public class DBConfig {
         jpaProperties.put(jpaFormatSql, environment.getProperty(jpaFormatSql));
         jpaProperties.put(jpaNamingStrategy, environment.getProperty(jpaNamingStrategy));
         jpaProperties.put(jpaShowSql, environment.getProperty(jpaShowSql));
-        jpaProperties.put(jpaOperationMode, environment.getProperty(jpaOperationMode));
+        //none이면 넘기지 않는다. schema는 Flyway가 만든다(hibernate 4.3은 none을 모른다)
+        String ddl = environment.getProperty(jpaOperationMode);
+        if (!HBM2DDL_NONE.equals(ddl))
+            jpaProperties.put(jpaOperationMode, ddl);
+
+        for (String cacheKey : PROPERTY_KEYS_CACHE) {
+            String value = environment.getProperty(cacheKey);
+            if (value != null)
+                jpaProperties.put(cacheKey, value);
+        }
+
+        for (String batchKey : PROPERTY_KEYS_BATCH) {
+            String value = environment.getProperty(batchKey);
+            if (value != null)
+                jpaProperties.put(batchKey, value);
+        }
 
         entityManagerFactoryBean.setJpaProperties(jpaProperties);
         return entityManagerFactoryBean;
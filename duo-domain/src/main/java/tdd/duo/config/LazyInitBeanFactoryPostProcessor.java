@@ -0,0 +1,54 @@
+package tdd.duo.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * startup.lazy_init=true면 bean을 기동시가 아니라 처음 쓸때 만든다.
+ * 주기 작업처럼 기동시 만들어야 하는 bean은 class나 @Bean method에 @Lazy(false)를 붙여 둔다.
+ * 기동은 빨라지지만 처음 쓰는 요청이 느려지므로, WebServerLauncher의 warm-up과 같이 쓴다.
+ */
+public class LazyInitBeanFactoryPostProcessor implements BeanFactoryPostProcessor, EnvironmentAware {
+
+    public static final String PROPERTY_KEY_LAZY_INIT = "startup.lazy_init";
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        if (!environment.getProperty(PROPERTY_KEY_LAZY_INIT, Boolean.class, false))
+            return;
+
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+            if (beanDefinition.isAbstract() || beanDefinition.getRole() == BeanDefinition.ROLE_INFRASTRUCTURE)
+                continue;
+
+            if (!hasLazyAnnotation(beanDefinition))
+                beanDefinition.setLazyInit(true);
+        }
+    }
+
+    //@Lazy가 붙어 있으면 spring이 이미 그 값으로 설정했다
+    static boolean hasLazyAnnotation(BeanDefinition beanDefinition) {
+        if (!(beanDefinition instanceof AnnotatedBeanDefinition))
+            return false;
+
+        AnnotatedBeanDefinition annotated = (AnnotatedBeanDefinition) beanDefinition;
+        AnnotatedTypeMetadata metadata = annotated.getFactoryMethodMetadata();
+        return annotated.getMetadata().isAnnotated(Lazy.class.getName())
+                || (metadata != null && metadata.isAnnotated(Lazy.class.getName()));
+    }
+}
@@ -0,0 +1,56 @@
+package tdd.duo.config;
+
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+
+/**
+ * readOnly transaction에서는 flush mode MANUAL에 더해 session을 read-only로 연다.
+ * 읽어온 entity의 snapshot을 만들지 않으므로 dirty checking 비용과 메모리가 줄어든다.
+ */
+public class ReadOnlyHibernateJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        if (!definition.isReadOnly())
+            return transactionData;
+
+        Session session = getSession(entityManager);
+        boolean previousReadOnly = session.isDefaultReadOnly();
+        session.setDefaultReadOnly(true);
+
+        return new ReadOnlyTransactionData(transactionData, session, previousReadOnly);
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (!(transactionData instanceof ReadOnlyTransactionData)) {
+            super.cleanupTransaction(transactionData);
+            return;
+        }
+
+        ReadOnlyTransactionData readOnlyData = (ReadOnlyTransactionData) transactionData;
+        readOnlyData.session.setDefaultReadOnly(readOnlyData.previousReadOnly);
+        super.cleanupTransaction(readOnlyData.transactionData);
+    }
+
+    private static class ReadOnlyTransactionData {
+
+        private final Object transactionData;
+        private final Session session;
+        private final boolean previousReadOnly;
+
+        ReadOnlyTransactionData(Object transactionData, Session session, boolean previousReadOnly) {
+            this.transactionData = transactionData;
+            this.session = session;
+            this.previousReadOnly = previousReadOnly;
+        }
+    }
+}
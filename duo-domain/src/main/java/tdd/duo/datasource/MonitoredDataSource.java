@@ -0,0 +1,177 @@
+package tdd.duo.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import tdd.duo.metrics.Histogram;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * connection pool 앞에서 connection 획득 대기시간, 대기중인 thread 수, 반납되지 않은 connection을 측정한다.
+ * pool 구현체(dbcp2, HikariCP)와 상관없이 같은 값을 보여주기 위해 pool 밖에서 잰다.
+ */
+public class MonitoredDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final long leakDetectionThresholdMillis;
+
+    private final Histogram waitTimeMicros = new Histogram();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final LongAdder acquireFailures = new LongAdder();
+
+    //현재 빌려간 connection -> 빌려간 시각
+    private final ConcurrentMap<Connection, Long> borrowed = new ConcurrentHashMap<>();
+
+    public MonitoredDataSource(DataSource targetDataSource, long leakDetectionThresholdMillis) {
+        super(targetDataSource);
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return monitor(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return monitor(() -> super.getConnection(username, password));
+    }
+
+    private Connection monitor(ConnectionSupplier supplier) throws SQLException {
+        long start = System.nanoTime();
+        waiters.incrementAndGet();
+
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            acquireFailures.increment();
+            throw e;
+        } finally {
+            waiters.decrementAndGet();
+            waitTimeMicros.record((System.nanoTime() - start) / 1000);
+        }
+
+        Connection monitored = (Connection) Proxy.newProxyInstance(
+                MonitoredDataSource.class.getClassLoader(), new Class<?>[]{Connection.class}, new CloseTrackingHandler(connection));
+        borrowed.put(monitored, System.currentTimeMillis());
+        return monitored;
+    }
+
+    public int getWaiters() {
+        return waiters.get();
+    }
+
+    public int getBorrowed() {
+        return borrowed.size();
+    }
+
+    //leakDetectionThreshold 보다 오래 반납되지 않은 connection 수
+    public int getLeakSuspects() {
+        long threshold = System.currentTimeMillis() - leakDetectionThresholdMillis;
+        int count = 0;
+
+        for (Long borrowedTime : borrowed.values()) {
+            if (borrowedTime < threshold)
+                count++;
+        }
+
+        return count;
+    }
+
+    public Histogram getWaitTimeMicros() {
+        return waitTimeMicros;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        DataSource target = getTargetDataSource();
+
+        if (target instanceof BasicDataSource) {
+            BasicDataSource pool = (BasicDataSource) target;
+            statistics.put("type", "dbcp2");
+            statistics.put("active", pool.getNumActive());
+            statistics.put("idle", pool.getNumIdle());
+            statistics.put("max", pool.getMaxTotal());
+        } else if (target instanceof HikariDataSource) {
+            HikariDataSource pool = (HikariDataSource) target;
+            HikariPoolMXBean poolBean = pool.getHikariPoolMXBean();
+            statistics.put("type", "hikari");
+            statistics.put("active", poolBean == null ? 0 : poolBean.getActiveConnections());
+            statistics.put("idle", poolBean == null ? 0 : poolBean.getIdleConnections());
+            statistics.put("max", pool.getMaximumPoolSize());
+        }
+
+        statistics.put("borrowed", getBorrowed());
+        statistics.put("waiters", getWaiters());
+        statistics.put("leakSuspects", getLeakSuspects());
+        statistics.put("acquireFailures", acquireFailures.sum());
+        statistics.put("waitTimeMicros.count", waitTimeMicros.getCount());
+        statistics.put("waitTimeMicros.mean", waitTimeMicros.getMean());
+        statistics.put("waitTimeMicros.p50", waitTimeMicros.getValueAtPercentile(50));
+        statistics.put("waitTimeMicros.p95", waitTimeMicros.getValueAtPercentile(95));
+        statistics.put("waitTimeMicros.p99", waitTimeMicros.getValueAtPercentile(99));
+        statistics.put("waitTimeMicros.max", waitTimeMicros.getMax());
+        return statistics;
+    }
+
+    //destroyMethod로 불린다. checked 예외를 던지지 않아야 try-with-resources에서 InterruptedException 경고가 나지 않는다
+    @Override
+    public void close() {
+        DataSource target = getTargetDataSource();
+        if (!(target instanceof AutoCloseable))
+            return;
+
+        try {
+            ((AutoCloseable) target).close();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("cannot close data source", e);
+        }
+    }
+
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+
+    private class CloseTrackingHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        CloseTrackingHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if ("close".equals(name))
+                borrowed.remove(proxy);
+            else if ("equals".equals(name))
+                return proxy == args[0];
+            else if ("hashCode".equals(name))
+                return System.identityHashCode(proxy);
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package tdd.duo.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tdd.duo.metrics.Histogram;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * QueryMonitoringDataSource가 보낸 SQL을 요청 단위로 모은다.
+ * begin()과 end() 사이에 같은 thread에서 실행된 문장 수와 DB 시간을 endpoint별 히스토그램에 기록하고,
+ * 같은 select가 한 요청에서 nPlusOneThreshold 번 이상 반복되면 N+1 의심으로 남긴다.
+ * 요청 밖(flusher thread 등)의 문장은 전체 수와 slow query 로그에만 반영된다.
+ */
+public class QueryMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryMonitor.class);
+
+    public static final int MAX_LOGGED_SQL_LENGTH = 300;
+    public static final String MASKED_PARAMETER = "****";
+
+    //user 테이블의 문장은 password hash 등이 로그에 남지 않도록 bind parameter를 가린다
+    private static final Pattern MASKED_TABLE_PATTERN =
+            Pattern.compile("\\b(from|join|update|into)\\s+(\\w+\\.)?\"?user\"?(\\s|$|\\()", Pattern.CASE_INSENSITIVE);
+
+    private final long slowQueryThresholdNanos;
+    private final int nPlusOneThreshold;
+
+    private final ThreadLocal<RequestQueries> currentRequest = new ThreadLocal<>();
+    private final ConcurrentMap<String, EndpointStatistics> endpoints = new ConcurrentHashMap<>();
+
+    private final LongAdder totalStatements = new LongAdder();
+    private final LongAdder slowQueries = new LongAdder();
+
+    public QueryMonitor(long slowQueryThresholdMillis, int nPlusOneThreshold) {
+        this.slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    public void begin() {
+        currentRequest.set(new RequestQueries());
+    }
+
+    //endpoint는 "GET /article/{articleId}" 처럼 요청을 묶을 이름. begin()을 부르지 않았으면 null
+    public RequestQueries end(String endpoint) {
+        RequestQueries queries = currentRequest.get();
+        if (queries == null)
+            return null;
+
+        currentRequest.remove();
+
+        EndpointStatistics statistics = endpoints.computeIfAbsent(endpoint, name -> new EndpointStatistics());
+        statistics.statements.record(queries.getStatementCount());
+        statistics.dbTimeMicros.record(TimeUnit.NANOSECONDS.toMicros(queries.getDbTimeNanos()));
+
+        Map<String, Integer> suspects = queries.getRepeatedSelects(nPlusOneThreshold);
+        if (!suspects.isEmpty()) {
+            statistics.nPlusOne.increment();
+            Map.Entry<String, Integer> worst = Collections.max(suspects.entrySet(), Map.Entry.comparingByValue());
+            statistics.lastNPlusOneSql = worst.getValue() + "x " + abbreviate(worst.getKey());
+
+            for (Map.Entry<String, Integer> suspect : suspects.entrySet())
+                logger.warn("N+1 suspected on {} : {} times {}", endpoint, suspect.getValue(), abbreviate(suspect.getKey()));
+        }
+
+        return queries;
+    }
+
+    //현재 thread의 요청에서 지금까지 실행된 문장. 요청 밖이면 null
+    public RequestQueries getCurrentRequest() {
+        return currentRequest.get();
+    }
+
+    //비동기 요청이 다른 thread로 넘어갈때 현재 thread에서 떼어낸다. 넘겨받은 thread는 attach()로 이어서 센다
+    public RequestQueries detach() {
+        RequestQueries queries = currentRequest.get();
+        currentRequest.remove();
+        return queries;
+    }
+
+    public void attach(RequestQueries queries) {
+        if (queries == null)
+            currentRequest.remove();
+        else
+            currentRequest.set(queries);
+    }
+
+    //parameters는 statement가 계속 쓰는 list라서 slow query로 남길때만 복사한다
+    void executed(String sql, List<Object> parameters, long elapsedNanos, boolean batch) {
+        totalStatements.increment();
+
+        RequestQueries queries = currentRequest.get();
+        if (queries != null)
+            queries.add(sql, elapsedNanos, batch);
+
+        if (slowQueryThresholdNanos > 0 && elapsedNanos >= slowQueryThresholdNanos) {
+            slowQueries.increment();
+            logger.warn("slow query {}ms{} : {} {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    batch ? " (batch)" : "", abbreviate(sql), parameters == null ? "" : loggedParameters(sql, parameters));
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("statements", totalStatements.sum());
+        statistics.put("slowQueries", slowQueries.sum());
+        statistics.put("slowQueryThresholdMillis", TimeUnit.NANOSECONDS.toMillis(slowQueryThresholdNanos));
+        statistics.put("nPlusOneThreshold", nPlusOneThreshold);
+
+        Map<String, Object> endpointStatistics = new TreeMap<>();
+        for (Map.Entry<String, EndpointStatistics> endpoint : endpoints.entrySet())
+            endpointStatistics.put(endpoint.getKey(), endpoint.getValue().toMap());
+
+        statistics.put("endpoints", endpointStatistics);
+        return statistics;
+    }
+
+    public void clear() {
+        endpoints.clear();
+        totalStatements.reset();
+        slowQueries.reset();
+    }
+
+    static List<Object> loggedParameters(String sql, List<Object> parameters) {
+        if (!MASKED_TABLE_PATTERN.matcher(sql).find())
+            return new ArrayList<>(parameters);
+
+        return new ArrayList<>(Collections.nCopies(parameters.size(), MASKED_PARAMETER));
+    }
+
+    static String abbreviate(String sql) {
+        String oneLine = sql.replaceAll("\\s+", " ").trim();
+        return oneLine.length() <= MAX_LOGGED_SQL_LENGTH ? oneLine : oneLine.substring(0, MAX_LOGGED_SQL_LENGTH) + "...";
+    }
+
+    /**
+     * 한 요청에서 실행된 문장. 요청을 처리하는 thread에서만 쓴다.
+     */
+    public static class RequestQueries {
+
+        private int statementCount;
+        private long dbTimeNanos;
+        //batch가 아닌 select -> 실행 횟수
+        private final Map<String, Integer> selectCounts = new HashMap<>();
+
+        void add(String sql, long elapsedNanos, boolean batch) {
+            statementCount++;
+            dbTimeNanos += elapsedNanos;
+
+            if (!batch && sql.regionMatches(true, 0, "select", 0, 6))
+                selectCounts.merge(sql, 1, Integer::sum);
+        }
+
+        public int getStatementCount() {
+            return statementCount;
+        }
+
+        public long getDbTimeNanos() {
+            return dbTimeNanos;
+        }
+
+        //threshold 번 이상 실행된 select -> 실행 횟수
+        public Map<String, Integer> getRepeatedSelects(int threshold) {
+            Map<String, Integer> repeated = new LinkedHashMap<>();
+            if (threshold <= 0)
+                return repeated;
+
+            for (Map.Entry<String, Integer> select : selectCounts.entrySet()) {
+                if (select.getValue() >= threshold)
+                    repeated.put(select.getKey(), select.getValue());
+            }
+
+            return repeated;
+        }
+    }
+
+    private static class EndpointStatistics {
+
+        private final Histogram statements = new Histogram();
+        private final Histogram dbTimeMicros = new Histogram();
+        private final LongAdder nPlusOne = new LongAdder();
+        private volatile String lastNPlusOneSql;
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("requests", statements.getCount());
+            putPercentiles(map, "statements", statements);
+            putPercentiles(map, "dbTimeMicros", dbTimeMicros);
+            map.put("nPlusOne", nPlusOne.sum());
+            if (lastNPlusOneSql != null)
+                map.put("nPlusOne.last", lastNPlusOneSql);
+            return map;
+        }
+
+        private static void putPercentiles(Map<String, Object> map, String name, Histogram histogram) {
+            map.put(name + ".mean", histogram.getMean());
+            map.put(name + ".p50", histogram.getValueAtPercentile(50));
+            map.put(name + ".p95", histogram.getValueAtPercentile(95));
+            map.put(name + ".p99", histogram.getValueAtPercentile(99));
+            map.put(name + ".max", histogram.getMax());
+        }
+    }
+}
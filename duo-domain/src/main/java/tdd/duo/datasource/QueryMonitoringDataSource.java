@@ -0,0 +1,157 @@
+package tdd.duo.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statement의 execute*를 감싸서 실행된 SQL과 걸린 시간을 QueryMonitor에 알린다.
+ * PreparedStatement는 slow query 로그에 남기기 위해 set*으로 넘어온 bind parameter를 기억한다.
+ */
+public class QueryMonitoringDataSource extends DelegatingDataSource {
+
+    private final QueryMonitor queryMonitor;
+
+    public QueryMonitoringDataSource(DataSource targetDataSource, QueryMonitor queryMonitor) {
+        super(targetDataSource);
+        this.queryMonitor = queryMonitor;
+    }
+
+    public QueryMonitor getQueryMonitor() {
+        return queryMonitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(
+                QueryMonitoringDataSource.class.getClassLoader(), new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if ("equals".equals(name))
+                return proxy == args[0];
+            else if ("hashCode".equals(name))
+                return System.identityHashCode(proxy);
+
+            Object result = QueryMonitoringDataSource.invoke(target, method, args);
+
+            //prepareStatement(sql, ...), prepareCall(sql, ...)는 첫 인자가 SQL
+            if (result instanceof CallableStatement)
+                return wrap((Statement) result, CallableStatement.class, (String) args[0]);
+            if (result instanceof PreparedStatement)
+                return wrap((Statement) result, PreparedStatement.class, (String) args[0]);
+            if (result instanceof Statement)
+                return wrap((Statement) result, Statement.class, null);
+
+            return result;
+        }
+
+        private Statement wrap(Statement statement, Class<? extends Statement> type, String sql) {
+            return (Statement) Proxy.newProxyInstance(
+                    QueryMonitoringDataSource.class.getClassLoader(), new Class<?>[]{type}, new StatementHandler(statement, sql));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        //PreparedStatement의 SQL. 일반 Statement는 execute*의 인자로 받는다
+        private final String preparedSql;
+        private final List<Object> parameters;
+        private int batchCount;
+        private String lastBatchSql;
+
+        StatementHandler(Statement target, String preparedSql) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.parameters = preparedSql == null ? null : new ArrayList<>();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.startsWith("execute"))
+                return execute(method, args);
+
+            if (parameters != null && name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer)
+                setParameter((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+            else if ("clearParameters".equals(name) && parameters != null)
+                parameters.clear();
+            else if ("addBatch".equals(name)) {
+                batchCount++;
+                if (args != null && args.length == 1)
+                    lastBatchSql = (String) args[0];
+            } else if ("clearBatch".equals(name))
+                batchCount = 0;
+            else if ("equals".equals(name))
+                return proxy == args[0];
+            else if ("hashCode".equals(name))
+                return System.identityHashCode(proxy);
+
+            return QueryMonitoringDataSource.invoke(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            boolean batch = "executeBatch".equals(method.getName()) || "executeLargeBatch".equals(method.getName());
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+            if (sql == null)
+                sql = lastBatchSql == null ? "" : lastBatchSql;
+
+            long start = System.nanoTime();
+            try {
+                return QueryMonitoringDataSource.invoke(target, method, args);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                String logged = batch ? sql + " [batch of " + batchCount + "]" : sql;
+                queryMonitor.executed(logged, parameters, elapsed, batch);
+
+                if (batch)
+                    batchCount = 0;
+            }
+        }
+
+        //JDBC parameter index는 1부터
+        private void setParameter(int index, Object value) {
+            while (parameters.size() < index)
+                parameters.add(null);
+
+            parameters.set(index - 1, value);
+        }
+    }
+}
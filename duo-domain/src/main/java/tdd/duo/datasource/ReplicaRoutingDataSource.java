@@ -0,0 +1,183 @@
+package tdd.duo.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * readOnly transaction은 read replica로, 나머지는 primary로 보낸다.
+ * replica는 primary보다 늦게 반영되므로, 쓰기 transaction을 commit한 세션은 pinMillis 동안 primary에서 읽는다.
+ * connection을 고르는 시점에 readOnly 여부가 정해져 있어야 하므로 LazyConnectionDataSourceProxy로 감싸서 쓴다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA_PREFIX = "replica-";
+    public static final String SESSION_KEY_PINNED_UNTIL = ReplicaRoutingDataSource.class.getName() + ".pinnedUntil";
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final long pinMillis;
+    private final Map<Object, Object> targets = new HashMap<>();
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    //transaction마다 commit 후 pin을 한번만 등록하기 위한 resource key
+    private final Object pinSynchronizationKey = new Object();
+
+    private final Map<String, LongAdder> routedCounts = new LinkedHashMap<>();
+    private final LongAdder pinnedReads = new LongAdder();
+    private final LongAdder replicaFailures = new LongAdder();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long pinMillis) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas);
+        this.pinMillis = pinMillis;
+
+        targets.put(PRIMARY, primary);
+        routedCounts.put(PRIMARY, new LongAdder());
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(REPLICA_PREFIX + i, replicas.get(i));
+            routedCounts.put(REPLICA_PREFIX + i, new LongAdder());
+        }
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            pinAfterCommit();
+            return PRIMARY;
+        }
+
+        if (replicas.isEmpty())
+            return PRIMARY;
+
+        if (isPinned()) {
+            pinnedReads.increment();
+            return PRIMARY;
+        }
+
+        return REPLICA_PREFIX + Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+    }
+
+    //replica에 연결할 수 없으면 primary에서 읽는다
+    @Override
+    public Connection getConnection() throws SQLException {
+        String key = (String) determineCurrentLookupKey();
+        DataSource target = (DataSource) targets.get(key);
+
+        if (target == primary) {
+            routedCounts.get(PRIMARY).increment();
+            return primary.getConnection();
+        }
+
+        try {
+            Connection connection = target.getConnection();
+            routedCounts.get(key).increment();
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            replicaFailures.increment();
+            logger.warn("{} is unavailable, reading from primary", key, e);
+            routedCounts.get(PRIMARY).increment();
+            return primary.getConnection();
+        }
+    }
+
+    //쓰기 transaction이 commit 되어야 pin 한다. 요청 밖(배치, flusher thread)에서는 세션이 없으므로 하지 않는다
+    private void pinAfterCommit() {
+        if (pinMillis <= 0 || replicas.isEmpty())
+            return;
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || RequestContextHolder.getRequestAttributes() == null)
+            return;
+
+        if (TransactionSynchronizationManager.hasResource(pinSynchronizationKey))
+            return;
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        TransactionSynchronizationManager.bindResource(pinSynchronizationKey, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                pin(attributes);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(pinSynchronizationKey);
+            }
+        });
+    }
+
+    private void pin(RequestAttributes attributes) {
+        try {
+            attributes.setAttribute(SESSION_KEY_PINNED_UNTIL, System.currentTimeMillis() + pinMillis, RequestAttributes.SCOPE_SESSION);
+        } catch (IllegalStateException e) {
+            //요청이 이미 끝났거나 세션이 무효화된 경우
+            logger.debug("session is not available, skip pinning to primary", e);
+        }
+    }
+
+    private boolean isPinned() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null)
+            return false;
+
+        Long pinnedUntil = (Long) attributes.getAttribute(SESSION_KEY_PINNED_UNTIL, RequestAttributes.SCOPE_SESSION);
+        return pinnedUntil != null && pinnedUntil > System.currentTimeMillis();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        for (Map.Entry<String, LongAdder> count : routedCounts.entrySet())
+            statistics.put("routed." + count.getKey(), count.getValue().sum());
+
+        statistics.put("pinnedReads", pinnedReads.sum());
+        statistics.put("replicaFailures", replicaFailures.sum());
+
+        for (int i = 0; i < replicas.size(); i++) {
+            if (replicas.get(i) instanceof MonitoredDataSource)
+                statistics.put(REPLICA_PREFIX + i, ((MonitoredDataSource) replicas.get(i)).getStatistics());
+        }
+
+        return statistics;
+    }
+
+    //primary는 따로 bean으로 등록되어 있으므로 replica만 닫는다. MonitoredDataSource처럼 checked 예외는 던지지 않는다
+    @Override
+    public void close() {
+        for (DataSource replica : replicas) {
+            if (!(replica instanceof AutoCloseable))
+                continue;
+
+            try {
+                ((AutoCloseable) replica).close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("cannot close replica data source", e);
+            }
+        }
+    }
+}
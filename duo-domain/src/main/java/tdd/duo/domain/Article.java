@@ -1,20 +1,47 @@
 package tdd.duo.domain;
 
-import org.springframework.util.StringUtils;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Where;
+import tdd.duo.domain.validation.Errors;
+import tdd.duo.domain.validation.Rules;
+import tdd.duo.domain.validation.Validator;
 
 import javax.persistence.*;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Created by yoon on 15. 4. 14..
  */
 @Entity
-@Table
+//sql/migration의 index와 같게 둔다(hbm2ddl.auto=create일때 쓴다)
+@Table(indexes = {
+        @Index(name = "idx_article_deleted_time_id", columnList = "deleted_time, id desc"),
+        @Index(name = "idx_article_created_time", columnList = "created_time, id")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Where(clause = Article.NOT_DELETED)
+@DynamicUpdate
 public class Article {
 
+    //삭제된 글(tombstone)은 모든 query에서 제외한다. 실제 삭제는 TombstonePurgeService가 나중에 한다
+    public static final String NOT_DELETED = "deleted_time IS NULL";
+
+    //대량 입력(ArticleImportService)도 같은 sequence에서 ID_ALLOCATION_SIZE 단위로 id를 받아간다
+    public static final String ID_SEQUENCE_NAME = "article_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final Validator<Article> VALIDATOR = new Validator<Article>()
+            .rule("author", article -> article.author != null, "작성자 정보가 없습니다")
+            .rule("title", article -> Rules.notEmpty(article.title), "제목을 입력해 주세요")
+            .rule("content", article -> Rules.notEmpty(article.content), "내용을 입력해 주세요");
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE_NAME)
+    @SequenceGenerator(name = ID_SEQUENCE_NAME, sequenceName = ID_SEQUENCE_NAME, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -27,22 +54,38 @@ public class Article {
     @JoinColumn(name = "user_id")
     private User author;
 
-    @OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL, mappedBy = "article")
-    //@JoinColumn(name = "article_id")
+    //목록에서는 댓글을 읽지 않는다. 상세보기는 ArticleRepository.findOneWithComments로 fetch join 한다
+    @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, mappedBy = "article")
+    @OrderBy("id ASC")
+    @Where(clause = Comment.NOT_DELETED)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<Comment> comments;
 
     //TODO implement Listener Type
-    @Column(updatable = false, nullable = false)
+    //@Index의 columnList와 같은 이름을 쓰도록 컬럼명을 지정한다
+    @Column(name = "created_time", updatable = false, nullable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private Date createdTime;
 
+    @Column(name = "deleted_time")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date deletedTime;
+
+    //JPA로 수정할때마다 1씩 증가하고 update의 where 조건이 된다(optimistic lock). 상세보기의 ETag에도 들어간다
+    @Version
+    private long version;
+
     @Transient
-    private int viewCount;
+    private long viewCount;
 
-    public void setViewCount(int viewCount) {
+    public void setViewCount(long viewCount) {
         this.viewCount = viewCount;
     }
 
+    public long getViewCount() {
+        return viewCount;
+    }
+
     public Article() {}
 
     public Article(User author, String title, String content) {
@@ -67,11 +110,43 @@ public class Article {
         this.createdTime = new Date();
     }
 
+    //바뀐 값만 반영하고 바뀐게 있는지 돌려준다. @DynamicUpdate라서 바뀐 컬럼만 update 된다
+    public boolean update(String title, String content) {
+        boolean changed = false;
+
+        if (!Objects.equals(this.title, title)) {
+            this.title = title;
+            changed = true;
+        }
+
+        if (!Objects.equals(this.content, content)) {
+            this.content = content;
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    //댓글은 지우지 않는다. 글이 보이지 않으면 댓글도 보이지 않고, purge 할때 같이 지운다
+    public void delete() {
+        if (this.deletedTime == null)
+            this.deletedTime = new Date();
+    }
+
+    public boolean isDeleted() {
+        return deletedTime != null;
+    }
+
+    public Date getDeletedTime() {
+        return deletedTime;
+    }
+
     public boolean isRegistable() {
-        if (isValidAuthor() == true && isValidTitle() == true && isValidContent() == true)
-            return true;
+        return VALIDATOR.isValid(this);
+    }
 
-        return false;
+    public Errors validate() {
+        return VALIDATOR.validate(this);
     }
 
     @Override
@@ -85,24 +160,6 @@ public class Article {
                 '}';
     }
 
-    private boolean isValidContent() {
-        return isValidString(this.content) ? true : false;
-    }
-
-    private boolean isValidTitle() {
-        return isValidString(this.title) ? true : false;
-    }
-
-    private boolean isValidAuthor() {
-        return this.author != null ? true : false;
-    }
-
-    private boolean isValidString(String string) {
-        if (StringUtils.isEmpty(string))
-            return false;
-        return true;
-    }
-
     public void setAuthor(User author) {
         this.author = author;
     }
@@ -136,6 +193,15 @@ public class Article {
         return comments;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    //수정 form이 보고 있던 버전
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Date getCreatedTime() {
         return createdTime;
     }
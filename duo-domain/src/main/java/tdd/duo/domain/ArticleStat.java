@@ -0,0 +1,71 @@
+package tdd.duo.domain;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * 글목록 정렬(댓글 많은순, 조회 많은순, 최근 활동순)을 위한 글별 집계 read model.
+ * 댓글, 조회수, 글 수정때 ArticleStatService가 같이 갱신하고, 어긋난 값은 ArticleStatService.reconcile()이 원본 테이블에서 다시 계산한다.
+ */
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_article_stat_view_count", columnList = "view_count desc, article_id desc"),
+        @Index(name = "idx_article_stat_last_activity", columnList = "last_activity_time desc, article_id desc")})
+public class ArticleStat {
+
+    @Id
+    @Column(name = "article_id")
+    private Long articleId;
+
+    //목록 query에서 join 하기 위한 읽기전용 연관관계
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "article_id", insertable = false, updatable = false)
+    private Article article;
+
+    //@Index의 columnList와 같은 이름을 쓰도록 컬럼명을 지정한다
+    @Column(name = "comment_count", nullable = false)
+    private long commentCount;
+
+    @Column(name = "view_count", nullable = false)
+    private long viewCount;
+
+    //글 작성, 수정, 댓글 작성 중 가장 최근 시각
+    @Column(name = "last_activity_time", nullable = false)
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date lastActivityTime;
+
+    public ArticleStat() {}
+
+    public ArticleStat(Long articleId, long commentCount, long viewCount, Date lastActivityTime) {
+        this.articleId = articleId;
+        this.commentCount = commentCount;
+        this.viewCount = viewCount;
+        this.lastActivityTime = lastActivityTime;
+    }
+
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public long getCommentCount() {
+        return commentCount;
+    }
+
+    public long getViewCount() {
+        return viewCount;
+    }
+
+    public Date getLastActivityTime() {
+        return lastActivityTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ArticleStat{" +
+                "articleId=" + articleId +
+                ", commentCount=" + commentCount +
+                ", viewCount=" + viewCount +
+                ", lastActivityTime=" + lastActivityTime +
+                '}';
+    }
+}
@@ -1,6 +1,12 @@
 package tdd.duo.domain;
 
-import org.springframework.util.StringUtils;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.Where;
+import tdd.duo.domain.validation.Errors;
+import tdd.duo.domain.validation.Rules;
+import tdd.duo.domain.validation.Validator;
 
 import javax.persistence.*;
 import java.util.Date;
@@ -9,11 +15,30 @@ import java.util.Date;
  * Created by yoon on 15. 4. 22..
  */
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_comment_deleted_time", columnList = "deleted_time"),
+        @Index(name = "idx_comment_article_id", columnList = "article_id, deleted_time, id"),
+        @Index(name = "idx_comment_created_time", columnList = "created_time, id")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Where(clause = Comment.NOT_DELETED)
+@DynamicUpdate
 public class Comment {
 
+    public static final String NOT_DELETED = "deleted_time IS NULL";
+
+    //write-behind(CommentWriteBehindService)도 같은 sequence에서 ID_ALLOCATION_SIZE 단위로 id를 받아간다
+    public static final String ID_SEQUENCE_NAME = "comment_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final Validator<Comment> VALIDATOR = new Validator<Comment>()
+            .rule("articleId", comment -> comment.articleId != null, "댓글을 달 글 정보가 없습니다")
+            .rule("content", comment -> Rules.notEmpty(comment.content), "댓글 내용을 입력해 주세요")
+            .rule("author", comment -> comment.author != null, "작성자 정보가 없습니다");
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE_NAME)
+    @SequenceGenerator(name = ID_SEQUENCE_NAME, sequenceName = ID_SEQUENCE_NAME, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @OneToOne
@@ -27,11 +52,22 @@ public class Comment {
     private Long articleId;
 
     //TODO implement Listener Type
-    @Column(updatable = false, nullable = false)
+    //@Index의 columnList와 같은 이름을 쓰도록 컬럼명을 지정한다
+    @Column(name = "created_time", updatable = false, nullable = false)
     @Temporal(TemporalType.TIMESTAMP)
     private Date createdTime;
 
-    @ManyToOne
+    @Column(name = "deleted_time")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date deletedTime;
+
+    //같은 댓글을 동시에 지우면 한쪽만 성공한다
+    @Version
+    private long version;
+
+    //article_id는 articleId로 저장하고, 연관관계는 읽기전용으로 같은 컬럼을 사용한다
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "article_id", insertable = false, updatable = false)
     private Article article;
 
 
@@ -49,13 +85,32 @@ public class Comment {
     }
 
     public boolean canRegistable() {
-        if (StringUtils.isEmpty(content))
-            return false;
+        return VALIDATOR.isValid(this);
+    }
+
+    public Errors validate() {
+        return VALIDATOR.validate(this);
+    }
 
-        if (this.author == null)
-            return false;
+    public void delete() {
+        if (this.deletedTime == null)
+            this.deletedTime = new Date();
+    }
+
+    public boolean isDeleted() {
+        return deletedTime != null;
+    }
+
+    public long getVersion() {
+        return version;
+    }
 
-        return true;
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
     }
 
     public void setAuthor(User author) {
@@ -86,6 +141,10 @@ public class Comment {
         return createdTime;
     }
 
+    public void setCreatedTime(Date createdTime) {
+        this.createdTime = createdTime;
+    }
+
     @Override
     public String toString() {
         return "Comment{" +
@@ -1,23 +1,30 @@
 package tdd.duo.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.util.StringUtils;
 
+import tdd.duo.domain.validation.CompiledPattern;
+import tdd.duo.domain.validation.Errors;
+import tdd.duo.domain.validation.Rules;
+import tdd.duo.domain.validation.Validator;
+
 import javax.persistence.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * Created by yoon on 15. 3. 25..
  */
 @Entity
 @Table
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class User {
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private Long id;
 
-    @Column
+    @Column(unique = true)
     private String email;
 
     @Column
@@ -45,8 +52,26 @@ public class User {
     @Column
     private int age;
 
-    private static final String EMAIL_PATTERN = "^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@"
+    public static final String EMAIL_PATTERN = "^[_A-Za-z0-9-\\+]+(\\.[_A-Za-z0-9-]+)*@"
                     + "[A-Za-z0-9-]+(\\.[A-Za-z0-9]+)*(\\.[A-Za-z]{2,})$";
+    public static final int EMAIL_MAX_LENGTH = 100;
+    public static final int NAME_MAX_LENGTH = 30;
+    public static final int PASSWORD_MIN_LENGTH = 4;
+    public static final int AGE_MIN = 1;
+    public static final int AGE_MAX = 150;
+
+    private static final CompiledPattern EMAIL = new CompiledPattern(EMAIL_PATTERN);
+
+    //가입시 모든 필드의 오류를 한번에 보여준다
+    private static final Validator<User> REGISTRATION_VALIDATOR = new Validator<User>()
+            .rule("email", user -> Rules.notEmpty(user.email), "이메일을 입력해 주세요")
+            .rule("email", user -> Rules.maxLength(user.email, EMAIL_MAX_LENGTH), "이메일은 " + EMAIL_MAX_LENGTH + "자 이하로 입력해 주세요")
+            .rule("email", user -> EMAIL.matches(user.email), "이메일 형식이 올바르지 않습니다")
+            .rule("password", user -> Rules.notEmpty(user.password), "비밀번호를 입력해 주세요")
+            .rule("password", user -> Rules.minLength(user.password, PASSWORD_MIN_LENGTH), "비밀번호는 " + PASSWORD_MIN_LENGTH + "자 이상이어야 합니다")
+            .rule("name", user -> Rules.notEmpty(user.name), "닉네임을 입력해 주세요")
+            .rule("name", user -> Rules.maxLength(user.name, NAME_MAX_LENGTH), "닉네임은 " + NAME_MAX_LENGTH + "자 이하로 입력해 주세요")
+            .rule("age", user -> Rules.between(user.age, AGE_MIN, AGE_MAX), "나이는 " + AGE_MIN + " ~ " + AGE_MAX + " 사이로 입력해 주세요");
 
     public User(){}
 
@@ -113,34 +138,23 @@ public class User {
         if (StringUtils.isEmpty(this.email))
             return false;
 
-        Pattern pattern = Pattern.compile(EMAIL_PATTERN);
-        Matcher matcher = pattern.matcher(this.email);
-        return matcher.matches();
+        return EMAIL.matches(this.email);
     }
 
-    public boolean canRegistable() {
-
-        if (checkEmail() && IsValidName() && IsValidAge())
-            return true;
+    public Errors validate() {
+        return REGISTRATION_VALIDATOR.validate(this);
+    }
 
-        return false;
+    public boolean canRegistable() {
+        return REGISTRATION_VALIDATOR.isValid(this);
     }
 
-    //TODO 나이제한
     public boolean IsValidAge() {
-
-        if (age <= 0)
-            return false;
-
-        return true;
+        return Rules.between(age, AGE_MIN, AGE_MAX);
     }
 
-    //TODO 길이제한
     public boolean IsValidName() {
-        if (StringUtils.isEmpty(this.name))
-            return false;
-
-        return true;
+        return Rules.notEmpty(this.name) && Rules.maxLength(this.name, NAME_MAX_LENGTH);
     }
 
     public boolean IsValidPassword() {
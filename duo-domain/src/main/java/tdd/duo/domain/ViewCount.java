@@ -8,26 +8,34 @@ import javax.persistence.*;
 @Entity
 public class ViewCount {
 
+    //조회 1건당 1 row를 쌓지 않고, article별로 누적된 조회수 1 row만 유지한다
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
-    private Long id;
+    @Column(name = "article_id")
+    private Long articleId;
 
-    @Column
-    private Long article_id;
+    @Column(nullable = false)
+    private long totalCount;
 
-    public Long getId() {
-        return id;
+    public ViewCount() {}
+
+    public ViewCount(Long articleId, long totalCount) {
+        this.articleId = articleId;
+        this.totalCount = totalCount;
+    }
+
+    public Long getArticleId() {
+        return articleId;
     }
 
-    public void setId(Long id) {
-        this.id = id;
+    public void setArticleId(Long articleId) {
+        this.articleId = articleId;
     }
 
-    public Long getArticle_id() {
-        return article_id;
+    public long getTotalCount() {
+        return totalCount;
     }
 
-    public void setArticle_id(Long article_id) {
-        this.article_id = article_id;
+    public void setTotalCount(long totalCount) {
+        this.totalCount = totalCount;
     }
-}
\ No newline at end of file
+}
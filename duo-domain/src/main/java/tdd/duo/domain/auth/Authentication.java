@@ -1,13 +1,19 @@
 package tdd.duo.domain.auth;
 
-import org.springframework.util.StringUtils;
 import tdd.duo.domain.User;
+import tdd.duo.domain.validation.Errors;
+import tdd.duo.domain.validation.Rules;
+import tdd.duo.domain.validation.Validator;
 
 /**
  * Created by yoon on 15. 4. 20..
  */
 public class Authentication {
 
+    private static final Validator<Authentication> VALIDATOR = new Validator<Authentication>()
+            .rule("id", authentication -> Rules.notEmpty(authentication.id), "아이디를 입력해 주세요")
+            .rule("password", authentication -> Rules.notEmpty(authentication.password), "비밀번호를 입력해 주세요");
+
     private String id;
     private String password;
 
@@ -31,7 +37,11 @@ public class Authentication {
     }
 
     public boolean isValid() {
-        return StringUtils.isEmpty(id) == false && StringUtils.isEmpty(password) == false;
+        return VALIDATOR.isValid(this);
+    }
+
+    public Errors validate() {
+        return VALIDATOR.validate(this);
     }
 
     public String getId() {
@@ -42,10 +52,6 @@ public class Authentication {
         return user == null ? false : isMatch(user.getEmail(), this.id);
     }
 
-    public boolean isMatchPassword(User user) {
-        return user == null ? false : isMatch(user.getPassword(), this.password);
-    }
-
     private boolean isMatch(String expected, String actual) {
 
         if (expected == null || actual == null)
@@ -58,7 +64,7 @@ public class Authentication {
     public String toString() {
         return "Authentication{" +
                 "id='" + id + '\'' +
-                ", password='" + password + '\'' +
+                ", password='" + (password == null ? null : "****") + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,134 @@
+package tdd.duo.domain.auth;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * JDK의 PBKDF2로 비밀번호를 hash 한다. 저장 형식은 $algorithm$iterations$salt$hash 이고,
+ * 알고리즘과 iterations(cost)가 hash마다 같이 저장되므로 설정을 바꿔도 기존 hash를 검증할 수 있다.
+ * 이 형식이 아닌 값은 ('$'로 시작하더라도) hash 도입 전의 평문 비밀번호로 보고, 로그인할때 다시 hash 하도록 needsRehash가 true를 돌려준다.
+ */
+public class PasswordHasher {
+
+    public static final String DEFAULT_ALGORITHM = "PBKDF2WithHmacSHA256";
+    public static final int DEFAULT_ITERATIONS = 100000;
+
+    private static final String SEPARATOR = "$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final String algorithm;
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    public PasswordHasher(String algorithm, int iterations) {
+        if (iterations <= 0)
+            throw new IllegalArgumentException("iterations must be positive : " + iterations);
+
+        //잘못된 알고리즘 이름은 기동할때 바로 알 수 있도록 한다
+        try {
+            SecretKeyFactory.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("unsupported password hash algorithm : " + algorithm, e);
+        }
+
+        this.algorithm = algorithm;
+        this.iterations = iterations;
+    }
+
+    public String hash(String rawPassword) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+
+        byte[] hash = pbkdf2(algorithm, iterations, salt, rawPassword);
+
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return SEPARATOR + algorithm + SEPARATOR + iterations + SEPARATOR + encoder.encodeToString(salt) + SEPARATOR + encoder.encodeToString(hash);
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null)
+            return false;
+
+        EncodedPassword encoded = EncodedPassword.parse(encodedPassword);
+        if (encoded == null)
+            return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8), encodedPassword.getBytes(StandardCharsets.UTF_8));
+
+        byte[] actual = pbkdf2(encoded.algorithm, encoded.iterations, encoded.salt, rawPassword);
+
+        //일치하는 앞부분의 길이로 비밀번호를 추측할 수 없도록 항상 끝까지 비교한다
+        return MessageDigest.isEqual(encoded.hash, actual);
+    }
+
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null)
+            return true;
+
+        EncodedPassword encoded = EncodedPassword.parse(encodedPassword);
+        return encoded == null || !algorithm.equals(encoded.algorithm) || iterations != encoded.iterations;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    private static byte[] pbkdf2(String algorithm, int iterations, byte[] salt, String rawPassword) {
+        PBEKeySpec spec = new PBEKeySpec(rawPassword.toCharArray(), salt, iterations, HASH_BITS);
+
+        try {
+            return SecretKeyFactory.getInstance(algorithm).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static class EncodedPassword {
+
+        private final String algorithm;
+        private final int iterations;
+        private final byte[] salt;
+        private final byte[] hash;
+
+        private EncodedPassword(String algorithm, int iterations, byte[] salt, byte[] hash) {
+            this.algorithm = algorithm;
+            this.iterations = iterations;
+            this.salt = salt;
+            this.hash = hash;
+        }
+
+        //$<algorithm>$<iterations>$<salt>$<hash> 형식이 아니면 null
+        static EncodedPassword parse(String encodedPassword) {
+            if (!encodedPassword.startsWith(SEPARATOR))
+                return null;
+
+            String[] parts = encodedPassword.split("\\" + SEPARATOR, -1);
+            if (parts.length != 5 || parts[1].isEmpty())
+                return null;
+
+            try {
+                int iterations = Integer.parseInt(parts[2]);
+                Base64.Decoder decoder = Base64.getDecoder();
+                byte[] salt = decoder.decode(parts[3]);
+                byte[] hash = decoder.decode(parts[4]);
+                if (iterations <= 0 || salt.length == 0 || hash.length == 0)
+                    return null;
+
+                return new EncodedPassword(parts[1], iterations, salt, hash);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+}
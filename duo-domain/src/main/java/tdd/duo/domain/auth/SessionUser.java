@@ -0,0 +1,57 @@
+package tdd.duo.domain.auth;
+
+import tdd.duo.domain.User;
+
+import java.io.Serializable;
+
+/**
+ * 세션에 보관하는 로그인 사용자 정보. 비밀번호 등은 담지 않고 변경되지 않는다.
+ */
+public final class SessionUser implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String email;
+    private final String name;
+
+    public SessionUser(Long id, String email, String name) {
+        this.id = id;
+        this.email = email;
+        this.name = name;
+    }
+
+    public static SessionUser from(User user) {
+        return new SessionUser(user.getId(), user.getEmail(), user.getName());
+    }
+
+    //author 연관관계 설정과 작성자 비교에 필요한 값만 채운 detached User
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        user.setName(name);
+        return user;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionUser{" +
+                "id=" + id +
+                ", email='" + email + '\'' +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,34 @@
+package tdd.duo.domain.validation;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 한번만 compile 한 정규식. thread마다 Matcher를 하나씩 두고 reset 해서 쓰므로 매칭할때 객체를 만들지 않는다.
+ */
+public final class CompiledPattern {
+
+    private final Pattern pattern;
+    private final ThreadLocal<Matcher> matchers;
+
+    public CompiledPattern(String regex) {
+        this.pattern = Pattern.compile(regex);
+        this.matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+    }
+
+    public boolean matches(CharSequence input) {
+        if (input == null)
+            return false;
+
+        Matcher matcher = matchers.get().reset(input);
+        boolean matches = matcher.matches();
+
+        //입력 문자열을 thread local에 붙잡아두지 않는다
+        matcher.reset("");
+        return matches;
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+}
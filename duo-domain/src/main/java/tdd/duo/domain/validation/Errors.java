@@ -0,0 +1,48 @@
+package tdd.duo.domain.validation;
+
+import java.util.*;
+
+/**
+ * Validator.validate의 결과. 오류가 없으면 항상 NONE을 돌려주므로 성공한 경우에는 객체를 만들지 않는다.
+ */
+public final class Errors {
+
+    public static final Errors NONE = new Errors(Collections.emptyList());
+
+    private final List<FieldError> fieldErrors;
+
+    Errors(List<FieldError> fieldErrors) {
+        this.fieldErrors = Collections.unmodifiableList(fieldErrors);
+    }
+
+    public boolean hasErrors() {
+        return !fieldErrors.isEmpty();
+    }
+
+    public List<FieldError> getFieldErrors() {
+        return fieldErrors;
+    }
+
+    public FieldError getFieldError(String field) {
+        for (FieldError fieldError : fieldErrors) {
+            if (fieldError.getField().equals(field))
+                return fieldError;
+        }
+
+        return null;
+    }
+
+    //필드 이름 -> 메시지. jsp에서 ${fieldErrors.email} 처럼 쓴다
+    public Map<String, String> toMap() {
+        Map<String, String> messages = new LinkedHashMap<>();
+        for (FieldError fieldError : fieldErrors)
+            messages.put(fieldError.getField(), fieldError.getMessage());
+
+        return messages;
+    }
+
+    @Override
+    public String toString() {
+        return fieldErrors.toString();
+    }
+}
@@ -0,0 +1,28 @@
+package tdd.duo.domain.validation;
+
+/**
+ * 검증에 실패한 필드와 사용자에게 보여줄 메시지. 규칙마다 하나씩 미리 만들어두고 재사용한다.
+ */
+public final class FieldError {
+
+    private final String field;
+    private final String message;
+
+    public FieldError(String field, String message) {
+        this.field = field;
+        this.message = message;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return field + " : " + message;
+    }
+}
@@ -0,0 +1,28 @@
+package tdd.duo.domain.validation;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Validator 규칙에서 자주 쓰는 검사.
+ */
+public final class Rules {
+
+    private Rules() {}
+
+    public static boolean notEmpty(String value) {
+        return !StringUtils.isEmpty(value);
+    }
+
+    //비어있으면 true. 빈 값은 notEmpty 규칙에서 따로 검사한다
+    public static boolean maxLength(String value, int maxLength) {
+        return value == null || value.length() <= maxLength;
+    }
+
+    public static boolean minLength(String value, int minLength) {
+        return value != null && value.length() >= minLength;
+    }
+
+    public static boolean between(int value, int min, int max) {
+        return min <= value && value <= max;
+    }
+}
@@ -0,0 +1,80 @@
+package tdd.duo.domain.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * 도메인 객체의 입력값 검증 규칙 모음. 클래스마다 static final로 한번만 만들어서 공유한다.
+ * rule()은 자신을 바꾸지 않고 규칙을 더한 새 Validator를 돌려주므로, 만든 뒤에는 여러 thread가 같이 써도 된다.
+ * 한번의 validate 호출로 모든 필드의 오류를 모으고, 한 필드에서 앞의 규칙이 실패하면 뒤의 규칙은 건너뛴다.
+ * 규칙에는 캡처 없는 lambda를 쓰고 오류 객체도 미리 만들어두므로, 오류가 없으면 메모리를 할당하지 않는다.
+ */
+public final class Validator<T> {
+
+    private final Rule<T>[] rules;
+
+    //generic 배열은 만들 수 없어서 raw 배열로 만든다
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Validator() {
+        this(new Rule[0]);
+    }
+
+    private Validator(Rule<T>[] rules) {
+        this.rules = rules;
+    }
+
+    public Validator<T> rule(String field, Predicate<T> predicate, String message) {
+        Rule<T>[] added = Arrays.copyOf(rules, rules.length + 1);
+        added[rules.length] = new Rule<>(predicate, new FieldError(field, message));
+        return new Validator<>(added);
+    }
+
+    public Errors validate(T target) {
+        List<FieldError> fieldErrors = null;
+
+        for (Rule<T> rule : rules) {
+            if (fieldErrors != null && containsField(fieldErrors, rule.error.getField()))
+                continue;
+
+            if (rule.predicate.test(target))
+                continue;
+
+            if (fieldErrors == null)
+                fieldErrors = new ArrayList<>(rules.length);
+            fieldErrors.add(rule.error);
+        }
+
+        return fieldErrors == null ? Errors.NONE : new Errors(fieldErrors);
+    }
+
+    public boolean isValid(T target) {
+        for (Rule<T> rule : rules) {
+            if (!rule.predicate.test(target))
+                return false;
+        }
+
+        return true;
+    }
+
+    private boolean containsField(List<FieldError> fieldErrors, String field) {
+        for (int i = 0; i < fieldErrors.size(); i++) {
+            if (fieldErrors.get(i).getField().equals(field))
+                return true;
+        }
+
+        return false;
+    }
+
+    private static final class Rule<T> {
+
+        private final Predicate<T> predicate;
+        private final FieldError error;
+
+        Rule(Predicate<T> predicate, FieldError error) {
+            this.predicate = predicate;
+            this.error = error;
+        }
+    }
+}
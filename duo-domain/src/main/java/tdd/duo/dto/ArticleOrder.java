@@ -0,0 +1,26 @@
+package tdd.duo.dto;
+
+/**
+ * 글목록 정렬 기준. RECENT 외에는 article_stat에서 읽는다.
+ */
+public enum ArticleOrder {
+
+    RECENT, ACTIVE, VIEWS;
+
+    //url의 sort 값. 없거나 모르는 값이면 최신순
+    public static ArticleOrder from(String name) {
+        if (name == null)
+            return RECENT;
+
+        for (ArticleOrder order : values()) {
+            if (order.name().equalsIgnoreCase(name.trim()))
+                return order;
+        }
+
+        return RECENT;
+    }
+
+    public String getParameter() {
+        return name().toLowerCase();
+    }
+}
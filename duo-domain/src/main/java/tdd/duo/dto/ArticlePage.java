@@ -1,7 +1,5 @@
 package tdd.duo.dto;
 
-import org.springframework.data.domain.Page;
-import tdd.duo.domain.Article;
 import tdd.duo.service.ArticleService;
 
 import java.util.List;
@@ -11,59 +9,105 @@ import java.util.List;
  */
 public class ArticlePage {
 
+    private final int current;
+    private final int start;
+    private final int end;
+    private final int totalEnd;
+    private final int pageSize;
+    private final int pageWindow;
 
-    private Page<Article> page;
+    private final List<ArticleSummary> articles;
 
-    private int current;
-    private int start;
-    private int end;
-    private int totalEnd;
+    //cursor(keyset) 모드에서만 사용
+    private final boolean cursorMode;
+    private final boolean hasNext;
+    private final Long nextLastSeenId;
 
-    private List<Article> articles;
-
-    public ArticlePage(int start, int current, int end, int totalEnd, List<Article> list) {
+    public ArticlePage(int start, int current, int end, int totalEnd, List<ArticleSummary> list) {
         this.start = start;
         this.current = current;
         this.end = end;
         this.totalEnd = totalEnd;
+        this.pageSize = ArticleService.PAGE_PER_ARTICLE_NUMBER;
+        this.pageWindow = ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER;
+        this.articles = list;
+        this.cursorMode = false;
+        this.hasNext = false;
+        this.nextLastSeenId = null;
+    }
+
+    //totalPages는 ArticleCountService의 근사값이라 만들때 한번 계산해두고, 글이 없는 게시판(0 페이지)도 다시 세지 않는다
+    public ArticlePage(List<ArticleSummary> list, int current, int totalPages, int pageSize, int pageWindow) {
+        //보고있는 페이지에 글이 있으면 근사값이 작더라도 그 페이지까지는 있다
+        int totalEnd = list.isEmpty() ? totalPages : Math.max(totalPages, current);
+
+        this.start = Math.max(1, current);
+        this.current = current;
+        this.end = Math.min(current + pageWindow, totalEnd);
+        this.totalEnd = totalEnd;
+        this.pageSize = pageSize;
+        this.pageWindow = pageWindow;
+        this.articles = list;
+        this.cursorMode = false;
+        this.hasNext = false;
+        this.nextLastSeenId = null;
+    }
+
+    public ArticlePage(List<ArticleSummary> list, boolean hasNext, int approximateTotalEnd) {
+        this(list, hasNext, approximateTotalEnd, ArticleService.PAGE_PER_ARTICLE_NUMBER);
+    }
+
+    public ArticlePage(List<ArticleSummary> list, boolean hasNext, int approximateTotalEnd, int pageSize) {
+        this.start = 0;
+        this.current = 0;
+        this.end = 0;
+        this.totalEnd = approximateTotalEnd;
+        this.pageSize = pageSize;
+        this.pageWindow = 0;
         this.articles = list;
+        this.cursorMode = true;
+        this.hasNext = hasNext;
+        this.nextLastSeenId = hasNext && !list.isEmpty() ? list.get(list.size() - 1).getId() : null;
     }
 
-    public List<Article> getArticles() {
-        if (this.articles == null)
-            this.articles = this.page.getContent();
+    public List<ArticleSummary> getArticles() {
         return articles;
     }
 
-    public ArticlePage(Page<Article> page) {
-        this.page = page;
+    public boolean isCursorMode() {
+        return cursorMode;
     }
 
-    public int getCurrentPage() {
-        if (this.current == 0)
-            this.current = this.page.getNumber() + 1;
+    public boolean hasNext() {
+        return hasNext;
+    }
 
-        return this.current;
+    public Long getNextLastSeenId() {
+        return nextLastSeenId;
     }
 
-    public int getStartPage() {
-        if (this.start == 0)
-            this.start = Math.max(1, getCurrentPage());
+    public int getCurrentPage() {
+        return current;
+    }
 
-        return this.start;
+    public int getStartPage() {
+        return start;
     }
 
     public int getEndPage() {
-        if (this.end == 0)
-            this.end = Math.min(getCurrentPage() + ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER, this.page.getTotalPages());
-
         return end;
     }
 
     public int getTotalEndPage() {
+        return totalEnd;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
 
-        if (this.totalEnd == 0)
-            this.totalEnd = this.page.getTotalPages();
-        return this.totalEnd;
+    //페이지 이동 링크에 현재 페이지 뒤로 보여줄 페이지 수. 이전, 다음 묶음으로 갈때도 이만큼 이동한다
+    public int getPageWindow() {
+        return pageWindow;
     }
 }
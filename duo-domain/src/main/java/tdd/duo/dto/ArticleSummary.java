@@ -0,0 +1,64 @@
+package tdd.duo.dto;
+
+import java.util.Date;
+
+/**
+ * 글목록에 보여줄 값만 담는 projection. 댓글 목록이나 작성자 entity를 읽지 않고 query 한번으로 만든다.
+ */
+public class ArticleSummary {
+
+    private Long id;
+    private String title;
+    private String authorName;
+    private Date createdTime;
+    private long commentCount;
+    private long viewCount;
+
+    public ArticleSummary(Long id, String title, String authorName, Date createdTime, Long commentCount) {
+        this.id = id;
+        this.title = title;
+        this.authorName = authorName;
+        this.createdTime = createdTime;
+        this.commentCount = commentCount == null ? 0 : commentCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthorName() {
+        return authorName;
+    }
+
+    public Date getCreatedTime() {
+        return createdTime;
+    }
+
+    public long getCommentCount() {
+        return commentCount;
+    }
+
+    public long getViewCount() {
+        return viewCount;
+    }
+
+    public void setViewCount(long viewCount) {
+        this.viewCount = viewCount;
+    }
+
+    @Override
+    public String toString() {
+        return "ArticleSummary{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", authorName='" + authorName + '\'' +
+                ", createdTime=" + createdTime +
+                ", commentCount=" + commentCount +
+                ", viewCount=" + viewCount +
+                '}';
+    }
+}
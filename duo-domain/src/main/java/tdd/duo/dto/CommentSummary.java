@@ -0,0 +1,54 @@
+package tdd.duo.dto;
+
+import java.util.Date;
+
+/**
+ * 댓글 API(JSON)로 내려주는 값. 작성자 entity 대신 이름만 담는다.
+ */
+public class CommentSummary {
+
+    private Long id;
+    private Long articleId;
+    private String authorName;
+    private String content;
+    private Date createdTime;
+
+    public CommentSummary(Long id, Long articleId, String authorName, String content, Date createdTime) {
+        this.id = id;
+        this.articleId = articleId;
+        this.authorName = authorName;
+        this.content = content;
+        this.createdTime = createdTime;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    public String getAuthorName() {
+        return authorName;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public Date getCreatedTime() {
+        return createdTime;
+    }
+
+    @Override
+    public String toString() {
+        return "CommentSummary{" +
+                "id=" + id +
+                ", articleId=" + articleId +
+                ", authorName='" + authorName + '\'' +
+                ", content='" + content + '\'' +
+                ", createdTime=" + createdTime +
+                '}';
+    }
+}
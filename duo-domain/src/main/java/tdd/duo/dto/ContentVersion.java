@@ -0,0 +1,31 @@
+package tdd.duo.dto;
+
+/**
+ * 응답의 조건부 요청 검증값. etag는 따옴표를 포함한 헤더 값 그대로다.
+ */
+public class ContentVersion {
+
+    private final String etag;
+    private final long lastModified;
+
+    public ContentVersion(String etag, long lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "ContentVersion{" +
+                "etag=" + etag +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
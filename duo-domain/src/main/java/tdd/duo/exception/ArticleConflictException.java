@@ -0,0 +1,23 @@
+package tdd.duo.exception;
+
+import tdd.duo.domain.Article;
+
+/**
+ * 수정하려던 버전 이후에 다른 사용자가 글을 먼저 수정했다. 다시 시도하지 않고 최신 글(알 수 있으면)과 함께 돌려준다.
+ */
+public class ArticleConflictException extends ArticleModificationException {
+
+    public static final String CONFLICT_MESSAGE = "다른 사용자가 먼저 글을 수정했습니다. 최신 내용을 확인한 뒤 다시 수정해 주세요";
+
+    private final Article currentArticle;
+
+    public ArticleConflictException(Article currentArticle) {
+        super(CONFLICT_MESSAGE);
+        this.currentArticle = currentArticle;
+    }
+
+    //update 도중에 충돌하면 null
+    public Article getCurrentArticle() {
+        return currentArticle;
+    }
+}
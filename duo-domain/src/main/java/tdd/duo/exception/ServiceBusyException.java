@@ -0,0 +1,11 @@
+package tdd.duo.exception;
+
+/**
+ * 처리할 수 있는 양을 넘는 요청이 몰려서 바로 거절한 경우. 잠시 후 다시 시도하면 된다.
+ */
+public class ServiceBusyException extends Exception {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package tdd.duo.exception;
+
+import tdd.duo.domain.validation.Errors;
+
+/**
+ * 입력값 검증 실패. 기존 IllegalArgumentException 처리와 호환되도록 상속하고, 필드별 오류를 함께 전달한다.
+ */
+public class ValidationException extends IllegalArgumentException {
+
+    private final Errors errors;
+
+    public ValidationException(Errors errors) {
+        super(errors.toString());
+        this.errors = errors;
+    }
+
+    public Errors getErrors() {
+        return errors;
+    }
+}
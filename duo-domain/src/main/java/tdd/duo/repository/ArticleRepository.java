@@ -1,10 +1,15 @@
 package tdd.duo.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import tdd.duo.domain.Article;
+import tdd.duo.dto.ArticleSummary;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -12,6 +17,24 @@ import java.util.List;
  */
 public interface ArticleRepository extends JpaRepository<Article, Long> {
 
-    @Query("SELECT a FROM Article as a WHERE a.title LIKE '%:query%' OR a.content LIKE '%:query%'")
-    List<Article> findsByQueryStringFromTitleAndContent(@Param("query") String query);
-}
\ No newline at end of file
+    String SUMMARY_SELECT = "SELECT new tdd.duo.dto.ArticleSummary(a.id, a.title, u.name, a.createdTime, COUNT(c.id)) " +
+            "FROM Article as a LEFT JOIN a.author as u LEFT JOIN a.comments as c ";
+    String SUMMARY_GROUP_BY = " GROUP BY a.id, a.title, u.name, a.createdTime";
+
+    //자주 보는 앞쪽 목록 페이지는 query cache에서 읽는다. article, comment, user 테이블이 변경되면 hibernate가 무효화한다
+    //전체 페이지 수는 ArticleCountService가 알고 있으므로 count 쿼리를 하지 않는다
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query(SUMMARY_SELECT + SUMMARY_GROUP_BY)
+    List<ArticleSummary> findSummaries(Pageable pageable);
+
+    //offset과 count 없이 마지막으로 본 글번호 다음부터 seek 한다
+    @Query(SUMMARY_SELECT + "WHERE a.id < :lastSeenId" + SUMMARY_GROUP_BY + " ORDER BY a.id DESC")
+    List<ArticleSummary> findSummariesByIdLessThan(@Param("lastSeenId") Long lastSeenId, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "WHERE a.id IN :ids" + SUMMARY_GROUP_BY)
+    List<ArticleSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    //상세보기에서만 댓글과 댓글 작성자를 한번에 읽어온다
+    @Query("SELECT DISTINCT a FROM Article as a LEFT JOIN FETCH a.author LEFT JOIN FETCH a.comments as c LEFT JOIN FETCH c.author WHERE a.id = :id")
+    Article findOneWithComments(@Param("id") Long id);
+}
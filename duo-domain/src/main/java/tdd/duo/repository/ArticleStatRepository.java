@@ -0,0 +1,25 @@
+package tdd.duo.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import tdd.duo.domain.ArticleStat;
+import tdd.duo.dto.ArticleSummary;
+
+import java.util.List;
+
+/**
+ * article_stat의 index 순서대로 읽으므로 댓글, 조회수를 집계하지 않고 정렬된 목록을 만든다.
+ * 전체 페이지 수는 ArticleCountService의 글 수로 계산하므로 count 쿼리를 하지 않는다.
+ */
+public interface ArticleStatRepository extends JpaRepository<ArticleStat, Long> {
+
+    String SUMMARY_SELECT = "SELECT new tdd.duo.dto.ArticleSummary(a.id, a.title, u.name, a.createdTime, s.commentCount) " +
+            "FROM ArticleStat as s JOIN s.article as a LEFT JOIN a.author as u ";
+
+    @Query(SUMMARY_SELECT + "ORDER BY s.viewCount DESC, s.articleId DESC")
+    List<ArticleSummary> findSummariesOrderByViewCount(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "ORDER BY s.lastActivityTime DESC, s.articleId DESC")
+    List<ArticleSummary> findSummariesOrderByLastActivity(Pageable pageable);
+}
@@ -1,10 +1,21 @@
 package tdd.duo.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import tdd.duo.domain.Comment;
+import tdd.duo.dto.CommentSummary;
+
+import java.util.List;
 
 /**
  * Created by yoon on 15. 4. 22..
  */
 public interface CommentRepository extends JpaRepository<Comment, Long>{
+
+    //댓글 API는 마지막으로 받은 댓글번호(after) 다음부터 seek 한다
+    @Query("SELECT new tdd.duo.dto.CommentSummary(c.id, c.articleId, u.name, c.content, c.createdTime) " +
+            "FROM Comment as c LEFT JOIN c.author as u WHERE c.articleId = :articleId AND c.id > :after ORDER BY c.id ASC")
+    List<CommentSummary> findSummariesAfter(@Param("articleId") Long articleId, @Param("after") Long after, Pageable pageable);
 }
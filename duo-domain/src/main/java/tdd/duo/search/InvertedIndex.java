@@ -0,0 +1,133 @@
+package tdd.duo.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 글 제목/내용에 대한 메모리 역색인.
+ * term -> (글번호 -> 가중치가 반영된 출현빈도) 를 유지하고, 검색시 모든 term을 포함한 글만 tf-idf 점수순으로 돌려준다.
+ */
+public class InvertedIndex {
+
+    public static final int TITLE_WEIGHT = 3;
+    public static final int CONTENT_WEIGHT = 1;
+
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private final Map<Long, Set<String>> documentTerms = new HashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(Long id, String title, String content) {
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        addFrequencies(frequencies, title, TITLE_WEIGHT);
+        addFrequencies(frequencies, content, CONTENT_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet())
+                postings.computeIfAbsent(frequency.getKey(), term -> new HashMap<>()).put(id, frequency.getValue());
+
+            documentTerms.put(id, frequencies.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SearchResult search(String query, int offset, int limit) {
+
+        Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+        if (terms.isEmpty())
+            return SearchResult.EMPTY;
+
+        Map<Long, Double> scores;
+
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Integer>> termPostings = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Integer> posting = postings.get(term);
+                if (posting == null)
+                    return SearchResult.EMPTY;
+
+                termPostings.add(posting);
+            }
+
+            //가장 짧은 posting list를 기준으로 교집합을 구한다
+            termPostings.sort(Comparator.comparingInt(Map::size));
+            int totalDocuments = documentTerms.size();
+            scores = new HashMap<>();
+
+            candidates:
+            for (Map.Entry<Long, Integer> candidate : termPostings.get(0).entrySet()) {
+                double score = 0;
+
+                for (Map<Long, Integer> posting : termPostings) {
+                    Integer frequency = posting.get(candidate.getKey());
+                    if (frequency == null)
+                        continue candidates;
+
+                    score += frequency * Math.log(1.0 + (double) totalDocuments / posting.size());
+                }
+
+                scores.put(candidate.getKey(), score);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+
+        //점수가 같으면 최신글(글번호가 큰 글)을 먼저 보여준다
+        ranked.sort((a, b) -> {
+            int compared = Double.compare(b.getValue(), a.getValue());
+            return compared != 0 ? compared : Long.compare(b.getKey(), a.getKey());
+        });
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = offset; i < ranked.size() && i < offset + limit; i++)
+            ids.add(ranked.get(i).getKey());
+
+        return new SearchResult(ids, ranked.size());
+    }
+
+    private void removeDocument(Long id) {
+        Set<String> terms = documentTerms.remove(id);
+        if (terms == null)
+            return;
+
+        for (String term : terms) {
+            Map<Long, Integer> posting = postings.get(term);
+            posting.remove(id);
+
+            if (posting.isEmpty())
+                postings.remove(term);
+        }
+    }
+
+    private void addFrequencies(Map<String, Integer> frequencies, String text, int weight) {
+        for (String token : Tokenizer.tokenize(text))
+            frequencies.merge(token, weight, Integer::sum);
+    }
+}
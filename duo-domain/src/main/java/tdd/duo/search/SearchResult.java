@@ -0,0 +1,26 @@
+package tdd.duo.search;
+
+import java.util.Collections;
+import java.util.List;
+
+public class SearchResult {
+
+    public static final SearchResult EMPTY = new SearchResult(Collections.<Long>emptyList(), 0);
+
+    private final List<Long> ids;
+    private final int totalHits;
+
+    public SearchResult(List<Long> ids, int totalHits) {
+        this.ids = ids;
+        this.totalHits = totalHits;
+    }
+
+    //점수순으로 정렬된 글번호
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public int getTotalHits() {
+        return totalHits;
+    }
+}
@@ -0,0 +1,68 @@
+package tdd.duo.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 영문/숫자는 단어 단위로, 한글은 형태소 분석기 없이 2-gram 단위로 자른다.
+ * ("게시판글" -> "게시", "시판", "판글")
+ */
+public class Tokenizer {
+
+    private enum CharType {HANGUL, WORD, SEPARATOR}
+
+    public static List<String> tokenize(String text) {
+
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty())
+            return tokens;
+
+        String lowerText = text.toLowerCase(Locale.ROOT);
+        StringBuilder run = new StringBuilder();
+        CharType runType = CharType.SEPARATOR;
+
+        for (int i = 0; i < lowerText.length(); ) {
+            int codePoint = lowerText.codePointAt(i);
+            CharType type = typeOf(codePoint);
+
+            if (type != runType) {
+                flush(run, runType, tokens);
+                runType = type;
+            }
+
+            if (type != CharType.SEPARATOR)
+                run.appendCodePoint(codePoint);
+
+            i += Character.charCount(codePoint);
+        }
+        flush(run, runType, tokens);
+
+        return tokens;
+    }
+
+    private static CharType typeOf(int codePoint) {
+        if (Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HANGUL)
+            return CharType.HANGUL;
+
+        if (Character.isLetterOrDigit(codePoint))
+            return CharType.WORD;
+
+        return CharType.SEPARATOR;
+    }
+
+    private static void flush(StringBuilder run, CharType type, List<String> tokens) {
+
+        if (run.length() == 0)
+            return;
+
+        if (type == CharType.HANGUL && run.length() > 1) {
+            for (int i = 0; i + 1 < run.length(); i++)
+                tokens.add(run.substring(i, i + 2));
+        } else {
+            tokens.add(run.toString());
+        }
+
+        run.setLength(0);
+    }
+}
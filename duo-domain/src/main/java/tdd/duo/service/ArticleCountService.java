@@ -0,0 +1,124 @@
+package tdd.duo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tdd.duo.repository.ArticleRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 페이지 위젯에 보여줄 전체 글 수(삭제되지 않은 글). 목록 요청마다 COUNT(*)를 하지 않도록 메모리에 들고 있는다.
+ * 글 작성, 삭제, 대량 입력이 commit 되면 증감하고, DBImporter처럼 서버 밖에서 바뀐 값은 reconcile()이 주기적으로 DB에서 다시 읽어 맞춘다.
+ */
+@Service
+//startup.lazy_init=true여도 주기 작업이 돌도록 기동시 만든다
+@Lazy(false)
+public class ArticleCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArticleCountService.class);
+
+    public static final String PROPERTY_KEY_RECONCILE_INTERVAL_MILLIS = "article.count.reconcile_interval_millis";
+    public static final long DEFAULT_RECONCILE_INTERVAL_MILLIS = 10 * 60 * 1000;
+
+    //아직 DB에서 읽지 않음
+    private static final long UNKNOWN = -1;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    Environment environment;
+
+    private final AtomicLong count = new AtomicLong(UNKNOWN);
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        long interval = environment.getProperty(PROPERTY_KEY_RECONCILE_INTERVAL_MILLIS, Long.class, DEFAULT_RECONCILE_INTERVAL_MILLIS);
+        if (interval <= 0)
+            return;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "article-count-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::reconcileQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null)
+            scheduler.shutdown();
+    }
+
+    public long getApproximateCount() {
+        long current = count.get();
+        if (current == UNKNOWN)
+            return reconcile();
+
+        return current;
+    }
+
+    public int getApproximateTotalPages(int pageSize) {
+        return (int) ((getApproximateCount() + pageSize - 1) / pageSize);
+    }
+
+    public void created(long articles) {
+        adjustAfterCommit(articles);
+    }
+
+    public void deleted() {
+        adjustAfterCommit(-1);
+    }
+
+    //DB에서 다시 센 값으로 바꾸고 그 값을 돌려준다. 세는 동안 commit 된 증감은 다음 reconcile에서 맞춰진다
+    public long reconcile() {
+        long actual = articleRepository.count();
+        long previous = count.getAndSet(actual);
+
+        if (previous != UNKNOWN && previous != actual)
+            logger.info("article count reconciled : {} -> {}", previous, actual);
+        return actual;
+    }
+
+    //rollback 된 작성, 삭제는 세지 않는다
+    private void adjustAfterCommit(long delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            adjust(delta);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                adjust(delta);
+            }
+        });
+    }
+
+    //아직 읽지 않았으면 처음 읽을때 DB의 값을 쓴다
+    private void adjust(long delta) {
+        count.updateAndGet(current -> current == UNKNOWN ? UNKNOWN : Math.max(0, current + delta));
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            logger.error("article count reconcile failed", e);
+        }
+    }
+}
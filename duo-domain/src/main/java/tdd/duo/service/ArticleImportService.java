@@ -0,0 +1,146 @@
+package tdd.duo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tdd.duo.bulk.ImportProgress;
+import tdd.duo.bulk.PooledIdAllocator;
+import tdd.duo.domain.Article;
+import tdd.duo.domain.User;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 글을 JPA를 거치지 않고 JDBC batch insert로 대량 입력한다.
+ * id는 Article의 pooled sequence에서 ID_ALLOCATION_SIZE 만큼씩 미리 받아오고(PooledIdAllocator), chunk 단위로 commit 한다.
+ */
+@Service
+public class ArticleImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArticleImportService.class);
+
+    public static final String PROPERTY_KEY_CHUNK_SIZE = "article.import.chunk_size";
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO article (id, title, content, user_id, created_time, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ArticleSearchService articleSearchService;
+
+    @Autowired
+    JdbcWriteSupportService jdbcWriteSupportService;
+
+    @Autowired
+    ArticleStatService articleStatService;
+
+    @Autowired
+    ArticleCountService articleCountService;
+
+    @Autowired
+    Environment environment;
+
+    int chunkSize = DEFAULT_CHUNK_SIZE;
+    String sequenceNextValueSql;
+
+    @PostConstruct
+    public void init() {
+        this.chunkSize = environment.getProperty(PROPERTY_KEY_CHUNK_SIZE, Integer.class, DEFAULT_CHUNK_SIZE);
+
+        this.sequenceNextValueSql = jdbcWriteSupportService.getSequenceNextValueSql(Article.ID_SEQUENCE_NAME);
+    }
+
+    //author가 없는 글은 defaultAuthor로 입력한다. 입력조건에 맞지 않는 글은 건너뛴다
+    public ImportProgress importArticles(Iterator<Article> articles, User defaultAuthor, Consumer<ImportProgress> progressListener) {
+        long start = System.currentTimeMillis();
+        long imported = 0;
+        long skipped = 0;
+
+        PooledIdAllocator ids = new PooledIdAllocator(jdbcTemplate, sequenceNextValueSql, Article.ID_ALLOCATION_SIZE);
+        List<Article> chunk = new ArrayList<>(chunkSize);
+        ImportProgress progress = new ImportProgress(0, 0, 0);
+
+        while (articles.hasNext()) {
+            Article article = articles.next();
+            if (article.getAuthor() == null)
+                article.setAuthor(defaultAuthor);
+
+            if (!article.isRegistable() || article.getAuthor().getId() == null) {
+                skipped++;
+                continue;
+            }
+
+            chunk.add(article);
+            if (chunk.size() < chunkSize && articles.hasNext())
+                continue;
+
+            writeChunk(chunk, ids);
+            imported += chunk.size();
+            chunk.clear();
+
+            progress = new ImportProgress(imported, skipped, System.currentTimeMillis() - start);
+            logger.info("article import : {}", progress);
+            if (progressListener != null)
+                progressListener.accept(progress);
+        }
+
+        //마지막 글이 건너뛴 글이면 chunk가 남아있을 수 있다
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, ids);
+            imported += chunk.size();
+        }
+
+        if (imported != progress.getImported() || skipped != progress.getSkipped()) {
+            progress = new ImportProgress(imported, skipped, System.currentTimeMillis() - start);
+            if (progressListener != null)
+                progressListener.accept(progress);
+        }
+
+        logger.info("article import finished : {}", progress);
+        return progress;
+    }
+
+    private void writeChunk(List<Article> chunk, PooledIdAllocator ids) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            List<Object[]> args = new ArrayList<>(chunk.size());
+
+            for (Article article : chunk) {
+                article.setId(ids.next());
+                if (article.getCreatedTime() == null)
+                    article.setCreatedTime(now);
+
+                args.add(new Object[]{article.getId(), article.getTitle(), article.getContent(),
+                        article.getAuthor().getId(), article.getCreatedTime()});
+            }
+
+            jdbcTemplate.batchUpdate(INSERT_SQL, args);
+            articleStatService.createdAll(chunk);
+            return null;
+        });
+
+        //JDBC로 넣은 글은 hibernate가 모르므로 목록 쿼리 캐시를 비운다
+        jdbcWriteSupportService.evictQueryCache();
+        articleCountService.created(chunk.size());
+
+        //commit 된 글만 검색 색인에 넣는다
+        for (Article article : chunk)
+            articleSearchService.index(article);
+    }
+}
@@ -0,0 +1,175 @@
+package tdd.duo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tdd.duo.domain.Article;
+import tdd.duo.dto.ArticleSummary;
+import tdd.duo.repository.ArticleRepository;
+import tdd.duo.search.InvertedIndex;
+import tdd.duo.search.SearchResult;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LIKE '%query%' 대신 메모리 역색인으로 글을 검색한다.
+ * 색인은 기동시 DB에서 한번 만들고, 이후에는 글 생성/수정/삭제시 ArticleService가 갱신한다.
+ * rebuild가 읽어온 글은 읽은 뒤에 수정, 삭제되었을 수 있으므로, rebuild 중에 갱신된 글은 rebuild가 덮어쓰지 않는다.
+ * transaction 안에서 부르면 commit 된 뒤에 색인한다. rollback 된 작성, 수정, 삭제는 색인에 남지 않는다.
+ */
+@Service
+public class ArticleSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArticleSearchService.class);
+
+    public static final int QUERY_RESULT_PER_PAGE_NUMBER = 20;
+    public static final int REBUILD_CHUNK_SIZE = 1000;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    //rebuild 중에 index(), remove()로 갱신된 글. rebuild 중이 아니면 null
+    private Set<Long> changedDuringRebuild;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @PostConstruct
+    public void startRebuild() {
+        Thread rebuildThread = new Thread(this::rebuild, "article-search-index-rebuild");
+        rebuildThread.setDaemon(true);
+        rebuildThread.start();
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Page<Article> page;
+        int pageNumber = 0;
+        int skipped = 0;
+
+        writeLock.lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            writeLock.unlock();
+        }
+
+        try {
+            //한번에 전체를 읽지 않고 chunk 단위로 색인한다
+            do {
+                page = articleRepository.findAll(new PageRequest(pageNumber++, REBUILD_CHUNK_SIZE, Sort.Direction.ASC, "id"));
+                for (Article article : page.getContent()) {
+                    if (!indexIfUnchanged(article))
+                        skipped++;
+                }
+            } while (page.hasNext());
+        } finally {
+            writeLock.lock();
+            try {
+                changedDuringRebuild = null;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        logger.info("article search index rebuilt : {} articles, {} changed during rebuild, {}ms",
+                index.size(), skipped, System.currentTimeMillis() - start);
+    }
+
+    public void index(Article article) {
+        if (article == null || article.getId() == null)
+            return;
+
+        afterCommit(() -> indexNow(article));
+    }
+
+    public void remove(Long articleId) {
+        afterCommit(() -> removeNow(articleId));
+    }
+
+    private void indexNow(Article article) {
+        writeLock.lock();
+        try {
+            markChanged(article.getId());
+            index.put(article.getId(), article.getTitle(), article.getContent());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void removeNow(Long articleId) {
+        writeLock.lock();
+        try {
+            markChanged(articleId);
+            index.remove(articleId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    //rebuild가 읽은 뒤에 갱신된 글이면 예전 내용으로 덮어쓰지 않는다
+    private boolean indexIfUnchanged(Article article) {
+        writeLock.lock();
+        try {
+            if (changedDuringRebuild.contains(article.getId()))
+                return false;
+
+            index.put(article.getId(), article.getTitle(), article.getContent());
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void markChanged(Long articleId) {
+        if (changedDuringRebuild != null)
+            changedDuringRebuild.add(articleId);
+    }
+
+    //transaction 안이면 commit 된 뒤에 반영한다. rollback 되면 반영하지 않는다
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    public List<ArticleSummary> search(String query, int pageNumber) {
+
+        if (pageNumber <= 0)
+            throw new IllegalArgumentException();
+
+        SearchResult result = index.search(query, (pageNumber - 1) * QUERY_RESULT_PER_PAGE_NUMBER, QUERY_RESULT_PER_PAGE_NUMBER);
+        if (result.getIds().isEmpty())
+            return new ArrayList<>();
+
+        Map<Long, ArticleSummary> articles = new HashMap<>();
+        for (ArticleSummary article : articleRepository.findSummariesByIds(result.getIds()))
+            articles.put(article.getId(), article);
+
+        //IN 조회는 순서를 보장하지 않으므로 점수순으로 다시 정렬한다
+        List<ArticleSummary> ranked = new ArrayList<>(result.getIds().size());
+        for (Long id : result.getIds()) {
+            ArticleSummary article = articles.get(id);
+            if (article != null)
+                ranked.add(article);
+        }
+
+        return ranked;
+    }
+}
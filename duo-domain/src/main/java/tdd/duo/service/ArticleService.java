@@ -1,21 +1,33 @@
 package tdd.duo.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import tdd.duo.bulk.ArticleRecordReader;
+import tdd.duo.bulk.GeneratedArticles;
+import tdd.duo.bulk.ImportProgress;
 import tdd.duo.domain.Article;
 import tdd.duo.domain.User;
+import tdd.duo.dto.ArticleOrder;
 import tdd.duo.dto.ArticlePage;
+import tdd.duo.dto.ContentVersion;
+import tdd.duo.dto.ArticleSummary;
+import tdd.duo.exception.ArticleConflictException;
 import tdd.duo.exception.ArticleCreationException;
 import tdd.duo.exception.ArticleModificationException;
 import tdd.duo.exception.ArticleNotFoundException;
 import tdd.duo.repository.ArticleRepository;
+import tdd.duo.repository.ArticleStatRepository;
 
 import javax.naming.AuthenticationException;
+import java.io.Reader;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Created by yoon on 15. 4. 14..
@@ -27,6 +39,9 @@ public class ArticleService {
     public static final String INVALID_REQUEST_EXCEPTION_MESSAGE = "잘못된 요청입니다";
     public static final int PAGE_PER_ARTICLE_NUMBER = 5;
     public static final int PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER = 5;
+    //요청마다 바꿀 수 있는 페이지 크기와 페이지 이동 링크 수의 상한
+    public static final int MAX_PAGE_PER_ARTICLE_NUMBER = 50;
+    public static final int MAX_PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER = 20;
 
     @Autowired
     private ArticleRepository articleRepository;
@@ -34,26 +49,79 @@ public class ArticleService {
     @Autowired
     private SessionService sessionService;
 
+    @Autowired
+    private ViewCountService viewCountService;
+
+    @Autowired
+    private ArticleCountService articleCountService;
+
+    @Autowired
+    private ArticleSearchService articleSearchService;
+
+    @Autowired
+    private ArticleImportService articleImportService;
+
+    @Autowired
+    private ArticleStatRepository articleStatRepository;
+
+    @Autowired
+    private ArticleStatService articleStatService;
+
+    @Autowired
+    private ArticleVersionService articleVersionService;
+
+    @Transactional
     public void create(Article article) throws ArticleCreationException {
 
         User user = sessionService.getCurrentUser();
         article.setAuthor(user);
 
         //새로 업로드요청한 데이터의 정합성 체크
-        if (article.isRegistable())
-            articleRepository.save(article);
-        else
+        if (!article.isRegistable())
             throw new ArticleCreationException(VALIDATION_EXCEPTION_MESSAGE);
+
+        //article_stat은 article을 참조하므로 글을 먼저 insert 한다
+        Article saved = articleRepository.saveAndFlush(article);
+        articleStatService.created(saved);
+        articleCountService.created(1);
+        articleSearchService.index(saved);
+        articleVersionService.listChanged();
+    }
+
+    //create를 반복 호출하지 않고 JDBC batch로 입력한다. 작성자가 없는 글은 현재 로그인한 사용자의 글이 된다
+    public ImportProgress importArticles(Iterator<Article> articles) {
+        ImportProgress progress = articleImportService.importArticles(articles, sessionService.getCurrentUser(), null);
+        articleVersionService.listChanged();
+        return progress;
+    }
+
+    public ImportProgress importArticles(Reader reader, ArticleRecordReader.Format format) {
+        return importArticles(new ArticleRecordReader(reader, format));
+    }
+
+    public ImportProgress generateArticles(long count) {
+        return importArticles(new GeneratedArticles(count));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ArticleSummary> findsByQueryString(String query) {
+        return findsByQueryString(query, 1);
     }
 
-    public List<Article> findsByQueryString(String query) {
+    @Transactional(readOnly = true)
+    public List<ArticleSummary> findsByQueryString(String query, int pageNumber) {
 
         if (StringUtils.isEmpty(query))
             return null;
 
-        return articleRepository.findsByQueryStringFromTitleAndContent(query);
+        List<ArticleSummary> articles = articleSearchService.search(query, pageNumber);
+        viewCountService.fillViewCounts(articles);
+
+        return articles;
     }
 
+    //requestArticle의 version은 수정 form이 보고 있던 버전이다. 그 사이에 다른 수정이 있었으면 ArticleConflictException
+    @Transactional(rollbackFor = ArticleModificationException.class)
     public Article modify(Article requestArticle) throws ArticleModificationException {
 
         User user = sessionService.getCurrentUser();
@@ -66,55 +134,184 @@ public class ArticleService {
 
         Article article = articleRepository.findOne(requestArticle.getId());
 
-        //수정요청에 해당하는 기존의 article이 있는지 확인
-        if (article == null) {
+        //수정요청에 해당하는 기존의 article이 있는지 확인 (2차 캐시에서 읽으면 삭제된 글도 올 수 있다)
+        if (article == null || article.isDeleted()) {
             throw new ArticleModificationException(INVALID_REQUEST_EXCEPTION_MESSAGE);
         }
 
-        //기존의 article author와 현재로그인한 user가 같은지 확인
-        if (article.getAuthor().getId() != user.getId()) {
+        //기존의 article author와 현재로그인한 user가 같은지 확인 (따로 읽은 객체라서 id를 값으로 비교한다)
+        if (!Objects.equals(article.getAuthor().getId(), user.getId())) {
             throw new ArticleModificationException(INVALID_REQUEST_EXCEPTION_MESSAGE);
         }
 
-        Article modifiedArticle = articleRepository.save(requestArticle);
-        if (modifiedArticle == null)
-            throw new ArticleModificationException("예기치못한 에러발생");
+        //다시 시도해서 덮어쓰지 않고 최신 글을 돌려준다
+        if (article.getVersion() != requestArticle.getVersion())
+            throw new ArticleConflictException(article);
 
+        //요청 객체를 merge(SELECT 후 전체 컬럼 update) 하지 않고, 읽어온 글에 바뀐 값만 반영한다
+        if (!article.update(requestArticle.getTitle(), requestArticle.getContent()))
+            return article;
+
+        //UPDATE article SET <바뀐 컬럼>, version = ? WHERE id = ? AND version = ?
+        Article modifiedArticle;
+        try {
+            modifiedArticle = articleRepository.saveAndFlush(article);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ArticleConflictException(null);
+        }
+
+        articleStatService.modified(modifiedArticle.getId());
+        articleVersionService.articleChanged(modifiedArticle.getId());
+
+        articleSearchService.index(modifiedArticle);
         return modifiedArticle;
     }
 
     //TODO authenticationException을 DuoAuthenticationException으로 바꾸고, 다른곳에도 적용
-    //TODO 실제 현업에서는 글을 삭제하지 않는다. 글 상태값을 변경하는 형태로 리팩토링 하자
-    public void delete(Long articleId) throws ArticleNotFoundException, AuthenticationException {
+    //글은 deleted_time만 표시하고(update 한번), 댓글과 함께 실제로 지우는 것은 TombstonePurgeService가 한다
+    //읽은 뒤에 다른 수정이나 삭제가 먼저 commit 됐으면 ArticleConflictException
+    @Transactional(rollbackFor = ArticleConflictException.class)
+    public void delete(Long articleId) throws ArticleNotFoundException, AuthenticationException, ArticleConflictException {
 
         if (articleId == null || articleId <= 0)
             throw new ArticleNotFoundException();
 
         Article article = articleRepository.findOne(articleId);
-        if (article == null || article.getAuthor() == null)
+        if (article == null || article.isDeleted() || article.getAuthor() == null)
             throw new ArticleNotFoundException();
 
         User currentUser = sessionService.getCurrentUser();
         User author = article.getAuthor();
-        if (currentUser.getId() != author.getId())
+        //세션의 사용자와 글 작성자는 따로 읽은 객체라서 id(Long)를 값으로 비교한다
+        if (!Objects.equals(currentUser.getId(), author.getId()))
             throw new AuthenticationException();
 
-        articleRepository.delete(article);
+        //UPDATE article SET deleted_time = ?, version = ? WHERE id = ? AND version = ?
+        //충돌은 commit 때가 아니라 여기서 알아야 집계와 색인을 건드리기 전에 멈출 수 있다
+        article.delete();
+        try {
+            articleRepository.saveAndFlush(article);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ArticleConflictException(null);
+        }
+
+        articleStatService.deleted(articleId);
+        articleCountService.deleted();
+        articleSearchService.remove(articleId);
+        articleVersionService.articleChanged(articleId);
     }
 
+    @Transactional(readOnly = true)
     public Article findById(Long articleId) {
         if (articleId <= 0)
             return null;
 
-        return articleRepository.findOne(articleId);
+        long stamp = articleVersionService.beginLoad(articleId);
+
+        //query cache에 삭제 전 결과가 남아 있을 수 있다
+        Article article = articleRepository.findOneWithComments(articleId);
+        if (article == null || article.isDeleted())
+            return null;
+
+        articleVersionService.loaded(article, stamp);
+        article.setViewCount(viewCountService.increase(articleId));
+
+        return article;
+    }
+
+    //DB를 읽지 않는다. 아직 읽은 적이 없거나 그 뒤에 바뀐 글이면 null
+    public ContentVersion getArticleVersion(Long articleId) {
+        return articleVersionService.getArticleVersion(articleId);
+    }
+
+    //key는 목록 응답을 구분하는 값(정렬, 페이지 등). 목록 버전을 쓰지 않으면 null
+    public ContentVersion getListVersion(String key) {
+        return articleVersionService.getListVersion(key);
+    }
+
+    //304로 응답한 상세보기도 조회수는 올린다
+    public void countView(Long articleId) {
+        viewCountService.add(articleId);
     }
 
     //TODO Throw IllegalException, if pageNumber is exceeding limit
+    @Transactional(readOnly = true)
     public ArticlePage findsByPageNumber(int pageNumber) {
-        return new ArticlePage(articleRepository.findAll(getPageRequest(pageNumber)));
+        return findsByPageNumber(pageNumber, ArticleOrder.RECENT);
+    }
+
+    @Transactional(readOnly = true)
+    public ArticlePage findsByPageNumber(int pageNumber, ArticleOrder order) {
+        return findsByPageNumber(pageNumber, order, PAGE_PER_ARTICLE_NUMBER, PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER);
+    }
+
+    //RECENT 외의 정렬은 집계하지 않고 article_stat의 index 순서로 읽는다. 전체 페이지 수는 COUNT 없이 ArticleCountService에서 얻는다
+    @Transactional(readOnly = true)
+    public ArticlePage findsByPageNumber(int pageNumber, ArticleOrder order, int pageSize, int pageWindow) {
+        pageSize = toPageSize(pageSize);
+        pageWindow = toPageWindow(pageWindow);
+
+        List<ArticleSummary> articles;
+
+        switch (order) {
+            case ACTIVE:
+                articles = articleStatRepository.findSummariesOrderByLastActivity(new PageRequest(pageNumber - 1, pageSize));
+                break;
+            case VIEWS:
+                articles = articleStatRepository.findSummariesOrderByViewCount(new PageRequest(pageNumber - 1, pageSize));
+                break;
+            default:
+                articles = articleRepository.findSummaries(getPageRequest(pageNumber, pageSize));
+        }
+
+        viewCountService.fillViewCounts(articles);
+
+        return new ArticlePage(articles, pageNumber, articleCountService.getApproximateTotalPages(pageSize), pageSize, pageWindow);
+    }
+
+    @Transactional(readOnly = true)
+    public ArticlePage findsByLastSeenId(Long lastSeenId) {
+        return findsByLastSeenId(lastSeenId, PAGE_PER_ARTICLE_NUMBER);
+    }
+
+    @Transactional(readOnly = true)
+    public ArticlePage findsByLastSeenId(Long lastSeenId, int pageSize) {
+
+        if (lastSeenId == null || lastSeenId <= 0)
+            lastSeenId = Long.MAX_VALUE;
+
+        pageSize = toPageSize(pageSize);
+
+        //다음 페이지 존재여부를 COUNT 없이 알기 위해 한건 더 읽는다
+        List<ArticleSummary> articles = articleRepository.findSummariesByIdLessThan(lastSeenId, new PageRequest(0, pageSize + 1));
+        boolean hasNext = articles.size() > pageSize;
+        if (hasNext)
+            articles = articles.subList(0, pageSize);
+
+        viewCountService.fillViewCounts(articles);
+
+        return new ArticlePage(articles, hasNext, articleCountService.getApproximateTotalPages(pageSize), pageSize);
+    }
+
+    //요청으로 받은 값을 1 ~ MAX_PAGE_PER_ARTICLE_NUMBER 사이로 맞춘다
+    public static int toPageSize(Integer pageSize) {
+        if (pageSize == null)
+            return PAGE_PER_ARTICLE_NUMBER;
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_PER_ARTICLE_NUMBER));
+    }
+
+    //요청으로 받은 값을 1 ~ MAX_PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER 사이로 맞춘다
+    public static int toPageWindow(Integer pageWindow) {
+        if (pageWindow == null)
+            return PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER;
+        return Math.max(1, Math.min(pageWindow, MAX_PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER));
     }
 
     public PageRequest getPageRequest(int pageNumber) {
-        return new PageRequest(pageNumber - 1, PAGE_PER_ARTICLE_NUMBER, Sort.Direction.DESC, "id");
+        return getPageRequest(pageNumber, PAGE_PER_ARTICLE_NUMBER);
+    }
+
+    public PageRequest getPageRequest(int pageNumber, int pageSize) {
+        return new PageRequest(pageNumber - 1, pageSize, Sort.Direction.DESC, "id");
     }
 }
@@ -0,0 +1,160 @@
+package tdd.duo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tdd.duo.domain.Article;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * article_stat(ArticleStat)을 원본 테이블과 같이 갱신한다(write-through).
+ * 갱신은 모두 증감 update라서 동시에 호출되어도 값을 덮어쓰지 않는다.
+ * JDBC로 입력된 글처럼 row가 없거나 어긋난 값은 reconcile()이 주기적으로 원본 테이블에서 다시 계산해 맞춘다.
+ */
+@Service
+//startup.lazy_init=true여도 주기 작업이 돌도록 기동시 만든다
+@Lazy(false)
+public class ArticleStatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArticleStatService.class);
+
+    public static final String PROPERTY_KEY_RECONCILE_INTERVAL_MILLIS = "article.stat.reconcile_interval_millis";
+    public static final long DEFAULT_RECONCILE_INTERVAL_MILLIS = 60 * 60 * 1000;
+
+    private static final String INSERT_SQL = "INSERT INTO article_stat (article_id, comment_count, view_count, last_activity_time) VALUES (?, 0, 0, ?)";
+    private static final String DELETE_SQL = "DELETE FROM article_stat WHERE article_id = ?";
+    private static final String ADD_COMMENTS_SQL = "UPDATE article_stat SET comment_count = comment_count + ?, " +
+            "last_activity_time = CASE WHEN last_activity_time < ? THEN ? ELSE last_activity_time END WHERE article_id = ?";
+    private static final String REMOVE_COMMENT_SQL = "UPDATE article_stat SET comment_count = comment_count - 1 WHERE article_id = ? AND comment_count > 0";
+    private static final String ADD_VIEWS_SQL = "UPDATE article_stat SET view_count = view_count + ? WHERE article_id = ?";
+    private static final String TOUCH_SQL = "UPDATE article_stat SET " +
+            "last_activity_time = CASE WHEN last_activity_time < ? THEN ? ELSE last_activity_time END WHERE article_id = ?";
+
+    //원본 테이블에서 다시 계산한 값
+    private static final String COMMENT_COUNT_OF_S = "(SELECT COUNT(*) FROM comment c WHERE c.article_id = s.article_id AND c.deleted_time IS NULL)";
+    private static final String VIEW_COUNT_OF_S = "COALESCE((SELECT v.total_count FROM view_count v WHERE v.article_id = s.article_id), 0)";
+    //글 수정 시각은 article_stat에만 남으므로, 마지막 댓글 시각이 더 나중일때만 바꾼다
+    private static final String LAST_COMMENT_TIME_OF_S = "(SELECT MAX(c.created_time) FROM comment c WHERE c.article_id = s.article_id AND c.deleted_time IS NULL)";
+
+    private static final String RECONCILE_DELETE_SQL = "DELETE FROM article_stat WHERE NOT EXISTS (SELECT 1 FROM article a WHERE a.id = article_stat.article_id AND a.deleted_time IS NULL)";
+    private static final String RECONCILE_INSERT_SQL = "INSERT INTO article_stat (article_id, comment_count, view_count, last_activity_time) " +
+            "SELECT a.id, 0, 0, a.created_time FROM article a WHERE a.deleted_time IS NULL AND NOT EXISTS (SELECT 1 FROM article_stat s WHERE s.article_id = a.id)";
+    private static final String RECONCILE_UPDATE_SQL = "UPDATE article_stat s SET " +
+            "comment_count = " + COMMENT_COUNT_OF_S + ", view_count = " + VIEW_COUNT_OF_S + ", " +
+            "last_activity_time = CASE WHEN " + LAST_COMMENT_TIME_OF_S + " > s.last_activity_time THEN " + LAST_COMMENT_TIME_OF_S + " ELSE s.last_activity_time END " +
+            "WHERE s.comment_count <> " + COMMENT_COUNT_OF_S + " OR s.view_count <> " + VIEW_COUNT_OF_S + " OR " + LAST_COMMENT_TIME_OF_S + " > s.last_activity_time";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    Environment environment;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        long interval = environment.getProperty(PROPERTY_KEY_RECONCILE_INTERVAL_MILLIS, Long.class, DEFAULT_RECONCILE_INTERVAL_MILLIS);
+        if (interval <= 0)
+            return;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "article-stat-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::reconcileQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null)
+            scheduler.shutdown();
+    }
+
+    public void created(Article article) {
+        jdbcTemplate.update(INSERT_SQL, article.getId(), article.getCreatedTime());
+    }
+
+    //대량 입력용. 호출한 쪽의 transaction에서 글 insert와 같이 commit 된다
+    public void createdAll(List<Article> articles) {
+        List<Object[]> args = new ArrayList<>(articles.size());
+        for (Article article : articles)
+            args.add(new Object[]{article.getId(), article.getCreatedTime()});
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    public void modified(Long articleId) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update(TOUCH_SQL, now, now, articleId);
+    }
+
+    public void deleted(Long articleId) {
+        jdbcTemplate.update(DELETE_SQL, articleId);
+    }
+
+    public void commentAdded(Long articleId, Date createdTime) {
+        commentsAdded(Collections.singletonMap(articleId, 1L), createdTime);
+    }
+
+    //articleId -> 추가된 댓글 수
+    public void commentsAdded(Map<Long, Long> counts, Date createdTime) {
+        List<Object[]> args = new ArrayList<>(counts.size());
+        for (Map.Entry<Long, Long> count : counts.entrySet())
+            args.add(new Object[]{count.getValue(), createdTime, createdTime, count.getKey()});
+
+        jdbcTemplate.batchUpdate(ADD_COMMENTS_SQL, args);
+    }
+
+    public void commentRemoved(Long articleId) {
+        jdbcTemplate.update(REMOVE_COMMENT_SQL, articleId);
+    }
+
+    //articleId -> 조회수 증가분. ViewCountService가 view_count에 반영한 만큼 같이 반영한다
+    public void viewsAdded(Map<Long, Long> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Long> delta : deltas.entrySet())
+            args.add(new Object[]{delta.getValue(), delta.getKey()});
+
+        jdbcTemplate.batchUpdate(ADD_VIEWS_SQL, args);
+    }
+
+    //원본 테이블(article, comment, view_count)과 다른 row를 맞추고, 고친 row 수를 돌려준다
+    public int reconcile() {
+        long start = System.currentTimeMillis();
+
+        int[] corrected = new TransactionTemplate(transactionManager).execute(status -> new int[]{
+                jdbcTemplate.update(RECONCILE_DELETE_SQL),
+                jdbcTemplate.update(RECONCILE_INSERT_SQL),
+                jdbcTemplate.update(RECONCILE_UPDATE_SQL)});
+
+        logger.info("article stat reconciled : deleted={}, inserted={}, updated={} ({}ms)",
+                corrected[0], corrected[1], corrected[2], System.currentTimeMillis() - start);
+        return corrected[0] + corrected[1] + corrected[2];
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            logger.error("article stat reconcile failed", e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package tdd.duo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tdd.duo.domain.Article;
+import tdd.duo.dto.ContentVersion;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 상세보기와 글목록 응답의 버전(ETag, Last-Modified)을 메모리에 둔다. DB를 읽지 않고 304 응답 여부를 정하기 위해서다.
+ * 상세보기 버전은 글을 읽은 뒤에만 생기고, 글이나 댓글이 바뀌면 지워져서 다음 요청은 다시 DB에서 읽는다.
+ * 글목록 버전은 글/댓글이 바뀔때와 list_ttl_millis 마다 바뀐다(조회수는 TTL 동안 예전 값이 보일 수 있다).
+ * 서버 한대 기준이다. 다른 서버에서 바뀐 댓글은 상세보기 버전에 반영되지 않는다.
+ * 변경은 transaction이 commit 된 뒤에 반영한다. commit 전에 지우면 그 사이 예전 글을 읽은 요청이 버전을 다시 남긴다.
+ */
+@Service
+public class ArticleVersionService {
+
+    public static final String PROPERTY_KEY_MAX_ARTICLES = "response.cache.max_articles";
+    public static final String PROPERTY_KEY_LIST_TTL_MILLIS = "response.cache.list_ttl_millis";
+    public static final int DEFAULT_MAX_ARTICLES = 10000;
+    public static final long DEFAULT_LIST_TTL_MILLIS = 5000;
+
+    @Autowired
+    Environment environment;
+
+    int maxArticles = DEFAULT_MAX_ARTICLES;
+    long listTtlMillis = DEFAULT_LIST_TTL_MILLIS;
+
+    //재시작 전에 발급한 ETag와 겹치지 않도록 모든 ETag에 붙인다
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    //같은 밀리초에 바뀌어도 값이 겹치지 않도록 항상 증가하는 시각
+    private final AtomicLong clock = new AtomicLong();
+
+    //articleId -> 상세보기 버전
+    private final ConcurrentMap<Long, ArticleEntry> articleVersions = new ConcurrentHashMap<>();
+
+    private volatile long listStamp = tick();
+
+    @PostConstruct
+    public void init() {
+        this.maxArticles = environment.getProperty(PROPERTY_KEY_MAX_ARTICLES, Integer.class, DEFAULT_MAX_ARTICLES);
+        this.listTtlMillis = environment.getProperty(PROPERTY_KEY_LIST_TTL_MILLIS, Long.class, DEFAULT_LIST_TTL_MILLIS);
+    }
+
+    //글을 읽기 전에 부르고, 돌려받은 값을 loaded()에 넘긴다
+    public long beginLoad(Long articleId) {
+        if (maxArticles <= 0)
+            return 0;
+
+        //넘치면 모두 지운다. 다음 요청이 304 대신 200을 받을 뿐이다
+        if (articleVersions.size() >= maxArticles)
+            articleVersions.clear();
+
+        return articleVersions.computeIfAbsent(articleId, id -> new ArticleEntry(null, tick())).stamp;
+    }
+
+    //읽는 동안 글이나 댓글이 바뀌었으면(stamp가 다르면) 버전을 남기지 않는다
+    public void loaded(Article article, long stamp) {
+        articleVersions.computeIfPresent(article.getId(),
+                (id, entry) -> entry.stamp == stamp ? new ArticleEntry(article.getVersion(), stamp) : entry);
+    }
+
+    //아직 읽은 적이 없거나 바뀐 뒤 다시 읽지 않았으면 null
+    public ContentVersion getArticleVersion(Long articleId) {
+        ArticleEntry entry = articleVersions.get(articleId);
+        if (entry == null || entry.version == null)
+            return null;
+
+        return new ContentVersion("\"" + epoch + "-article-" + articleId + "-" + entry.version + "-" + entry.stamp + "\"", entry.stamp);
+    }
+
+    //key는 정렬, 페이지처럼 목록 응답을 구분하는 값. list_ttl_millis가 0 이하면 null
+    public ContentVersion getListVersion(String key) {
+        if (listTtlMillis <= 0)
+            return null;
+
+        long stamp = listStamp;
+        long bucket = System.currentTimeMillis() / listTtlMillis;
+
+        return new ContentVersion("\"" + epoch + "-list-" + key + "-" + stamp + "-" + bucket + "\"", Math.max(stamp, bucket * listTtlMillis));
+    }
+
+    //글 수정, 삭제
+    public void articleChanged(Long articleId) {
+        afterCommit(() -> {
+            articleVersions.remove(articleId);
+            listStamp = tick();
+        });
+    }
+
+    //댓글 수는 목록에도 보인다
+    public void commentsChanged(Long articleId) {
+        articleChanged(articleId);
+    }
+
+    //글 작성, 대량 입력처럼 특정 글의 상세보기와 상관없는 변경
+    public void listChanged() {
+        afterCommit(() -> listStamp = tick());
+    }
+
+    //transaction 안이면 commit 된 뒤에 반영한다. rollback 되면 반영하지 않는다
+    private static void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private long tick() {
+        return clock.updateAndGet(previous -> Math.max(previous + 1, System.currentTimeMillis()));
+    }
+
+    private static class ArticleEntry {
+
+        //null이면 아직 읽는중
+        private final Long version;
+        private final long stamp;
+
+        ArticleEntry(Long version, long stamp) {
+            this.version = version;
+            this.stamp = stamp;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package tdd.duo.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.HibernateEntityManagerFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 2차 캐시와 쿼리 캐시의 hit ratio. ehcache.xml의 region 크기를 정할때 참고한다.
+ * (db.properties의 hibernate.generate_statistics=true 일때만 값이 쌓인다)
+ */
+@Service
+public class CacheStatisticsService {
+
+    @PersistenceUnit
+    EntityManagerFactory entityManagerFactory;
+
+    public Map<String, Object> getStatistics() {
+        Statistics statistics = getSessionFactory().getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("secondLevelCache", ratio(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount()));
+        result.put("queryCache", ratio(statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount()));
+
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(regionName);
+            if (region == null)
+                continue;
+
+            Map<String, Object> regionResult = ratio(region.getHitCount(), region.getMissCount());
+            regionResult.put("elementsInMemory", region.getElementCountInMemory());
+            result.put(regionName, regionResult);
+        }
+
+        return result;
+    }
+
+    public void clear() {
+        getSessionFactory().getStatistics().clear();
+    }
+
+    private Map<String, Object> ratio(long hit, long miss) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hit", hit);
+        result.put("miss", miss);
+        result.put("hitRatio", hit + miss == 0 ? 0.0 : (double) hit / (hit + miss));
+        return result;
+    }
+
+    private SessionFactory getSessionFactory() {
+        return ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory();
+    }
+}
@@ -1,34 +1,152 @@
 package tdd.duo.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
+import tdd.duo.domain.Article;
 import tdd.duo.domain.Comment;
 import tdd.duo.domain.User;
+import tdd.duo.domain.validation.Errors;
+import tdd.duo.dto.CommentSummary;
+import tdd.duo.exception.ServiceBusyException;
+import tdd.duo.repository.ArticleRepository;
 import tdd.duo.repository.CommentRepository;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
 /**
  * Created by yoon on 15. 4. 22..
  */
 @Service
 public class CommentService {
 
+    public static final int MAX_COMMENTS_PER_REQUEST = 100;
+
     @Autowired
     CommentRepository commentRepository;
 
+    @Autowired
+    ArticleRepository articleRepository;
+
     @Autowired
     SessionService sessionService;
 
+    @Autowired
+    CommentWriteBehindService commentWriteBehindService;
+
+    @Autowired
+    ArticleStatService articleStatService;
+
+    @Autowired
+    JdbcWriteSupportService jdbcWriteSupportService;
+
+    @Autowired
+    ArticleVersionService articleVersionService;
+
+    @Transactional
     public Comment create(Comment comment) {
 
+        checkRegistable(comment);
+
+        Comment saved = commentRepository.save(comment);
+        articleStatService.commentAdded(saved.getArticleId(), saved.getCreatedTime());
+        articleVersionService.commentsChanged(saved.getArticleId());
+        return saved;
+    }
+
+    //댓글 API용. write-behind가 켜져 있으면 insert를 기다리지 않고 id가 정해진 댓글을 바로 돌려준다
+    @Transactional
+    public CommentSummary createAsync(Comment comment) throws ServiceBusyException {
+
+        checkRegistable(comment);
+
+        //대기열의 댓글도 상세보기 댓글 목록에는 바로 보인다
+        articleVersionService.commentsChanged(comment.getArticleId());
+
+        if (commentWriteBehindService.isEnabled())
+            return commentWriteBehindService.enqueue(comment);
+
+        Comment saved = commentRepository.save(comment);
+        articleStatService.commentAdded(saved.getArticleId(), saved.getCreatedTime());
+        return new CommentSummary(saved.getId(), saved.getArticleId(), saved.getAuthor().getName(), saved.getContent(), saved.getCreatedTime());
+    }
+
+    //deleted_time만 표시한다. 실제 삭제는 TombstonePurgeService가 한다
+    @Transactional
+    public void delete(Long commentId) {
+
+        Comment comment = commentRepository.findOne(commentId);
+        if (comment == null || comment.isDeleted())
+            throw new IllegalArgumentException("존재하지 않는 댓글입니다");
+
+        User currentUser = sessionService.getCurrentUser();
+        if (currentUser == null || !currentUser.getId().equals(comment.getAuthor().getId()))
+            throw new IllegalArgumentException("본인이 쓴 댓글만 지울 수 있습니다");
+
+        comment.delete();
+        try {
+            commentRepository.saveAndFlush(comment);
+        } catch (OptimisticLockingFailureException e) {
+            throw new IllegalArgumentException("이미 삭제된 댓글입니다");
+        }
+        articleStatService.commentRemoved(comment.getArticleId());
+
+        //캐시된 댓글 목록에는 지운 댓글의 id가 남아 있다
+        jdbcWriteSupportService.evictArticleComments(Collections.singleton(comment.getArticleId()));
+        articleVersionService.commentsChanged(comment.getArticleId());
+    }
+
+    //after 다음 댓글부터 id 순으로 size개. 아직 DB에 반영되지 않은 댓글도 포함한다
+    @Transactional(readOnly = true)
+    public List<CommentSummary> findsAfter(Long articleId, Long after, int size) {
+
+        Assert.notNull(articleId);
+        size = Math.max(1, Math.min(size, MAX_COMMENTS_PER_REQUEST));
+        if (after == null)
+            after = 0L;
+
+        //반영중인 댓글이 어느쪽에서도 빠지지 않도록 대기열을 먼저 읽는다
+        List<CommentSummary> pending = commentWriteBehindService.getPendingAfter(articleId, after);
+        List<CommentSummary> persisted = commentRepository.findSummariesAfter(articleId, after, new PageRequest(0, size));
+
+        if (pending.isEmpty())
+            return persisted;
+
+        TreeMap<Long, CommentSummary> merged = new TreeMap<>();
+        for (CommentSummary comment : persisted)
+            merged.put(comment.getId(), comment);
+        for (CommentSummary comment : pending)
+            merged.putIfAbsent(comment.getId(), comment);
+
+        List<CommentSummary> result = new ArrayList<>(size);
+        for (CommentSummary comment : merged.values()) {
+            if (result.size() == size)
+                break;
+            result.add(comment);
+        }
+
+        return result;
+    }
+
+    private void checkRegistable(Comment comment) {
+
         Assert.notNull(comment);
 
         comment.setAuthor(sessionService.getCurrentUser());
 
-        //TODO articleId Check
-        if (!comment.canRegistable())
-            throw new IllegalArgumentException();
+        Errors errors = comment.validate();
+        if (errors.hasErrors())
+            throw new IllegalArgumentException(errors.getFieldErrors().get(0).getMessage());
 
-        return commentRepository.save(comment);
+        //Article은 2차 캐시에 있으므로 보통 DB를 읽지 않는다. 캐시에서 읽으면 삭제된 글도 올 수 있다
+        Article article = articleRepository.findOne(comment.getArticleId());
+        if (article == null || article.isDeleted())
+            throw new IllegalArgumentException("존재하지 않는 글입니다");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,255 @@
+package tdd.duo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tdd.duo.bulk.PooledIdAllocator;
+import tdd.duo.domain.Comment;
+import tdd.duo.dto.CommentSummary;
+import tdd.duo.exception.ServiceBusyException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 댓글을 바로 insert 하지 않고 대기열에 넣었다가 flusher thread가 batch insert 한다.
+ * id는 대기열에 넣을때 comment_seq에서 받으므로, 같은 글의 댓글은 id 순서 = 대기열 순서 = insert 순서가 된다.
+ * 아직 insert 되지 않은 댓글도 getPendingAfter()로 읽을 수 있다. 서버가 비정상 종료되면 대기열의 댓글은 잃는다.
+ */
+@Service
+public class CommentWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentWriteBehindService.class);
+
+    public static final String PROPERTY_KEY_ENABLED = "comment.write_behind.enabled";
+    public static final String PROPERTY_KEY_BATCH_SIZE = "comment.write_behind.batch_size";
+    public static final String PROPERTY_KEY_FLUSH_INTERVAL_MILLIS = "comment.write_behind.flush_interval_millis";
+    public static final String PROPERTY_KEY_QUEUE_CAPACITY = "comment.write_behind.queue_capacity";
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 200;
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    public static final long SHUTDOWN_TIMEOUT_MILLIS = 10 * 1000;
+
+    private static final String BUSY_MESSAGE = "comment write-behind queue is full";
+    private static final String INSERT_SQL = "INSERT INTO comment (id, article_id, user_id, content, created_time, version) VALUES (?, ?, ?, ?, ?, 0)";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcWriteSupportService jdbcWriteSupportService;
+
+    @Autowired
+    ArticleStatService articleStatService;
+
+    @Autowired
+    ArticleVersionService articleVersionService;
+
+    @Autowired
+    Environment environment;
+
+    //아직 DB에 반영되지 않은 댓글. articleId -> (id -> 댓글)
+    private final ConcurrentMap<Long, ConcurrentSkipListMap<Long, CommentSummary>> pendingComments = new ConcurrentHashMap<>();
+
+    private final ReentrantLock enqueueLock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private boolean enabled;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private BlockingQueue<PendingComment> queue;
+    private PooledIdAllocator ids;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        boolean enabled = environment.getProperty(PROPERTY_KEY_ENABLED, Boolean.class, false);
+        int batchSize = environment.getProperty(PROPERTY_KEY_BATCH_SIZE, Integer.class, DEFAULT_BATCH_SIZE);
+        long interval = environment.getProperty(PROPERTY_KEY_FLUSH_INTERVAL_MILLIS, Long.class, DEFAULT_FLUSH_INTERVAL_MILLIS);
+        int queueCapacity = environment.getProperty(PROPERTY_KEY_QUEUE_CAPACITY, Integer.class, DEFAULT_QUEUE_CAPACITY);
+
+        if (!enabled)
+            return;
+
+        start(jdbcWriteSupportService.getSequenceNextValueSql(Comment.ID_SEQUENCE_NAME), batchSize, interval, queueCapacity);
+    }
+
+    void start(String sequenceNextValueSql, int batchSize, long intervalMillis, int queueCapacity) {
+        this.enabled = true;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.ids = new PooledIdAllocator(jdbcTemplate, sequenceNextValueSql, Comment.ID_ALLOCATION_SIZE);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "comment-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (intervalMillis > 0)
+            this.scheduler.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //이미 작성된 것으로 보여준 댓글이므로, 진행중인 flush가 끝나기를 기다린 뒤 대기열을 모두 반영한다
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                logger.warn("comment write-behind flusher did not stop in {}ms", SHUTDOWN_TIMEOUT_MILLIS);
+        }
+
+        flush(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getQueueSize() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    //comment는 검증이 끝나고 author가 정해진 상태여야 한다
+    public CommentSummary enqueue(Comment comment) throws ServiceBusyException {
+        CommentSummary summary;
+
+        //id 할당과 대기열 추가 순서가 뒤바뀌지 않도록 묶는다
+        enqueueLock.lock();
+        try {
+            if (queue.remainingCapacity() == 0)
+                throw new ServiceBusyException(BUSY_MESSAGE);
+
+            comment.setId(ids.next());
+            comment.setCreatedTime(new Timestamp(System.currentTimeMillis()));
+
+            summary = new CommentSummary(comment.getId(), comment.getArticleId(), comment.getAuthor().getName(),
+                    comment.getContent(), comment.getCreatedTime());
+            pendingComments.computeIfAbsent(comment.getArticleId(), id -> new ConcurrentSkipListMap<>()).put(summary.getId(), summary);
+
+            queue.add(new PendingComment(summary, comment.getAuthor().getId()));
+        } finally {
+            enqueueLock.unlock();
+        }
+
+        //batch 하나가 찼으면 주기를 기다리지 않고 반영한다
+        if (queue.size() >= batchSize && !scheduler.isShutdown())
+            scheduler.execute(this::flush);
+
+        return summary;
+    }
+
+    //after 이후의 아직 반영되지 않은 댓글. DB를 읽기 전에 먼저 불러야 반영중인 댓글을 놓치지 않는다
+    public List<CommentSummary> getPendingAfter(Long articleId, Long after) {
+        ConcurrentSkipListMap<Long, CommentSummary> pending = pendingComments.get(articleId);
+        if (pending == null)
+            return Collections.emptyList();
+
+        return new ArrayList<>(pending.tailMap(after, false).values());
+    }
+
+    public void flush() {
+        flush(false);
+    }
+
+    //wait가 false면 이미 다른 thread가 반영중일때 기다리지 않는다
+    private void flush(boolean wait) {
+        if (queue == null)
+            return;
+
+        if (wait)
+            flushLock.lock();
+        else if (!flushLock.tryLock())
+            return;
+
+        try {
+            List<PendingComment> batch = new ArrayList<>(batchSize);
+            while (queue.drainTo(batch, batchSize) > 0) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeBatch(List<PendingComment> batch) {
+        List<Object[]> args = new ArrayList<>(batch.size());
+        Map<Long, Long> counts = new HashMap<>();
+        for (PendingComment pending : batch) {
+            args.add(pending.toInsertArgs());
+            counts.merge(pending.summary.getArticleId(), 1L, Long::sum);
+        }
+
+        //대기열 순서대로 꺼냈으므로 마지막 댓글이 가장 최근 댓글
+        Date lastCreatedTime = batch.get(batch.size() - 1).summary.getCreatedTime();
+
+        try {
+            new TransactionTemplate(transactionManager).execute(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, args);
+                articleStatService.commentsAdded(counts, lastCreatedTime);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            //그사이 글이 지워진 경우 등. 한건씩 다시 넣고 실패한 댓글만 버린다
+            logger.warn("comment batch insert failed, retrying {} comments one by one", batch.size(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                Object[] row = args.get(i);
+                CommentSummary summary = batch.get(i).summary;
+
+                try {
+                    new TransactionTemplate(transactionManager).execute(status -> {
+                        jdbcTemplate.update(INSERT_SQL, row);
+                        articleStatService.commentAdded(summary.getArticleId(), summary.getCreatedTime());
+                        return null;
+                    });
+                } catch (RuntimeException rowException) {
+                    logger.error("comment dropped : {}", summary, rowException);
+                }
+            }
+        }
+
+        Set<Long> articleIds = new HashSet<>();
+        for (PendingComment pending : batch) {
+            articleIds.add(pending.summary.getArticleId());
+            pendingComments.computeIfPresent(pending.summary.getArticleId(), (articleId, comments) -> {
+                comments.remove(pending.summary.getId());
+                return comments.isEmpty() ? null : comments;
+            });
+        }
+
+        //JDBC로 넣은 댓글은 hibernate가 모르므로 상세보기의 댓글 목록과 목록의 댓글 수 캐시를 비운다
+        jdbcWriteSupportService.evictArticleComments(articleIds);
+        jdbcWriteSupportService.evictQueryCache();
+
+        //대기열에 있을때 그려진 상세보기에는 이 댓글들이 없다
+        for (Long articleId : articleIds)
+            articleVersionService.commentsChanged(articleId);
+    }
+
+    private static class PendingComment {
+
+        private final CommentSummary summary;
+        private final Long userId;
+
+        PendingComment(CommentSummary summary, Long userId) {
+            this.summary = summary;
+            this.userId = userId;
+        }
+
+        Object[] toInsertArgs() {
+            return new Object[]{summary.getId(), summary.getArticleId(), userId, summary.getContent(), summary.getCreatedTime()};
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package tdd.duo.service;
+
+import org.hibernate.Cache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateEntityManagerFactory;
+import org.springframework.stereotype.Service;
+import tdd.duo.domain.Article;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import java.util.Collection;
+
+/**
+ * JPA를 거치지 않고 JDBC로 직접 insert 하는 곳(대량 입력, 댓글 write-behind)에서 hibernate와 어긋나지 않도록 돕는다.
+ * hibernate는 JDBC로 바뀐 테이블을 모르므로, 쓰고 난 뒤에 관련된 2차 캐시와 쿼리 캐시를 직접 비워야 한다.
+ */
+@Service
+public class JdbcWriteSupportService {
+
+    public static final String ARTICLE_COMMENTS_ROLE = Article.class.getName() + ".comments";
+
+    @PersistenceUnit
+    EntityManagerFactory entityManagerFactory;
+
+    //DB마다 sequence 문법이 다르므로 hibernate dialect에서 가져온다
+    public String getSequenceNextValueSql(String sequenceName) {
+        return getSessionFactory().getDialect().getSequenceNextValString(sequenceName);
+    }
+
+    public void evictQueryCache() {
+        getSessionFactory().getCache().evictDefaultQueryRegion();
+    }
+
+    public void evictArticleComments(Collection<Long> articleIds) {
+        Cache cache = getSessionFactory().getCache();
+        for (Long articleId : articleIds)
+            cache.evictCollection(ARTICLE_COMMENTS_ROLE, articleId);
+    }
+
+    private SessionFactoryImplementor getSessionFactory() {
+        return (SessionFactoryImplementor) ((HibernateEntityManagerFactory) entityManagerFactory).getSessionFactory();
+    }
+}
@@ -0,0 +1,123 @@
+package tdd.duo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import tdd.duo.domain.auth.PasswordHasher;
+import tdd.duo.exception.ServiceBusyException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 비밀번호 hash는 CPU를 오래 쓰므로 크기가 정해진 전용 thread pool에서만 계산한다.
+ * 로그인이 몰려서 대기열이 차면 요청 thread를 붙잡아두지 않고 바로 ServiceBusyException으로 거절한다.
+ */
+@Service
+public class PasswordService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordService.class);
+
+    public static final String PROPERTY_KEY_ALGORITHM = "password.hash.algorithm";
+    public static final String PROPERTY_KEY_ITERATIONS = "password.hash.iterations";
+    public static final String PROPERTY_KEY_THREADS = "password.hash.threads";
+    public static final String PROPERTY_KEY_QUEUE_CAPACITY = "password.hash.queue_capacity";
+    public static final String PROPERTY_KEY_TIMEOUT_MILLIS = "password.hash.timeout_millis";
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+
+    private static final String BUSY_MESSAGE = "password hashing queue is full";
+
+    @Autowired
+    Environment environment;
+
+    private PasswordHasher passwordHasher;
+    private ThreadPoolExecutor executor;
+    private long timeoutMillis;
+
+    @PostConstruct
+    public void start() {
+        String algorithm = environment.getProperty(PROPERTY_KEY_ALGORITHM, PasswordHasher.DEFAULT_ALGORITHM);
+        int iterations = environment.getProperty(PROPERTY_KEY_ITERATIONS, Integer.class, PasswordHasher.DEFAULT_ITERATIONS);
+        int threads = environment.getProperty(PROPERTY_KEY_THREADS, Integer.class, Runtime.getRuntime().availableProcessors());
+        int queueCapacity = environment.getProperty(PROPERTY_KEY_QUEUE_CAPACITY, Integer.class, DEFAULT_QUEUE_CAPACITY);
+        long timeoutMillis = environment.getProperty(PROPERTY_KEY_TIMEOUT_MILLIS, Long.class, DEFAULT_TIMEOUT_MILLIS);
+
+        start(new PasswordHasher(algorithm, iterations), threads, queueCapacity, timeoutMillis);
+    }
+
+    void start(PasswordHasher passwordHasher, int threads, int queueCapacity, long timeoutMillis) {
+        this.passwordHasher = passwordHasher;
+        this.timeoutMillis = timeoutMillis;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        logger.info("password hasher : {} x {}, {} threads, queue {}",
+                passwordHasher.getAlgorithm(), passwordHasher.getIterations(), threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null)
+            executor.shutdown();
+    }
+
+    public String hash(String rawPassword) throws ServiceBusyException {
+        return execute(() -> passwordHasher.hash(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) throws ServiceBusyException {
+        return execute(() -> passwordHasher.matches(rawPassword, encodedPassword));
+    }
+
+    //저장된 hash의 알고리즘이나 cost가 현재 설정과 다르면 true. hash 계산이 없으므로 요청 thread에서 바로 확인한다
+    public boolean needsRehash(String encodedPassword) {
+        return passwordHasher.needsRehash(encodedPassword);
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    private <T> T execute(Callable<T> task) throws ServiceBusyException {
+        Future<T> future;
+
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceBusyException(BUSY_MESSAGE);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceBusyException("password hashing timed out after " + timeoutMillis + "ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("interrupted while waiting for password hashing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+}
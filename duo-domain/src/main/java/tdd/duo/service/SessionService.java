@@ -2,13 +2,17 @@ package tdd.duo.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Assert;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import tdd.duo.domain.User;
+import tdd.duo.domain.auth.SessionUser;
 import tdd.duo.repository.UserRepository;
 
 import javax.servlet.http.HttpSession;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by yoon on 15. 4. 14..
@@ -16,16 +20,68 @@ import javax.servlet.http.HttpSession;
 @Service
 public class SessionService {
 
+    public static final String SESSION_KEY_ID = "id";
+    public static final String SESSION_KEY_USER = "sessionUser";
+    public static final String REQUEST_KEY_USER = SessionService.class.getName() + ".currentUser";
+
     @Autowired
     UserRepository userRepository;
 
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong cacheMissCount = new AtomicLong();
+
+    //한 요청 안에서는 한번만, 세션에 사용자 정보가 있으면 DB 조회 없이 돌려준다
+    @Transactional(readOnly = true)
     public User getCurrentUser() {
         ServletRequestAttributes attr = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+
+        User cachedUser = (User) attr.getAttribute(REQUEST_KEY_USER, RequestAttributes.SCOPE_REQUEST);
+        if (cachedUser != null) {
+            cacheHitCount.incrementAndGet();
+            return cachedUser;
+        }
+
         HttpSession session = attr.getRequest().getSession(true);
-        String id = (String) session.getAttribute("id");
+        String id = (String) session.getAttribute(SESSION_KEY_ID);
 
         Assert.notNull(id);
 
-        return userRepository.findByEmail(id);
+        User user;
+        SessionUser sessionUser = (SessionUser) session.getAttribute(SESSION_KEY_USER);
+
+        //다른 아이디로 다시 로그인한 경우 세션의 사용자 정보는 무시한다
+        if (sessionUser != null && id.equals(sessionUser.getEmail())) {
+            cacheHitCount.incrementAndGet();
+            user = sessionUser.toUser();
+        } else {
+            cacheMissCount.incrementAndGet();
+            user = userRepository.findByEmail(id);
+
+            if (user != null)
+                session.setAttribute(SESSION_KEY_USER, SessionUser.from(user));
+        }
+
+        if (user != null)
+            attr.setAttribute(REQUEST_KEY_USER, user, RequestAttributes.SCOPE_REQUEST);
+
+        return user;
+    }
+
+    //사용자 정보가 변경되면 호출해서 다음 요청에 다시 읽어오도록 한다
+    public void invalidateCurrentUser() {
+        RequestAttributes attr = RequestContextHolder.getRequestAttributes();
+        if (attr == null)
+            return;
+
+        attr.removeAttribute(REQUEST_KEY_USER, RequestAttributes.SCOPE_REQUEST);
+        attr.removeAttribute(SESSION_KEY_USER, RequestAttributes.SCOPE_SESSION);
+    }
+
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    public long getCacheMissCount() {
+        return cacheMissCount.get();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,172 @@
+package tdd.duo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 삭제 표시(deleted_time)된 댓글과 글을 실제로 지운다.
+ * 사용자가 적은 시간대(window)에만, batch_size 건씩 나눈 짧은 transaction으로 지워서 lock을 오래 잡지 않는다.
+ * 순서는 삭제된 댓글 -> 삭제된 글의 댓글 -> 댓글이 모두 지워진 삭제된 글.
+ */
+@Service
+//startup.lazy_init=true여도 주기 작업이 돌도록 기동시 만든다
+@Lazy(false)
+public class TombstonePurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TombstonePurgeService.class);
+
+    public static final String PROPERTY_KEY_RETENTION_HOURS = "tombstone.purge.retention_hours";
+    public static final String PROPERTY_KEY_WINDOW_START_HOUR = "tombstone.purge.window_start_hour";
+    public static final String PROPERTY_KEY_WINDOW_END_HOUR = "tombstone.purge.window_end_hour";
+    public static final String PROPERTY_KEY_BATCH_SIZE = "tombstone.purge.batch_size";
+    public static final String PROPERTY_KEY_CHECK_INTERVAL_MILLIS = "tombstone.purge.check_interval_millis";
+    public static final long DEFAULT_RETENTION_HOURS = 24;
+    public static final int DEFAULT_WINDOW_START_HOUR = 3;
+    public static final int DEFAULT_WINDOW_END_HOUR = 5;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_CHECK_INTERVAL_MILLIS = 10 * 60 * 1000;
+
+    private static final String SELECT_DELETED_COMMENTS_SQL = "SELECT id FROM comment WHERE deleted_time < ? LIMIT ?";
+    private static final String SELECT_COMMENTS_OF_DELETED_ARTICLES_SQL =
+            "SELECT c.id FROM comment c JOIN article a ON a.id = c.article_id WHERE a.deleted_time < ? LIMIT ?";
+    private static final String SELECT_DELETED_ARTICLES_SQL = "SELECT a.id FROM article a WHERE a.deleted_time < ? " +
+            "AND NOT EXISTS (SELECT 1 FROM comment c WHERE c.article_id = a.id) LIMIT ?";
+
+    private static final String DELETE_COMMENT_SQL = "DELETE FROM comment WHERE id = ?";
+    private static final String DELETE_ARTICLE_STAT_SQL = "DELETE FROM article_stat WHERE article_id = ?";
+    private static final String DELETE_VIEW_COUNT_SQL = "DELETE FROM view_count WHERE article_id = ?";
+    private static final String DELETE_ARTICLE_SQL = "DELETE FROM article WHERE id = ?";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    Environment environment;
+
+    long retentionHours = DEFAULT_RETENTION_HOURS;
+    int windowStartHour = DEFAULT_WINDOW_START_HOUR;
+    int windowEndHour = DEFAULT_WINDOW_END_HOUR;
+    int batchSize = DEFAULT_BATCH_SIZE;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        this.retentionHours = environment.getProperty(PROPERTY_KEY_RETENTION_HOURS, Long.class, DEFAULT_RETENTION_HOURS);
+        this.windowStartHour = environment.getProperty(PROPERTY_KEY_WINDOW_START_HOUR, Integer.class, DEFAULT_WINDOW_START_HOUR);
+        this.windowEndHour = environment.getProperty(PROPERTY_KEY_WINDOW_END_HOUR, Integer.class, DEFAULT_WINDOW_END_HOUR);
+        this.batchSize = environment.getProperty(PROPERTY_KEY_BATCH_SIZE, Integer.class, DEFAULT_BATCH_SIZE);
+
+        long interval = environment.getProperty(PROPERTY_KEY_CHECK_INTERVAL_MILLIS, Long.class, DEFAULT_CHECK_INTERVAL_MILLIS);
+        if (interval <= 0)
+            return;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tombstone-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::purgeInWindow, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null)
+            scheduler.shutdown();
+    }
+
+    //window_start_hour <= hour < window_end_hour. 23 ~ 2 처럼 자정을 넘기는 구간도 된다
+    boolean isInWindow(int hour) {
+        if (windowStartHour <= windowEndHour)
+            return windowStartHour <= hour && hour < windowEndHour;
+
+        return windowStartHour <= hour || hour < windowEndHour;
+    }
+
+    //window 밖이면 하지 않고, 하는 도중에 window가 끝나면 남은 것은 다음 window로 미룬다
+    private void purgeInWindow() {
+        if (!isInWindow(LocalTime.now().getHour()))
+            return;
+
+        try {
+            purge(() -> isInWindow(LocalTime.now().getHour()));
+        } catch (RuntimeException e) {
+            logger.error("tombstone purge failed", e);
+        }
+    }
+
+    //window와 상관없이 retention이 지난 tombstone을 모두 지운다
+    public long purge() {
+        return purge(() -> true);
+    }
+
+    long purge(BooleanSupplier shouldContinue) {
+        long start = System.currentTimeMillis();
+        Timestamp deletedBefore = new Timestamp(start - TimeUnit.HOURS.toMillis(retentionHours));
+        long purged = 0;
+        int batch;
+
+        do {
+            batch = purgeBatch(deletedBefore);
+            purged += batch;
+        } while (batch > 0 && shouldContinue.getAsBoolean());
+
+        if (purged > 0)
+            logger.info("tombstone purged : {} rows ({}ms)", purged, System.currentTimeMillis() - start);
+
+        return purged;
+    }
+
+    //지운 row 수. 0이면 더 지울 것이 없다
+    int purgeBatch(Timestamp deletedBefore) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            List<Long> commentIds = jdbcTemplate.queryForList(SELECT_DELETED_COMMENTS_SQL, Long.class, deletedBefore, batchSize);
+            if (commentIds.isEmpty())
+                commentIds = jdbcTemplate.queryForList(SELECT_COMMENTS_OF_DELETED_ARTICLES_SQL, Long.class, deletedBefore, batchSize);
+
+            if (!commentIds.isEmpty()) {
+                jdbcTemplate.batchUpdate(DELETE_COMMENT_SQL, toArgs(commentIds));
+                return commentIds.size();
+            }
+
+            List<Long> articleIds = jdbcTemplate.queryForList(SELECT_DELETED_ARTICLES_SQL, Long.class, deletedBefore, batchSize);
+            if (articleIds.isEmpty())
+                return 0;
+
+            List<Object[]> args = toArgs(articleIds);
+            jdbcTemplate.batchUpdate(DELETE_ARTICLE_STAT_SQL, args);
+            jdbcTemplate.batchUpdate(DELETE_VIEW_COUNT_SQL, args);
+            jdbcTemplate.batchUpdate(DELETE_ARTICLE_SQL, args);
+            return articleIds.size();
+        });
+    }
+
+    private List<Object[]> toArgs(List<Long> ids) {
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids)
+            args.add(new Object[]{id});
+
+        return args;
+    }
+}
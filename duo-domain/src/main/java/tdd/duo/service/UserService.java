@@ -2,23 +2,36 @@ package tdd.duo.service;
 
 import javassist.NotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import tdd.duo.domain.User;
 import tdd.duo.domain.auth.Authentication;
+import tdd.duo.domain.validation.Errors;
 import tdd.duo.exception.AlreadyExistException;
 import tdd.duo.exception.PasswordMismatchException;
+import tdd.duo.exception.ServiceBusyException;
+import tdd.duo.exception.ValidationException;
 import tdd.duo.repository.UserRepository;
 
 /**
  * Created by yoon on 15. 4. 20..
+ *
+ * 비밀번호 hash는 수십 ms 이상 걸리고 hash 대기열에서 기다릴 수도 있으므로, 그동안 connection을 잡지 않도록 메소드를 transaction으로 묶지 않는다.
+ * 조회와 저장은 각각 repository의 transaction 하나로 끝나고, email 중복은 unique 제약이 막는다.
  */
 @Service
 public class UserService {
     
     @Autowired
     UserRepository userRepository;
+
+    @Autowired
+    PasswordService passwordService;
+
+    @Autowired
+    SessionService sessionService;
     
-    public void login(Authentication authentication) throws NotFoundException, PasswordMismatchException, IllegalArgumentException {
+    public void login(Authentication authentication) throws NotFoundException, PasswordMismatchException, ServiceBusyException, IllegalArgumentException {
         if (!authentication.isValid())
             throw new IllegalArgumentException();
 
@@ -27,21 +40,38 @@ public class UserService {
         if (!authentication.isMathchId(user))
             throw new NotFoundException("Authentication Id mismatch or does not exist");
 
-        if (!authentication.isMatchPassword(user))
+        if (!passwordService.matches(authentication.getPassword(), user.getPassword()))
             throw new PasswordMismatchException();
+
+        //cost를 바꿨거나 평문으로 저장된 비밀번호는 로그인에 성공했을때 현재 설정으로 다시 hash 한다
+        if (passwordService.needsRehash(user.getPassword())) {
+            user.setPassword(passwordService.hash(authentication.getPassword()));
+            userRepository.save(user);
+        }
+
+        //세션에 남아있던 사용자 정보(SessionUser : id, email, 이름)는 이전 로그인때 읽은 값이라 그 뒤에 바뀐 이름 등이 반영되지 않는다
+        //다시 로그인하면 버리고 다음 요청에서 DB에서 다시 읽는다
+        sessionService.invalidateCurrentUser();
     }
 
-    public User create(User user) throws AlreadyExistException, IllegalArgumentException {
+    public User create(User user) throws AlreadyExistException, ServiceBusyException, IllegalArgumentException {
 
-        if (!user.canRegistable()) {
-            throw new IllegalArgumentException();
-        }
+        Errors errors = user.validate();
+        if (errors.hasErrors())
+            throw new ValidationException(errors);
 
         User selectedUser = userRepository.findByEmail(user.getEmail());
 
         if (selectedUser != null)
             throw new AlreadyExistException();
 
-        return userRepository.save(user);
+        user.setPassword(passwordService.hash(user.getPassword()));
+
+        //hash 하는 사이에 같은 email로 먼저 가입한 경우
+        try {
+            return userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new AlreadyExistException();
+        }
     }
 }
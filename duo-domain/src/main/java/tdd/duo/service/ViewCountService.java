@@ -0,0 +1,279 @@
+package tdd.duo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tdd.duo.domain.ViewCount;
+import tdd.duo.dto.ArticleSummary;
+import tdd.duo.repository.ViewCountRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 조회수를 article별 LongAdder에 모아두었다가 주기적으로(또는 미반영 조회수가 쌓이면) view_count 테이블에 batch로 반영한다.
+ * 서버가 비정상 종료되면 최대 viewcount.flush.max_pending 건의 조회수를 잃을 수 있다.
+ */
+@Service
+public class ViewCountService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ViewCountService.class);
+
+    public static final String PROPERTY_KEY_FLUSH_INTERVAL_MILLIS = "viewcount.flush.interval_millis";
+    public static final String PROPERTY_KEY_FLUSH_MAX_PENDING = "viewcount.flush.max_pending";
+    public static final String PROPERTY_KEY_MAX_ARTICLES = "viewcount.cache.max_articles";
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_FLUSH_MAX_PENDING = 1000;
+    public static final int DEFAULT_MAX_ARTICLES = 100000;
+
+    private static final String INCREASE_SQL = "UPDATE view_count SET total_count = total_count + ? WHERE article_id = ?";
+    private static final String INSERT_SQL = "INSERT INTO view_count (article_id, total_count) VALUES (?, ?)";
+
+    @Autowired
+    ViewCountRepository viewCountRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ArticleStatService articleStatService;
+
+    @Autowired
+    Environment environment;
+
+    //아직 DB에 반영되지 않은 조회수
+    private final ConcurrentMap<Long, LongAdder> pendingCounts = new ConcurrentHashMap<>();
+
+    //DB에 반영된 조회수 (한번 읽어온 article만 보관, max_articles를 넘으면 비우고 다시 읽는다)
+    private final ConcurrentMap<Long, AtomicLong> persistedCounts = new ConcurrentHashMap<>();
+
+    //DB에 쓰고 persistedCounts에 더하는 중인 article과, 다 더한 flush 수
+    //그 사이에 DB에서 읽은 값은 이미 더해진 값일 수 있으므로 보관하지 않는다
+    private final Set<Long> flushingIds = ConcurrentHashMap.newKeySet();
+    private final AtomicLong appliedFlushes = new AtomicLong();
+
+    private final AtomicLong pendingTotal = new AtomicLong();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private long maxPending = DEFAULT_FLUSH_MAX_PENDING;
+    int maxArticles = DEFAULT_MAX_ARTICLES;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        long interval = environment.getProperty(PROPERTY_KEY_FLUSH_INTERVAL_MILLIS, Long.class, DEFAULT_FLUSH_INTERVAL_MILLIS);
+        this.maxPending = environment.getProperty(PROPERTY_KEY_FLUSH_MAX_PENDING, Long.class, DEFAULT_FLUSH_MAX_PENDING);
+        this.maxArticles = environment.getProperty(PROPERTY_KEY_MAX_ARTICLES, Integer.class, DEFAULT_MAX_ARTICLES);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "view-count-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public static final long SHUTDOWN_TIMEOUT_MILLIS = 10 * 1000;
+
+    //주기 flush가 끝나기를 기다린 뒤 남은 조회수를 반영한다. 다른 flush가 진행중이어도 건너뛰지 않는다
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                logger.warn("view count flusher did not stop in {}ms", SHUTDOWN_TIMEOUT_MILLIS);
+        }
+
+        flush(true);
+    }
+
+    public long increase(Long articleId) {
+        add(articleId);
+        return getCount(articleId);
+    }
+
+    //조회수만 올리고 현재 값은 읽지 않는다. 304 응답처럼 보여줄 값이 필요 없을때 쓴다
+    public void add(Long articleId) {
+        pendingCounts.computeIfAbsent(articleId, id -> new LongAdder()).increment();
+
+        if (pendingTotal.incrementAndGet() >= maxPending)
+            flush();
+    }
+
+    public long getCount(Long articleId) {
+        AtomicLong persisted = persistedCounts.get(articleId);
+        if (persisted == null)
+            persisted = loadPersistedCount(articleId);
+
+        LongAdder pending = pendingCounts.get(articleId);
+        return persisted.get() + (pending == null ? 0 : pending.sum());
+    }
+
+    public void fillViewCounts(List<ArticleSummary> articles) {
+
+        List<Long> ids = new ArrayList<>(articles.size());
+        for (ArticleSummary article : articles)
+            ids.add(article.getId());
+
+        loadPersistedCounts(ids);
+
+        for (ArticleSummary article : articles)
+            article.setViewCount(getCount(article.getId()));
+    }
+
+    private void loadPersistedCounts(List<Long> ids) {
+
+        List<Long> notLoadedIds = new ArrayList<>();
+        for (Long id : ids) {
+            if (!persistedCounts.containsKey(id))
+                notLoadedIds.add(id);
+        }
+
+        //목록 페이지에서 article마다 따로 조회하지 않도록 한번에 읽어온다
+        if (!notLoadedIds.isEmpty()) {
+            long flushes = appliedFlushes.get();
+            Map<Long, Long> loaded = new HashMap<>();
+            for (ViewCount viewCount : viewCountRepository.findAll(notLoadedIds))
+                loaded.put(viewCount.getArticleId(), viewCount.getTotalCount());
+
+            for (Long id : notLoadedIds)
+                cachePersistedCount(id, new AtomicLong(loaded.getOrDefault(id, 0L)), flushes);
+        }
+    }
+
+    public void flush() {
+        flush(false);
+    }
+
+    //wait가 false면 이미 다른 thread가 반영중일때 기다리지 않는다
+    private void flush(boolean wait) {
+
+        if (wait)
+            flushLock.lock();
+        else if (!flushLock.tryLock())
+            return;
+
+        try {
+            Map<Long, Long> deltas = drainPendingCounts();
+            if (deltas.isEmpty())
+                return;
+
+            flushingIds.addAll(deltas.keySet());
+            try {
+                //글목록 정렬용 조회수(article_stat)도 같은 transaction에서 반영한다
+                //상세보기(readOnly transaction) 안에서 불릴 수 있으므로 항상 새 transaction으로 primary에 쓴다
+                TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+                transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                transactionTemplate.execute(status -> {
+                    writeDeltas(deltas);
+                    articleStatService.viewsAdded(deltas);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                logger.error("view count flush failed, {} articles will be retried", deltas.size(), e);
+                restorePendingCounts(deltas);
+                flushingIds.removeAll(deltas.keySet());
+                return;
+            }
+
+            //commit 전에 읽어둔 값에만 더한다. commit 이후에 읽은 값은 cachePersistedCount가 버린다
+            for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                AtomicLong persisted = persistedCounts.get(delta.getKey());
+                if (persisted != null)
+                    persisted.addAndGet(delta.getValue());
+            }
+
+            flushingIds.removeAll(deltas.keySet());
+            appliedFlushes.incrementAndGet();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private Map<Long, Long> drainPendingCounts() {
+        Map<Long, Long> deltas = new HashMap<>();
+
+        for (Map.Entry<Long, LongAdder> entry : pendingCounts.entrySet()) {
+            LongAdder adder = entry.getValue();
+
+            //sum 이후에 들어온 증가분은 adder에 그대로 남아 다음 flush에 반영된다
+            long delta = adder.sum();
+            if (delta == 0)
+                continue;
+
+            adder.add(-delta);
+            pendingTotal.addAndGet(-delta);
+            deltas.put(entry.getKey(), delta);
+        }
+
+        return deltas;
+    }
+
+    private void writeDeltas(Map<Long, Long> deltas) {
+        List<Object[]> increaseArgs = new ArrayList<>(deltas.size());
+        List<Long> ids = new ArrayList<>(deltas.keySet());
+
+        for (Long id : ids)
+            increaseArgs.add(new Object[]{deltas.get(id), id});
+
+        int[] updatedRows = jdbcTemplate.batchUpdate(INCREASE_SQL, increaseArgs);
+
+        //처음 조회된 article은 update할 row가 없으므로 insert 한다
+        List<Object[]> insertArgs = new ArrayList<>();
+        for (int i = 0; i < updatedRows.length; i++) {
+            if (updatedRows[i] == 0)
+                insertArgs.add(new Object[]{ids.get(i), deltas.get(ids.get(i))});
+        }
+
+        if (!insertArgs.isEmpty())
+            jdbcTemplate.batchUpdate(INSERT_SQL, insertArgs);
+    }
+
+    private void restorePendingCounts(Map<Long, Long> deltas) {
+        for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+            pendingCounts.computeIfAbsent(delta.getKey(), id -> new LongAdder()).add(delta.getValue());
+            pendingTotal.addAndGet(delta.getValue());
+        }
+    }
+
+    private AtomicLong loadPersistedCount(Long articleId) {
+        long flushes = appliedFlushes.get();
+        ViewCount viewCount = viewCountRepository.findOne(articleId);
+
+        return cachePersistedCount(articleId, new AtomicLong(viewCount == null ? 0 : viewCount.getTotalCount()), flushes);
+    }
+
+    //flushes는 DB에서 읽기 전의 appliedFlushes. 읽는 동안 이 article을 반영하는 flush가 있었으면
+    //읽은 값에 flush가 한번 더 더해질 수 있으므로 보관하지 않고 다음에 다시 읽는다
+    private AtomicLong cachePersistedCount(Long articleId, AtomicLong loaded, long flushes) {
+        if (persistedCounts.size() >= maxArticles)
+            persistedCounts.clear();
+
+        AtomicLong previous = persistedCounts.putIfAbsent(articleId, loaded);
+        if (previous != null)
+            return previous;
+
+        if (flushingIds.contains(articleId) || appliedFlushes.get() != flushes)
+            persistedCounts.remove(articleId, loaded);
+
+        return loaded;
+    }
+}
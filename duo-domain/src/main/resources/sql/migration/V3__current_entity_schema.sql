@@ -0,0 +1,45 @@
+-- V2 dump 이후 entity에 생긴 컬럼, 테이블, sequence. hibernate.hbm2ddl.auto=create가 만들던 schema와 같다
+
+-- 삭제 표시(tombstone)와 optimistic lock
+ALTER TABLE ARTICLE ADD COLUMN DELETED_TIME TIMESTAMP;
+ALTER TABLE ARTICLE ADD COLUMN VERSION BIGINT DEFAULT 0 NOT NULL;
+CREATE INDEX IDX_ARTICLE_DELETED_TIME ON ARTICLE(DELETED_TIME);
+
+ALTER TABLE USER ADD CONSTRAINT UK_USER_EMAIL UNIQUE(EMAIL);
+
+-- id는 hibernate가 sequence로 만든다. User는 hibernate_sequence(1씩), 글과 댓글은 pooled optimizer(50씩)
+-- pooled optimizer는 받은 값을 할당 구간의 끝으로 쓰므로, V2의 글(id 1~100) 다음 구간이 되도록 151부터 시작한다
+CREATE SEQUENCE HIBERNATE_SEQUENCE START WITH 2;
+CREATE SEQUENCE ARTICLE_SEQ START WITH 151 INCREMENT BY 50;
+CREATE SEQUENCE COMMENT_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE COMMENT(
+    ID BIGINT NOT NULL PRIMARY KEY,
+    ARTICLE_ID BIGINT NOT NULL,
+    CONTENT VARCHAR(255) NOT NULL,
+    CREATED_TIME TIMESTAMP NOT NULL,
+    DELETED_TIME TIMESTAMP,
+    VERSION BIGINT NOT NULL,
+    USER_ID BIGINT NOT NULL,
+    CONSTRAINT FK_COMMENT_USER FOREIGN KEY(USER_ID) REFERENCES USER(ID),
+    CONSTRAINT FK_COMMENT_ARTICLE FOREIGN KEY(ARTICLE_ID) REFERENCES ARTICLE(ID)
+);
+CREATE INDEX IDX_COMMENT_DELETED_TIME ON COMMENT(DELETED_TIME);
+
+CREATE TABLE VIEW_COUNT(
+    ARTICLE_ID BIGINT NOT NULL PRIMARY KEY,
+    TOTAL_COUNT BIGINT NOT NULL
+);
+
+CREATE TABLE ARTICLE_STAT(
+    ARTICLE_ID BIGINT NOT NULL PRIMARY KEY,
+    COMMENT_COUNT BIGINT NOT NULL,
+    LAST_ACTIVITY_TIME TIMESTAMP NOT NULL,
+    VIEW_COUNT BIGINT NOT NULL
+);
+CREATE INDEX IDX_ARTICLE_STAT_VIEW_COUNT ON ARTICLE_STAT(VIEW_COUNT, ARTICLE_ID);
+CREATE INDEX IDX_ARTICLE_STAT_LAST_ACTIVITY ON ARTICLE_STAT(LAST_ACTIVITY_TIME, ARTICLE_ID);
+
+-- V2의 글도 글목록 정렬에 나오도록 집계를 만들어 둔다
+INSERT INTO ARTICLE_STAT(ARTICLE_ID, COMMENT_COUNT, LAST_ACTIVITY_TIME, VIEW_COUNT)
+SELECT ID, 0, CREATED_TIME, 0 FROM ARTICLE;
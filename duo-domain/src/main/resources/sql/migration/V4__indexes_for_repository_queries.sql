@@ -0,0 +1,16 @@
+-- repository 조회가 테이블을 모두 읽거나 따로 정렬하지 않도록 조건과 정렬 순서대로 index를 둔다
+-- IndexUsageTest가 각 조회의 EXPLAIN에 index가 나오는지 검사한다
+-- user.email은 V3의 UK_USER_EMAIL, view_count.article_id는 primary key가 index다
+
+-- 글목록 seek(deleted_time IS NULL AND id < ? ORDER BY id DESC), tombstone 정리(deleted_time < ?)
+DROP INDEX IDX_ARTICLE_DELETED_TIME;
+CREATE INDEX IDX_ARTICLE_DELETED_TIME_ID ON ARTICLE(DELETED_TIME, ID DESC);
+
+-- 글의 댓글 수 join과 댓글 이어 읽기(article_id = ? AND deleted_time IS NULL AND id > ? ORDER BY id)
+CREATE INDEX IDX_COMMENT_ARTICLE_ID ON COMMENT(ARTICLE_ID, DELETED_TIME, ID);
+
+-- 정렬 방향까지 같아야 정렬 없이 index 순서로 읽는다(EXPLAIN의 index sorted)
+DROP INDEX IDX_ARTICLE_STAT_VIEW_COUNT;
+DROP INDEX IDX_ARTICLE_STAT_LAST_ACTIVITY;
+CREATE INDEX IDX_ARTICLE_STAT_VIEW_COUNT ON ARTICLE_STAT(VIEW_COUNT DESC, ARTICLE_ID DESC);
+CREATE INDEX IDX_ARTICLE_STAT_LAST_ACTIVITY ON ARTICLE_STAT(LAST_ACTIVITY_TIME DESC, ARTICLE_ID DESC);
@@ -0,0 +1,3 @@
+-- DBExporter의 incremental export(created_time >= ? ... ORDER BY created_time, id)가 watermark 이후만 index 순서로 읽는다
+CREATE INDEX IDX_ARTICLE_CREATED_TIME ON ARTICLE(CREATED_TIME, ID);
+CREATE INDEX IDX_COMMENT_CREATED_TIME ON COMMENT(CREATED_TIME, ID);
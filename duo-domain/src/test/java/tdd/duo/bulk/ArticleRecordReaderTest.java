@@ -0,0 +1,68 @@
+package tdd.duo.bulk;
+
+import org.junit.Test;
+import tdd.duo.domain.Article;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ArticleRecordReaderTest {
+
+    @Test
+    public void CSV는_header를_건너뛰고_따옴표안의_쉼표와_줄바꿈을_읽는다() {
+        String csv = "title,content\n" +
+                "첫글,내용1\n" +
+                "\n" +
+                "\"쉼표, 있는 제목\",\"두줄\n내용 \"\"인용\"\"\"\n";
+
+        List<Article> articles = readAll(csv, ArticleRecordReader.Format.CSV);
+
+        assertEquals(2, articles.size());
+        assertEquals("첫글", articles.get(0).getTitle());
+        assertEquals("내용1", articles.get(0).getContent());
+        assertEquals("쉼표, 있는 제목", articles.get(1).getTitle());
+        assertEquals("두줄\n내용 \"인용\"", articles.get(1).getContent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void CSV_필드가_부족하면_예외() {
+        readAll("제목만\n", ArticleRecordReader.Format.CSV);
+    }
+
+    @Test
+    public void JSONL은_한줄에_한글씩_읽는다() {
+        String jsonl = "{\"title\": \"첫글\", \"content\": \"줄\\n바꿈 \\\"인용\\\" \\uAC00\", \"views\": 3}\n" +
+                "\n" +
+                "{\"content\":\"제목없음\", \"title\": null}\n";
+
+        List<Article> articles = readAll(jsonl, ArticleRecordReader.Format.JSONL);
+
+        assertEquals(2, articles.size());
+        assertEquals("첫글", articles.get(0).getTitle());
+        assertEquals("줄\n바꿈 \"인용\" 가", articles.get(0).getContent());
+        assertNull(articles.get(1).getTitle());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void JSONL_형식이_틀리면_예외() {
+        readAll("{\"title\": \"닫히지 않음}\n", ArticleRecordReader.Format.JSONL);
+    }
+
+    @Test
+    public void format_이름() {
+        assertEquals(ArticleRecordReader.Format.JSONL, ArticleRecordReader.Format.from("jsonl"));
+    }
+
+    private List<Article> readAll(String text, ArticleRecordReader.Format format) {
+        ArticleRecordReader reader = new ArticleRecordReader(new StringReader(text), format);
+        List<Article> articles = new ArrayList<>();
+        while (reader.hasNext())
+            articles.add(reader.next());
+
+        return articles;
+    }
+}
@@ -0,0 +1,211 @@
+package tdd.duo.bulk;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Flyway로 만든 두 DB 사이에서 export한 내용을 import 해서 같아지는지 본다.
+ * chunk를 작게 잡아서 여러 chunk로 나눠 읽고 쓰는 경우를 같이 확인한다.
+ */
+public class DBExporterTest {
+
+    private static final int CHUNK_SIZE = 7;
+    private static int databaseNumber;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    DataSource source;
+    DataSource target;
+    JdbcTemplate sourceJdbc;
+    JdbcTemplate targetJdbc;
+
+    @Before
+    public void setUp() {
+        source = migratedDataSource("export-source-" + databaseNumber);
+        target = migratedDataSource("export-target-" + databaseNumber++);
+        sourceJdbc = new JdbcTemplate(source);
+        targetJdbc = new JdbcTemplate(target);
+
+        sourceJdbc.update("INSERT INTO comment (id, article_id, user_id, content, created_time, version) VALUES (1, 3, 1, '댓글', ?, 0)",
+                new Timestamp(System.currentTimeMillis() - 10000));
+        sourceJdbc.update("INSERT INTO view_count (article_id, total_count) VALUES (3, 42)");
+    }
+
+    @Test
+    public void 전체_export를_import하면_같은_행이_된다() throws Exception {
+        //id 200인 글을 만들 만큼 sequence를 받아둔 DB
+        sourceJdbc.queryForObject("SELECT NEXTVAL('ARTICLE_SEQ')", Long.class);
+        long articleSeq = sourceJdbc.queryForObject("SELECT NEXTVAL('ARTICLE_SEQ')", Long.class);
+        insertArticle(articleSeq - 1, "새글", System.currentTimeMillis() - 10000);
+        targetJdbc.update("DELETE FROM article_stat WHERE article_id = 1");
+
+        File dir = folder.newFolder("full");
+        ExportManifest manifest = new DBExporter(source, CHUNK_SIZE, 2, 0).export(dir, null);
+
+        assertEquals(101, manifest.getTable("ARTICLE").getRows());
+        assertEquals(15, manifest.getTable("ARTICLE").getChunks());
+        assertEquals(articleSeq - 1, manifest.getTable("ARTICLE").getWatermarkId());
+        assertTrue(indexOf(manifest, "USER") < indexOf(manifest, "ARTICLE"));
+        assertTrue(indexOf(manifest, "ARTICLE") < indexOf(manifest, "COMMENT"));
+
+        ImportProgress progress = new DBImporter(target, 2).importAll(dir);
+
+        assertEquals(101 + 100 + 1 + 1 + 1, progress.getImported());
+        for (String table : new String[]{"user", "article", "comment", "view_count", "article_stat"})
+            assertEquals(table, rows(sourceJdbc, table), rows(targetJdbc, table));
+
+        //복원한 DB에서 새로 받는 id는 export한 글과 겹치지 않는다
+        assertTrue(targetJdbc.queryForObject("SELECT NEXTVAL('ARTICLE_SEQ')", Long.class) > articleSeq);
+    }
+
+    @Test
+    public void incremental_export는_watermark_이후에_만든_행만_담는다() throws Exception {
+        File full = folder.newFolder("full");
+        File incremental = folder.newFolder("incremental");
+        DBExporter exporter = new DBExporter(source, CHUNK_SIZE, 2, 0);
+        ExportManifest first = exporter.export(full, null);
+
+        insertArticle(1000, "새글", System.currentTimeMillis() - 1000);
+        sourceJdbc.update("UPDATE view_count SET total_count = 43 WHERE article_id = 3");
+        ExportManifest second = exporter.export(incremental, first);
+
+        assertTrue(second.isIncremental());
+        assertEquals(1, second.getTable("ARTICLE").getRows());
+        assertEquals(1000, second.getTable("ARTICLE").getWatermarkId());
+        assertEquals(0, second.getTable("COMMENT").getRows());
+        assertEquals(first.getTable("COMMENT").getWatermarkId(), second.getTable("COMMENT").getWatermarkId());
+
+        DBImporter importer = new DBImporter(target, 2);
+        importer.importAll(full);
+        importer.importAll(incremental);
+
+        assertEquals(101, (long) targetJdbc.queryForObject("SELECT COUNT(*) FROM article", Long.class));
+        assertEquals("새글", targetJdbc.queryForObject("SELECT title FROM article WHERE id = 1000", String.class));
+        assertEquals(43, (long) targetJdbc.queryForObject("SELECT total_count FROM view_count WHERE article_id = 3", Long.class));
+    }
+
+    @Test
+    public void settle_시간보다_최근에_만든_행은_다음_export로_미룬다() throws Exception {
+        insertArticle(1000, "방금 쓴 글", System.currentTimeMillis());
+
+        ExportManifest manifest = new DBExporter(source, CHUNK_SIZE, 1, 60000).export(folder.newFolder("full"), null);
+
+        assertEquals(100, manifest.getTable("ARTICLE").getRows());
+        assertEquals(100, manifest.getTable("ARTICLE").getWatermarkId());
+    }
+
+    @Test
+    public void 부모_테이블을_다_읽은_뒤에_자식_테이블을_읽는다() throws Exception {
+        List<String> selects = Collections.synchronizedList(new ArrayList<>());
+        //글을 읽기 시작할때 TombstonePurgeService처럼 댓글부터 지우고 글을 지운다
+        DataSource purgingSource = recordingDataSource(source, selects, sql -> {
+            if (sql.contains("FROM ARTICLE ") && selects.stream().noneMatch(select -> select.contains("FROM ARTICLE ")))
+                purgeArticle(3);
+        });
+
+        File dir = folder.newFolder("full");
+        new DBExporter(purgingSource, CHUNK_SIZE, 4, 0).export(dir, null);
+        new DBImporter(target, 2).importAll(dir);
+
+        assertTrue(lastIndexOf(selects, "FROM ARTICLE ") < firstIndexOf(selects, "FROM COMMENT "));
+        assertEquals(0, (int) targetJdbc.queryForObject("SELECT COUNT(*) FROM comment WHERE article_id = 3", Integer.class));
+    }
+
+    private void purgeArticle(long id) {
+        sourceJdbc.update("DELETE FROM comment WHERE article_id = ?", id);
+        sourceJdbc.update("DELETE FROM article_stat WHERE article_id = ?", id);
+        sourceJdbc.update("DELETE FROM view_count WHERE article_id = ?", id);
+        sourceJdbc.update("DELETE FROM article WHERE id = ?", id);
+    }
+
+    //select를 준비하는 순서를 남기고, 준비하기 전에 beforeSelect를 부른다
+    private static DataSource recordingDataSource(DataSource dataSource, List<String> selects, Consumer<String> beforeSelect) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement") && args[0].toString().startsWith("SELECT")) {
+                        beforeSelect.accept(args[0].toString());
+                        selects.add(args[0].toString());
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+            }
+        };
+    }
+
+    private static int firstIndexOf(List<String> selects, String table) {
+        for (int index = 0; index < selects.size(); index++) {
+            if (selects.get(index).contains(table))
+                return index;
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(List<String> selects, String table) {
+        for (int index = selects.size() - 1; index >= 0; index--) {
+            if (selects.get(index).contains(table))
+                return index;
+        }
+        return -1;
+    }
+
+    private void insertArticle(long id, String title, long createdTimeMillis) {
+        sourceJdbc.update("INSERT INTO article (id, title, content, user_id, created_time, version) VALUES (?, ?, 'content', 1, ?, 0)",
+                id, title, new Timestamp(createdTimeMillis));
+    }
+
+    private static List<Map<String, Object>> rows(JdbcTemplate jdbcTemplate, String table) {
+        return jdbcTemplate.queryForList("SELECT * FROM " + table + " ORDER BY 1");
+    }
+
+    private static int indexOf(ExportManifest manifest, String table) {
+        int index = 0;
+        for (ExportManifest.TableEntry entry : manifest.getTables()) {
+            if (entry.getName().equals(table))
+                return index;
+            index++;
+        }
+        return -1;
+    }
+
+    private static DataSource migratedDataSource(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("root");
+
+        Flyway flyway = new Flyway();
+        flyway.setDataSource(dataSource);
+        flyway.setLocations("classpath:sql/migration");
+        flyway.migrate();
+        return dataSource;
+    }
+}
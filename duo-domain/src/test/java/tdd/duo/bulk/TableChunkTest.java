@@ -0,0 +1,65 @@
+package tdd.duo.bulk;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TableChunkTest {
+
+    private static final List<ColumnType> TYPES = Arrays.asList(ColumnType.LONG, ColumnType.STRING, ColumnType.TIMESTAMP,
+            ColumnType.DOUBLE, ColumnType.DECIMAL, ColumnType.BOOLEAN, ColumnType.BYTES);
+
+    @Test
+    public void 컬럼별로_쓴_값과_null을_그대로_읽는다() throws IOException {
+        Timestamp nanos = Timestamp.valueOf("2015-04-21 10:29:11.862123456");
+        TableChunk chunk = new TableChunk(TYPES, 3);
+        chunk.add(new Object[]{100L, "한글 내용", nanos, 1.5, new BigDecimal("12.340"), true, new byte[]{1, 2}});
+        chunk.add(new Object[]{null, null, null, null, null, null, null});
+        chunk.add(new Object[]{-5L, "", new Timestamp(0), -0.25, BigDecimal.ONE, false, new byte[0]});
+
+        TableChunk read = roundTrip(chunk);
+
+        assertEquals(3, read.size());
+        assertArrayEquals(new Object[]{100L, "한글 내용", nanos, 1.5, new BigDecimal("12.340"), true}, Arrays.copyOf(read.getRow(0), 6));
+        assertArrayEquals(new byte[]{1, 2}, (byte[]) read.get(0, 6));
+        assertArrayEquals(new Object[7], read.getRow(1));
+        assertEquals(-5L, read.get(2, 0));
+        assertEquals(new Timestamp(0), read.get(2, 2));
+        assertEquals(0, ((byte[]) read.get(2, 6)).length);
+    }
+
+    @Test
+    public void 연속된_id는_차이만_써서_작게_저장한다() throws IOException {
+        List<ColumnType> types = Arrays.asList(ColumnType.LONG);
+        TableChunk chunk = new TableChunk(types, 10000);
+        for (long id = 1000000000L; !chunk.isFull(); id++)
+            chunk.add(new Object[]{id});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chunk.writeTo(out);
+
+        assertTrue("size " + out.size(), out.size() < 1000);
+        assertEquals(1000009999L, TableChunk.readFrom(new ByteArrayInputStream(out.toByteArray()), types).get(9999, 0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void 가득_찬_chunk에는_더할수_없다() {
+        TableChunk chunk = new TableChunk(Arrays.asList(ColumnType.LONG), 1);
+        chunk.add(new Object[]{1L});
+        chunk.add(new Object[]{2L});
+    }
+
+    private static TableChunk roundTrip(TableChunk chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chunk.writeTo(out);
+        return TableChunk.readFrom(new ByteArrayInputStream(out.toByteArray()), TYPES);
+    }
+}
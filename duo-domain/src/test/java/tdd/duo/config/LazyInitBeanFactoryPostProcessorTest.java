@@ -0,0 +1,83 @@
+package tdd.duo.config;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LazyInitBeanFactoryPostProcessorTest {
+
+    static final List<String> created = new CopyOnWriteArrayList<>();
+
+    AnnotationConfigApplicationContext context;
+
+    @Before
+    public void setUp() {
+        created.clear();
+    }
+
+    @After
+    public void tearDown() {
+        if (context != null)
+            context.close();
+    }
+
+    @Test
+    public void lazy_init이면_처음_쓸때_만든다() {
+        start(true);
+
+        assertEquals(Collections.singletonList("eager"), created);
+
+        context.getBean("nonCritical");
+        assertEquals(2, created.size());
+        assertTrue(created.contains("nonCritical"));
+    }
+
+    @Test
+    public void lazy_init이_아니면_기동시_모두_만든다() {
+        start(false);
+
+        assertEquals(2, created.size());
+    }
+
+    private void start(boolean lazyInit) {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test",
+                Collections.singletonMap(LazyInitBeanFactoryPostProcessor.PROPERTY_KEY_LAZY_INIT, (Object) String.valueOf(lazyInit))));
+        context.register(TestConfig.class);
+        context.refresh();
+    }
+
+    @Configuration
+    static class TestConfig {
+
+        @Bean
+        public static LazyInitBeanFactoryPostProcessor lazyInitBeanFactoryPostProcessor() {
+            return new LazyInitBeanFactoryPostProcessor();
+        }
+
+        @Bean
+        public String nonCritical() {
+            created.add("nonCritical");
+            return "nonCritical";
+        }
+
+        @Lazy(false)
+        @Bean
+        public String eager() {
+            created.add("eager");
+            return "eager";
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package tdd.duo.config;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import tdd.duo.domain.Article;
+import tdd.duo.domain.User;
+import tdd.duo.repository.ArticleRepository;
+import tdd.duo.repository.UserRepository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * hbm2ddl 대신 Flyway migration으로 만든 schema가 entity와 맞는지 hibernate validate로 검사한다.
+ * migration을 빠뜨리고 entity만 바꾸면 context가 뜨지 않아 실패한다.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {DBConfig.class})
+@TestPropertySource(properties = {
+        "database.url=jdbc:h2:mem:schema-migration;DB_CLOSE_DELAY=-1",
+        "database.replica.urls=",
+        "database.schema.flyway.enabled=true",
+        "hibernate.hbm2ddl.auto=validate",
+        "viewcount.flush.interval_millis=3600000",
+        "comment.write_behind.enabled=false",
+        "article.stat.reconcile_interval_millis=0",
+        "article.count.reconcile_interval_millis=0",
+        "tombstone.purge.check_interval_millis=0",
+        "password.hash.iterations=1000"
+})
+public class SchemaMigrationTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Test
+    public void migration으로_만든_schema에_글을_쓴다() {
+        User user = userRepository.findOne(1L);
+        Article article = articleRepository.save(new Article(user, "migration", "content"));
+
+        //V2의 글(id 1~100)과 겹치지 않는다
+        assertTrue(article.getId() > 100);
+        assertEquals(101, articleRepository.count());
+        assertEquals(100, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM article_stat", Integer.class));
+    }
+}
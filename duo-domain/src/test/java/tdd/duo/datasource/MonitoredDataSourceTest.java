@@ -0,0 +1,64 @@
+package tdd.duo.datasource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MonitoredDataSourceTest {
+
+    @Mock
+    DataSource pool;
+
+    @Mock
+    Connection connection;
+
+    MonitoredDataSource dataSource;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new MonitoredDataSource(pool, 0);
+        when(pool.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    public void 빌려간_connection은_close할때까지_추적한다() throws Exception {
+        Connection borrowed = dataSource.getConnection();
+        Thread.sleep(2);
+
+        assertEquals(1, dataSource.getBorrowed());
+        assertEquals(1, dataSource.getLeakSuspects());
+        assertEquals(1, dataSource.getWaitTimeMicros().getCount());
+
+        borrowed.close();
+
+        verify(connection).close();
+        assertEquals(0, dataSource.getBorrowed());
+        assertEquals(0, dataSource.getLeakSuspects());
+    }
+
+    @Test
+    public void connection_획득_실패() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("timeout"));
+
+        try {
+            dataSource.getConnection();
+            fail();
+        } catch (SQLException e) {
+            assertEquals(0, dataSource.getWaiters());
+            assertEquals(0, dataSource.getBorrowed());
+            assertEquals(1L, dataSource.getStatistics().get("acquireFailures"));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package tdd.duo.datasource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryMonitorTest {
+
+    private static final String SELECT_USER_SQL = "select * from user where id=?";
+
+    QueryMonitor queryMonitor;
+
+    @Before
+    public void setUp() {
+        queryMonitor = new QueryMonitor(100, 3);
+    }
+
+    @Test
+    public void 요청별로_문장_수와_DB_시간을_센다() {
+        queryMonitor.begin();
+        queryMonitor.executed("select * from article", null, TimeUnit.MILLISECONDS.toNanos(2), false);
+        queryMonitor.executed("insert into comment values (?)", null, TimeUnit.MILLISECONDS.toNanos(3), true);
+
+        QueryMonitor.RequestQueries queries = queryMonitor.end("GET /article");
+
+        assertEquals(2, queries.getStatementCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), queries.getDbTimeNanos());
+        assertEquals(1L, endpoint("GET /article").get("requests"));
+        assertEquals(2L, endpoint("GET /article").get("statements.max"));
+    }
+
+    @Test
+    public void 다른_thread로_넘긴_요청은_이어서_센다() throws Exception {
+        queryMonitor.begin();
+        queryMonitor.executed("select * from article", null, 1000, false);
+        QueryMonitor.RequestQueries detached = queryMonitor.detach();
+        assertNull(queryMonitor.getCurrentRequest());
+
+        Thread worker = new Thread(() -> {
+            queryMonitor.attach(detached);
+            queryMonitor.executed("select * from comment", null, 1000, false);
+            queryMonitor.detach();
+        });
+        worker.start();
+        worker.join();
+
+        queryMonitor.attach(detached);
+        assertEquals(2, queryMonitor.end("GET /article/{id}").getStatementCount());
+    }
+
+    @Test
+    public void 요청_밖의_문장은_endpoint에_모으지_않는다() {
+        queryMonitor.executed("update view_count set total_count = total_count + ?", null, 1000, true);
+
+        assertNull(queryMonitor.end("GET /article"));
+        assertEquals(1L, queryMonitor.getStatistics().get("statements"));
+        assertTrue(endpoints().isEmpty());
+    }
+
+    @Test
+    public void 같은_select가_반복되면_N_plus_1로_의심한다() {
+        queryMonitor.begin();
+        for (int i = 0; i < 3; i++)
+            queryMonitor.executed(SELECT_USER_SQL, null, 1000, false);
+        queryMonitor.executed("select * from article", null, 1000, false);
+
+        QueryMonitor.RequestQueries queries = queryMonitor.end("GET /article");
+
+        assertEquals(1, queries.getRepeatedSelects(3).size());
+        assertEquals(3, (int) queries.getRepeatedSelects(3).get(SELECT_USER_SQL));
+        assertEquals(1L, endpoint("GET /article").get("nPlusOne"));
+        assertEquals("3x " + SELECT_USER_SQL, endpoint("GET /article").get("nPlusOne.last"));
+    }
+
+    @Test
+    public void batch는_N_plus_1로_보지_않는다() {
+        queryMonitor.begin();
+        for (int i = 0; i < 5; i++)
+            queryMonitor.executed("insert into comment values (?)", null, 1000, true);
+
+        assertTrue(queryMonitor.end("POST /comments").getRepeatedSelects(3).isEmpty());
+        assertEquals(0L, endpoint("POST /comments").get("nPlusOne"));
+    }
+
+    @Test
+    public void threshold보다_오래_걸린_문장을_센다() {
+        queryMonitor.executed(SELECT_USER_SQL, null, TimeUnit.MILLISECONDS.toNanos(99), false);
+        queryMonitor.executed(SELECT_USER_SQL, null, TimeUnit.MILLISECONDS.toNanos(100), false);
+
+        assertEquals(1L, queryMonitor.getStatistics().get("slowQueries"));
+    }
+
+    @Test
+    public void user_테이블의_문장은_bind_parameter를_가려서_남긴다() {
+        List<Object> parameters = Arrays.<Object>asList("$2a$10$hash", 1L);
+
+        assertEquals(Arrays.asList(QueryMonitor.MASKED_PARAMETER, QueryMonitor.MASKED_PARAMETER),
+                QueryMonitor.loggedParameters("update user set password=? where id=?", parameters));
+        assertEquals(Arrays.asList(QueryMonitor.MASKED_PARAMETER, QueryMonitor.MASKED_PARAMETER),
+                QueryMonitor.loggedParameters("select user0_.id from user user0_ where user0_.email=?", parameters));
+        assertEquals(parameters, QueryMonitor.loggedParameters("select * from article where user_id=? and id=?", parameters));
+    }
+
+    @Test
+    public void slow_query로_남길_bind_parameter는_복사한다() {
+        List<Object> parameters = new ArrayList<>(Arrays.<Object>asList(1L));
+
+        List<Object> logged = QueryMonitor.loggedParameters("select * from article where id=?", parameters);
+        parameters.clear();
+
+        assertEquals(Arrays.<Object>asList(1L), logged);
+    }
+
+    @Test
+    public void clear() {
+        queryMonitor.begin();
+        queryMonitor.executed(SELECT_USER_SQL, null, 1000, false);
+        queryMonitor.end("GET /article");
+
+        queryMonitor.clear();
+
+        assertEquals(0L, queryMonitor.getStatistics().get("statements"));
+        assertTrue(endpoints().isEmpty());
+    }
+
+    private Map<String, Object> endpoints() {
+        return (Map<String, Object>) queryMonitor.getStatistics().get("endpoints");
+    }
+
+    private Map<String, Object> endpoint(String name) {
+        return (Map<String, Object>) endpoints().get(name);
+    }
+}
@@ -0,0 +1,63 @@
+package tdd.duo.datasource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class QueryMonitoringDataSourceTest {
+
+    QueryMonitor queryMonitor;
+    JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        queryMonitor = mock(QueryMonitor.class);
+        DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:query-monitoring;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(new QueryMonitoringDataSource(h2, queryMonitor));
+
+        new JdbcTemplate(h2).execute("DROP TABLE IF EXISTS item");
+        new JdbcTemplate(h2).execute("CREATE TABLE item (id BIGINT, name VARCHAR(20))");
+    }
+
+    @Test
+    public void PreparedStatement는_bind_parameter와_같이_알린다() {
+        jdbcTemplate.update("INSERT INTO item VALUES (?, ?)", 1L, "first");
+
+        verify(queryMonitor).executed(eq("INSERT INTO item VALUES (?, ?)"), eq(Arrays.<Object>asList(1L, "first")), anyLong(), eq(false));
+    }
+
+    @Test
+    public void Statement는_execute의_SQL을_알린다() {
+        assertEquals(0, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item", Integer.class));
+
+        verify(queryMonitor).executed(eq("SELECT COUNT(*) FROM item"), (List<Object>) isNull(), anyLong(), eq(false));
+    }
+
+    @Test
+    public void batch는_한번으로_알린다() {
+        jdbcTemplate.batchUpdate("INSERT INTO item VALUES (?, ?)",
+                Arrays.asList(new Object[]{1L, "first"}, new Object[]{2L, "second"}, new Object[]{3L, "third"}));
+
+        verify(queryMonitor).executed(eq("INSERT INTO item VALUES (?, ?) [batch of 3]"),
+                eq(Arrays.<Object>asList(3L, "third")), anyLong(), eq(true));
+        assertEquals(3, (int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM item WHERE id IN (?, ?, ?)", Integer.class, 1L, 2L, 3L));
+    }
+
+    @Test
+    public void setNull은_null로_기억한다() {
+        jdbcTemplate.update("INSERT INTO item VALUES (?, ?)", 1L, null);
+
+        verify(queryMonitor).executed(eq("INSERT INTO item VALUES (?, ?)"), eq(Arrays.asList(1L, null)), anyLong(), eq(false));
+    }
+}
@@ -0,0 +1,173 @@
+package tdd.duo.datasource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * primary와 replica를 서로 다른 값을 가진 H2 메모리 DB 두개로 띄워서 어느쪽에서 읽었는지 확인한다.
+ */
+public class ReplicaRoutingDataSourceTest {
+
+    private static final String SELECT_NODE_SQL = "SELECT name FROM node";
+
+    DataSource primary;
+    DataSource replica;
+    MockHttpServletRequest request;
+
+    @Before
+    public void setUp() {
+        primary = h2("primary");
+        replica = h2("replica");
+        request = new MockHttpServletRequest();
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void readOnly_transaction은_replica에서_읽는다() {
+        Routed routed = new Routed(Collections.singletonList(replica), 3000);
+
+        assertEquals("replica", routed.read(true));
+        assertEquals("primary", routed.read(false));
+        assertEquals("primary", routed.jdbcTemplate.queryForObject(SELECT_NODE_SQL, String.class));
+    }
+
+    @Test
+    public void replica가_여러개면_돌아가면서_읽는다() {
+        DataSource second = h2("replica2");
+        Routed routed = new Routed(Arrays.asList(replica, second), 3000);
+
+        assertEquals("replica", routed.read(true));
+        assertEquals("replica2", routed.read(true));
+        assertEquals("replica", routed.read(true));
+    }
+
+    @Test
+    public void replica가_없으면_primary에서_읽는다() {
+        Routed routed = new Routed(Collections.emptyList(), 3000);
+
+        assertEquals("primary", routed.read(true));
+    }
+
+    @Test
+    public void 쓰기를_commit한_세션은_primary에서_읽는다() {
+        Routed routed = new Routed(Collections.singletonList(replica), 3000);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertEquals("replica", routed.read(true));
+        routed.write();
+        assertEquals("primary", routed.read(true));
+
+        //세션이 다른 사용자는 replica에서 읽는다
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertEquals("replica", routed.read(true));
+        assertEquals(1L, routed.routing.getStatistics().get("pinnedReads"));
+    }
+
+    @Test
+    public void pin_시간이_지나면_다시_replica에서_읽는다() {
+        Routed routed = new Routed(Collections.singletonList(replica), 3000);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        routed.write();
+        request.getSession().setAttribute(ReplicaRoutingDataSource.SESSION_KEY_PINNED_UNTIL, System.currentTimeMillis() - 1);
+
+        assertEquals("replica", routed.read(true));
+    }
+
+    @Test
+    public void rollback된_쓰기는_pin하지_않는다() {
+        Routed routed = new Routed(Collections.singletonList(replica), 3000);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        routed.transactionTemplate(false).execute(status -> {
+            routed.jdbcTemplate.update("UPDATE node SET name = 'written'");
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertEquals("replica", routed.read(true));
+        assertEquals("primary", routed.read(false));
+    }
+
+    @Test
+    public void 요청_밖의_쓰기는_pin하지_않는다() {
+        Routed routed = new Routed(Collections.singletonList(replica), 3000);
+
+        routed.write();
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        assertEquals("replica", routed.read(true));
+    }
+
+    @Test
+    public void replica에_연결할_수_없으면_primary에서_읽는다() throws SQLException {
+        DataSource broken = mock(DataSource.class);
+        when(broken.getConnection()).thenThrow(new SQLException("connection refused"));
+        Routed routed = new Routed(Collections.singletonList(broken), 3000);
+
+        assertEquals("primary", routed.read(true));
+        assertEquals(1L, routed.routing.getStatistics().get("replicaFailures"));
+    }
+
+    private static DataSource h2(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS node");
+        jdbcTemplate.execute("CREATE TABLE node (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO node VALUES (?)", name);
+        return dataSource;
+    }
+
+    //DBConfig와 같이 LazyConnectionDataSourceProxy로 감싼다
+    private class Routed {
+
+        final ReplicaRoutingDataSource routing;
+        final DataSource dataSource;
+        final JdbcTemplate jdbcTemplate;
+        final DataSourceTransactionManager transactionManager;
+
+        Routed(List<DataSource> replicas, long pinMillis) {
+            routing = new ReplicaRoutingDataSource(primary, replicas, pinMillis);
+            dataSource = new LazyConnectionDataSourceProxy(routing);
+            jdbcTemplate = new JdbcTemplate(dataSource);
+            transactionManager = new DataSourceTransactionManager(dataSource);
+        }
+
+        TransactionTemplate transactionTemplate(boolean readOnly) {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(readOnly);
+            return transactionTemplate;
+        }
+
+        String read(boolean readOnly) {
+            return transactionTemplate(readOnly).execute(status -> jdbcTemplate.queryForObject(SELECT_NODE_SQL, String.class));
+        }
+
+        void write() {
+            transactionTemplate(false).execute(status -> jdbcTemplate.update("UPDATE node SET name = name"));
+        }
+    }
+}
@@ -3,7 +3,9 @@ package tdd.duo.domain;
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Created by yoon on 15. 4. 14..
@@ -41,4 +43,13 @@ public class ArticleTest {
         article.setContent(null);
         assertFalse(article.isRegistable());
     }
+
+    @Test
+    public void 바뀐_값이_있을때만_수정된다() {
+        assertFalse(article.update("testTitle", "testContent"));
+
+        assertTrue(article.update("testTitle", "modifiedContent"));
+        assertEquals("testTitle", article.getTitle());
+        assertEquals("modifiedContent", article.getContent());
+    }
 }
@@ -2,9 +2,9 @@ package tdd.duo.domain;
 
 import org.junit.Before;
 import org.junit.Test;
+import tdd.duo.domain.validation.Errors;
 
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class UserTest {
 
@@ -61,4 +61,22 @@ public class UserTest {
         assertFalse(testUser.IsValidAge());
     }
 
+    @Test
+    public void 가입정보의_모든_오류를_한번에_확인() {
+        User user = new User("test", "pw", "", 200);
+
+        Errors errors = user.validate();
+
+        assertFalse(user.canRegistable());
+        assertEquals(4, errors.getFieldErrors().size());
+        assertEquals("이메일 형식이 올바르지 않습니다", errors.getFieldError("email").getMessage());
+        assertNotNull(errors.getFieldError("password"));
+        assertNotNull(errors.getFieldError("name"));
+        assertNotNull(errors.getFieldError("age"));
+    }
+
+    @Test
+    public void 올바른_가입정보는_오류가_없다() {
+        assertSame(Errors.NONE, testUser.validate());
+    }
 }
@@ -0,0 +1,63 @@
+package tdd.duo.domain.auth;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PasswordHasherTest {
+
+    PasswordHasher passwordHasher = new PasswordHasher("PBKDF2WithHmacSHA256", 1000);
+
+    @Test
+    public void hash한_비밀번호_확인() {
+        String encoded = passwordHasher.hash("testPassword");
+
+        assertTrue(encoded.startsWith("$PBKDF2WithHmacSHA256$1000$"));
+        assertTrue(passwordHasher.matches("testPassword", encoded));
+        assertFalse(passwordHasher.matches("testPassword2", encoded));
+        assertFalse(passwordHasher.matches(null, encoded));
+    }
+
+    @Test
+    public void 같은_비밀번호도_salt가_달라서_hash가_다르다() {
+        assertNotEquals(passwordHasher.hash("testPassword"), passwordHasher.hash("testPassword"));
+    }
+
+    @Test
+    public void cost가_바뀌면_다시_hash_해야한다() {
+        String encoded = passwordHasher.hash("testPassword");
+        PasswordHasher strongerHasher = new PasswordHasher("PBKDF2WithHmacSHA256", 2000);
+
+        assertFalse(passwordHasher.needsRehash(encoded));
+        assertTrue(strongerHasher.needsRehash(encoded));
+
+        //이전 cost로 만든 hash도 검증할 수 있다
+        assertTrue(strongerHasher.matches("testPassword", encoded));
+    }
+
+    @Test
+    public void 평문으로_저장된_비밀번호() {
+        assertTrue(passwordHasher.matches("testPassword", "testPassword"));
+        assertFalse(passwordHasher.matches("testPassword", "otherPassword"));
+        assertTrue(passwordHasher.needsRehash("testPassword"));
+    }
+
+    @Test
+    public void 형식이_틀린_hash() {
+        assertFalse(passwordHasher.matches("testPassword", "$PBKDF2WithHmacSHA256$1000$broken"));
+        assertTrue(passwordHasher.needsRehash("$PBKDF2WithHmacSHA256$1000$broken"));
+    }
+
+    @Test
+    public void 달러로_시작하는_평문_비밀번호도_로그인할수_있다() {
+        assertTrue(passwordHasher.matches("$ecret&pw", "$ecret&pw"));
+        assertTrue(passwordHasher.matches("$a$b$c$d", "$a$b$c$d"));
+        assertFalse(passwordHasher.matches("other", "$ecret&pw"));
+        assertTrue(passwordHasher.needsRehash("$ecret&pw"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 지원하지_않는_알고리즘() {
+        new PasswordHasher("NoSuchAlgorithm", 1000);
+    }
+}
@@ -0,0 +1,68 @@
+package tdd.duo.domain.validation;
+
+import org.junit.Test;
+import tdd.duo.domain.User;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ValidatorTest {
+
+    private static final Validator<User> VALIDATOR = new Validator<User>()
+            .rule("email", user -> Rules.notEmpty(user.getEmail()), "empty email")
+            .rule("email", user -> user.getEmail().contains("@"), "invalid email")
+            .rule("name", user -> Rules.notEmpty(user.getName()), "empty name");
+
+    @Test
+    public void 오류가_없으면_NONE을_돌려준다() {
+        Errors errors = VALIDATOR.validate(new User("a@b.com", "pw", "name", 1));
+
+        assertSame(Errors.NONE, errors);
+        assertFalse(errors.hasErrors());
+    }
+
+    @Test
+    public void 모든_필드의_오류를_모으고_필드별로_첫_오류만_남긴다() {
+        Errors errors = VALIDATOR.validate(new User("", "pw", "", 1));
+
+        assertEquals(2, errors.getFieldErrors().size());
+        assertEquals("empty email", errors.getFieldError("email").getMessage());
+        assertEquals("empty name", errors.getFieldError("name").getMessage());
+        assertEquals("empty email", errors.toMap().get("email"));
+    }
+
+    @Test
+    public void isValid는_첫_실패에서_멈춘다() {
+        AtomicInteger evaluated = new AtomicInteger();
+        Validator<User> validator = new Validator<User>()
+                .rule("email", user -> Rules.notEmpty(user.getEmail()), "empty email")
+                .rule("name", user -> evaluated.incrementAndGet() > 0, "counted");
+
+        assertFalse(validator.isValid(new User(null, "pw", "name", 1)));
+        assertEquals(0, evaluated.get());
+
+        assertTrue(validator.isValid(new User("a@b.com", "pw", "name", 1)));
+        assertEquals(1, evaluated.get());
+    }
+
+    @Test
+    public void rule은_기존_Validator를_바꾸지_않는다() {
+        Validator<User> base = new Validator<User>().rule("email", user -> Rules.notEmpty(user.getEmail()), "empty email");
+        Validator<User> withName = base.rule("name", user -> Rules.notEmpty(user.getName()), "empty name");
+
+        User user = new User("a@b.com", "pw", "", 1);
+        assertTrue(base.isValid(user));
+        assertFalse(withName.isValid(user));
+    }
+
+    @Test
+    public void 정규식은_재사용해도_결과가_같다() {
+        CompiledPattern pattern = new CompiledPattern("[a-z]+");
+
+        assertTrue(pattern.matches("abc"));
+        assertFalse(pattern.matches("abc1"));
+        assertTrue(pattern.matches("xyz"));
+        assertFalse(pattern.matches(null));
+    }
+}
@@ -0,0 +1,60 @@
+package tdd.duo.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+    @Test
+    public void 작은값은_정확히_기록한다() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 10; value++)
+            histogram.record(value);
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(55, histogram.getSum());
+        assertEquals(10, histogram.getMax());
+        assertEquals(5, histogram.getValueAtPercentile(50));
+        assertEquals(10, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void 큰값은_상대오차_안에서_기록한다() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100000; value++)
+            histogram.record(value);
+
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p99 >= 99000);
+        assertTrue(p99 <= 99000 * 1.07);
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void bucket_경계() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123456789L, Long.MAX_VALUE}) {
+            int index = Histogram.indexOf(value);
+            assertTrue(value <= Histogram.upperBoundOf(index));
+            if (index > 0)
+                assertTrue(value > Histogram.upperBoundOf(index - 1));
+        }
+    }
+
+    @Test
+    public void 누적_건수와_초기화() {
+        Histogram histogram = new Histogram();
+        histogram.record(1);
+        histogram.record(5);
+        histogram.record(1000);
+
+        assertEquals(2, histogram.getCountAtOrBelow(5));
+        assertEquals(3, histogram.getCountAtOrBelow(Long.MAX_VALUE));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,128 @@
+package tdd.duo.repository;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import tdd.duo.config.DBConfig;
+import tdd.duo.datasource.QueryMonitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * repository 조회가 실제로 보내는 SQL을 QueryMonitor로 모아서 H2 EXPLAIN으로 실행계획을 확인한다.
+ * 조회를 바꾸거나 index를 지우면 테이블을 모두 읽게(tableScan) 되어 실패한다. 이때는 sql/migration에 index를 추가한다.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {DBConfig.class})
+@TestPropertySource(properties = {
+        "database.url=jdbc:h2:mem:index-usage;DB_CLOSE_DELAY=-1",
+        "database.replica.urls=",
+        "database.schema.flyway.enabled=true",
+        "hibernate.hbm2ddl.auto=validate",
+        "hibernate.cache.use_second_level_cache=false",
+        "hibernate.cache.use_query_cache=false",
+        "viewcount.flush.interval_millis=3600000",
+        "comment.write_behind.enabled=false",
+        "article.stat.reconcile_interval_millis=0",
+        "article.count.reconcile_interval_millis=0",
+        "tombstone.purge.check_interval_millis=0",
+        "password.hash.iterations=1000"
+})
+public class IndexUsageTest {
+
+    //count(*)를 row 수로 바로 답할때도 tableScan으로 표시된다
+    private static final String TABLE_SCAN = ".tableScan */";
+    private static final String DIRECT_LOOKUP = "/* direct lookup */";
+    private static final String INDEX_SORTED = "/* index sorted */";
+
+    @Autowired
+    QueryMonitor queryMonitor;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    ArticleStatRepository articleStatRepository;
+
+    @Autowired
+    CommentRepository commentRepository;
+
+    @Test
+    public void 이메일로_사용자를_찾을때_unique_index를_쓴다() {
+        for (String plan : explain(() -> userRepository.findByEmail("test@duo.com")))
+            assertTrue(plan, plan.contains("UK_USER_EMAIL"));
+    }
+
+    @Test
+    public void 글목록은_index를_쓴다() {
+        assertNoTableScan(explain(() -> articleRepository.findSummaries(new PageRequest(1, 10, Sort.Direction.DESC, "id"))));
+        assertNoTableScan(explain(() -> articleRepository.findSummariesByIdLessThan(50L, new PageRequest(0, 10))));
+        assertNoTableScan(explain(() -> articleRepository.findSummariesByIds(Arrays.asList(1L, 2L))));
+    }
+
+    @Test
+    public void 글목록의_seek은_삭제시간과_id_index로_범위를_읽는다() {
+        for (String plan : explain(() -> articleRepository.findSummariesByIdLessThan(50L, new PageRequest(0, 10))))
+            assertTrue(plan, plan.contains("IDX_ARTICLE_DELETED_TIME_ID: DELETED_TIME IS NULL AND ID <"));
+    }
+
+    @Test
+    public void 댓글수와_댓글은_글번호_index로_읽는다() {
+        List<String> plans = explain(() -> articleRepository.findOneWithComments(1L));
+        plans.addAll(explain(() -> commentRepository.findSummariesAfter(1L, 0L, new PageRequest(0, 10))));
+
+        assertNoTableScan(plans);
+        for (String plan : plans)
+            assertTrue(plan, plan.contains("IDX_COMMENT_ARTICLE_ID"));
+    }
+
+    @Test
+    public void 조회수와_최근활동순_목록은_정렬없이_index_순서로_읽는다() {
+        List<String> plans = explain(() -> articleStatRepository.findSummariesOrderByViewCount(new PageRequest(1, 10)));
+        plans.addAll(explain(() -> articleStatRepository.findSummariesOrderByLastActivity(new PageRequest(1, 10))));
+
+        assertNoTableScan(plans);
+        assertTrue(plans.stream().anyMatch(plan -> plan.contains("IDX_ARTICLE_STAT_VIEW_COUNT") && plan.contains(INDEX_SORTED)));
+        assertTrue(plans.stream().anyMatch(plan -> plan.contains("IDX_ARTICLE_STAT_LAST_ACTIVITY") && plan.contains(INDEX_SORTED)));
+    }
+
+    private static void assertNoTableScan(List<String> plans) {
+        for (String plan : plans)
+            assertFalse(plan, plan.contains(TABLE_SCAN) && !plan.contains(DIRECT_LOOKUP));
+    }
+
+    //query가 실행한 select마다 한줄로 만든 EXPLAIN 결과. parameter는 모두 "1"로 넣는다(H2가 컬럼 타입으로 바꾼다)
+    private List<String> explain(Runnable query) {
+        queryMonitor.begin();
+        query.run();
+        Set<String> selects = queryMonitor.end("index-usage").getRepeatedSelects(1).keySet();
+        assertFalse("no select executed", selects.isEmpty());
+
+        List<String> plans = new ArrayList<>();
+        for (String sql : selects) {
+            plans.add(jdbcTemplate.query("EXPLAIN " + sql, statement -> {
+                for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++)
+                    statement.setString(i, "1");
+            }, (resultSet, rowNum) -> resultSet.getString(1)).get(0).replaceAll("\\s+", " "));
+        }
+        return plans;
+    }
+}
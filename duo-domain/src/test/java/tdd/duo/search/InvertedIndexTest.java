@@ -0,0 +1,53 @@
+package tdd.duo.search;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InvertedIndexTest {
+
+    InvertedIndex index;
+
+    @Before
+    public void setUp() {
+        index = new InvertedIndex();
+        index.put(1L, "JPA 학습", "페이징 구현");
+        index.put(2L, "게시판 만들기", "JPA로 게시판을 만든다");
+        index.put(3L, "댓글", "Ajax 댓글 처리");
+    }
+
+    @Test
+    public void 모든_검색어를_포함한_글만_검색된다() {
+        assertEquals(Arrays.asList(2L), index.search("jpa 게시판", 0, 10).getIds());
+        assertTrue(index.search("jpa 댓글", 0, 10).getIds().isEmpty());
+    }
+
+    @Test
+    public void 제목에_포함된_글이_먼저_검색된다() {
+        index.put(4L, "공지", "jpa jpa");
+        assertEquals(Arrays.asList(1L, 4L, 2L), index.search("JPA", 0, 10).getIds());
+    }
+
+    @Test
+    public void 검색결과_페이징() {
+        SearchResult result = index.search("jpa", 1, 1);
+
+        assertEquals(2, result.getTotalHits());
+        assertEquals(Arrays.asList(2L), result.getIds());
+    }
+
+    @Test
+    public void 수정과_삭제가_색인에_반영된다() {
+        index.put(3L, "JPA 댓글", "수정됨");
+        assertEquals(3, index.search("jpa", 0, 10).getTotalHits());
+        assertTrue(index.search("ajax", 0, 10).getIds().isEmpty());
+
+        index.remove(3L);
+        assertEquals(2, index.search("jpa", 0, 10).getTotalHits());
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,33 @@
+package tdd.duo.search;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TokenizerTest {
+
+    @Test
+    public void 영문은_소문자_단어단위로_자른다() {
+        assertEquals(Arrays.asList("hello", "duo", "2015"), Tokenizer.tokenize("Hello, DUO-2015!"));
+    }
+
+    @Test
+    public void 한글은_2gram으로_자른다() {
+        assertEquals(Arrays.asList("게시", "시판"), Tokenizer.tokenize("게시판"));
+        assertEquals(Arrays.asList("글"), Tokenizer.tokenize("글"));
+    }
+
+    @Test
+    public void 한글과_영문이_섞인_문장() {
+        assertEquals(Arrays.asList("jpa", "페이", "이징", "학습"), Tokenizer.tokenize("JPA페이징 학습"));
+    }
+
+    @Test
+    public void 빈문자열() {
+        assertTrue(Tokenizer.tokenize(null).isEmpty());
+        assertTrue(Tokenizer.tokenize(" ,.! ").isEmpty());
+    }
+}
@@ -0,0 +1,90 @@
+package tdd.duo.service;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tdd.duo.repository.ArticleRepository;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleCountServiceTest {
+
+    @Mock
+    ArticleRepository articleRepository;
+
+    @InjectMocks
+    ArticleCountService articleCountService;
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void 처음_한번만_DB에서_세고_이후에는_메모리에서_증감한다() {
+        when(articleRepository.count()).thenReturn(11L);
+
+        assertEquals(3, articleCountService.getApproximateTotalPages(5));
+
+        articleCountService.created(5);
+        articleCountService.deleted();
+
+        assertEquals(15, articleCountService.getApproximateCount());
+        assertEquals(3, articleCountService.getApproximateTotalPages(5));
+        verify(articleRepository, times(1)).count();
+    }
+
+    @Test
+    public void 글이_없는_게시판도_다시_세지_않는다() {
+        when(articleRepository.count()).thenReturn(0L);
+
+        assertEquals(0, articleCountService.getApproximateTotalPages(5));
+        assertEquals(0, articleCountService.getApproximateTotalPages(5));
+
+        verify(articleRepository, times(1)).count();
+    }
+
+    @Test
+    public void transaction_안에서는_commit_된_뒤에_반영한다() {
+        when(articleRepository.count()).thenReturn(10L);
+        articleCountService.getApproximateCount();
+
+        TransactionSynchronizationManager.initSynchronization();
+        articleCountService.created(1);
+        articleCountService.deleted();
+        assertEquals(10, articleCountService.getApproximateCount());
+
+        //첫번째(작성)는 commit, 두번째(삭제)는 rollback 된 것으로 본다
+        TransactionSynchronizationManager.getSynchronizations().get(0).afterCommit();
+        TransactionSynchronizationManager.getSynchronizations().get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(11, articleCountService.getApproximateCount());
+    }
+
+    @Test
+    public void reconcile은_어긋난_값을_DB의_값으로_바꾼다() {
+        when(articleRepository.count()).thenReturn(10L, 7L);
+        articleCountService.getApproximateCount();
+        articleCountService.created(2);
+
+        assertEquals(7, articleCountService.reconcile());
+        assertEquals(7, articleCountService.getApproximateCount());
+    }
+
+    @Test
+    public void 아직_세지_않았으면_증감하지_않고_처음_읽을때_DB의_값을_쓴다() {
+        when(articleRepository.count()).thenReturn(4L);
+
+        articleCountService.deleted();
+
+        assertEquals(4, articleCountService.getApproximateCount());
+    }
+}
@@ -0,0 +1,122 @@
+package tdd.duo.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import tdd.duo.bulk.GeneratedArticles;
+import tdd.duo.bulk.ImportProgress;
+import tdd.duo.domain.Article;
+import tdd.duo.domain.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleImportServiceTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ArticleSearchService articleSearchService;
+
+    @Mock
+    JdbcWriteSupportService jdbcWriteSupportService;
+
+    @Mock
+    ArticleStatService articleStatService;
+
+    @Mock
+    ArticleCountService articleCountService;
+
+    @InjectMocks
+    ArticleImportService articleImportService;
+
+    User author;
+
+    @Before
+    public void setUp() {
+        articleImportService.chunkSize = 2;
+        articleImportService.sequenceNextValueSql = "call next value for article_seq";
+
+        author = new User("test@test.com", "password", "test", 20);
+        author.setId(1L);
+
+        //pooled sequence : 1, 51, 101 ...
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L, 51L, 101L);
+    }
+
+    @Test
+    public void chunk_단위로_batch_insert_하고_commit한다() {
+        List<ImportProgress> progresses = new ArrayList<>();
+
+        ImportProgress result = articleImportService.importArticles(new GeneratedArticles(5), author, progresses::add);
+
+        assertEquals(5, result.getImported());
+        assertEquals(0, result.getSkipped());
+        assertEquals(3, progresses.size());
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyList());
+        verify(transactionManager, times(3)).commit(any());
+        verify(articleSearchService, times(5)).index(any(Article.class));
+        verify(jdbcWriteSupportService, times(3)).evictQueryCache();
+        verify(articleCountService, times(2)).created(2);
+        verify(articleCountService).created(1);
+    }
+
+    @Test
+    public void id는_sequence_값_하나로_allocationSize_만큼_쓴다() {
+        ArgumentCaptor<List> args = ArgumentCaptor.forClass(List.class);
+
+        articleImportService.importArticles(new GeneratedArticles(3), author, null);
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), args.capture());
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class));
+
+        //첫 값 1은 id 1 하나만, 다음 값 51은 2 ~ 51 구간을 쓴다
+        List<Object[]> first = args.getAllValues().get(0);
+        List<Object[]> second = args.getAllValues().get(1);
+        assertEquals(1L, first.get(0)[0]);
+        assertEquals(2L, first.get(1)[0]);
+        assertEquals(3L, second.get(0)[0]);
+    }
+
+    @Test
+    public void 입력조건에_맞지않는_글은_건너뛴다() {
+        List<Article> articles = Arrays.asList(
+                new Article(null, "제목", "내용"),
+                new Article(null, "", "내용"),
+                new Article(null, "제목2", null));
+
+        ImportProgress result = articleImportService.importArticles(articles.iterator(), author, null);
+
+        assertEquals(1, result.getImported());
+        assertEquals(2, result.getSkipped());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    public void 작성자가_없으면_입력하지_않는다() {
+        ImportProgress result = articleImportService.importArticles(new GeneratedArticles(3), null, null);
+
+        assertEquals(0, result.getImported());
+        assertEquals(3, result.getSkipped());
+        verifyZeroInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,109 @@
+package tdd.duo.service;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tdd.duo.domain.Article;
+import tdd.duo.domain.User;
+import tdd.duo.dto.ArticleSummary;
+import tdd.duo.repository.ArticleRepository;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleSearchServiceTest {
+
+    @Mock
+    ArticleRepository articleRepository;
+
+    @InjectMocks
+    ArticleSearchService articleSearchService;
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void rebuild가_읽은_뒤에_수정_삭제된_글은_예전_내용으로_덮어쓰지_않는다() {
+        Article modified = article(1L, "garlic old");
+        Article deleted = article(2L, "garlic deleted");
+        Article untouched = article(3L, "garlic");
+
+        //rebuild가 page를 읽은 직후에 요청이 글을 수정, 삭제한다
+        when(articleRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            articleSearchService.index(article(1L, "onion new"));
+            articleSearchService.remove(2L);
+            return new PageImpl<>(Arrays.asList(modified, deleted, untouched));
+        });
+        when(articleRepository.findSummariesByIds(anyCollectionOf(Long.class))).thenAnswer(invocation -> {
+            List<ArticleSummary> summaries = new ArrayList<>();
+            for (Object id : (Collection<?>) invocation.getArguments()[0])
+                summaries.add(new ArticleSummary((Long) id, "", "", new Date(), 0L));
+            return summaries;
+        });
+
+        articleSearchService.rebuild();
+
+        assertEquals(Collections.singletonList(3L), ids(articleSearchService.search("garlic", 1)));
+        assertTrue(articleSearchService.search("old", 1).isEmpty());
+        assertEquals(Collections.singletonList(1L), ids(articleSearchService.search("onion", 1)));
+    }
+
+    @Test
+    public void rebuild가_끝난_뒤의_갱신은_그대로_반영한다() {
+        when(articleRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(Collections.singletonList(article(1L, "garlic"))));
+        when(articleRepository.findSummariesByIds(anyCollectionOf(Long.class)))
+                .thenReturn(Collections.singletonList(new ArticleSummary(1L, "", "", new Date(), 0L)));
+
+        articleSearchService.rebuild();
+        articleSearchService.index(article(1L, "garlic onion"));
+
+        assertEquals(Collections.singletonList(1L), ids(articleSearchService.search("onion", 1)));
+    }
+
+    @Test
+    public void transaction_안의_색인은_commit_된_뒤에만_반영한다() {
+        when(articleRepository.findSummariesByIds(anyCollectionOf(Long.class)))
+                .thenReturn(Collections.singletonList(new ArticleSummary(1L, "", "", new Date(), 0L)));
+
+        //첫번째(작성)는 rollback, 두번째(작성)는 commit 된 것으로 본다
+        TransactionSynchronizationManager.initSynchronization();
+        articleSearchService.index(article(2L, "garlic"));
+        articleSearchService.index(article(1L, "garlic"));
+        assertTrue(articleSearchService.search("garlic", 1).isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().get(0).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.getSynchronizations().get(1).afterCommit();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(Collections.singletonList(1L), ids(articleSearchService.search("garlic", 1)));
+    }
+
+    private static Article article(Long id, String title) {
+        Article article = new Article(new User(), title, "");
+        article.setId(id);
+        return article;
+    }
+
+    private static List<Long> ids(List<ArticleSummary> summaries) {
+        List<Long> ids = new ArrayList<>();
+        for (ArticleSummary summary : summaries)
+            ids.add(summary.getId());
+        return ids;
+    }
+}
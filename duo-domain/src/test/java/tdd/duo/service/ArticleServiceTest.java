@@ -8,28 +8,41 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ContextConfiguration;
+import tdd.duo.bulk.GeneratedArticles;
+import tdd.duo.bulk.ImportProgress;
 import tdd.duo.config.DBConfig;
 import tdd.duo.domain.Article;
 import tdd.duo.domain.User;
+import tdd.duo.dto.ArticleOrder;
 import tdd.duo.dto.ArticlePage;
+import tdd.duo.dto.ArticleSummary;
 import tdd.duo.exception.ArticleCreationException;
+import tdd.duo.exception.ArticleConflictException;
 import tdd.duo.exception.ArticleModificationException;
 import tdd.duo.exception.ArticleNotFoundException;
 import tdd.duo.repository.ArticleRepository;
+import tdd.duo.repository.ArticleStatRepository;
 
 import javax.naming.AuthenticationException;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Matchers.same;
 import static org.mockito.Mockito.when;
 
 /**
@@ -48,6 +61,27 @@ public class ArticleServiceTest {
     @Mock
     private SessionService sessionService;
 
+    @Mock
+    private ViewCountService viewCountService;
+
+    @Mock
+    private ArticleCountService articleCountService;
+
+    @Mock
+    private ArticleSearchService articleSearchService;
+
+    @Mock
+    private ArticleImportService articleImportService;
+
+    @Mock
+    private ArticleStatRepository articleStatRepository;
+
+    @Mock
+    private ArticleStatService articleStatService;
+
+    @Mock
+    private ArticleVersionService articleVersionService;
+
     @InjectMocks
     private ArticleService articleService;
 
@@ -61,13 +95,14 @@ public class ArticleServiceTest {
         int totalSelectedListNum = 500;
         int requestPageNumber = 13;
 
-        List<Article> resultList = new ArrayList<Article>();
+        List<ArticleSummary> resultList = new ArrayList<ArticleSummary>();
 
         for (int i = 1; i <= ArticleService.PAGE_PER_ARTICLE_NUMBER; i++) {
-            resultList.add(new Article());
+            resultList.add(summary((long) i));
         }
 
-        when(articleRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl(resultList, articleService.getPageRequest(requestPageNumber), totalSelectedListNum));
+        when(articleRepository.findSummaries(articleService.getPageRequest(requestPageNumber))).thenReturn(resultList);
+        when(articleCountService.getApproximateTotalPages(ArticleService.PAGE_PER_ARTICLE_NUMBER)).thenReturn(totalSelectedListNum / ArticleService.PAGE_PER_ARTICLE_NUMBER);
 
         // - WHEN
         ArticlePage articlePage = articleService.findsByPageNumber(requestPageNumber);
@@ -88,6 +123,88 @@ public class ArticleServiceTest {
         //Pagination의 첫번째 노출페이지 번호 확인
         assertEquals(requestPageNumber, begin);
         assertEquals(requestPageNumber + ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER, end);
+        assertEquals(totalSelectedListNum / ArticleService.PAGE_PER_ARTICLE_NUMBER, articlePage.getTotalEndPage());
+    }
+
+    @Test
+    public void 페이지_크기와_이동링크_수를_요청마다_바꾼다() {
+        List<ArticleSummary> resultList = new ArrayList<ArticleSummary>();
+        for (long id = 10; id > 0; id--)
+            resultList.add(summary(id));
+
+        when(articleRepository.findSummaries(articleService.getPageRequest(3, 10))).thenReturn(resultList);
+        when(articleCountService.getApproximateTotalPages(10)).thenReturn(50);
+
+        ArticlePage articlePage = articleService.findsByPageNumber(3, ArticleOrder.RECENT, 10, 2);
+
+        assertEquals(3, articlePage.getStartPage());
+        assertEquals(5, articlePage.getEndPage());
+        assertEquals(50, articlePage.getTotalEndPage());
+        assertEquals(10, articlePage.getPageSize());
+        assertEquals(2, articlePage.getPageWindow());
+    }
+
+    @Test
+    public void 요청한_페이지_크기와_이동링크_수는_상한을_넘지_않는다() {
+        when(articleRepository.findSummaries(any(Pageable.class))).thenReturn(new ArrayList<ArticleSummary>());
+
+        ArticlePage articlePage = articleService.findsByPageNumber(1, ArticleOrder.RECENT, 100000, -1);
+
+        Mockito.verify(articleRepository).findSummaries(articleService.getPageRequest(1, ArticleService.MAX_PAGE_PER_ARTICLE_NUMBER));
+        assertEquals(ArticleService.MAX_PAGE_PER_ARTICLE_NUMBER, articlePage.getPageSize());
+        assertEquals(1, articlePage.getPageWindow());
+    }
+
+    @Test
+    public void 글이_없는_게시판은_페이지_이동링크가_없다() {
+        when(articleRepository.findSummaries(any(Pageable.class))).thenReturn(new ArrayList<ArticleSummary>());
+        when(articleCountService.getApproximateTotalPages(ArticleService.PAGE_PER_ARTICLE_NUMBER)).thenReturn(0);
+
+        ArticlePage articlePage = articleService.findsByPageNumber(1);
+
+        assertEquals(1, articlePage.getStartPage());
+        assertEquals(0, articlePage.getEndPage());
+        assertEquals(0, articlePage.getTotalEndPage());
+    }
+
+    @Test
+    public void 마지막으로_본_글번호_이후의_리스트페이지_요청() {
+
+        // - GIVEN
+        Long lastSeenId = 100L;
+        List<ArticleSummary> resultList = new ArrayList<ArticleSummary>();
+
+        for (long id = lastSeenId - 1; id >= lastSeenId - ArticleService.PAGE_PER_ARTICLE_NUMBER - 1; id--) {
+            resultList.add(summary(id));
+        }
+
+        when(articleRepository.findSummariesByIdLessThan(Mockito.eq(lastSeenId), any(Pageable.class))).thenReturn(resultList);
+        when(articleCountService.getApproximateTotalPages(ArticleService.PAGE_PER_ARTICLE_NUMBER)).thenReturn(20);
+
+        // - WHEN
+        ArticlePage articlePage = articleService.findsByLastSeenId(lastSeenId);
+
+        // - THEN
+        assertTrue(articlePage.isCursorMode());
+        assertTrue(articlePage.hasNext());
+        assertEquals(ArticleService.PAGE_PER_ARTICLE_NUMBER, articlePage.getArticles().size());
+        assertEquals(Long.valueOf(lastSeenId - ArticleService.PAGE_PER_ARTICLE_NUMBER), articlePage.getNextLastSeenId());
+        assertEquals(20, articlePage.getTotalEndPage());
+        Mockito.verify(articleRepository, Mockito.never()).findSummaries(any(Pageable.class));
+    }
+
+    @Test
+    public void 마지막_페이지를_cursor로_요청() {
+
+        List<ArticleSummary> resultList = new ArrayList<ArticleSummary>();
+        resultList.add(summary(1L));
+
+        when(articleRepository.findSummariesByIdLessThan(Mockito.eq(2L), any(Pageable.class))).thenReturn(resultList);
+
+        ArticlePage articlePage = articleService.findsByLastSeenId(2L);
+
+        assertFalse(articlePage.hasNext());
+        assertNull(articlePage.getNextLastSeenId());
     }
 
     @Test(expected = ArticleCreationException.class)
@@ -164,7 +281,7 @@ public class ArticleServiceTest {
     }
 
     @Test(expected = AuthenticationException.class)
-    public void 잘못된_사용자가_글삭제를_요청() throws ArticleNotFoundException, AuthenticationException {
+    public void 잘못된_사용자가_글삭제를_요청() throws ArticleNotFoundException, AuthenticationException, ArticleConflictException {
         //GIVEN
         Long articleId = 1L;
         User requestUser = new User();
@@ -181,16 +298,243 @@ public class ArticleServiceTest {
     }
 
     @Test(expected = ArticleNotFoundException.class)
-    public void 잘못된_글번호로_삭제를_요청() throws ArticleNotFoundException, AuthenticationException {
+    public void 잘못된_글번호로_삭제를_요청() throws ArticleNotFoundException, AuthenticationException, ArticleConflictException {
         Long articleId = -1L;
         articleService.delete(articleId);
     }
 
     @Test(expected = ArticleNotFoundException.class)
-    public void 존재하지_않는_글에_대한_삭제를_요청() throws ArticleNotFoundException, AuthenticationException {
+    public void 존재하지_않는_글에_대한_삭제를_요청() throws ArticleNotFoundException, AuthenticationException, ArticleConflictException {
         Long articleId = 1L;
 
         when(articleRepository.findOne(articleId)).thenReturn(null);
         articleService.delete(articleId);
     }
+
+    @Test
+    public void 상세보기는_댓글을_fetch_join으로_읽어온다() {
+        Article article = new Article(new User(), "testTitle", "testContent");
+        article.setId(1L);
+
+        when(articleRepository.findOneWithComments(1L)).thenReturn(article);
+        when(viewCountService.increase(1L)).thenReturn(3L);
+
+        assertEquals(article, articleService.findById(1L));
+        assertEquals(3L, article.getViewCount());
+        Mockito.verify(articleRepository, Mockito.never()).findOne(1L);
+    }
+
+    @Test
+    public void 상세보기는_읽기전_버전으로_등록한다() {
+        Article article = new Article(new User(), "testTitle", "testContent");
+        article.setId(1L);
+
+        when(articleVersionService.beginLoad(1L)).thenReturn(7L);
+        when(articleRepository.findOneWithComments(1L)).thenReturn(article);
+
+        articleService.findById(1L);
+
+        Mockito.verify(articleVersionService).loaded(article, 7L);
+    }
+
+    @Test
+    public void 글수정은_읽어온_글에_반영하고_버전을_지운다() throws ArticleModificationException {
+        User author = new User();
+        author.setId(1L);
+        Article article = new Article(author, "testTitle", "testContent");
+        article.setId(1L);
+        Article requestArticle = new Article(null, "modifiedTitle", "modifiedContent");
+        requestArticle.setId(1L);
+
+        when(sessionService.getCurrentUser()).thenReturn(author);
+        when(articleRepository.findOne(1L)).thenReturn(article);
+        when(articleRepository.saveAndFlush(article)).thenReturn(article);
+
+        articleService.modify(requestArticle);
+
+        assertEquals("modifiedTitle", article.getTitle());
+        assertEquals("modifiedContent", article.getContent());
+        Mockito.verify(articleRepository, Mockito.never()).save(requestArticle);
+        Mockito.verify(articleVersionService).articleChanged(1L);
+    }
+
+    @Test
+    public void 세션에서_읽은_사용자도_자기_글을_수정할수_있다() throws ArticleModificationException {
+        //Long 캐시(-128 ~ 127) 밖의 id는 따로 읽으면 다른 객체다
+        User author = new User();
+        author.setId(1000L);
+        User currentUser = new User();
+        currentUser.setId(1000L);
+
+        Article article = new Article(author, "testTitle", "testContent");
+        article.setId(1L);
+        Article requestArticle = new Article(null, "modifiedTitle", "modifiedContent");
+        requestArticle.setId(1L);
+
+        when(sessionService.getCurrentUser()).thenReturn(currentUser);
+        when(articleRepository.findOne(1L)).thenReturn(article);
+        when(articleRepository.saveAndFlush(article)).thenReturn(article);
+
+        assertSame(article, articleService.modify(requestArticle));
+        assertEquals("modifiedTitle", article.getTitle());
+    }
+
+    @Test
+    public void 보고있던_버전이_아니면_수정하지_않고_최신_글을_돌려준다() throws ArticleModificationException {
+        User author = new User();
+        author.setId(1L);
+        Article article = new Article(author, "testTitle", "testContent");
+        article.setId(1L);
+        article.setVersion(3L);
+        Article requestArticle = new Article(null, "modifiedTitle", "modifiedContent");
+        requestArticle.setId(1L);
+        requestArticle.setVersion(2L);
+
+        when(sessionService.getCurrentUser()).thenReturn(author);
+        when(articleRepository.findOne(1L)).thenReturn(article);
+
+        try {
+            articleService.modify(requestArticle);
+            fail();
+        } catch (ArticleConflictException e) {
+            assertSame(article, e.getCurrentArticle());
+        }
+
+        assertEquals("testTitle", article.getTitle());
+        Mockito.verify(articleRepository, Mockito.never()).saveAndFlush(any(Article.class));
+    }
+
+    @Test
+    public void update_도중에_충돌하면_ArticleConflictException() throws ArticleModificationException {
+        User author = new User();
+        author.setId(1L);
+        Article article = new Article(author, "testTitle", "testContent");
+        article.setId(1L);
+        Article requestArticle = new Article(null, "modifiedTitle", "testContent");
+        requestArticle.setId(1L);
+
+        when(sessionService.getCurrentUser()).thenReturn(author);
+        when(articleRepository.findOne(1L)).thenReturn(article);
+        when(articleRepository.saveAndFlush(article)).thenThrow(new ObjectOptimisticLockingFailureException(Article.class, 1L));
+
+        thrown.expect(ArticleConflictException.class);
+        articleService.modify(requestArticle);
+    }
+
+    @Test
+    public void 바뀐_값이_없으면_update_하지_않는다() throws ArticleModificationException {
+        User author = new User();
+        author.setId(1L);
+        Article article = new Article(author, "testTitle", "testContent");
+        article.setId(1L);
+        Article requestArticle = new Article(null, "testTitle", "testContent");
+        requestArticle.setId(1L);
+
+        when(sessionService.getCurrentUser()).thenReturn(author);
+        when(articleRepository.findOne(1L)).thenReturn(article);
+
+        assertSame(article, articleService.modify(requestArticle));
+        Mockito.verify(articleRepository, Mockito.never()).saveAndFlush(any(Article.class));
+        Mockito.verify(articleStatService, Mockito.never()).modified(1L);
+    }
+
+    @Test
+    public void 조회수순_목록은_article_stat에서_읽는다() {
+        List<ArticleSummary> resultList = new ArrayList<ArticleSummary>();
+        resultList.add(summary(3L));
+        resultList.add(summary(1L));
+
+        when(articleStatRepository.findSummariesOrderByViewCount(any(Pageable.class))).thenReturn(resultList);
+        when(articleCountService.getApproximateTotalPages(ArticleService.PAGE_PER_ARTICLE_NUMBER)).thenReturn(1);
+
+        ArticlePage articlePage = articleService.findsByPageNumber(1, ArticleOrder.VIEWS);
+
+        assertEquals(2, articlePage.getArticles().size());
+        assertEquals(1, articlePage.getTotalEndPage());
+        Mockito.verify(articleRepository, Mockito.never()).findSummaries(any(Pageable.class));
+    }
+
+    @Test
+    public void 삭제는_삭제표시만_하고_article_stat을_지운다() throws ArticleNotFoundException, AuthenticationException, ArticleConflictException {
+        User author = new User();
+        author.setId(1L);
+
+        when(sessionService.getCurrentUser()).thenReturn(author);
+
+        Article article = new Article(author, "testTitle", "testContent");
+        when(articleRepository.findOne(1L)).thenReturn(article);
+
+        articleService.delete(1L);
+
+        //댓글까지 지우지 않고 삭제 표시만 한다
+        assertTrue(article.isDeleted());
+        Mockito.verify(articleRepository).saveAndFlush(article);
+        Mockito.verify(articleRepository, Mockito.never()).delete(any(Article.class));
+        Mockito.verify(articleStatService).deleted(1L);
+        Mockito.verify(articleCountService).deleted();
+        Mockito.verify(articleSearchService).remove(1L);
+    }
+
+    @Test
+    public void 세션에서_읽은_사용자도_자기_글을_삭제할수_있다() throws ArticleNotFoundException, AuthenticationException, ArticleConflictException {
+        //Long 캐시(-128 ~ 127) 밖의 id는 따로 읽으면 다른 객체다
+        User author = new User();
+        author.setId(1000L);
+        User currentUser = new User();
+        currentUser.setId(1000L);
+
+        Article article = new Article(author, "testTitle", "testContent");
+        when(sessionService.getCurrentUser()).thenReturn(currentUser);
+        when(articleRepository.findOne(1L)).thenReturn(article);
+
+        articleService.delete(1L);
+
+        assertTrue(article.isDeleted());
+    }
+
+    @Test
+    public void 삭제하는_사이에_다른_수정이나_삭제가_있으면_집계와_색인을_건드리지_않는다() throws Exception {
+        User author = new User();
+        author.setId(1L);
+        Article article = new Article(author, "testTitle", "testContent");
+
+        when(sessionService.getCurrentUser()).thenReturn(author);
+        when(articleRepository.findOne(1L)).thenReturn(article);
+        when(articleRepository.saveAndFlush(article)).thenThrow(new ObjectOptimisticLockingFailureException(Article.class, 1L));
+
+        try {
+            articleService.delete(1L);
+            fail();
+        } catch (ArticleConflictException e) {
+            Mockito.verify(articleStatService, Mockito.never()).deleted(1L);
+            Mockito.verify(articleCountService, Mockito.never()).deleted();
+            Mockito.verify(articleSearchService, Mockito.never()).remove(1L);
+            Mockito.verify(articleVersionService, Mockito.never()).articleChanged(1L);
+        }
+    }
+
+    @Test(expected = ArticleNotFoundException.class)
+    public void 이미_삭제된_글에_대한_삭제를_요청() throws ArticleNotFoundException, AuthenticationException, ArticleConflictException {
+        Article article = new Article(new User(), "testTitle", "testContent");
+        article.delete();
+
+        when(articleRepository.findOne(1L)).thenReturn(article);
+        articleService.delete(1L);
+    }
+
+    private ArticleSummary summary(Long id) {
+        return new ArticleSummary(id, "testTitle" + id, "testUser", new Date(), 0L);
+    }
+
+    @Test
+    public void 대량입력은_로그인한_사용자를_한번만_조회한다() {
+        User user = new User("test@test.com", "password", "test", 20);
+        ImportProgress progress = new ImportProgress(100, 0, 10);
+
+        when(sessionService.getCurrentUser()).thenReturn(user);
+        when(articleImportService.importArticles(any(GeneratedArticles.class), same(user), (Consumer<ImportProgress>) isNull())).thenReturn(progress);
+
+        assertEquals(progress, articleService.generateArticles(100));
+        Mockito.verify(sessionService, Mockito.times(1)).getCurrentUser();
+    }
 }
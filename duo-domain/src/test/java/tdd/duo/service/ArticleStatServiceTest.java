@@ -0,0 +1,64 @@
+package tdd.duo.service;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ArticleStatServiceTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    ArticleStatService articleStatService;
+
+    @Test
+    public void 댓글수는_글별로_한번의_batch로_증가시킨다() {
+        ArgumentCaptor<List> args = ArgumentCaptor.forClass(List.class);
+        Date createdTime = new Date();
+
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        counts.put(1L, 3L);
+        counts.put(2L, 1L);
+
+        articleStatService.commentsAdded(counts, createdTime);
+
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("UPDATE article_stat SET comment_count = comment_count + ?"), args.capture());
+        List<Object[]> rows = args.getValue();
+        assertEquals(2, rows.size());
+        assertArrayEquals(new Object[]{3L, createdTime, createdTime, 1L}, rows.get(0));
+    }
+
+    @Test
+    public void reconcile은_한_transaction에서_지우고_채우고_고친다() {
+        when(jdbcTemplate.update(anyString())).thenReturn(1, 2, 3);
+
+        assertEquals(6, articleStatService.reconcile());
+
+        verify(jdbcTemplate).update(startsWith("DELETE FROM article_stat WHERE NOT EXISTS"));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO article_stat"));
+        verify(jdbcTemplate).update(startsWith("UPDATE article_stat s SET"));
+        verify(transactionManager, times(1)).commit(any());
+    }
+}
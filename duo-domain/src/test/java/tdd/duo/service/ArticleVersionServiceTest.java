@@ -0,0 +1,126 @@
+package tdd.duo.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tdd.duo.domain.Article;
+import tdd.duo.domain.User;
+import tdd.duo.dto.ContentVersion;
+
+import static org.junit.Assert.*;
+
+public class ArticleVersionServiceTest {
+
+    ArticleVersionService articleVersionService;
+
+    Article article;
+
+    @Before
+    public void setUp() {
+        articleVersionService = new ArticleVersionService();
+
+        article = new Article(new User(), "testTitle", "testContent");
+        article.setId(1L);
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    public void 읽은_적이_없는_글은_버전이_없다() {
+        assertNull(articleVersionService.getArticleVersion(1L));
+    }
+
+    @Test
+    public void 읽은_뒤에는_같은_버전을_돌려준다() {
+        articleVersionService.loaded(article, articleVersionService.beginLoad(1L));
+
+        ContentVersion version = articleVersionService.getArticleVersion(1L);
+        assertNotNull(version);
+        assertEquals(version.getEtag(), articleVersionService.getArticleVersion(1L).getEtag());
+        assertTrue(version.getEtag().startsWith("\"") && version.getEtag().endsWith("\""));
+    }
+
+    @Test
+    public void 댓글이_바뀌면_다시_읽기_전까지_버전이_없다() {
+        articleVersionService.loaded(article, articleVersionService.beginLoad(1L));
+        String before = articleVersionService.getArticleVersion(1L).getEtag();
+
+        articleVersionService.commentsChanged(1L);
+        assertNull(articleVersionService.getArticleVersion(1L));
+
+        articleVersionService.loaded(article, articleVersionService.beginLoad(1L));
+        assertNotEquals(before, articleVersionService.getArticleVersion(1L).getEtag());
+    }
+
+    @Test
+    public void 읽는_도중에_바뀌면_버전을_남기지_않는다() {
+        long stamp = articleVersionService.beginLoad(1L);
+        articleVersionService.articleChanged(1L);
+        articleVersionService.beginLoad(1L);
+
+        articleVersionService.loaded(article, stamp);
+
+        assertNull(articleVersionService.getArticleVersion(1L));
+    }
+
+    @Test
+    public void transaction_안의_변경은_commit_된_뒤에_반영한다() {
+        articleVersionService.loaded(article, articleVersionService.beginLoad(1L));
+        String listBefore = articleVersionService.getListVersion("recent-1").getEtag();
+
+        TransactionSynchronizationManager.initSynchronization();
+        articleVersionService.articleChanged(1L);
+        assertNotNull(articleVersionService.getArticleVersion(1L));
+        assertEquals(listBefore, articleVersionService.getListVersion("recent-1").getEtag());
+
+        TransactionSynchronizationManager.getSynchronizations().get(0).afterCommit();
+
+        assertNull(articleVersionService.getArticleVersion(1L));
+        assertNotEquals(listBefore, articleVersionService.getListVersion("recent-1").getEtag());
+    }
+
+    @Test
+    public void rollback_된_변경은_버전을_지우지_않는다() {
+        articleVersionService.loaded(article, articleVersionService.beginLoad(1L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        articleVersionService.articleChanged(1L);
+        TransactionSynchronizationManager.getSynchronizations().get(0).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertNotNull(articleVersionService.getArticleVersion(1L));
+    }
+
+    @Test
+    public void 최대_개수를_넘으면_비운다() {
+        articleVersionService.maxArticles = 1;
+        articleVersionService.loaded(article, articleVersionService.beginLoad(1L));
+
+        articleVersionService.beginLoad(2L);
+
+        assertNull(articleVersionService.getArticleVersion(1L));
+    }
+
+    @Test
+    public void 글목록_버전은_글이_바뀌면_달라진다() {
+        ContentVersion before = articleVersionService.getListVersion("recent-1");
+        assertEquals(before.getEtag(), articleVersionService.getListVersion("recent-1").getEtag());
+        assertNotEquals(before.getEtag(), articleVersionService.getListVersion("recent-2").getEtag());
+
+        articleVersionService.listChanged();
+
+        assertNotEquals(before.getEtag(), articleVersionService.getListVersion("recent-1").getEtag());
+    }
+
+    @Test
+    public void TTL이_0이면_글목록_버전을_쓰지_않는다() {
+        articleVersionService.listTtlMillis = 0;
+
+        assertNull(articleVersionService.getListVersion("recent-1"));
+    }
+}
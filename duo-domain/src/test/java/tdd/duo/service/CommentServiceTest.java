@@ -6,13 +6,30 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ContextConfiguration;
 import tdd.duo.config.DBConfig;
+import org.springframework.data.domain.Pageable;
+import tdd.duo.domain.Article;
 import tdd.duo.domain.Comment;
 import tdd.duo.domain.User;
+import tdd.duo.dto.CommentSummary;
+import tdd.duo.exception.ServiceBusyException;
+import tdd.duo.repository.ArticleRepository;
 import tdd.duo.repository.CommentRepository;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -26,9 +43,24 @@ public class CommentServiceTest {
     @Mock
     CommentRepository commentRepository;
 
+    @Mock
+    ArticleRepository articleRepository;
+
     @Mock
     SessionService sessionService;
 
+    @Mock
+    CommentWriteBehindService commentWriteBehindService;
+
+    @Mock
+    ArticleStatService articleStatService;
+
+    @Mock
+    JdbcWriteSupportService jdbcWriteSupportService;
+
+    @Mock
+    ArticleVersionService articleVersionService;
+
     @InjectMocks
     CommentService commentService;
 
@@ -53,8 +85,6 @@ public class CommentServiceTest {
         }
     }
 
-    //TODO
-    /*
     @Test
     public void registerWithInvalidArticleId() {
         when(sessionService.getCurrentUser()).thenReturn(new User());
@@ -65,6 +95,107 @@ public class CommentServiceTest {
             fail("Must not here!");
         } catch (IllegalArgumentException e) {
         }
+
+        //없는 글
+        comment = new Comment(1L, "Test");
+        when(articleRepository.findOne(1L)).thenReturn(null);
+
+        try {
+            commentService.create(comment);
+            fail("Must not here!");
+        } catch (IllegalArgumentException e) {
+        }
+
+        verify(commentRepository, never()).save(any(Comment.class));
+    }
+
+    @Test
+    public void write_behind가_켜져있으면_대기열에_넣고_바로_돌려준다() throws ServiceBusyException {
+        User author = new User("test@test.com", "password", "test", 20);
+        CommentSummary queued = new CommentSummary(1L, 1L, "test", "Test", new Date());
+
+        when(sessionService.getCurrentUser()).thenReturn(author);
+        when(articleRepository.findOne(1L)).thenReturn(new Article(author, "title", "content"));
+        when(commentWriteBehindService.isEnabled()).thenReturn(true);
+        when(commentWriteBehindService.enqueue(any(Comment.class))).thenReturn(queued);
+
+        assertEquals(queued, commentService.createAsync(new Comment(1L, "Test")));
+        verify(commentRepository, never()).save(any(Comment.class));
+    }
+
+    @Test
+    public void 반영되지_않은_댓글과_DB의_댓글을_id순으로_합친다() {
+        //2는 반영되는 중이라 양쪽에 다 있다
+        when(commentWriteBehindService.getPendingAfter(1L, 0L)).thenReturn(Arrays.asList(summary(2L), summary(4L)));
+        when(commentRepository.findSummariesAfter(eq(1L), eq(0L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(summary(1L), summary(2L), summary(3L)));
+
+        List<CommentSummary> comments = commentService.findsAfter(1L, 0L, 3);
+
+        assertEquals(3, comments.size());
+        assertEquals(Long.valueOf(1L), comments.get(0).getId());
+        assertEquals(Long.valueOf(2L), comments.get(1).getId());
+        assertEquals(Long.valueOf(3L), comments.get(2).getId());
+    }
+
+    @Test
+    public void 반영되지_않은_댓글이_없으면_DB_결과를_그대로_쓴다() {
+        List<CommentSummary> persisted = Collections.singletonList(summary(3L));
+
+        when(commentWriteBehindService.getPendingAfter(1L, 2L)).thenReturn(Collections.emptyList());
+        when(commentRepository.findSummariesAfter(eq(1L), eq(2L), any(Pageable.class))).thenReturn(persisted);
+
+        assertEquals(persisted, commentService.findsAfter(1L, 2L, 50));
+    }
+
+    @Test
+    public void 댓글_삭제는_삭제표시만_한다() {
+        User author = new User("test@test.com", "password", "test", 20);
+        author.setId(1L);
+        Comment comment = new Comment(2L, "Test");
+        comment.setAuthor(author);
+
+        when(commentRepository.findOne(3L)).thenReturn(comment);
+        when(sessionService.getCurrentUser()).thenReturn(author);
+
+        commentService.delete(3L);
+
+        assertTrue(comment.isDeleted());
+        verify(commentRepository).saveAndFlush(comment);
+        verify(commentRepository, never()).delete(any(Comment.class));
+        verify(articleStatService).commentRemoved(2L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 동시에_지우면_한쪽은_실패한다() {
+        User author = new User();
+        author.setId(1L);
+        Comment comment = new Comment(2L, "Test");
+        comment.setAuthor(author);
+
+        when(commentRepository.findOne(3L)).thenReturn(comment);
+        when(sessionService.getCurrentUser()).thenReturn(author);
+        when(commentRepository.saveAndFlush(comment)).thenThrow(new ObjectOptimisticLockingFailureException(Comment.class, 3L));
+
+        commentService.delete(3L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 다른_사람의_댓글은_지울수_없다() {
+        User author = new User();
+        author.setId(1L);
+        User other = new User();
+        other.setId(2L);
+        Comment comment = new Comment(2L, "Test");
+        comment.setAuthor(author);
+
+        when(commentRepository.findOne(3L)).thenReturn(comment);
+        when(sessionService.getCurrentUser()).thenReturn(other);
+
+        commentService.delete(3L);
+    }
+
+    private CommentSummary summary(Long id) {
+        return new CommentSummary(id, 1L, "test", "comment" + id, new Date());
     }
-    */
 }
\ No newline at end of file
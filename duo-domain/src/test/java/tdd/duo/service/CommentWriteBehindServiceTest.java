@@ -0,0 +1,188 @@
+package tdd.duo.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import tdd.duo.domain.Comment;
+import tdd.duo.domain.User;
+import tdd.duo.dto.CommentSummary;
+import tdd.duo.exception.ServiceBusyException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CommentWriteBehindServiceTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    JdbcWriteSupportService jdbcWriteSupportService;
+
+    @Mock
+    ArticleStatService articleStatService;
+
+    @Mock
+    ArticleVersionService articleVersionService;
+
+    @InjectMocks
+    CommentWriteBehindService commentWriteBehindService;
+
+    User author;
+
+    @Before
+    public void setUp() {
+        //pooled sequence : 1, 51 ...
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(1L, 51L);
+
+        //주기 flush 없이 직접 flush() 한다
+        commentWriteBehindService.start("call next value for comment_seq", 10, 0, 3);
+
+        author = new User("test@test.com", "password", "test", 20);
+        author.setId(1L);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        commentWriteBehindService.stop();
+    }
+
+    @Test
+    public void 대기열에_넣은_댓글은_flush_전에도_읽을수_있다() throws ServiceBusyException {
+        CommentSummary first = commentWriteBehindService.enqueue(comment(1L, "first"));
+        CommentSummary second = commentWriteBehindService.enqueue(comment(1L, "second"));
+        commentWriteBehindService.enqueue(comment(2L, "other article"));
+
+        assertEquals(Long.valueOf(1L), first.getId());
+        assertEquals(Long.valueOf(2L), second.getId());
+        assertEquals("test", first.getAuthorName());
+
+        List<CommentSummary> pending = commentWriteBehindService.getPendingAfter(1L, 0L);
+        assertEquals(2, pending.size());
+        assertEquals("first", pending.get(0).getContent());
+        assertEquals(1, commentWriteBehindService.getPendingAfter(1L, 1L).size());
+        verifyZeroInteractions(transactionManager);
+    }
+
+    @Test
+    public void flush는_한번의_batch_insert로_순서대로_반영하고_캐시를_비운다() throws ServiceBusyException {
+        ArgumentCaptor<List> args = ArgumentCaptor.forClass(List.class);
+
+        commentWriteBehindService.enqueue(comment(1L, "first"));
+        commentWriteBehindService.enqueue(comment(1L, "second"));
+        commentWriteBehindService.enqueue(comment(2L, "other article"));
+        commentWriteBehindService.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), args.capture());
+        verify(transactionManager, times(1)).commit(any());
+
+        List<Object[]> rows = args.getValue();
+        assertEquals(3, rows.size());
+        assertEquals("first", rows.get(0)[3]);
+        assertEquals("second", rows.get(1)[3]);
+
+        assertTrue(commentWriteBehindService.getPendingAfter(1L, 0L).isEmpty());
+        assertEquals(0, commentWriteBehindService.getQueueSize());
+        verify(jdbcWriteSupportService).evictArticleComments(eq(new HashSet<>(Arrays.asList(1L, 2L))));
+        verify(jdbcWriteSupportService).evictQueryCache();
+        verify(articleVersionService).commentsChanged(1L);
+        verify(articleVersionService).commentsChanged(2L);
+    }
+
+    @Test
+    public void 종료할때는_진행중인_flush를_기다렸다가_대기열을_모두_반영한다() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            flushing.countDown();
+            release.await();
+            return new int[]{1};
+        });
+
+        commentWriteBehindService.enqueue(comment(1L, "first"));
+        Thread scheduledFlush = new Thread(commentWriteBehindService::flush);
+        scheduledFlush.start();
+        flushing.await();
+
+        //진행중인 flush가 이미 꺼내간 뒤에 작성된 댓글
+        commentWriteBehindService.enqueue(comment(1L, "second"));
+        Thread shutdown = new Thread(() -> {
+            try {
+                commentWriteBehindService.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        shutdown.start();
+        Thread.sleep(100);
+        release.countDown();
+
+        scheduledFlush.join();
+        shutdown.join();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        assertEquals(0, commentWriteBehindService.getQueueSize());
+        assertTrue(commentWriteBehindService.getPendingAfter(1L, 0L).isEmpty());
+    }
+
+    @Test
+    public void batch가_실패하면_한건씩_다시_넣는다() throws ServiceBusyException {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataIntegrityViolationException("article deleted"));
+
+        commentWriteBehindService.enqueue(comment(1L, "first"));
+        commentWriteBehindService.enqueue(comment(1L, "second"));
+        commentWriteBehindService.flush();
+
+        verify(jdbcTemplate, times(2)).update(anyString(), (Object[]) anyVararg());
+        assertTrue(commentWriteBehindService.getPendingAfter(1L, 0L).isEmpty());
+    }
+
+    @Test
+    public void 대기열이_차면_바로_거절한다() throws ServiceBusyException {
+        for (int i = 0; i < 3; i++)
+            commentWriteBehindService.enqueue(comment(1L, "comment" + i));
+
+        try {
+            commentWriteBehindService.enqueue(comment(1L, "overflow"));
+            fail("Must not here!");
+        } catch (ServiceBusyException e) {
+        }
+
+        assertEquals(3, commentWriteBehindService.getPendingAfter(1L, 0L).size());
+    }
+
+    @Test
+    public void 댓글이_없는_글은_빈목록() {
+        assertEquals(Collections.emptyList(), commentWriteBehindService.getPendingAfter(1L, 0L));
+    }
+
+    private Comment comment(Long articleId, String content) {
+        Comment comment = new Comment(articleId, content);
+        comment.setAuthor(author);
+        return comment;
+    }
+}
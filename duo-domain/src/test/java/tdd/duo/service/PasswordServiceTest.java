@@ -0,0 +1,71 @@
+package tdd.duo.service;
+
+import org.junit.After;
+import org.junit.Test;
+import tdd.duo.domain.auth.PasswordHasher;
+import tdd.duo.exception.ServiceBusyException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class PasswordServiceTest {
+
+    PasswordService passwordService = new PasswordService();
+
+    @After
+    public void tearDown() {
+        passwordService.stop();
+    }
+
+    @Test
+    public void hash는_전용_thread에서_계산한다() throws ServiceBusyException {
+        passwordService.start(new PasswordHasher("PBKDF2WithHmacSHA256", 1000), 2, 4, 5000);
+
+        String encoded = passwordService.hash("testPassword");
+
+        assertTrue(passwordService.matches("testPassword", encoded));
+        assertFalse(passwordService.matches("wrongPassword", encoded));
+        assertFalse(passwordService.needsRehash(encoded));
+    }
+
+    @Test
+    public void 대기열이_차면_바로_거절한다() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        PasswordHasher blockingHasher = new PasswordHasher("PBKDF2WithHmacSHA256", 1) {
+            @Override
+            public String hash(String rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword;
+            }
+        };
+        passwordService.start(blockingHasher, 1, 1, 5000);
+
+        //하나는 계산중, 하나는 대기열에 둔다
+        ExecutorService requests = Executors.newFixedThreadPool(2);
+        requests.submit(() -> passwordService.hash("first"));
+        started.await();
+        requests.submit(() -> passwordService.hash("second"));
+        while (passwordService.getQueueSize() < 1)
+            Thread.sleep(1);
+
+        try {
+            passwordService.hash("third");
+            fail();
+        } catch (ServiceBusyException e) {
+            assertEquals(1, passwordService.getActiveCount());
+        } finally {
+            release.countDown();
+            requests.shutdown();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package tdd.duo.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import tdd.duo.domain.User;
+import tdd.duo.domain.auth.SessionUser;
+import tdd.duo.repository.UserRepository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SessionServiceTest {
+
+    @Mock
+    UserRepository userRepository;
+
+    @InjectMocks
+    SessionService sessionService;
+
+    MockHttpSession session;
+    User user;
+
+    @Before
+    public void setUp() {
+        session = new MockHttpSession();
+        session.setAttribute(SessionService.SESSION_KEY_ID, "test@gmail.com");
+        newRequest();
+
+        user = new User("test@gmail.com", "testPassword", "testName", 20);
+        user.setId(1L);
+        when(userRepository.findByEmail("test@gmail.com")).thenReturn(user);
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void 한_요청안에서는_한번만_조회한다() {
+        User first = sessionService.getCurrentUser();
+        User second = sessionService.getCurrentUser();
+
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByEmail("test@gmail.com");
+        assertEquals(1, sessionService.getCacheMissCount());
+        assertEquals(1, sessionService.getCacheHitCount());
+    }
+
+    @Test
+    public void 다음_요청에서는_세션의_사용자정보를_사용한다() {
+        sessionService.getCurrentUser();
+
+        newRequest();
+        User cachedUser = sessionService.getCurrentUser();
+
+        verify(userRepository, times(1)).findByEmail("test@gmail.com");
+        assertEquals(user.getId(), cachedUser.getId());
+        assertEquals(user.getName(), cachedUser.getName());
+    }
+
+    @Test
+    public void 다른_아이디로_로그인하면_다시_조회한다() {
+        sessionService.getCurrentUser();
+
+        User otherUser = new User("other@gmail.com", "testPassword", "otherName", 20);
+        otherUser.setId(2L);
+        when(userRepository.findByEmail("other@gmail.com")).thenReturn(otherUser);
+
+        session.setAttribute(SessionService.SESSION_KEY_ID, "other@gmail.com");
+        newRequest();
+
+        assertEquals(otherUser.getId(), sessionService.getCurrentUser().getId());
+        assertEquals(otherUser.getId(), ((SessionUser) session.getAttribute(SessionService.SESSION_KEY_USER)).getId());
+    }
+
+    @Test
+    public void 무효화하면_다시_조회한다() {
+        sessionService.getCurrentUser();
+        sessionService.invalidateCurrentUser();
+        sessionService.getCurrentUser();
+
+        verify(userRepository, times(2)).findByEmail("test@gmail.com");
+    }
+
+    private void newRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(session);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+}
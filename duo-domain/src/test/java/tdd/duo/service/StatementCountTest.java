@@ -0,0 +1,196 @@
+package tdd.duo.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import tdd.duo.bulk.GeneratedArticles;
+import tdd.duo.config.DBConfig;
+import tdd.duo.datasource.QueryMonitor;
+import tdd.duo.domain.Article;
+import tdd.duo.domain.Comment;
+import tdd.duo.domain.User;
+import tdd.duo.domain.auth.SessionUser;
+import tdd.duo.dto.ArticleOrder;
+import tdd.duo.repository.UserRepository;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 사용 사례별로 DB에 보내는 SQL 문장 수를 세고, 정해둔 수보다 많아지면 실패한다.
+ * N+1 조회나 transaction/batch 설정이 빠지는 것을 막기 위한 테스트라서, 수를 늘려야 한다면 이유를 확인하고 늘린다.
+ * 캐시는 매번 비우고 측정하므로 2차 캐시 없이 DB를 읽는 경우의 수다.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = {DBConfig.class})
+@TestPropertySource(properties = {
+        "database.url=jdbc:h2:mem:statement-count;DB_CLOSE_DELAY=-1",
+        "database.replica.urls=",
+        "viewcount.flush.interval_millis=3600000",
+        "comment.write_behind.enabled=false",
+        "article.stat.reconcile_interval_millis=0",
+        "article.count.reconcile_interval_millis=0",
+        "tombstone.purge.check_interval_millis=0",
+        "password.hash.iterations=1000"
+})
+public class StatementCountTest {
+
+    private static boolean warmedUp;
+
+    @Autowired
+    QueryMonitor queryMonitor;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    JdbcWriteSupportService jdbcWriteSupportService;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    ArticleService articleService;
+
+    @Autowired
+    CommentService commentService;
+
+    @Autowired
+    ViewCountService viewCountService;
+
+    @Before
+    public void setUp() throws Exception {
+        User user = userRepository.findByEmail("count@duo.com");
+        if (user == null)
+            user = userRepository.save(new User("count@duo.com", "password", "counter", 20));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession().setAttribute(SessionService.SESSION_KEY_ID, user.getEmail());
+        request.getSession().setAttribute(SessionService.SESSION_KEY_USER, SessionUser.from(user));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        //pooled sequence는 처음 쓸때만 두번 읽으므로, 테스트 순서에 따라 수가 달라지지 않도록 미리 한번씩 쓴다
+        if (!warmedUp) {
+            commentService.create(new Comment(createArticle().getId(), "warm up"));
+            warmedUp = true;
+        }
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void 글_작성() throws Exception {
+        //article insert, article_stat insert
+        assertStatements(2, () -> articleService.create(new Article(null, "title", "content")));
+    }
+
+    @Test
+    public void 글_수정() throws Exception {
+        Article article = createArticle();
+
+        Article request = new Article(null, "modified", "modified content");
+        request.setId(article.getId());
+        request.setVersion(article.getVersion());
+
+        assertStatements(3, () -> articleService.modify(request));
+    }
+
+    @Test
+    public void 글_삭제() throws Exception {
+        Article article = createArticle();
+
+        assertStatements(3, () -> articleService.delete(article.getId()));
+    }
+
+    @Test
+    public void 댓글이_있는_글_상세보기() throws Exception {
+        Article article = createArticle();
+        for (int i = 0; i < 5; i++)
+            commentService.create(new Comment(article.getId(), "comment " + i));
+
+        //글, 작성자, 댓글, 댓글 작성자를 한번에 읽는다
+        assertStatements(2, () -> articleService.findById(article.getId()));
+        //두번째부터는 읽어둔 조회수를 쓴다. 상세보기 query는 캐시하지 않는다(ETag로 304 응답)
+        assertStatements(1, () -> articleService.findById(article.getId()), false);
+    }
+
+    @Test
+    public void 글목록() throws Exception {
+        for (int i = 0; i < 3; i++)
+            createArticle();
+
+        //전체 글 수는 처음 한번만 센다
+        articleService.findsByPageNumber(1);
+
+        //목록과 조회수를 글마다가 아니라 한번씩 읽고, 전체 수는 COUNT 없이 메모리에서 얻는다
+        assertStatements(2, () -> articleService.findsByPageNumber(1));
+        assertStatements(2, () -> articleService.findsByPageNumber(1, ArticleOrder.VIEWS));
+    }
+
+    @Test
+    public void 댓글_작성() throws Exception {
+        Article article = createArticle();
+
+        assertStatements(3, () -> commentService.create(new Comment(article.getId(), "comment")));
+    }
+
+    @Test
+    public void 글_대량_입력은_chunk마다_batch로_보낸다() throws Exception {
+        //글 120개 + article_stat 120개지만 id 50개씩 sequence 3번과 batch insert 2번으로 끝난다
+        assertStatements(5, () -> articleService.importArticles(new GeneratedArticles(120)));
+    }
+
+    @Test
+    public void 조회수_반영은_글_수와_상관없이_batch로_보낸다() throws Exception {
+        for (int i = 0; i < 10; i++)
+            viewCountService.add(createArticle().getId());
+
+        //view_count update, 없는 row insert, article_stat update
+        assertStatements(3, () -> viewCountService.flush());
+    }
+
+    private Article createArticle() throws Exception {
+        Article article = new Article(null, "title", "content");
+        articleService.create(article);
+        return article;
+    }
+
+    private void assertStatements(int max, UseCase useCase) throws Exception {
+        assertStatements(max, useCase, true);
+    }
+
+    private void assertStatements(int max, UseCase useCase, boolean clearCache) throws Exception {
+        if (clearCache) {
+            entityManagerFactory.getCache().evictAll();
+            jdbcWriteSupportService.evictQueryCache();
+        }
+
+        //QueryMonitor는 측정중인 thread의 문장만 센다. flusher 같은 background thread는 제외된다
+        QueryMonitor.RequestQueries queries;
+        queryMonitor.begin();
+        try {
+            useCase.run();
+        } finally {
+            queries = queryMonitor.end("test");
+        }
+
+        assertTrue("expected at most " + max + " statements but " + queries.getStatementCount() + ", selects : " + queries.getRepeatedSelects(1),
+                queries.getStatementCount() <= max);
+    }
+
+    private interface UseCase {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,97 @@
+package tdd.duo.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TombstonePurgeServiceTest {
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    TombstonePurgeService tombstonePurgeService;
+
+    Timestamp deletedBefore = new Timestamp(System.currentTimeMillis());
+
+    @Before
+    public void setUp() {
+        tombstonePurgeService.batchSize = 2;
+    }
+
+    @Test
+    public void window_안에서만_지운다() {
+        tombstonePurgeService.windowStartHour = 3;
+        tombstonePurgeService.windowEndHour = 5;
+
+        assertFalse(tombstonePurgeService.isInWindow(2));
+        assertTrue(tombstonePurgeService.isInWindow(3));
+        assertTrue(tombstonePurgeService.isInWindow(4));
+        assertFalse(tombstonePurgeService.isInWindow(5));
+    }
+
+    @Test
+    public void 자정을_넘기는_window() {
+        tombstonePurgeService.windowStartHour = 23;
+        tombstonePurgeService.windowEndHour = 2;
+
+        assertTrue(tombstonePurgeService.isInWindow(23));
+        assertTrue(tombstonePurgeService.isInWindow(0));
+        assertTrue(tombstonePurgeService.isInWindow(1));
+        assertFalse(tombstonePurgeService.isInWindow(2));
+        assertFalse(tombstonePurgeService.isInWindow(12));
+    }
+
+    @Test
+    public void 댓글을_먼저_batch_크기만큼_지운다() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM comment"), eq(Long.class), anyVararg())).thenReturn(Arrays.asList(1L, 2L));
+
+        assertEquals(2, tombstonePurgeService.purgeBatch(deletedBefore));
+
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM comment WHERE id = ?"), anyList());
+        verify(jdbcTemplate, never()).batchUpdate(eq("DELETE FROM article WHERE id = ?"), anyList());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void 댓글이_없으면_글을_지운다() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM comment"), eq(Long.class), anyVararg())).thenReturn(Collections.emptyList());
+        when(jdbcTemplate.queryForList(startsWith("SELECT c.id FROM comment"), eq(Long.class), anyVararg())).thenReturn(Collections.emptyList());
+        when(jdbcTemplate.queryForList(startsWith("SELECT a.id FROM article"), eq(Long.class), anyVararg())).thenReturn(Collections.singletonList(7L));
+
+        assertEquals(1, tombstonePurgeService.purgeBatch(deletedBefore));
+
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM article_stat WHERE article_id = ?"), anyList());
+        verify(jdbcTemplate).batchUpdate(eq("DELETE FROM article WHERE id = ?"), anyList());
+    }
+
+    @Test
+    public void 지울것이_없을때까지_반복한다() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT id FROM comment"), eq(Long.class), anyVararg()))
+                .thenReturn(Arrays.asList(1L, 2L), Collections.singletonList(3L), Collections.emptyList());
+        when(jdbcTemplate.queryForList(startsWith("SELECT c.id FROM comment"), eq(Long.class), anyVararg())).thenReturn(Collections.emptyList());
+        when(jdbcTemplate.queryForList(startsWith("SELECT a.id FROM article"), eq(Long.class), anyVararg())).thenReturn(Collections.emptyList());
+
+        assertEquals(3, tombstonePurgeService.purge());
+        verify(transactionManager, times(3)).commit(any());
+    }
+}
@@ -8,16 +8,23 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ContextConfiguration;
 import tdd.duo.config.DBConfig;
 import tdd.duo.domain.User;
 import tdd.duo.domain.auth.Authentication;
 import tdd.duo.exception.AlreadyExistException;
 import tdd.duo.exception.PasswordMismatchException;
+import tdd.duo.exception.ServiceBusyException;
+import tdd.duo.exception.ValidationException;
 import tdd.duo.repository.UserRepository;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -30,6 +37,12 @@ public class UserServiceTest {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    PasswordService passwordService;
+
+    @Mock
+    SessionService sessionService;
+
     @InjectMocks
     UserService userService;
 
@@ -65,13 +78,20 @@ public class UserServiceTest {
     }
 
     @Test(expected = AlreadyExistException.class)
-    public void registerWithAlreadyExistUserEmail() throws AlreadyExistException {
+    public void registerWithAlreadyExistUserEmail() throws AlreadyExistException, ServiceBusyException {
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(testUser);
         userService.create(testUser);
     }
 
+    @Test(expected = AlreadyExistException.class)
+    public void hash하는_사이에_같은_email로_가입하면_AlreadyExistException() throws AlreadyExistException, ServiceBusyException {
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(null);
+        when(userRepository.save(testUser)).thenThrow(new DataIntegrityViolationException("unique email"));
+        userService.create(testUser);
+    }
+
     @Test
-    public void registerWithInvalidParameter() throws AlreadyExistException {
+    public void registerWithInvalidParameter() throws AlreadyExistException, ServiceBusyException {
 
         testUser.setEmail(null);
 
@@ -82,6 +102,21 @@ public class UserServiceTest {
         }
     }
 
+    @Test
+    public void 가입정보가_틀리면_필드별_오류를_전달한다() throws AlreadyExistException, ServiceBusyException {
+
+        testUser.setEmail("invalid");
+        testUser.setAge(0);
+
+        try {
+            userService.create(testUser);
+            fail("Must not reach here");
+        } catch (ValidationException e) {
+            assertNotNull(e.getErrors().getFieldError("email"));
+            assertNotNull(e.getErrors().getFieldError("age"));
+        }
+    }
+
     @Test
     public void loginWithValidParameter() {
 
@@ -97,11 +132,74 @@ public class UserServiceTest {
         Authentication authentication = new Authentication(id, password);
 
         try {
+            when(passwordService.matches(password, password)).thenReturn(true);
             userService.login(authentication);
         } catch (Exception e) {
             fail("unexpected failure");
         }
 
+        verify(sessionService).invalidateCurrentUser();
+
+    }
+
+    @Test
+    public void 가입할때_비밀번호를_hash해서_저장한다() throws Exception {
+        when(passwordService.hash("testPassword")).thenReturn("$hashed");
+
+        userService.create(testUser);
+
+        assertEquals("$hashed", testUser.getPassword());
+        verify(userRepository).save(testUser);
+    }
+
+    @Test
+    public void 로그인에_성공하면_cost가_바뀐_비밀번호를_다시_hash한다() throws Exception {
+        User user = new User();
+        user.setEmail("testId");
+        user.setPassword("$oldHash");
+
+        when(userRepository.findByEmail("testId")).thenReturn(user);
+        when(passwordService.matches("testPassword", "$oldHash")).thenReturn(true);
+        when(passwordService.needsRehash("$oldHash")).thenReturn(true);
+        when(passwordService.hash("testPassword")).thenReturn("$newHash");
+
+        userService.login(new Authentication("testId", "testPassword"));
+
+        assertEquals("$newHash", user.getPassword());
+        verify(userRepository).save(user);
+        verify(sessionService).invalidateCurrentUser();
+    }
+
+    @Test
+    public void 로그인에_실패하면_세션의_사용자_정보를_그대로_둔다() throws Exception {
+        User user = new User();
+        user.setEmail("testId");
+        user.setPassword("$hash");
+        when(userRepository.findByEmail("testId")).thenReturn(user);
+
+        try {
+            userService.login(new Authentication("testId", "wrongPassword"));
+            fail();
+        } catch (PasswordMismatchException e) {
+            verify(sessionService, never()).invalidateCurrentUser();
+        }
+    }
+
+    @Test
+    public void 로그인이_몰리면_ServiceBusyException() throws Exception {
+        User user = new User();
+        user.setEmail("testId");
+        user.setPassword("$hash");
+
+        when(userRepository.findByEmail("testId")).thenReturn(user);
+        when(passwordService.matches("testPassword", "$hash")).thenThrow(new ServiceBusyException("busy"));
+
+        try {
+            userService.login(new Authentication("testId", "testPassword"));
+            fail("Must not reach here");
+        } catch (ServiceBusyException e) {
+            verify(userRepository, never()).save(any(User.class));
+        }
     }
 
 
@@ -132,7 +230,7 @@ public class UserServiceTest {
     }
 
     @Test(expected = PasswordMismatchException.class)
-    public void loginWithMismatchPassword() throws NotFoundException, PasswordMismatchException {
+    public void loginWithMismatchPassword() throws NotFoundException, PasswordMismatchException, ServiceBusyException {
 
         String id = "testEmail";
 
@@ -147,7 +245,7 @@ public class UserServiceTest {
     }
 
     @Test(expected = NotFoundException.class)
-    public void loginWithNotExistId() throws NotFoundException, PasswordMismatchException {
+    public void loginWithNotExistId() throws NotFoundException, PasswordMismatchException, ServiceBusyException {
         Authentication authentication = new Authentication("testEmail", "testPassword");
         when(userRepository.findByEmail(authentication.getId())).thenReturn(null);
 
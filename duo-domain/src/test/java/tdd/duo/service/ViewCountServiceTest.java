@@ -0,0 +1,181 @@
+package tdd.duo.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import tdd.duo.domain.ViewCount;
+import tdd.duo.dto.ArticleSummary;
+import tdd.duo.repository.ViewCountRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ViewCountServiceTest {
+
+    @Mock
+    ViewCountRepository viewCountRepository;
+
+    @Mock
+    JdbcTemplate jdbcTemplate;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    ArticleStatService articleStatService;
+
+    @InjectMocks
+    ViewCountService viewCountService;
+
+    @Before
+    public void setUp() {
+        when(viewCountRepository.findOne(1L)).thenReturn(new ViewCount(1L, 10));
+    }
+
+    @Test
+    public void 조회수는_DB에_반영된값과_미반영값의_합() {
+        viewCountService.increase(1L);
+        viewCountService.increase(1L);
+
+        assertEquals(12, viewCountService.getCount(1L));
+        verify(viewCountRepository, times(1)).findOne(1L);
+        verifyZeroInteractions(jdbcTemplate);
+    }
+
+    @Test
+    public void flush는_미반영_조회수를_batch로_반영() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        viewCountService.increase(1L);
+        viewCountService.increase(1L);
+        viewCountService.flush();
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        verify(articleStatService, times(1)).viewsAdded(Collections.singletonMap(1L, 2L));
+        assertEquals(12, viewCountService.getCount(1L));
+
+        //반영할 조회수가 없으면 DB에 접근하지 않는다
+        viewCountService.flush();
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    public void 처음_조회된_article은_insert() {
+        when(viewCountRepository.findOne(2L)).thenReturn(null);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{0}, new int[]{1});
+
+        viewCountService.increase(2L);
+        viewCountService.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        assertEquals(1, viewCountService.getCount(2L));
+    }
+
+    @Test
+    public void flush가_실패하면_다음_flush에서_재시도() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException()).thenReturn(new int[]{1});
+
+        viewCountService.increase(1L);
+        viewCountService.flush();
+        assertEquals(11, viewCountService.getCount(1L));
+
+        viewCountService.flush();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        assertEquals(11, viewCountService.getCount(1L));
+    }
+
+    @Test
+    public void 종료할때는_진행중인_flush를_기다렸다가_남은_조회수를_반영한다() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            flushing.countDown();
+            release.await();
+            return new int[]{1};
+        });
+
+        viewCountService.add(1L);
+        Thread scheduledFlush = new Thread(viewCountService::flush);
+        scheduledFlush.start();
+        flushing.await();
+
+        //진행중인 flush가 이미 가져간 뒤에 들어온 조회수
+        viewCountService.add(1L);
+        Thread shutdown = new Thread(() -> {
+            try {
+                viewCountService.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        shutdown.start();
+        Thread.sleep(100);
+        release.countDown();
+
+        scheduledFlush.join();
+        shutdown.join();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        verify(articleStatService, times(2)).viewsAdded(Collections.singletonMap(1L, 1L));
+    }
+
+    @Test
+    public void flush중에_읽은_조회수에는_flush한_값을_다시_더하지_않는다() {
+        //commit 된 뒤에 읽으면 이미 반영된 값(10 + 2)이 온다
+        when(viewCountRepository.findOne(3L)).thenReturn(new ViewCount(3L, 12));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            viewCountService.getCount(3L);
+            return new int[]{1};
+        });
+
+        viewCountService.add(3L);
+        viewCountService.add(3L);
+        viewCountService.flush();
+
+        assertEquals(12, viewCountService.getCount(3L));
+    }
+
+    @Test
+    public void 읽어둔_글이_max_articles를_넘으면_비우고_다시_읽는다() {
+        viewCountService.maxArticles = 2;
+        when(viewCountRepository.findOne(2L)).thenReturn(new ViewCount(2L, 20));
+        when(viewCountRepository.findOne(3L)).thenReturn(new ViewCount(3L, 30));
+
+        viewCountService.getCount(1L);
+        viewCountService.getCount(2L);
+        viewCountService.getCount(3L);
+
+        assertEquals(10, viewCountService.getCount(1L));
+        verify(viewCountRepository, times(2)).findOne(1L);
+    }
+
+    @Test
+    public void 목록의_조회수는_한번에_읽어온다() {
+        ArticleSummary first = new ArticleSummary(3L, "first", "testUser", new Date(), 0L);
+        ArticleSummary second = new ArticleSummary(4L, "second", "testUser", new Date(), 0L);
+        List<ArticleSummary> articles = Arrays.asList(first, second);
+
+        when(viewCountRepository.findAll(eq(Arrays.asList(3L, 4L)))).thenReturn(Arrays.asList(new ViewCount(3L, 7)));
+
+        viewCountService.fillViewCounts(articles);
+
+        assertEquals(7, first.getViewCount());
+        assertEquals(0, second.getViewCount());
+        verify(viewCountRepository, never()).findOne(anyLong());
+    }
+}
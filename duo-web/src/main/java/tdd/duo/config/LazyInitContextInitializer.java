@@ -0,0 +1,19 @@
+package tdd.duo.config;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * DispatcherServlet의 context(WebConfig)에도 LazyInitBeanFactoryPostProcessor를 건다.
+ * BeanFactoryPostProcessor는 자기 context의 bean에만 적용되므로 root context(DBConfig)에 등록된 것은 controller를 늦추지 못한다.
+ * web.xml의 contextInitializerClasses로 등록한다.
+ */
+public class LazyInitContextInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        LazyInitBeanFactoryPostProcessor processor = new LazyInitBeanFactoryPostProcessor();
+        processor.setEnvironment(context.getEnvironment());
+        context.addBeanFactoryPostProcessor(processor);
+    }
+}
@@ -1,15 +1,26 @@
 package tdd.duo.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurationSupport;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
+import tdd.duo.interceptor.AdminInterceptor;
 import tdd.duo.interceptor.LoginInterceptor;
+import tdd.duo.interceptor.QueryMonitorCallableInterceptor;
+import tdd.duo.interceptor.QueryMonitorInterceptor;
+import tdd.duo.interceptor.RequestMetricsInterceptor;
+import tdd.duo.web.async.DbTaskExecutor;
+import tdd.duo.web.async.DbTaskReturnValueHandler;
+
+import java.util.List;
 
 /**
  * Created by yoon on 15. 3. 25..
@@ -21,6 +32,9 @@ public class WebConfig extends WebMvcConfigurationSupport {
     public static final String RESOLVER_PREFIX = "/WEB-INF/view";
     public static final String RESOLVER_SUFFIX = ".jsp";
 
+    @Autowired
+    private DbTaskExecutor dbTaskExecutor;
+
     @Bean
     public ViewResolver internalResourceViewResolver() {
         InternalResourceViewResolver resolver = new InternalResourceViewResolver();
@@ -31,9 +45,23 @@ public class WebConfig extends WebMvcConfigurationSupport {
 
     @Override
     protected void addInterceptors(InterceptorRegistry registry) {
+        //로그인 검사에서 돌려보낸 요청도 측정하도록 먼저 등록한다
+        registry.addInterceptor(queryMonitorInterceptor())
+                .addPathPatterns("/**")
+                .excludePathPatterns("/stylesheet/**");
+
+        //afterCompletion은 역순으로 불리므로 QueryMonitorInterceptor가 끝내기 전에 DB 시간을 읽는다
+        registry.addInterceptor(requestMetricsInterceptor())
+                .addPathPatterns("/**")
+                .excludePathPatterns("/stylesheet/**", "/metrics", "/health/**");
+
         registry.addInterceptor(loginInterceptor())
                 .addPathPatterns("/**")
-                .excludePathPatterns("/user/register", "/user/login", "/");
+                .excludePathPatterns("/user/register", "/user/login", "/", "/metrics", "/health/**");
+
+        //캐시 비우기, reconcile, purge처럼 운영자만 쓰는 요청
+        registry.addInterceptor(adminInterceptor())
+                .addPathPatterns("/admin/**");
     }
 
     @Bean
@@ -41,6 +69,37 @@ public class WebConfig extends WebMvcConfigurationSupport {
         return new LoginInterceptor();
     }
 
+    @Bean
+    public HandlerInterceptor adminInterceptor() {
+        return new AdminInterceptor();
+    }
+
+    @Bean
+    public HandlerInterceptor queryMonitorInterceptor() {
+        return new QueryMonitorInterceptor();
+    }
+
+    @Bean
+    public HandlerInterceptor requestMetricsInterceptor() {
+        return new RequestMetricsInterceptor();
+    }
+
+    //handler가 돌려준 DbTask를 요청 thread 또는 DB 전용 thread(web.async.enabled)에서 실행한다
+    @Override
+    protected void addReturnValueHandlers(List<HandlerMethodReturnValueHandler> returnValueHandlers) {
+        returnValueHandlers.add(new DbTaskReturnValueHandler(dbTaskExecutor));
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(queryMonitorCallableInterceptor());
+    }
+
+    @Bean
+    public QueryMonitorCallableInterceptor queryMonitorCallableInterceptor() {
+        return new QueryMonitorCallableInterceptor();
+    }
+
     protected void addResourceHandlers(ResourceHandlerRegistry registry) {
         registry.addResourceHandler("/stylesheet/*").addResourceLocations("/stylesheet/");
         super.addResourceHandlers(registry);
@@ -0,0 +1,65 @@
+package tdd.duo.interceptor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import org.springframework.web.util.WebUtils;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * /admin/** 은 web.admin.emails에 있는 사용자와, allow_localhost면 서버에서 직접 보낸 요청만 받는다. 나머지는 403.
+ * 로그인 검사(LoginInterceptor) 다음에 등록한다.
+ */
+public class AdminInterceptor extends HandlerInterceptorAdapter {
+
+    public static final String PROPERTY_KEY_EMAILS = "web.admin.emails";
+    public static final String PROPERTY_KEY_ALLOW_LOCALHOST = "web.admin.allow_localhost";
+
+    @Autowired
+    Environment environment;
+
+    private Set<String> adminEmails = Collections.emptySet();
+    private boolean allowLocalhost;
+
+    @PostConstruct
+    public void init() {
+        this.adminEmails = new HashSet<>(StringUtils.commaDelimitedListToSet(
+                StringUtils.trimAllWhitespace(environment.getProperty(PROPERTY_KEY_EMAILS, ""))));
+        this.adminEmails.remove("");
+        this.allowLocalhost = environment.getProperty(PROPERTY_KEY_ALLOW_LOCALHOST, Boolean.class, false);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (allowLocalhost && isLocalRequest(request))
+            return true;
+
+        Object email = WebUtils.getSessionAttribute(request, "id");
+        if (email != null && adminEmails.contains(email))
+            return true;
+
+        response.sendError(HttpServletResponse.SC_FORBIDDEN);
+        return false;
+    }
+
+    //proxy를 거친 요청은 remote address가 proxy라서 로컬로 보지 않는다
+    private static boolean isLocalRequest(HttpServletRequest request) {
+        if (request.getHeader("X-Forwarded-For") != null)
+            return false;
+
+        try {
+            return InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
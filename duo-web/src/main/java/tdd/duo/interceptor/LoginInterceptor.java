@@ -19,7 +19,7 @@ public class LoginInterceptor implements HandlerInterceptor {
             return false;
         }
 
-        //TODO Authorization Check
+        //Authorization Check는 AdminInterceptor(/admin/**)가 한다
 
         return true;
     }
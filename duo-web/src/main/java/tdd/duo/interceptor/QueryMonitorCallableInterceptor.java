@@ -0,0 +1,39 @@
+package tdd.duo.interceptor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptorAdapter;
+import tdd.duo.datasource.QueryMonitor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * async로 실행되는 handler(DbTask)의 SQL도 원래 요청으로 세도록 QueryMonitor의 요청을 thread 사이로 넘긴다.
+ * 요청 thread에서 떼어내 요청 attribute에 두고, DB 전용 thread는 실행하는 동안만 붙인다.
+ * async dispatch에서 QueryMonitorInterceptor가 다시 붙여서 view 렌더링까지 센 뒤 끝낸다.
+ */
+public class QueryMonitorCallableInterceptor extends CallableProcessingInterceptorAdapter {
+
+    @Autowired
+    private QueryMonitor queryMonitor;
+
+    //executor에 넘기기 전에 요청 thread에서 불린다
+    @Override
+    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) throws Exception {
+        QueryMonitor.RequestQueries queries = queryMonitor.detach();
+        if (queries != null)
+            request.setAttribute(QueryMonitorInterceptor.REQUEST_ATTRIBUTE_QUERIES, queries, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) throws Exception {
+        queryMonitor.attach((QueryMonitor.RequestQueries) request.getAttribute(
+                QueryMonitorInterceptor.REQUEST_ATTRIBUTE_QUERIES, RequestAttributes.SCOPE_REQUEST));
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) throws Exception {
+        queryMonitor.detach();
+    }
+}
@@ -0,0 +1,71 @@
+package tdd.duo.interceptor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.ModelAndView;
+import tdd.duo.datasource.QueryMonitor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청마다 실행된 SQL 문장 수와 DB 시간을 "GET /article/{articleId}" 처럼 URL pattern별로 모은다.
+ * view(JSP) 렌더링 중의 lazy loading까지 포함하도록 afterCompletion에서 끝낸다.
+ * async 요청은 QueryMonitorCallableInterceptor가 요청 attribute로 넘겨준 것을 async dispatch에서 이어서 센다.
+ */
+public class QueryMonitorInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryMonitorInterceptor.class);
+
+    public static final String UNMATCHED_ENDPOINT = "unmatched";
+    public static final String REQUEST_ATTRIBUTE_QUERIES = QueryMonitorInterceptor.class.getName() + ".queries";
+
+    @Autowired
+    private QueryMonitor queryMonitor;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        Object detached = request.getAttribute(REQUEST_ATTRIBUTE_QUERIES);
+        if (detached == null) {
+            queryMonitor.begin();
+            return true;
+        }
+
+        request.removeAttribute(REQUEST_ATTRIBUTE_QUERIES);
+        queryMonitor.attach((QueryMonitor.RequestQueries) detached);
+        return true;
+    }
+
+    //DbTask가 아닌 async(DeferredResult 등)는 QueryMonitorCallableInterceptor를 거치지 않으므로 여기서 떼어낸다
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        QueryMonitor.RequestQueries queries = queryMonitor.detach();
+        if (queries != null)
+            request.setAttribute(REQUEST_ATTRIBUTE_QUERIES, queries);
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) throws Exception {
+
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        String endpoint = getEndpoint(request);
+        QueryMonitor.RequestQueries queries = queryMonitor.end(endpoint);
+
+        if (queries != null && logger.isDebugEnabled())
+            logger.debug("{} : {} statements, {}ms", endpoint, queries.getStatementCount(),
+                    TimeUnit.NANOSECONDS.toMillis(queries.getDbTimeNanos()));
+    }
+
+    //id 같은 path 변수마다 따로 모이지 않도록 handler에 매칭된 pattern을 쓴다
+    static String getEndpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern == null ? UNMATCHED_ENDPOINT : pattern);
+    }
+}
@@ -0,0 +1,108 @@
+package tdd.duo.interceptor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import tdd.duo.datasource.QueryMonitor;
+import tdd.duo.web.metrics.RequestMetrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * handler method별 응답 시간을 RequestMetrics에 기록한다.
+ * total은 preHandle부터 afterCompletion까지, handler는 postHandle까지, view는 그 뒤 JSP 렌더링,
+ * db는 같은 요청에서 QueryMonitor가 잰 SQL 시간이다(handler, view 시간에 포함된다).
+ * 모든 요청이 지나가므로 시각은 request attribute(boxing) 대신 thread마다 하나씩 둔 Timing에 담는다.
+ * async 요청은 시작 시각만 요청 attribute로 async dispatch에 넘기므로, handler 시간에 DB 전용 thread의 대기와 실행이 포함된다.
+ */
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final long NOT_RENDERED = -1;
+
+    public static final String REQUEST_ATTRIBUTE_START = RequestMetricsInterceptor.class.getName() + ".start";
+
+    @Autowired
+    private RequestMetrics requestMetrics;
+
+    @Autowired
+    private QueryMonitor queryMonitor;
+
+    private final ThreadLocal<Timing> timings = ThreadLocal.withInitial(Timing::new);
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        Timing timing = timings.get();
+
+        //forward 등으로 같은 thread에서 다시 dispatch되면 바깥 요청에 포함시킨다
+        if (timing.depth++ > 0)
+            return true;
+
+        Object asyncStart = request.getAttribute(REQUEST_ATTRIBUTE_START);
+        if (asyncStart != null)
+            request.removeAttribute(REQUEST_ATTRIBUTE_START);
+
+        timing.start = asyncStart == null ? System.nanoTime() : (Long) asyncStart;
+        timing.handled = false;
+        timing.rendered = false;
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) throws Exception {
+        Timing timing = timings.get();
+        if (timing.depth != 1)
+            return;
+
+        timing.handlerEnd = System.nanoTime();
+        timing.handled = true;
+        timing.rendered = modelAndView != null && !modelAndView.wasCleared();
+    }
+
+    //async가 시작되면 postHandle, afterCompletion 대신 불린다. 기록은 async dispatch의 afterCompletion에서 한다
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        Timing timing = timings.get();
+        if (--timing.depth > 0)
+            return;
+
+        request.setAttribute(REQUEST_ATTRIBUTE_START, timing.start);
+    }
+
+    //QueryMonitorInterceptor보다 뒤에 등록되어 있어서 먼저 불린다. 그래서 아직 이 요청의 DB 시간을 읽을 수 있다
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        Timing timing = timings.get();
+        if (--timing.depth > 0)
+            return;
+
+        long end = System.nanoTime();
+        //handler가 예외를 던지면 postHandle이 불리지 않으므로 handler 시간은 total과 같다
+        long handlerEnd = timing.handled ? timing.handlerEnd : end;
+        long viewNanos = timing.rendered ? end - handlerEnd : NOT_RENDERED;
+
+        QueryMonitor.RequestQueries queries = queryMonitor.getCurrentRequest();
+        long dbNanos = queries == null ? 0 : queries.getDbTimeNanos();
+
+        requestMetrics.get(handler).record(
+                toMicros(end - timing.start),
+                toMicros(handlerEnd - timing.start),
+                viewNanos == NOT_RENDERED ? NOT_RENDERED : toMicros(viewNanos),
+                toMicros(dbNanos),
+                ex != null || response.getStatus() >= 500);
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static class Timing {
+
+        private int depth;
+        private long start;
+        private long handlerEnd;
+        private boolean handled;
+        private boolean rendered;
+    }
+}
@@ -1,40 +1,62 @@
 package tdd.duo.web;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
-import tdd.duo.domain.Article;
-import tdd.duo.domain.User;
-import tdd.duo.exception.ArticleCreationException;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import tdd.duo.bulk.ArticleRecordReader;
 import tdd.duo.service.ArticleService;
-import tdd.duo.service.SessionService;
 
-import java.net.UnknownServiceException;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Created by yoon on 15. 4. 20..
+ *
+ * 대량 입력은 /admin/** 아래에 두어 AdminInterceptor가 관리자만 받는다.
  */
 @Controller
+@RequestMapping("/admin")
 public class GeneratorController {
 
-    @Autowired
-    ArticleService articleService;
+    //요청 한번에 만들 수 있는 글 수. 더 필요하면 /admin/import를 쓴다
+    public static final long MAX_GENERATE_COUNT = 10000;
 
     @Autowired
-    SessionService sessionService;
+    ArticleService articleService;
 
-    @RequestMapping("/generate")
-    public @ResponseBody String generateMockData() throws ArticleCreationException {
+    //link prefetch 같은 GET으로 입력되지 않도록 POST만 받는다
+    @RequestMapping(value = "/generate", method = RequestMethod.POST, produces = "text/plain;charset=UTF-8")
+    public @ResponseBody String generateMockData(@RequestParam(defaultValue = "100") long count) {
+        if (count <= 0 || count > MAX_GENERATE_COUNT)
+            throw new IllegalArgumentException("count는 1 ~ " + MAX_GENERATE_COUNT + " 사이여야 합니다");
 
-        int maxNum = 100;
+        return articleService.generateArticles(count).toString();
+    }
 
-        User author = sessionService.getCurrentUser();
+    //request body(csv 또는 jsonl)를 읽으면서 바로 입력한다. ex) curl --data-binary @articles.csv /admin/import?format=csv
+    @RequestMapping(value = "/import", method = RequestMethod.POST, produces = "text/plain;charset=UTF-8")
+    public @ResponseBody String importArticles(@RequestParam(defaultValue = "csv") String format, HttpServletRequest request) throws IOException {
+        //charset이 없으면 servlet 기본값(ISO-8859-1) 대신 UTF-8로 읽는다
+        Reader reader = request.getCharacterEncoding() == null
+                ? new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8)
+                : request.getReader();
 
-        for (int i = 1 ; i <=  maxNum; ++i) {
-            articleService.create(new Article(author, "TestTitle_"+i, "TestContent_"+i));
-        }
+        return articleService.importArticles(reader, ArticleRecordReader.Format.from(format)).toString();
+    }
 
-        return "success";
+    //잘못된 count, 모르는 format
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public @ResponseBody String invalidRequest(IllegalArgumentException e) {
+        return String.valueOf(e.getMessage());
     }
 }
@@ -0,0 +1,124 @@
+package tdd.duo.web.admin;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import tdd.duo.datasource.MonitoredDataSource;
+import tdd.duo.datasource.QueryMonitor;
+import tdd.duo.datasource.ReplicaRoutingDataSource;
+import tdd.duo.service.ArticleCountService;
+import tdd.duo.service.ArticleStatService;
+import tdd.duo.service.CacheStatisticsService;
+import tdd.duo.service.SessionService;
+import tdd.duo.service.TombstonePurgeService;
+import tdd.duo.web.async.DbTaskExecutor;
+
+import java.util.Map;
+
+/**
+ * 운영중 튜닝에 필요한 수치를 text로 보여준다.
+ */
+@Controller
+@RequestMapping("/admin")
+public class AdminController {
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private MonitoredDataSource dataSource;
+
+    @Autowired
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Autowired
+    private DbTaskExecutor dbTaskExecutor;
+
+    @Autowired
+    private QueryMonitor queryMonitor;
+
+    @Autowired
+    private ArticleStatService articleStatService;
+
+    @Autowired
+    private ArticleCountService articleCountService;
+
+    @Autowired
+    private TombstonePurgeService tombstonePurgeService;
+
+    @RequestMapping(value = "/cache", produces = "text/plain;charset=UTF-8")
+    public @ResponseBody String cacheStatistics() {
+        StringBuilder builder = new StringBuilder();
+        appendLines(builder, "", cacheStatisticsService.getStatistics());
+
+        builder.append("sessionUser.hit=").append(sessionService.getCacheHitCount()).append('\n');
+        builder.append("sessionUser.miss=").append(sessionService.getCacheMissCount()).append('\n');
+        return builder.toString();
+    }
+
+    @RequestMapping(value = "/cache", method = RequestMethod.DELETE, produces = "text/plain;charset=UTF-8")
+    public @ResponseBody String clearCacheStatistics() {
+        cacheStatisticsService.clear();
+        return "cleared";
+    }
+
+    @RequestMapping(value = "/pool", produces = "text/plain;charset=UTF-8")
+    public @ResponseBody String poolStatistics() {
+        StringBuilder builder = new StringBuilder();
+        appendLines(builder, "", dataSource.getStatistics());
+        //primary/replica로 보낸 connection 수와 replica pool
+        appendLines(builder, "routing.", replicaRoutingDataSource.getStatistics());
+        //web.async.enabled일때 글목록, 상세보기를 처리하는 thread pool
+        appendLines(builder, "dbTask.", dbTaskExecutor.getStatistics());
+        return builder.toString();
+    }
+
+    //URL pattern별 요청당 SQL 문장 수, DB 시간(p50/p95/p99)과 N+1 의심 횟수
+    @RequestMapping(value = "/sql", produces = "text/plain;charset=UTF-8")
+    public @ResponseBody String sqlStatistics() {
+        StringBuilder builder = new StringBuilder();
+        appendLines(builder, "", queryMonitor.getStatistics());
+        return builder.toString();
+    }
+
+    @RequestMapping(value = "/sql", method = RequestMethod.DELETE, produces = "text/plain;charset=UTF-8")
+    public @ResponseBody String clearSqlStatistics() {
+        queryMonitor.clear();
+        return "cleared";
+    }
+
+    //주기 작업(article.stat.reconcile_interval_millis)을 기다리지 않고 article_stat을 원본 테이블과 맞춘다
+    @RequestMapping(value = "/article-stat/reconcile", method = RequestMethod.POST, produces = "text/plain;charset=UTF-8")
+    public @ResponseBody String reconcileArticleStat() {
+        return "corrected=" + articleStatService.reconcile();
+    }
+
+    //주기 작업(article.count.reconcile_interval_millis)을 기다리지 않고 목록 페이지 수에 쓰는 글 수를 DB에서 다시 센다
+    @RequestMapping(value = "/article-count/reconcile", method = RequestMethod.POST, produces = "text/plain;charset=UTF-8")
+    public @ResponseBody String reconcileArticleCount() {
+        return "count=" + articleCountService.reconcile();
+    }
+
+    //purge window와 상관없이 retention이 지난 삭제된 글과 댓글을 지운다
+    @RequestMapping(value = "/tombstone/purge", method = RequestMethod.POST, produces = "text/plain;charset=UTF-8")
+    public @ResponseBody String purgeTombstones() {
+        return "purged=" + tombstonePurgeService.purge();
+    }
+
+    static void appendLines(StringBuilder builder, String prefix, Map<?, ?> values) {
+        for (Map.Entry<?, ?> entry : values.entrySet()) {
+            String key = String.valueOf(entry.getKey());
+            if (entry.getValue() instanceof Map) {
+                appendLines(builder, prefix + key + ".", (Map<?, ?>) entry.getValue());
+                continue;
+            }
+
+            builder.append(prefix).append(key).append('=').append(entry.getValue()).append('\n');
+        }
+    }
+}
@@ -1,19 +1,34 @@
 package tdd.duo.web.article;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.ModelAndView;
 import tdd.duo.domain.Article;
+import tdd.duo.dto.ArticleOrder;
 import tdd.duo.dto.ArticlePage;
+import tdd.duo.dto.ArticleSummary;
+import tdd.duo.dto.ContentVersion;
+import tdd.duo.exception.ArticleConflictException;
 import tdd.duo.exception.ArticleCreationException;
 import tdd.duo.exception.ArticleModificationException;
 import tdd.duo.exception.ArticleNotFoundException;
+import tdd.duo.exception.ServiceBusyException;
 import tdd.duo.service.ArticleService;
+import tdd.duo.web.async.DbTask;
+import tdd.duo.web.fragment.Fragment;
+import tdd.duo.web.fragment.FragmentCache;
 
 import javax.naming.AuthenticationException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.List;
 
 /**
@@ -23,11 +38,44 @@ import java.util.List;
 @RequestMapping("/article")
 public class ArticleController {
 
+    private static final Logger logger = LoggerFactory.getLogger(ArticleController.class);
+
+    //브라우저가 매번 ETag로 확인하고, 공용 캐시는 저장하지 않는다
+    public static final String CACHE_CONTROL = "private, no-cache";
+    public static final String BUSY_MESSAGE = "요청이 많아 처리하지 못했습니다. 잠시 후 다시 시도해 주세요.";
+    public static final String RETRY_AFTER_SECONDS = "1";
+
     @Autowired
     private ArticleService articleService;
 
+    @Autowired
+    private FragmentCache fragmentCache;
+
+    //DB를 읽는 목록과 상세보기는 web.async.enabled면 DB 전용 thread에서 그린다(DbTaskExecutor)
+    //size는 페이지당 글 수, window는 현재 페이지 뒤로 보여줄 페이지 이동 링크 수. 없으면 ArticleService의 기본값을 쓴다
     @RequestMapping("/list")
-    public String pageList(Integer page, Model model) {
+    public DbTask<String> pageList(Integer page, Long lastSeenId, String sort, Integer size, Integer window,
+                                   HttpServletRequest request, HttpServletResponse response, Model model) {
+        return () -> list(page, lastSeenId, sort, size, window, request, response, model);
+    }
+
+    //null을 반환하면 view를 그리지 않는다(304 응답)
+    private String list(Integer page, Long lastSeenId, String sort, Integer size, Integer window,
+                        HttpServletRequest request, HttpServletResponse response, Model model) {
+
+        ArticleOrder order = ArticleOrder.from(sort);
+        int pageSize = ArticleService.toPageSize(size);
+        int pageWindow = ArticleService.toPageWindow(window);
+
+        //페이지 이동 링크에 기본값과 다른 크기를 유지한다
+        if (pageSize != ArticleService.PAGE_PER_ARTICLE_NUMBER)
+            model.addAttribute("size", pageSize);
+        if (pageWindow != ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)
+            model.addAttribute("window", pageWindow);
+
+        //lastSeenId가 오면 offset, count 없이 keyset 방식으로 조회한다
+        if (lastSeenId != null && order == ArticleOrder.RECENT)
+            return cursorList(lastSeenId, pageSize, request, response, model);
 
         if (page == null) {
             page = 1;
@@ -37,29 +85,91 @@ public class ArticleController {
             model.addAttribute("errorMessage", "잘못된 페이지 요청입니다.");
         }
 
+        Fragment fragment = null;
+
+        //바뀐게 없으면 304로 응답하고, 그려둔 목록이 있으면 DB를 읽지 않는다
+        if (!model.containsAttribute("errorMessage")) {
+            ContentVersion version = articleService.getListVersion(listKey(order.getParameter() + "-" + page, pageSize, pageWindow));
+            if (version != null) {
+                if (checkNotModified(request, response, version))
+                    return null;
+
+                fragment = fragmentCache.get(version.getEtag());
+                if (fragment.isRendered()) {
+                    model.addAttribute("fragment", fragment);
+                    return "/article/list";
+                }
+            }
+        }
+
         ArticlePage articlePage;
 
         try {
-            articlePage = articleService.findsByPageNumber(page);
+            articlePage = articleService.findsByPageNumber(page, order, pageSize, pageWindow);
         } catch (IllegalArgumentException e) {
             model.addAttribute("errorMessage", "잘못된 페이지 요청입니다.");
-            articlePage = articleService.findsByPageNumber(1);
+            articlePage = articleService.findsByPageNumber(1, order, pageSize, pageWindow);
+            fragment = null;
         }
 
+        if (fragment != null)
+            model.addAttribute("fragment", fragment);
+
+        //페이지 이동 링크에 정렬을 유지한다
+        if (order != ArticleOrder.RECENT)
+            model.addAttribute("sort", order.getParameter());
+
         model.addAttribute("startPage", articlePage.getStartPage());
         model.addAttribute("currentPage", articlePage.getCurrentPage());
         model.addAttribute("endPage", articlePage.getEndPage());
         model.addAttribute("totalEndPage", articlePage.getTotalEndPage());
+        model.addAttribute("pageWindow", articlePage.getPageWindow());
         model.addAttribute("articles", articlePage.getArticles());
 
         return "/article/list";
     }
 
+    private String cursorList(Long lastSeenId, int pageSize, HttpServletRequest request, HttpServletResponse response, Model model) {
+        ContentVersion version = articleService.getListVersion(listKey("cursor-" + lastSeenId, pageSize, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER));
+        if (version != null) {
+            if (checkNotModified(request, response, version))
+                return null;
+
+            Fragment fragment = fragmentCache.get(version.getEtag());
+            model.addAttribute("fragment", fragment);
+            if (fragment.isRendered())
+                return "/article/list";
+        }
+
+        ArticlePage articlePage = articleService.findsByLastSeenId(lastSeenId, pageSize);
+
+        model.addAttribute("totalEndPage", articlePage.getTotalEndPage());
+        model.addAttribute("nextLastSeenId", articlePage.getNextLastSeenId());
+        model.addAttribute("articles", articlePage.getArticles());
+
+        return "/article/list";
+    }
+
+    //기본 크기의 목록은 예전과 같은 key를 쓴다
+    private static String listKey(String key, int pageSize, int pageWindow) {
+        if (pageSize == ArticleService.PAGE_PER_ARTICLE_NUMBER && pageWindow == ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)
+            return key;
+        return key + "-" + pageSize + "-" + pageWindow;
+    }
+
     //TODO Refactoring or delete
     @RequestMapping("/query")
-    public String listFromQuery(String query, Model model) {
+    public String listFromQuery(String query, Integer page, Model model) {
+
+        List<ArticleSummary> articles;
+
+        try {
+            articles = page == null ? articleService.findsByQueryString(query) : articleService.findsByQueryString(query, page);
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("errorMessage", "잘못된 페이지 요청입니다.");
+            articles = articleService.findsByQueryString(query);
+        }
 
-        List<Article> articles = articleService.findsByQueryString(query);
         model.addAttribute("articles", articles);
 
         return "/article/list";
@@ -85,7 +195,18 @@ public class ArticleController {
     }
 
     @RequestMapping(value = "/{id}")
-    public String detailView(@PathVariable Long id, Model model) {
+    public DbTask<String> detailView(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response, Model model) {
+        return () -> detail(id, request, response, model);
+    }
+
+    private String detail(Long id, HttpServletRequest request, HttpServletResponse response, Model model) {
+
+        //읽은 적이 있는 글은 DB를 읽기 전에 304 여부를 확인한다
+        ContentVersion version = articleService.getArticleVersion(id);
+        if (version != null && checkNotModified(request, response, version)) {
+            articleService.countView(id);
+            return null;
+        }
 
         Article article = articleService.findById(id);
 
@@ -94,19 +215,32 @@ public class ArticleController {
             return "/article/list";
         }
 
+        //읽는 도중에 바뀌었으면 버전이 없다. 이때는 검증값을 보내지 않는다
+        version = articleService.getArticleVersion(id);
+        if (version != null && checkNotModified(request, response, version))
+            return null;
+
         model.addAttribute("article", article);
         return "/article/detail";
     }
 
     //TODO Use PathVariable
+    //article.version은 form의 hidden 값. 그 사이 다른 수정이 있었으면 409와 함께 최신 글을 보여준다
     @RequestMapping(value = "/{id}", method = RequestMethod.PUT)
-    public String modify(@PathVariable int id, Article article, Model model) {
+    public String modify(@PathVariable int id, Article article, HttpServletResponse response, Model model) {
         article.setId(id);
 
         try {
             Article modifiedArticle = articleService.modify(article);
             return "redirect:/article/"+modifiedArticle.getId();
 
+        } catch (ArticleConflictException e) {
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            model.addAttribute("article", article);
+            model.addAttribute("errorMessage", e.getMessage());
+            if (e.getCurrentArticle() != null)
+                model.addAttribute("currentArticle", e.getCurrentArticle());
+
         } catch (ArticleModificationException e) {
             model.addAttribute("article", article);
             model.addAttribute("errorMessage", e.getMessage());
@@ -124,10 +258,50 @@ public class ArticleController {
         //TODO ArticleNotFoundException를 통해 이전의 다른 컨트롤러 에러처리도 리팩토링하자
         } catch (AuthenticationException e) {
             return "redirect:/article/"+id;
+        //다른 수정이나 삭제가 먼저 반영됐다. 최신 상태를 다시 보여준다
+        } catch (ArticleConflictException e) {
+            return "redirect:/article/"+id;
         } catch (ArticleNotFoundException e) {
             return "redirect:/article";
         }
 
         return "redirect:/article";
     }
+
+    //DB 전용 thread가 모두 바쁘거나 시간 안에 끝나지 않았다
+    @ExceptionHandler(ServiceBusyException.class)
+    public ModelAndView busy(ServiceBusyException e, HttpServletResponse response) {
+        logger.warn("Article Request : {}", e.getMessage());
+
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return new ModelAndView("/article/list", "errorMessage", BUSY_MESSAGE);
+    }
+
+    //If-None-Match가 있으면 ETag로만, 없으면 If-Modified-Since로 비교한다. 바뀌었으면 새 검증값을 응답 헤더에 쓴다
+    static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response, ContentVersion version) {
+        boolean notModified;
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            notModified = ifNoneMatch.contains(version.getEtag());
+        } else {
+            //HTTP 날짜는 초 단위까지만 있다. 형식이 잘못된 값은 없는 것으로 본다
+            long ifModifiedSince;
+            try {
+                ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            } catch (IllegalArgumentException e) {
+                ifModifiedSince = -1;
+            }
+            notModified = ifModifiedSince >= 0 && ifModifiedSince >= version.getLastModified() / 1000 * 1000;
+        }
+
+        if (notModified)
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+        response.setHeader(HttpHeaders.ETAG, version.getEtag());
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, version.getLastModified());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        return notModified;
+    }
 }
@@ -0,0 +1,59 @@
+package tdd.duo.web.article;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import tdd.duo.domain.Comment;
+import tdd.duo.dto.CommentSummary;
+import tdd.duo.exception.ServiceBusyException;
+import tdd.duo.service.CommentService;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 상세보기 페이지를 다시 그리지 않고 댓글을 JSON으로 쓰고 읽는다.
+ * GET은 마지막으로 받은 댓글번호(after) 다음 댓글만 내려주므로, 화면은 새 댓글만 이어 붙이면 된다.
+ */
+@Controller
+@RequestMapping("/article/{articleId}/comments")
+public class CommentApiController {
+
+    public static final int DEFAULT_SIZE = 50;
+
+    @Autowired
+    private CommentService commentService;
+
+    @RequestMapping(method = RequestMethod.GET)
+    public @ResponseBody List<CommentSummary> list(@PathVariable Long articleId,
+                                                   @RequestParam(defaultValue = "0") Long after,
+                                                   @RequestParam(defaultValue = "" + DEFAULT_SIZE) int size) {
+        return commentService.findsAfter(articleId, after, size);
+    }
+
+    @RequestMapping(method = RequestMethod.POST)
+    @ResponseStatus(HttpStatus.CREATED)
+    public @ResponseBody CommentSummary register(@PathVariable Long articleId, @RequestParam(defaultValue = "") String content) throws ServiceBusyException {
+        return commentService.createAsync(new Comment(articleId, content));
+    }
+
+    @RequestMapping(value = "/{commentId}", method = RequestMethod.DELETE)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@PathVariable Long commentId) {
+        commentService.delete(commentId);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public @ResponseBody Map<String, String> invalidComment(IllegalArgumentException e) {
+        return Collections.singletonMap("message", e.getMessage());
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public @ResponseBody Map<String, String> busy(ServiceBusyException e) {
+        return Collections.singletonMap("message", e.getMessage());
+    }
+}
@@ -25,7 +25,7 @@ public class CommentController {
 
     private static Logger logger = LoggerFactory.getLogger(CommentController.class);
 
-    //TODO Convert to Ajax Process
+    //script가 꺼져있을때만 쓰인다. 상세보기 화면은 CommentApiController로 댓글을 쓰고 읽는다
     //TODO Try - Catch to detect exception and announce error to user
     @RequestMapping(value = "", method = RequestMethod.POST)
     public String register(Comment comment, Model model) {
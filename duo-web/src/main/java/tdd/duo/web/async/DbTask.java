@@ -0,0 +1,14 @@
+package tdd.duo.web.async;
+
+/**
+ * DB를 읽어서 view 이름을 돌려주는 handler의 본문.
+ * handler가 이 타입을 돌려주면 DbTaskReturnValueHandler가 설정(web.async.enabled)에 따라
+ * 요청 thread에서 바로 실행하거나 DB 전용 thread에서 Servlet async로 실행한다.
+ * Callable을 상속하면 Spring이 항상 async로 처리하므로 따로 둔다.
+ */
+@FunctionalInterface
+public interface DbTask<V> {
+
+    //null을 돌려주면 view를 그리지 않는다(304 응답 등)
+    V call() throws Exception;
+}
@@ -0,0 +1,147 @@
+package tdd.duo.web.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.View;
+import tdd.duo.exception.ServiceBusyException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 글목록, 상세보기처럼 DB를 기다리는 요청을 container thread 대신 실행하는 크기가 정해진 thread pool.
+ * DB가 느려져도 connector thread는 async로 바로 돌아가서 다른 요청(로그인, 정적 파일 등)을 받는다.
+ * 실행중 + 대기중인 요청이 threads + queue_capacity를 넘으면 async를 시작하기 전에 ServiceBusyException으로 거절한다.
+ * web.async.enabled=false(기본값)면 thread pool을 만들지 않고 요청 thread에서 실행한다.
+ */
+@Component
+public class DbTaskExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(DbTaskExecutor.class);
+
+    public static final String PROPERTY_KEY_ENABLED = "web.async.enabled";
+    public static final String PROPERTY_KEY_THREADS = "web.async.db_threads";
+    public static final String PROPERTY_KEY_QUEUE_CAPACITY = "web.async.queue_capacity";
+    public static final String PROPERTY_KEY_TIMEOUT_MILLIS = "web.async.timeout_millis";
+    public static final int DEFAULT_THREADS = 20;
+    public static final int DEFAULT_QUEUE_CAPACITY = 200;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+
+    private static final String BUSY_MESSAGE = "db task queue is full";
+
+    //view를 그리지 않는 결과(null). async 결과로 null을 돌려주면 Spring이 URL로 view 이름을 정하므로 대신 쓴다
+    static final View NOT_RENDERED = new View() {
+        @Override
+        public String getContentType() {
+            return null;
+        }
+
+        @Override
+        public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) {
+        }
+    };
+
+    @Autowired
+    Environment environment;
+
+    private ThreadPoolExecutor executor;
+    private TaskExecutorAdapter taskExecutor;
+    private Semaphore permits;
+    private long timeoutMillis;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        if (!environment.getProperty(PROPERTY_KEY_ENABLED, Boolean.class, false))
+            return;
+
+        int threads = environment.getProperty(PROPERTY_KEY_THREADS, Integer.class, DEFAULT_THREADS);
+        int queueCapacity = environment.getProperty(PROPERTY_KEY_QUEUE_CAPACITY, Integer.class, DEFAULT_QUEUE_CAPACITY);
+        long timeoutMillis = environment.getProperty(PROPERTY_KEY_TIMEOUT_MILLIS, Long.class, DEFAULT_TIMEOUT_MILLIS);
+
+        start(threads, queueCapacity, timeoutMillis);
+    }
+
+    public void start(int threads, int queueCapacity, long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        //거절은 permits로 먼저 하므로 queue는 넘치지 않는다
+        this.permits = new Semaphore(threads + queueCapacity);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "db-task-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.taskExecutor = new TaskExecutorAdapter(executor);
+
+        logger.info("async db tasks : {} threads, queue {}, timeout {}ms", threads, queueCapacity, timeoutMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null)
+            executor.shutdown();
+    }
+
+    public boolean isAsync() {
+        return executor != null;
+    }
+
+    //자리가 없으면 async를 시작하기 전에 거절한다. Spring 4.1은 async를 시작한 뒤의 executor 거절을 처리하지 못한다
+    public WebAsyncTask<Object> toWebAsyncTask(DbTask<?> task) throws ServiceBusyException {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new ServiceBusyException(BUSY_MESSAGE);
+        }
+
+        WebAsyncTask<Object> asyncTask = new WebAsyncTask<>(timeoutMillis, taskExecutor, () -> {
+            try {
+                Object result = task.call();
+                return result == null ? NOT_RENDERED : result;
+            } finally {
+                permits.release();
+            }
+        });
+
+        //시간이 지나도 task는 계속 실행되고, 끝나면 자리를 돌려준다
+        asyncTask.onTimeout(() -> {
+            timedOut.increment();
+            throw new ServiceBusyException("db task timed out after " + timeoutMillis + "ms");
+        });
+
+        return asyncTask;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("async", isAsync());
+        if (isAsync()) {
+            statistics.put("active", executor.getActiveCount());
+            statistics.put("queued", executor.getQueue().size());
+            statistics.put("available", permits.availablePermits());
+        }
+        statistics.put("rejected", rejected.sum());
+        statistics.put("timedOut", timedOut.sum());
+        return statistics;
+    }
+}
@@ -0,0 +1,52 @@
+package tdd.duo.web.async;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.servlet.mvc.method.annotation.ViewNameMethodReturnValueHandler;
+
+/**
+ * handler가 돌려준 DbTask를 실행한다. async면 Servlet async로 DbTaskExecutor에 넘기고,
+ * 아니면 요청 thread에서 실행한 결과를 view 이름으로 처리한다.
+ * 결과가 null이면 String을 돌려주는 handler와 같이 view를 그리지 않는다.
+ */
+public class DbTaskReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+    private final DbTaskExecutor dbTaskExecutor;
+    private final ViewNameMethodReturnValueHandler viewNameHandler = new ViewNameMethodReturnValueHandler();
+
+    public DbTaskReturnValueHandler(DbTaskExecutor dbTaskExecutor) {
+        this.dbTaskExecutor = dbTaskExecutor;
+    }
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        return DbTask.class.isAssignableFrom(returnType.getParameterType());
+    }
+
+    @Override
+    public void handleReturnValue(Object returnValue, MethodParameter returnType,
+                                  ModelAndViewContainer mavContainer, NativeWebRequest webRequest) throws Exception {
+        if (returnValue == null) {
+            mavContainer.setRequestHandled(true);
+            return;
+        }
+
+        DbTask<?> task = (DbTask<?>) returnValue;
+
+        if (dbTaskExecutor.isAsync()) {
+            WebAsyncUtils.getAsyncManager(webRequest).startCallableProcessing(dbTaskExecutor.toWebAsyncTask(task), mavContainer);
+            return;
+        }
+
+        Object result = task.call();
+        if (result == null) {
+            mavContainer.setRequestHandled(true);
+            return;
+        }
+
+        viewNameHandler.handleReturnValue(result, returnType, mavContainer, webRequest);
+    }
+}
@@ -0,0 +1,34 @@
+package tdd.duo.web.fragment;
+
+/**
+ * FragmentCache의 조각 하나. 컨트롤러가 model에 넣고 JSP의 <duo:fragment>가 쓴다.
+ */
+public class Fragment {
+
+    private final FragmentCache cache;
+    private final String key;
+    private volatile String html;
+
+    Fragment(FragmentCache cache, String key, String html) {
+        this.cache = cache;
+        this.key = key;
+        this.html = html;
+    }
+
+    public boolean isRendered() {
+        return html != null;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    void rendered(String html) {
+        this.html = html;
+        cache.put(key, html);
+    }
+}
@@ -0,0 +1,45 @@
+package tdd.duo.web.fragment;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JSP에서 그린 화면 조각(html)을 key별로 보관한다. 최근에 쓴 MAX_FRAGMENTS 개만 남긴다.
+ * key에 내용의 버전(ETag 등)을 넣어서 쓴다. 버전이 바뀌면 예전 조각은 더 읽히지 않고 밀려난다.
+ */
+@Component
+public class FragmentCache {
+
+    public static final int MAX_FRAGMENTS = 200;
+
+    private final Map<String, String> fragments = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_FRAGMENTS;
+        }
+    };
+
+    //아직 그린 적이 없으면 html이 없는 조각을 돌려준다. <duo:fragment>가 그리면서 채운다
+    public Fragment get(String key) {
+        String html;
+        synchronized (fragments) {
+            html = fragments.get(key);
+        }
+
+        return new Fragment(this, key, html);
+    }
+
+    void put(String key, String html) {
+        synchronized (fragments) {
+            fragments.put(key, html);
+        }
+    }
+
+    public int size() {
+        synchronized (fragments) {
+            return fragments.size();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package tdd.duo.web.fragment;
+
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.tagext.SimpleTagSupport;
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * <duo:fragment fragment="${fragment}">...</duo:fragment>
+ * 저장된 html이 있으면 body를 실행하지 않고 그대로 쓰고, 없으면 body를 그려서 저장한다. fragment가 없으면 body만 그린다.
+ */
+public class FragmentTag extends SimpleTagSupport {
+
+    private Fragment fragment;
+
+    public void setFragment(Fragment fragment) {
+        this.fragment = fragment;
+    }
+
+    @Override
+    public void doTag() throws JspException, IOException {
+        if (fragment == null) {
+            getJspBody().invoke(null);
+            return;
+        }
+
+        if (!fragment.isRendered()) {
+            StringWriter body = new StringWriter();
+            getJspBody().invoke(body);
+            fragment.rendered(body.toString());
+        }
+
+        getJspContext().getOut().write(fragment.getHtml());
+    }
+}
@@ -0,0 +1,38 @@
+package tdd.duo.web.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * load balancer가 보는 상태. live는 요청을 받으면 200, ready는 warm-up이 끝나기 전까지 503이다.
+ * 로그인하지 않고 부르므로 LoginInterceptor에서 제외한다.
+ */
+@Controller
+public class HealthController {
+
+    public static final String LIVE = "live";
+    public static final String READY = "ready";
+    public static final String WARMING_UP = "warming up";
+
+    @Autowired
+    private StartupMetrics startupMetrics;
+
+    @RequestMapping(value = "/health/live", method = RequestMethod.GET)
+    public @ResponseBody String live() {
+        return LIVE;
+    }
+
+    @RequestMapping(value = "/health/ready", method = RequestMethod.GET)
+    public @ResponseBody String ready(HttpServletResponse response) {
+        if (startupMetrics.isReady())
+            return READY;
+
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        return WARMING_UP;
+    }
+}
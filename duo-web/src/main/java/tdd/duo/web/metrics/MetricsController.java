@@ -0,0 +1,25 @@
+package tdd.duo.web.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+/**
+ * Prometheus가 긁어가는 endpoint. scraper는 로그인하지 않으므로 LoginInterceptor에서 제외한다.
+ */
+@Controller
+public class MetricsController {
+
+    @Autowired
+    private RequestMetrics requestMetrics;
+
+    @Autowired
+    private StartupMetrics startupMetrics;
+
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET, produces = RequestMetrics.CONTENT_TYPE)
+    public @ResponseBody String metrics() {
+        return requestMetrics.toPrometheus() + startupMetrics.toPrometheus();
+    }
+}
@@ -0,0 +1,201 @@
+package tdd.duo.web.metrics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import tdd.duo.metrics.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * "ArticleController.pageList" 처럼 handler method별로 요청 수, 오류 수와 구간별 응답 시간을 모으고
+ * Prometheus text format(0.0.4)으로 내보낸다.
+ * 처음 본 handler만 이름을 만들어 등록하므로, 이후 요청의 기록은 map 조회와 히스토그램 기록뿐이다.
+ */
+@Component
+public class RequestMetrics {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    public static final String PHASE_TOTAL = "total";
+    public static final String PHASE_HANDLER = "handler";
+    public static final String PHASE_VIEW = "view";
+    public static final String PHASE_DB = "db";
+
+    //Prometheus histogram의 le(초). Histogram bucket 단위로 세므로 경계 근처 값은 약 6% 오차가 있다
+    static final double[] BUCKET_SECONDS = {0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private static final long NOT_RECORDED = -1;
+
+    private static final long[] BUCKET_MICROS = new long[BUCKET_SECONDS.length];
+    private static final String[] BUCKET_LABELS = new String[BUCKET_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            BUCKET_MICROS[i] = Math.round(BUCKET_SECONDS[i] * 1_000_000);
+            BUCKET_LABELS[i] = Double.toString(BUCKET_SECONDS[i]);
+        }
+    }
+
+    //HandlerMethod의 Method(또는 handler class) -> 기록
+    private final ConcurrentMap<Object, HandlerMetrics> handlers = new ConcurrentHashMap<>();
+    //같은 이름의 overload는 하나로 모은다
+    private final ConcurrentMap<String, HandlerMetrics> handlersByName = new ConcurrentHashMap<>();
+
+    public HandlerMetrics get(Object handler) {
+        Object key = handler instanceof HandlerMethod ? ((HandlerMethod) handler).getMethod() : handler.getClass();
+
+        HandlerMetrics metrics = handlers.get(key);
+        if (metrics != null)
+            return metrics;
+
+        HandlerMetrics registered = handlersByName.computeIfAbsent(getName(handler), HandlerMetrics::new);
+        handlers.putIfAbsent(key, registered);
+        return registered;
+    }
+
+    public void clear() {
+        handlers.clear();
+        handlersByName.clear();
+    }
+
+    static String getName(Object handler) {
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            return handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        }
+
+        return handler.getClass().getSimpleName();
+    }
+
+    public String toPrometheus() {
+        Map<String, HandlerMetrics> sorted = new TreeMap<>(handlersByName);
+        StringBuilder builder = new StringBuilder();
+
+        header(builder, "duo_http_requests_total", "counter", "Requests handled by each controller method.");
+        for (HandlerMetrics metrics : sorted.values())
+            sample(builder, "duo_http_requests_total", metrics.name, null, null, metrics.requests.sum());
+
+        header(builder, "duo_http_request_errors_total", "counter", "Requests that threw an exception or answered 5xx.");
+        for (HandlerMetrics metrics : sorted.values())
+            sample(builder, "duo_http_request_errors_total", metrics.name, null, null, metrics.errors.sum());
+
+        //기동 직후의 JIT, connection, JSP 컴파일 비용이 보인다. warm-up을 하면 warm-up 요청의 시간이다
+        header(builder, "duo_http_first_request_duration_seconds", "gauge", "Latency of the first request each controller method handled.");
+        for (HandlerMetrics metrics : sorted.values()) {
+            if (metrics.firstMicros != NOT_RECORDED)
+                sample(builder, "duo_http_first_request_duration_seconds", metrics.name, null, null, metrics.firstMicros / 1_000_000.0);
+        }
+
+        header(builder, "duo_http_request_duration_seconds", "histogram",
+                "Request latency by phase: total, handler execution, view rendering and database time.");
+        for (HandlerMetrics metrics : sorted.values()) {
+            histogram(builder, metrics.name, PHASE_TOTAL, metrics.totalMicros);
+            histogram(builder, metrics.name, PHASE_HANDLER, metrics.handlerMicros);
+            histogram(builder, metrics.name, PHASE_VIEW, metrics.viewMicros);
+            histogram(builder, metrics.name, PHASE_DB, metrics.dbMicros);
+        }
+
+        return builder.toString();
+    }
+
+    private static void header(StringBuilder builder, String name, String type, String help) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    //view를 그리지 않은 handler(@ResponseBody 등)는 view 구간이 비어 있으므로 내보내지 않는다
+    private static void histogram(StringBuilder builder, String handler, String phase, Histogram histogram) {
+        long count = histogram.getCount();
+        if (count == 0 && PHASE_VIEW.equals(phase))
+            return;
+
+        String name = "duo_http_request_duration_seconds";
+        for (int i = 0; i < BUCKET_MICROS.length; i++)
+            sample(builder, name + "_bucket", handler, phase, BUCKET_LABELS[i], histogram.getCountAtOrBelow(BUCKET_MICROS[i]));
+
+        sample(builder, name + "_bucket", handler, phase, "+Inf", count);
+        sample(builder, name + "_sum", handler, phase, null, histogram.getSum() / 1_000_000.0);
+        sample(builder, name + "_count", handler, phase, null, count);
+    }
+
+    private static void sample(StringBuilder builder, String name, String handler, String phase, String le, Object value) {
+        builder.append(name).append("{handler=\"").append(handler).append('"');
+        if (phase != null)
+            builder.append(",phase=\"").append(phase).append('"');
+        if (le != null)
+            builder.append(",le=\"").append(le).append('"');
+        builder.append("} ").append(value).append('\n');
+    }
+
+    /**
+     * handler method 하나의 기록. 시간은 micro second 단위로 히스토그램에 남긴다.
+     */
+    public static class HandlerMetrics {
+
+        private final String name;
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final Histogram totalMicros = new Histogram();
+        private final Histogram handlerMicros = new Histogram();
+        private final Histogram viewMicros = new Histogram();
+        private final Histogram dbMicros = new Histogram();
+        private volatile long firstMicros = NOT_RECORDED;
+
+        HandlerMetrics(String name) {
+            this.name = name;
+        }
+
+        //viewMicros가 음수면 view를 그리지 않은 요청이다
+        public void record(long totalMicros, long handlerMicros, long viewMicros, long dbMicros, boolean error) {
+            //동시에 들어온 첫 요청끼리는 어느 쪽이 남아도 상관없다
+            if (firstMicros == NOT_RECORDED)
+                firstMicros = totalMicros;
+
+            requests.increment();
+            if (error)
+                errors.increment();
+
+            this.totalMicros.record(totalMicros);
+            this.handlerMicros.record(handlerMicros);
+            if (viewMicros >= 0)
+                this.viewMicros.record(viewMicros);
+            this.dbMicros.record(dbMicros);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getFirstMicros() {
+            return firstMicros;
+        }
+
+        public Histogram getTotalMicros() {
+            return totalMicros;
+        }
+
+        public Histogram getHandlerMicros() {
+            return handlerMicros;
+        }
+
+        public Histogram getViewMicros() {
+            return viewMicros;
+        }
+
+        public Histogram getDbMicros() {
+            return dbMicros;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package tdd.duo.web.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * JVM 시작부터 DispatcherServlet의 context가 뜰때(context)와 요청을 받을 준비가 될때(ready)까지 걸린 시간.
+ * startup.warm_up.enabled=true면 WebServerLauncher가 warm-up을 끝내고 markReady()를 부를때 ready가 된다.
+ */
+@Component
+public class StartupMetrics implements ApplicationListener<ContextRefreshedEvent> {
+
+    public static final String PROPERTY_KEY_WARM_UP_ENABLED = "startup.warm_up.enabled";
+
+    public static final String PHASE_CONTEXT = "context";
+    public static final String PHASE_READY = "ready";
+
+    private static final long NOT_YET = -1;
+
+    @Autowired
+    private Environment environment;
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    private volatile long contextMillis = NOT_YET;
+    private volatile long readyMillis = NOT_YET;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (contextMillis != NOT_YET)
+            return;
+
+        contextMillis = sinceJvmStart();
+        if (!environment.getProperty(PROPERTY_KEY_WARM_UP_ENABLED, Boolean.class, false))
+            markReady();
+    }
+
+    public synchronized void markReady() {
+        if (readyMillis == NOT_YET)
+            readyMillis = sinceJvmStart();
+    }
+
+    public boolean isReady() {
+        return readyMillis != NOT_YET;
+    }
+
+    public long getContextMillis() {
+        return contextMillis;
+    }
+
+    public long getReadyMillis() {
+        return readyMillis;
+    }
+
+    //아직 지나지 않은 구간은 내보내지 않는다
+    public String toPrometheus() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("# HELP duo_startup_seconds Seconds from JVM start until the web context was refreshed (context) and until warm-up finished (ready).\n");
+        builder.append("# TYPE duo_startup_seconds gauge\n");
+        sample(builder, PHASE_CONTEXT, contextMillis);
+        sample(builder, PHASE_READY, readyMillis);
+        return builder.toString();
+    }
+
+    private static void sample(StringBuilder builder, String phase, long millis) {
+        if (millis == NOT_YET)
+            return;
+
+        builder.append("duo_startup_seconds{phase=\"").append(phase).append("\"} ").append(millis / 1000.0).append('\n');
+    }
+
+    private long sinceJvmStart() {
+        return System.currentTimeMillis() - jvmStartMillis;
+    }
+}
@@ -12,6 +12,8 @@ import tdd.duo.domain.User;
 import tdd.duo.domain.auth.Authentication;
 import tdd.duo.exception.AlreadyExistException;
 import tdd.duo.exception.PasswordMismatchException;
+import tdd.duo.exception.ServiceBusyException;
+import tdd.duo.exception.ValidationException;
 import tdd.duo.service.UserService;
 
 import javax.servlet.http.HttpSession;
@@ -25,6 +27,8 @@ public class UserController {
 
     private static Logger logger = LoggerFactory.getLogger(UserController.class);
 
+    private static final String BUSY_MESSAGE = "요청이 많아 처리하지 못했습니다. 잠시 후 다시 시도해 주세요";
+
     @Autowired
     UserService userService;
 
@@ -42,13 +46,21 @@ public class UserController {
             userService.create(user);
             return "redirect:/user/login";
 
+        } catch (ValidationException e) {
+            model.addAttribute("errorMessage", "입력값을 다시 확인해 주세요");
+            model.addAttribute("fieldErrors", e.getErrors().toMap());
+            logger.error("Invalid Argument- Email : {}, Name : {}, Age : {}, Errors : {}", user.getEmail(), user.getName(), user.getAge(), e.getErrors());
+
         } catch (IllegalArgumentException e) {
-            //TODO Detail ErrorMessage (age, name, id, password length etc)
             model.addAttribute("errorMessage", "입력값을 다시 확인해 주세요");
             logger.error("Invalid Argument- Email : {}, Name : {}, Age : {}, ", user.getEmail(), user.getName(), user.getAge());
 
         } catch (AlreadyExistException e) {
             model.addAttribute("errorMessage", "이미 존재하는 아이디입니다.");
+
+        } catch (ServiceBusyException e) {
+            model.addAttribute("errorMessage", BUSY_MESSAGE);
+            logger.warn("Register Request : {}", e.getMessage());
         }
 
         return "/user/register";
@@ -79,6 +91,10 @@ public class UserController {
         } catch (IllegalArgumentException e) {
             model.addAttribute("errorMessage", "잘못된 접근입니다");
             logger.error("Login Request : {}", authentication.toString());
+
+        } catch (ServiceBusyException e) {
+            model.addAttribute("errorMessage", BUSY_MESSAGE);
+            logger.warn("Login Request : {}", e.getMessage());
         }
 
         return "/user/login";
@@ -0,0 +1,65 @@
+package tomcat;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.webresources.DirResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+import org.apache.jasper.compiler.JspUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * duo-web/build.gradle의 precompileJsp가 JspC로 컴파일해 둔 JSP servlet을 JSP 경로에 직접 mapping 한다.
+ * mapping된 JSP는 Jasper가 첫 요청에서 컴파일하지 않는다. 컴파일 뒤에 바뀐 JSP는 mapping하지 않고 Jasper에 맡긴다.
+ */
+class PrecompiledJsps {
+
+    //precompileJsp의 -p와 같아야 한다
+    static final String PACKAGE = "tdd.duo.jsp";
+    static final String VIEW_DIR = "WEB-INF/view";
+
+    static int register(Context context, File webappDir, File classesDir) throws IOException {
+        File viewDir = new File(webappDir, VIEW_DIR);
+        if (!classesDir.isDirectory() || !viewDir.isDirectory())
+            return 0;
+
+        //webapp classloader가 컴파일된 class를 찾도록 /WEB-INF/classes로 붙인다
+        WebResourceRoot resources = new StandardRoot(context);
+        resources.addPreResources(new DirResourceSet(resources, "/WEB-INF/classes", classesDir.getAbsolutePath(), "/"));
+        context.setResources(resources);
+
+        List<Path> jsps;
+        try (Stream<Path> files = Files.walk(viewDir.toPath())) {
+            jsps = files.filter(path -> path.toString().endsWith(".jsp")).collect(Collectors.toList());
+        }
+
+        int registered = 0;
+        for (Path jsp : jsps) {
+            String uri = "/" + webappDir.toPath().relativize(jsp).toString().replace(File.separatorChar, '/');
+            String className = toClassName(uri);
+
+            File classFile = new File(classesDir, className.replace('.', '/') + ".class");
+            if (!classFile.isFile() || classFile.lastModified() < jsp.toFile().lastModified())
+                continue;
+
+            Tomcat.addServlet(context, className, className);
+            context.addServletMapping(uri, className);
+            registered++;
+        }
+
+        return registered;
+    }
+
+    //JspC와 같은 규칙. /WEB-INF/view/article/list.jsp -> tdd.duo.jsp.WEB_002dINF.view.article.list_jsp
+    static String toClassName(String uri) {
+        int slash = uri.lastIndexOf('/');
+        return PACKAGE + "." + JspUtil.makeJavaPackage(uri.substring(1, slash)) + "." + JspUtil.makeJavaIdentifier(uri.substring(slash + 1));
+    }
+}
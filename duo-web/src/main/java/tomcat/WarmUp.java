@@ -0,0 +1,93 @@
+package tomcat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * load balancer에 ready를 알리기 전에 대표 요청을 몇 번씩 보내서 JIT, connection pool, 2차 캐시, lazy bean, JSP를 데운다.
+ * 로그인이 필요한 화면은 email이 있을때만 로그인한 세션으로 보낸다. 응답 코드는 보지 않고 실패해도 계속한다.
+ */
+class WarmUp {
+
+    private final String baseUrl;
+
+    WarmUp(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    void run(List<String> paths, int rounds, String email, String password) {
+        long start = System.nanoTime();
+        String session = email == null ? null : login(email, password);
+
+        int failed = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (String path : paths) {
+                try {
+                    get(path, session);
+                } catch (IOException e) {
+                    failed++;
+                }
+            }
+        }
+
+        System.out.println("warm-up : " + rounds + " x " + paths + (session == null ? "" : " as " + email) + ", failed " + failed
+                + ", " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    }
+
+    private String login(String email, String password) {
+        try {
+            HttpURLConnection connection = open("/user/login");
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            try (OutputStream out = connection.getOutputStream()) {
+                //비밀번호에 &, +, % 가 있어도 그대로 보내지도록 encode 한다
+                out.write(("id=" + URLEncoder.encode(email, "UTF-8") + "&password=" + URLEncoder.encode(password == null ? "" : password, "UTF-8"))
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            drain(connection);
+
+            String cookie = connection.getHeaderField("Set-Cookie");
+            if (cookie != null)
+                return cookie.substring(0, cookie.indexOf(';'));
+        } catch (IOException e) {
+            //로그인 없이 계속한다
+        }
+
+        System.out.println("warm-up : login failed for " + email);
+        return null;
+    }
+
+    private void get(String path, String session) throws IOException {
+        HttpURLConnection connection = open(path);
+        if (session != null)
+            connection.setRequestProperty("Cookie", session);
+        drain(connection);
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setInstanceFollowRedirects(false);
+        connection.setConnectTimeout(5000);
+        connection.setReadTimeout(30000);
+        return connection;
+    }
+
+    private static void drain(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getResponseCode() >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in == null)
+            return;
+
+        byte[] buffer = new byte[8192];
+        try (InputStream body = in) {
+            while (body.read(buffer) != -1) ;
+        }
+    }
+}
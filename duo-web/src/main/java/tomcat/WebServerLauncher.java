@@ -1,33 +1,134 @@
 package tomcat;
 
 import java.io.File;
+import java.util.Arrays;
 
 import org.apache.catalina.Context;
-import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.core.StandardThreadExecutor;
 import org.apache.catalina.connector.Connector;
 import org.apache.catalina.startup.Tomcat;
-import org.apache.catalina.webresources.DirResourceSet;
-import org.apache.catalina.webresources.StandardRoot;
- 
+import org.apache.coyote.AbstractProtocol;
+import org.apache.tomcat.util.scan.StandardJarScanFilter;
+import org.apache.tomcat.util.scan.StandardJarScanner;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+import org.springframework.web.servlet.FrameworkServlet;
+import tdd.duo.config.LazyInitBeanFactoryPostProcessor;
+import tdd.duo.web.async.DbTaskExecutor;
+import tdd.duo.web.metrics.StartupMetrics;
+
+/**
+ * 환경 변수로 connector를 설정한다. 없으면 괄호 안의 기본값을 쓴다.
+ * PORT(8080), TOMCAT_PROTOCOL(nio | nio2), TOMCAT_MAX_THREADS(200), TOMCAT_MIN_SPARE_THREADS(10),
+ * TOMCAT_ACCEPT_COUNT(100), TOMCAT_MAX_CONNECTIONS(10000), TOMCAT_KEEP_ALIVE_TIMEOUT_MILLIS(20000),
+ * TOMCAT_MAX_KEEP_ALIVE_REQUESTS(100)
+ * WEB_ASYNC_ENABLED=true면 글목록과 상세보기를 DB 전용 thread에서 처리한다(web.async.enabled).
+ * FAST_START=true면 bean을 처음 쓸때 만들고, classpath jar 검색을 줄이고, 빌드때 컴파일한 JSP(PRECOMPILED_JSP_DIR)를 쓴다.
+ * WARM_UP_ROUNDS가 0보다 크면 기동 뒤 WARM_UP_PATHS를 그만큼 요청하고 나서 /health/ready가 200이 된다.
+ * 로그인이 필요한 화면은 WARM_UP_EMAIL, WARM_UP_PASSWORD 사용자로 요청한다.
+ */
 public class WebServerLauncher {
+
+    public static final String PROTOCOL_NIO = "org.apache.coyote.http11.Http11NioProtocol";
+    public static final String PROTOCOL_NIO2 = "org.apache.coyote.http11.Http11Nio2Protocol";
+
+    //web.xml의 DispatcherServlet 이름
+    public static final String DISPATCHER_SERVLET_NAME = "duo";
+    //상세보기는 304로 응답해도 조회수를 올리므로 기본값에 넣지 않는다. 배포할때마다 그 글의 조회수가 늘어난다
+    public static final String DEFAULT_WARM_UP_PATHS = "/,/user/login,/article/list?page=1,/article/list?page=2";
+
     public static void main(String[] args) throws Exception {
         String webappDirLocation = "duo-web/webapp/";
         Tomcat tomcat = new Tomcat();
-        
-        String webPort = System.getenv("PORT");
-        if(webPort == null || webPort.isEmpty()) {
-            webPort = "8080";
+
+        String webPort = env("PORT", "8080");
+
+        //System property가 db.properties보다 먼저 읽힌다
+        String async = System.getenv("WEB_ASYNC_ENABLED");
+        if (async != null && !async.isEmpty())
+            System.setProperty(DbTaskExecutor.PROPERTY_KEY_ENABLED, async);
+
+        //-D로 준 값이 있으면 그 값을 쓴다
+        boolean fastStart = Boolean.parseBoolean(env("FAST_START", "false"));
+        if (fastStart) {
+            setDefault(LazyInitBeanFactoryPostProcessor.PROPERTY_KEY_LAZY_INIT, "true");
         }
-         
-        tomcat.setPort(Integer.valueOf(webPort));
-        Connector connector = tomcat.getConnector();
+
+        int warmUpRounds = Integer.valueOf(env("WARM_UP_ROUNDS", "0"));
+        if (warmUpRounds > 0)
+            System.setProperty(StartupMetrics.PROPERTY_KEY_WARM_UP_ENABLED, "true");
+
+        Connector connector = new Connector("nio2".equalsIgnoreCase(env("TOMCAT_PROTOCOL", "nio")) ? PROTOCOL_NIO2 : PROTOCOL_NIO);
+        connector.setPort(Integer.valueOf(webPort));
         connector.setURIEncoding("UTF-8");
-        
-        tomcat.addWebapp("/", new File(webappDirLocation).getAbsolutePath());
+
+        //connector의 maxThreads 대신 이름이 있는 executor를 써서 thread dump에서 구분한다
+        StandardThreadExecutor executor = new StandardThreadExecutor();
+        executor.setName("duo-http");
+        executor.setNamePrefix("duo-http-");
+        executor.setMaxThreads(Integer.valueOf(env("TOMCAT_MAX_THREADS", "200")));
+        executor.setMinSpareThreads(Integer.valueOf(env("TOMCAT_MIN_SPARE_THREADS", "10")));
+        tomcat.getService().addExecutor(executor);
+        ((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(executor);
+
+        //모든 thread가 바쁠때 OS가 대기시키는 연결 수, keep-alive 연결은 thread 없이 poller가 기다린다
+        connector.setAttribute("acceptCount", env("TOMCAT_ACCEPT_COUNT", "100"));
+        connector.setAttribute("maxConnections", env("TOMCAT_MAX_CONNECTIONS", "10000"));
+        connector.setAttribute("keepAliveTimeout", env("TOMCAT_KEEP_ALIVE_TIMEOUT_MILLIS", "20000"));
+        connector.setAttribute("maxKeepAliveRequests", env("TOMCAT_MAX_KEEP_ALIVE_REQUESTS", "100"));
+
+        tomcat.getService().addConnector(connector);
+        tomcat.setConnector(connector);
+        System.out.println("connector : " + connector.getProtocolHandlerClassName() + ", max threads " + executor.getMaxThreads()
+                + ", accept count " + connector.getAttribute("acceptCount") + ", async " + System.getProperty(DbTaskExecutor.PROPERTY_KEY_ENABLED, "false"));
+
+        Context context = tomcat.addWebapp("/", new File(webappDirLocation).getAbsolutePath());
         System.out.println("configuring app with basedir: " + new File("./" + webappDirLocation).getAbsolutePath());
-        
+
+        if (fastStart) {
+            //classpath의 jar를 모두 열어보는 TLD, web-fragment, @HandlesTypes 검색에서 JSTL의 TLD만 남긴다
+            StandardJarScanFilter jarScanFilter = new StandardJarScanFilter();
+            jarScanFilter.setDefaultTldScan(false);
+            jarScanFilter.setTldScan("jstl-*.jar");
+            jarScanFilter.setDefaultPluggabilityScan(false);
+            ((StandardJarScanner) context.getJarScanner()).setJarScanFilter(jarScanFilter);
+
+            File jspClasses = new File(env("PRECOMPILED_JSP_DIR", "duo-web/build/jspc"));
+            System.out.println("precompiled jsp : " + PrecompiledJsps.register(context, new File(webappDirLocation), jspClasses) + " from " + jspClasses.getAbsolutePath());
+        }
+
         tomcat.enableNaming();
         tomcat.start();
-        tomcat.getServer().await();  
+
+        StartupMetrics startupMetrics = getStartupMetrics(context);
+        if (startupMetrics == null) {
+            System.out.println("DispatcherServlet '" + DISPATCHER_SERVLET_NAME + "' did not start");
+        } else {
+            if (warmUpRounds > 0) {
+                new WarmUp("http://localhost:" + webPort).run(Arrays.asList(env("WARM_UP_PATHS", DEFAULT_WARM_UP_PATHS).split(",")),
+                        warmUpRounds, System.getenv("WARM_UP_EMAIL"), System.getenv("WARM_UP_PASSWORD"));
+                startupMetrics.markReady();
+            }
+            System.out.println("ready : context " + startupMetrics.getContextMillis() + "ms, ready " + startupMetrics.getReadyMillis() + "ms after JVM start");
+        }
+
+        tomcat.getServer().await();
+    }
+
+    //DispatcherServlet이 servlet context에 올려둔 web context에서 꺼낸다
+    private static StartupMetrics getStartupMetrics(Context context) {
+        WebApplicationContext webContext = WebApplicationContextUtils.getWebApplicationContext(context.getServletContext(),
+                FrameworkServlet.SERVLET_CONTEXT_PREFIX + DISPATCHER_SERVLET_NAME);
+        return webContext == null ? null : webContext.getBean(StartupMetrics.class);
+    }
+
+    private static void setDefault(String key, String value) {
+        if (System.getProperty(key) == null)
+            System.setProperty(key, value);
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
     }
-}
\ No newline at end of file
+}
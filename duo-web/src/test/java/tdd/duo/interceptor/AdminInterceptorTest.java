@@ -0,0 +1,68 @@
+package tdd.duo.interceptor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import static org.junit.Assert.*;
+
+public class AdminInterceptorTest {
+
+    AdminInterceptor interceptor;
+
+    MockEnvironment environment;
+    MockHttpServletRequest request;
+    MockHttpServletResponse response;
+    MockHttpSession session;
+
+    @Before
+    public void setUp() {
+        this.environment = new MockEnvironment()
+                .withProperty(AdminInterceptor.PROPERTY_KEY_EMAILS, "admin@duo.com, ops@duo.com")
+                .withProperty(AdminInterceptor.PROPERTY_KEY_ALLOW_LOCALHOST, "false");
+        this.request = new MockHttpServletRequest("DELETE", "/admin/cache");
+        this.request.setRemoteAddr("10.0.0.1");
+        this.response = new MockHttpServletResponse();
+        this.session = new MockHttpSession();
+        this.request.setSession(this.session);
+    }
+
+    @Test
+    public void 관리자_이메일로_로그인하면_통과한다() throws Exception {
+        session.setAttribute("id", "ops@duo.com");
+
+        assertTrue(interceptor().preHandle(request, response, null));
+    }
+
+    @Test
+    public void 관리자가_아닌_사용자는_403() throws Exception {
+        session.setAttribute("id", "user@duo.com");
+
+        assertFalse(interceptor().preHandle(request, response, null));
+        assertEquals(403, response.getStatus());
+    }
+
+    @Test
+    public void allow_localhost면_서버에서_보낸_요청만_통과한다() throws Exception {
+        environment.setProperty(AdminInterceptor.PROPERTY_KEY_ALLOW_LOCALHOST, "true");
+        AdminInterceptor interceptor = interceptor();
+        session.setAttribute("id", "user@duo.com");
+
+        request.setRemoteAddr("127.0.0.1");
+        assertTrue(interceptor.preHandle(request, response, null));
+
+        //proxy가 넘겨준 요청
+        request.addHeader("X-Forwarded-For", "203.0.113.7");
+        assertFalse(interceptor.preHandle(request, response, null));
+    }
+
+    private AdminInterceptor interceptor() {
+        this.interceptor = new AdminInterceptor();
+        this.interceptor.environment = environment;
+        this.interceptor.init();
+        return interceptor;
+    }
+}
@@ -0,0 +1,70 @@
+package tdd.duo.interceptor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import tdd.duo.datasource.QueryMonitor;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueryMonitorInterceptorTest {
+
+    @Mock
+    QueryMonitor queryMonitor;
+
+    @InjectMocks
+    QueryMonitorInterceptor interceptor;
+
+    MockHttpServletRequest request;
+    MockHttpServletResponse response;
+
+    @Before
+    public void setUp() {
+        this.request = new MockHttpServletRequest("GET", "/article/3");
+        this.response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void 요청이_시작되면_측정을_시작한다() throws Exception {
+        assertTrue(interceptor.preHandle(request, response, null));
+        verify(queryMonitor).begin();
+    }
+
+    @Test
+    public void async_dispatch는_넘겨받은_요청을_이어서_센다() throws Exception {
+        QueryMonitor.RequestQueries detached = new QueryMonitor.RequestQueries();
+        request.setAttribute(QueryMonitorInterceptor.REQUEST_ATTRIBUTE_QUERIES, detached);
+
+        interceptor.preHandle(request, response, null);
+
+        verify(queryMonitor).attach(detached);
+        verify(queryMonitor, never()).begin();
+        assertNull(request.getAttribute(QueryMonitorInterceptor.REQUEST_ATTRIBUTE_QUERIES));
+    }
+
+    @Test
+    public void 요청은_매칭된_URL_pattern으로_모은다() throws Exception {
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/article/{articleId}");
+
+        interceptor.afterCompletion(request, response, null, null);
+
+        verify(queryMonitor).end("GET /article/{articleId}");
+    }
+
+    @Test
+    public void 매칭된_handler가_없는_요청은_한곳에_모은다() throws Exception {
+        interceptor.afterCompletion(request, response, null, null);
+
+        verify(queryMonitor).end("GET " + QueryMonitorInterceptor.UNMATCHED_ENDPOINT);
+    }
+}
@@ -0,0 +1,122 @@
+package tdd.duo.interceptor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.ModelAndView;
+import tdd.duo.datasource.QueryMonitor;
+import tdd.duo.web.metrics.RequestMetrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RequestMetricsInterceptorTest {
+
+    @Mock
+    QueryMonitor queryMonitor;
+
+    @Spy
+    RequestMetrics requestMetrics = new RequestMetrics();
+
+    @InjectMocks
+    RequestMetricsInterceptor interceptor;
+
+    MockHttpServletRequest request;
+    MockHttpServletResponse response;
+    HandlerMethod handler;
+
+    @Before
+    public void setUp() throws Exception {
+        this.request = new MockHttpServletRequest("GET", "/article/list");
+        this.response = new MockHttpServletResponse();
+        this.handler = new HandlerMethod(new SampleController(), "pageList");
+    }
+
+    @Test
+    public void view를_그린_요청은_handler와_view_시간을_나눠서_기록한다() throws Exception {
+        interceptor.preHandle(request, response, handler);
+        interceptor.postHandle(request, response, handler, new ModelAndView("/article/list"));
+        interceptor.afterCompletion(request, response, handler, null);
+
+        RequestMetrics.HandlerMetrics metrics = requestMetrics.get(handler);
+        assertEquals("SampleController.pageList", metrics.getName());
+        assertEquals(1, metrics.getRequests());
+        assertEquals(0, metrics.getErrors());
+        assertEquals(1, metrics.getHandlerMicros().getCount());
+        assertEquals(1, metrics.getViewMicros().getCount());
+        assertTrue(metrics.getTotalMicros().getMax() >= metrics.getHandlerMicros().getMax());
+    }
+
+    @Test
+    public void view가_없는_요청은_view_시간을_남기지_않는다() throws Exception {
+        interceptor.preHandle(request, response, handler);
+        interceptor.postHandle(request, response, handler, null);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(0, requestMetrics.get(handler).getViewMicros().getCount());
+    }
+
+    @Test
+    public void 예외나_5xx_응답은_오류로_센다() throws Exception {
+        interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, new IllegalStateException());
+
+        response.setStatus(503);
+        interceptor.preHandle(request, response, handler);
+        interceptor.postHandle(request, response, handler, null);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(2, requestMetrics.get(handler).getErrors());
+    }
+
+    @Test
+    public void async_요청은_시작부터_async_dispatch가_끝날때까지를_한번_기록한다() throws Exception {
+        interceptor.preHandle(request, response, handler);
+        interceptor.afterConcurrentHandlingStarted(request, response, handler);
+        assertEquals(0, requestMetrics.get(handler).getRequests());
+
+        Thread.sleep(5);
+
+        interceptor.preHandle(request, response, handler);
+        interceptor.postHandle(request, response, handler, new ModelAndView("/article/list"));
+        interceptor.afterCompletion(request, response, handler, null);
+
+        RequestMetrics.HandlerMetrics metrics = requestMetrics.get(handler);
+        assertEquals(1, metrics.getRequests());
+        assertTrue(metrics.getHandlerMicros().getMax() >= 5000);
+        assertNull(request.getAttribute(RequestMetricsInterceptor.REQUEST_ATTRIBUTE_START));
+    }
+
+    @Test
+    public void 다시_dispatch된_요청은_바깥_요청에_포함된다() throws Exception {
+        HandlerMethod forwarded = new HandlerMethod(new SampleController(), "detailView");
+
+        interceptor.preHandle(request, response, handler);
+        interceptor.preHandle(request, response, forwarded);
+        interceptor.afterCompletion(request, response, forwarded, null);
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(1, requestMetrics.get(handler).getRequests());
+        assertEquals(0, requestMetrics.get(forwarded).getRequests());
+    }
+
+    static class SampleController {
+
+        public String pageList() {
+            return "/article/list";
+        }
+
+        public String detailView() {
+            return "/article/detail";
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package tdd.duo.web;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import tdd.duo.bulk.ImportProgress;
+import tdd.duo.service.ArticleService;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GeneratorControllerTest {
+
+    @Mock
+    ArticleService articleService;
+
+    @InjectMocks
+    GeneratorController generatorController;
+
+    MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        this.mockMvc = MvcTestUtil.getMockMvc(generatorController);
+    }
+
+    @Test
+    public void generate는_POST로만_받는다() throws Exception {
+        when(articleService.generateArticles(10)).thenReturn(new ImportProgress(10, 0, 1));
+
+        mockMvc.perform(get("/admin/generate").param("count", "10"))
+                .andExpect(status().isMethodNotAllowed());
+        mockMvc.perform(post("/admin/generate").param("count", "10"))
+                .andExpect(status().isOk());
+
+        verify(articleService).generateArticles(10);
+    }
+
+    @Test
+    public void 한번에_만들_수_있는_글_수를_넘으면_400() throws Exception {
+        mockMvc.perform(post("/admin/generate").param("count", String.valueOf(GeneratorController.MAX_GENERATE_COUNT + 1)))
+                .andExpect(status().isBadRequest());
+
+        verify(articleService, never()).generateArticles(anyLong());
+    }
+
+    @Test
+    public void 모르는_format은_400() throws Exception {
+        mockMvc.perform(post("/admin/import").param("format", "xml").content("title,content"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -5,6 +5,8 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.test.web.servlet.setup.StandaloneMockMvcBuilder;
 import org.springframework.web.filter.HiddenHttpMethodFilter;
 import tdd.duo.config.WebConfig;
+import tdd.duo.web.async.DbTaskExecutor;
+import tdd.duo.web.async.DbTaskReturnValueHandler;
 
 /**
  * Created by yoon on 15. 4. 6..
@@ -13,8 +15,15 @@ public class MvcTestUtil {
 
     static WebConfig webConfig = new WebConfig();
 
+    //start()하지 않은 DbTaskExecutor는 요청 thread에서 실행한다
     public static MockMvc getMockMvc(Object controller) {
-        return getStandAloneMockMvcWithConfigurationSetting(controller).build();
+        return getMockMvc(controller, new DbTaskExecutor());
+    }
+
+    public static MockMvc getMockMvc(Object controller, DbTaskExecutor dbTaskExecutor) {
+        return getStandAloneMockMvcWithConfigurationSetting(controller)
+                .setCustomReturnValueHandlers(new DbTaskReturnValueHandler(dbTaskExecutor))
+                .build();
     }
 
     private static StandaloneMockMvcBuilder getStandAloneMockMvcWithConfigurationSetting(Object controller) {
@@ -0,0 +1,232 @@
+package tdd.duo.web.admin;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tdd.duo.datasource.MonitoredDataSource;
+import tdd.duo.datasource.QueryMonitor;
+import tdd.duo.datasource.ReplicaRoutingDataSource;
+import tdd.duo.interceptor.AdminInterceptor;
+import tdd.duo.service.ArticleCountService;
+import tdd.duo.service.ArticleStatService;
+import tdd.duo.service.CacheStatisticsService;
+import tdd.duo.service.SessionService;
+import tdd.duo.service.TombstonePurgeService;
+import tdd.duo.web.MvcTestUtil;
+import tdd.duo.web.async.DbTaskExecutor;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AdminControllerTest {
+
+    @Mock
+    CacheStatisticsService cacheStatisticsService;
+
+    @Mock
+    SessionService sessionService;
+
+    @Mock
+    MonitoredDataSource dataSource;
+
+    @Mock
+    ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    @Mock
+    DbTaskExecutor dbTaskExecutor;
+
+    @Mock
+    QueryMonitor queryMonitor;
+
+    @Mock
+    ArticleStatService articleStatService;
+
+    @Mock
+    TombstonePurgeService tombstonePurgeService;
+
+    @Mock
+    ArticleCountService articleCountService;
+
+    @InjectMocks
+    AdminController adminController;
+
+    MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        this.mockMvc = MvcTestUtil.getMockMvc(adminController);
+    }
+
+    @Test
+    public void cacheStatistics() throws Exception {
+        Map<String, Object> queryCache = new LinkedHashMap<>();
+        queryCache.put("hit", 3L);
+        queryCache.put("miss", 1L);
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", true);
+        statistics.put("queryCache", queryCache);
+
+        when(cacheStatisticsService.getStatistics()).thenReturn(statistics);
+        when(sessionService.getCacheHitCount()).thenReturn(5L);
+
+        mockMvc.perform(get("/admin/cache"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("enabled=true\n")))
+                .andExpect(content().string(containsString("queryCache.hit=3\n")))
+                .andExpect(content().string(containsString("sessionUser.hit=5\n")));
+    }
+
+    @Test
+    public void poolStatistics() throws Exception {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("type", "dbcp2");
+        statistics.put("active", 3);
+        statistics.put("waitTimeMicros.p99", 120L);
+
+        Map<String, Object> routing = new LinkedHashMap<>();
+        routing.put("routed.replica-0", 7L);
+
+        when(dataSource.getStatistics()).thenReturn(statistics);
+        when(replicaRoutingDataSource.getStatistics()).thenReturn(routing);
+        when(dbTaskExecutor.getStatistics()).thenReturn(Collections.singletonMap("rejected", 2L));
+
+        mockMvc.perform(get("/admin/pool"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("dbTask.rejected=2\n")))
+                .andExpect(content().string(containsString("routing.routed.replica-0=7\n")))
+                .andExpect(content().string(containsString("type=dbcp2\n")))
+                .andExpect(content().string(containsString("active=3\n")))
+                .andExpect(content().string(containsString("waitTimeMicros.p99=120\n")));
+    }
+
+    @Test
+    public void sqlStatistics() throws Exception {
+        Map<String, Object> endpoint = new LinkedHashMap<>();
+        endpoint.put("statements.p95", 4L);
+        endpoint.put("nPlusOne", 1L);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        endpoints.put("GET /article/{articleId}", endpoint);
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("slowQueries", 2L);
+        statistics.put("endpoints", endpoints);
+
+        when(queryMonitor.getStatistics()).thenReturn(statistics);
+
+        mockMvc.perform(get("/admin/sql"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("slowQueries=2\n")))
+                .andExpect(content().string(containsString("endpoints.GET /article/{articleId}.statements.p95=4\n")))
+                .andExpect(content().string(containsString("endpoints.GET /article/{articleId}.nPlusOne=1\n")));
+    }
+
+    @Test
+    public void clearSqlStatistics() throws Exception {
+        mockMvc.perform(delete("/admin/sql"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("cleared"));
+
+        verify(queryMonitor).clear();
+    }
+
+    @Test
+    public void reconcileArticleStat() throws Exception {
+        when(articleStatService.reconcile()).thenReturn(3);
+
+        mockMvc.perform(post("/admin/article-stat/reconcile"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("corrected=3"));
+    }
+
+    @Test
+    public void purgeTombstones() throws Exception {
+        when(tombstonePurgeService.purge()).thenReturn(1200L);
+
+        mockMvc.perform(post("/admin/tombstone/purge"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("purged=1200"));
+    }
+
+    //off-peak window와 상관없이 hard delete를 시작하므로 관리자만 부를 수 있다
+    @Test
+    public void purgeTombstonesIsForbiddenToNonAdmin() throws Exception {
+        adminOnlyMockMvc().perform(post("/admin/tombstone/purge").session(userSession("user@duo.com")))
+                .andExpect(status().isForbidden());
+
+        verify(tombstonePurgeService, never()).purge();
+    }
+
+    //article_stat 전체를 다시 계산하는 update라서 관리자만 부를 수 있다
+    @Test
+    public void reconcileArticleStatIsForbiddenToNonAdmin() throws Exception {
+        adminOnlyMockMvc().perform(post("/admin/article-stat/reconcile").session(userSession("user@duo.com")))
+                .andExpect(status().isForbidden());
+
+        verify(articleStatService, never()).reconcile();
+    }
+
+    @Test
+    public void reconcileArticleStatByAdmin() throws Exception {
+        when(articleStatService.reconcile()).thenReturn(3);
+
+        adminOnlyMockMvc().perform(post("/admin/article-stat/reconcile").session(userSession("admin@duo.com")))
+                .andExpect(status().isOk())
+                .andExpect(content().string("corrected=3"));
+    }
+
+    @Test
+    public void reconcileArticleCount() throws Exception {
+        when(articleCountService.reconcile()).thenReturn(120L);
+
+        adminOnlyMockMvc().perform(post("/admin/article-count/reconcile").session(userSession("admin@duo.com")))
+                .andExpect(status().isOk())
+                .andExpect(content().string("count=120"));
+    }
+
+    @Test
+    public void reconcileArticleCountIsForbiddenToNonAdmin() throws Exception {
+        adminOnlyMockMvc().perform(post("/admin/article-count/reconcile").session(userSession("user@duo.com")))
+                .andExpect(status().isForbidden());
+
+        verify(articleCountService, never()).reconcile();
+    }
+
+    //AdminInterceptor를 WebConfig처럼 /admin/** 에 등록한 MockMvc
+    private MockMvc adminOnlyMockMvc() {
+        AdminInterceptor adminInterceptor = new AdminInterceptor();
+        ReflectionTestUtils.setField(adminInterceptor, "environment", new MockEnvironment().withProperty(AdminInterceptor.PROPERTY_KEY_EMAILS, "admin@duo.com"));
+        adminInterceptor.init();
+
+        return MockMvcBuilders.standaloneSetup(adminController)
+                .addMappedInterceptors(new String[]{"/admin/**"}, adminInterceptor)
+                .build();
+    }
+
+    private static MockHttpSession userSession(String email) {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("id", email);
+        return session;
+    }
+}
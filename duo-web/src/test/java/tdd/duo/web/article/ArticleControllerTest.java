@@ -15,14 +15,22 @@ import tdd.duo.config.DBConfig;
 import tdd.duo.config.WebConfig;
 import tdd.duo.domain.Article;
 import tdd.duo.domain.User;
+import tdd.duo.dto.ArticleOrder;
 import tdd.duo.dto.ArticlePage;
+import tdd.duo.dto.ArticleSummary;
+import tdd.duo.dto.ContentVersion;
+import tdd.duo.exception.ArticleConflictException;
 import tdd.duo.exception.ArticleCreationException;
 import tdd.duo.exception.ArticleModificationException;
 import tdd.duo.exception.ArticleNotFoundException;
 import tdd.duo.service.ArticleService;
 import tdd.duo.web.MvcTestUtil;
+import tdd.duo.web.async.DbTaskExecutor;
+import tdd.duo.web.fragment.Fragment;
+import tdd.duo.web.fragment.FragmentCache;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -43,6 +51,9 @@ public class ArticleControllerTest {
     @Mock
     private ArticleService articleService;
 
+    @Mock
+    private FragmentCache fragmentCache;
+
     @InjectMocks
     private ArticleController articleController;
 
@@ -55,13 +66,13 @@ public class ArticleControllerTest {
     public void listViewRequestWithNoParameter() throws Exception {
         String expectedUrl = "/article/list";
 
-        when(articleService.findsByPageNumber(1)).thenReturn(new ArticlePage(1, 1, 1, 1, new ArrayList<>()));
+        when(articleService.findsByPageNumber(1, ArticleOrder.RECENT, ArticleService.PAGE_PER_ARTICLE_NUMBER, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)).thenReturn(new ArticlePage(1, 1, 1, 1, new ArrayList<>()));
 
         mockMvc.perform(get("/article/list"))
                 .andExpect(status().isOk())
                 .andExpect(view().name(expectedUrl))
                 .andExpect(forwardedUrl(WebConfig.RESOLVER_PREFIX + expectedUrl + WebConfig.RESOLVER_SUFFIX))
-                .andExpect(model().size(5))
+                .andExpect(model().size(6))
                 .andExpect(model().attributeExists("articles"));
     }
 
@@ -69,11 +80,11 @@ public class ArticleControllerTest {
     public void listViewRequestWithZeroOrNegativeIntegerParameter() throws Exception {
         int page = -100;
 
-        when(articleService.findsByPageNumber(page)).thenThrow(IllegalArgumentException.class);
-        when(articleService.findsByPageNumber(1)).thenReturn(new ArticlePage(1, 1, 1, 1, new ArrayList<>()));
+        when(articleService.findsByPageNumber(page, ArticleOrder.RECENT, ArticleService.PAGE_PER_ARTICLE_NUMBER, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)).thenThrow(IllegalArgumentException.class);
+        when(articleService.findsByPageNumber(1, ArticleOrder.RECENT, ArticleService.PAGE_PER_ARTICLE_NUMBER, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)).thenReturn(new ArticlePage(1, 1, 1, 1, new ArrayList<>()));
 
         listViewRequestWithPageNumber(page)
-                .andExpect(model().size(6))
+                .andExpect(model().size(7))
                 .andExpect(model().attributeExists("errorMessage"))
                 .andReturn();
     }
@@ -82,11 +93,11 @@ public class ArticleControllerTest {
     public void listViewRequestWithExceedPageNumber() throws Exception {
 
         int page = 1000;
-        when(articleService.findsByPageNumber(page)).thenThrow(IllegalArgumentException.class);
-        when(articleService.findsByPageNumber(1)).thenReturn(new ArticlePage(1, 1, 1, 1, new ArrayList<>()));
+        when(articleService.findsByPageNumber(page, ArticleOrder.RECENT, ArticleService.PAGE_PER_ARTICLE_NUMBER, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)).thenThrow(IllegalArgumentException.class);
+        when(articleService.findsByPageNumber(1, ArticleOrder.RECENT, ArticleService.PAGE_PER_ARTICLE_NUMBER, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)).thenReturn(new ArticlePage(1, 1, 1, 1, new ArrayList<>()));
 
         listViewRequestWithPageNumber(page)
-                .andExpect(model().size(6))
+                .andExpect(model().size(7))
                 .andExpect(model().attributeExists("errorMessage"))
                 .andReturn();
     }
@@ -94,14 +105,116 @@ public class ArticleControllerTest {
     @Test
     public void listViewRequestWithPagingNumber() throws Exception {
 
-        when(articleService.findsByPageNumber(1)).thenReturn(new ArticlePage(1, 1, 1, 1, new ArrayList<>()));
+        when(articleService.findsByPageNumber(1, ArticleOrder.RECENT, ArticleService.PAGE_PER_ARTICLE_NUMBER, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)).thenReturn(new ArticlePage(1, 1, 1, 1, new ArrayList<>()));
 
         listViewRequestWithPageNumber(1)
-                .andExpect(model().size(5))
+                .andExpect(model().size(6))
                 .andReturn();
     }
 
 
+    @Test
+    public void listViewRequestWithLastSeenId() throws Exception {
+
+        Long lastSeenId = 100L;
+        List<ArticleSummary> articles = new ArrayList<>();
+        articles.add(new ArticleSummary(99L, "testTitle", "testUser", new Date(), 0L));
+
+        when(articleService.findsByLastSeenId(lastSeenId, ArticleService.PAGE_PER_ARTICLE_NUMBER)).thenReturn(new ArticlePage(articles, true, 20));
+
+        mockMvc.perform(get("/article/list")
+                        .param("lastSeenId", "" + lastSeenId)
+        )
+                .andExpect(status().isOk())
+                .andExpect(view().name("/article/list"))
+                .andExpect(model().attribute("nextLastSeenId", 99L))
+                .andExpect(model().attribute("totalEndPage", 20))
+                .andExpect(model().attribute("articles", articles));
+
+        Mockito.verify(articleService, Mockito.never()).findsByPageNumber(Mockito.anyInt(), Mockito.any(ArticleOrder.class), Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    public void listViewRequestWithSort() throws Exception {
+
+        when(articleService.findsByPageNumber(2, ArticleOrder.VIEWS, ArticleService.PAGE_PER_ARTICLE_NUMBER, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)).thenReturn(new ArticlePage(1, 2, 2, 2, new ArrayList<>()));
+
+        mockMvc.perform(get("/article/list")
+                        .param("page", "2")
+                        .param("sort", "views")
+                        .param("lastSeenId", "100")
+        )
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("sort", "views"))
+                .andExpect(model().attribute("currentPage", 2));
+
+        Mockito.verify(articleService, Mockito.never()).findsByLastSeenId(Mockito.anyLong(), Mockito.anyInt());
+    }
+
+    @Test
+    public void listViewRequestWithPageSizeAndWindow() throws Exception {
+
+        List<ArticleSummary> articles = new ArrayList<>();
+        when(articleService.findsByPageNumber(3, ArticleOrder.RECENT, 20, 2)).thenReturn(new ArticlePage(articles, 3, 10, 20, 2));
+
+        mockMvc.perform(get("/article/list")
+                        .param("page", "3")
+                        .param("size", "20")
+                        .param("window", "2")
+        )
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("size", 20))
+                .andExpect(model().attribute("window", 2))
+                .andExpect(model().attribute("pageWindow", 2))
+                .andExpect(model().attribute("endPage", 5));
+
+        Mockito.verify(articleService).getListVersion("recent-3-20-2");
+    }
+
+    @Test
+    public void listViewRequestNotModified() throws Exception {
+
+        when(articleService.getListVersion("recent-1")).thenReturn(new ContentVersion("\"v1\"", 1000L));
+
+        mockMvc.perform(get("/article/list").header("If-None-Match", "\"v1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"v1\""));
+
+        Mockito.verify(articleService, Mockito.never()).findsByPageNumber(Mockito.anyInt(), Mockito.any(ArticleOrder.class), Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    public void listViewRequestWithRenderedFragment() throws Exception {
+
+        Fragment fragment = Mockito.mock(Fragment.class);
+        when(fragment.isRendered()).thenReturn(true);
+        when(articleService.getListVersion("views-2")).thenReturn(new ContentVersion("\"v2\"", 1000L));
+        when(fragmentCache.get("\"v2\"")).thenReturn(fragment);
+
+        mockMvc.perform(get("/article/list").param("page", "2").param("sort", "views").header("If-None-Match", "\"v1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"v2\""))
+                .andExpect(header().string("Cache-Control", ArticleController.CACHE_CONTROL))
+                .andExpect(model().size(1))
+                .andExpect(model().attribute("fragment", fragment));
+
+        Mockito.verify(articleService, Mockito.never()).findsByPageNumber(Mockito.anyInt(), Mockito.any(ArticleOrder.class), Mockito.anyInt(), Mockito.anyInt());
+    }
+
+    @Test
+    public void listViewRequestRendersFragment() throws Exception {
+
+        Fragment fragment = Mockito.mock(Fragment.class);
+        when(articleService.getListVersion("recent-1")).thenReturn(new ContentVersion("\"v1\"", 1000L));
+        when(fragmentCache.get("\"v1\"")).thenReturn(fragment);
+        when(articleService.findsByPageNumber(1, ArticleOrder.RECENT, ArticleService.PAGE_PER_ARTICLE_NUMBER, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)).thenReturn(new ArticlePage(1, 1, 1, 1, new ArrayList<>()));
+
+        mockMvc.perform(get("/article/list"))
+                .andExpect(status().isOk())
+                .andExpect(model().size(7))
+                .andExpect(model().attribute("fragment", fragment));
+    }
+
     private ResultActions listViewRequestWithPageNumber(int page) throws Exception {
         String expectedUrl = "/article/list";
 
@@ -203,6 +316,102 @@ public class ArticleControllerTest {
 
     }
 
+    @Test
+    public void getArticleDetailViewNotModified() throws Exception {
+
+        ContentVersion version = new ContentVersion("\"a1\"", 1000L);
+        when(articleService.getArticleVersion(1L)).thenReturn(version);
+
+        mockMvc.perform(get("/article/1").header("If-None-Match", "\"a1\""))
+                .andExpect(status().isNotModified());
+
+        //304도 조회수는 올리고, 글은 읽지 않는다
+        Mockito.verify(articleService).countView(1L);
+        Mockito.verify(articleService, Mockito.never()).findById(1L);
+    }
+
+    @Test
+    public void getArticleDetailViewWithValidators() throws Exception {
+
+        Article article = new Article(new User(), "testTitle", "testContent");
+        article.setId(1L);
+
+        when(articleService.findById(1L)).thenReturn(article);
+        when(articleService.getArticleVersion(1L)).thenReturn(null, new ContentVersion("\"a1\"", 1000L));
+
+        mockMvc.perform(get("/article/1").header("If-Modified-Since", "Thu, 01 Jan 1970 00:00:00 GMT"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("/article/detail"))
+                .andExpect(header().string("ETag", "\"a1\""))
+                .andExpect(header().longValue("Last-Modified", 1000L));
+    }
+
+    @Test
+    public void listViewRequestInAsyncMode() throws Exception {
+        DbTaskExecutor dbTaskExecutor = asyncExecutor();
+        MockMvc asyncMockMvc = MvcTestUtil.getMockMvc(articleController, dbTaskExecutor);
+
+        when(articleService.findsByPageNumber(1, ArticleOrder.RECENT, ArticleService.PAGE_PER_ARTICLE_NUMBER, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER)).thenReturn(new ArticlePage(1, 1, 1, 1, new ArrayList<>()));
+
+        try {
+            MvcResult mvcResult = asyncMockMvc.perform(get("/article/list"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            //DB 전용 thread가 끝날때까지 기다린다
+            mvcResult.getAsyncResult();
+
+            asyncMockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(status().isOk())
+                    .andExpect(view().name("/article/list"))
+                    .andExpect(model().attributeExists("articles"));
+        } finally {
+            dbTaskExecutor.stop();
+        }
+    }
+
+    @Test
+    public void getArticleDetailViewNotModifiedInAsyncMode() throws Exception {
+        DbTaskExecutor dbTaskExecutor = asyncExecutor();
+        MockMvc asyncMockMvc = MvcTestUtil.getMockMvc(articleController, dbTaskExecutor);
+
+        when(articleService.getArticleVersion(1L)).thenReturn(new ContentVersion("\"a1\"", 1000L));
+
+        try {
+            MvcResult mvcResult = asyncMockMvc.perform(get("/article/1").header("If-None-Match", "\"a1\""))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mvcResult.getAsyncResult();
+
+            //상태는 DB 전용 thread에서 처음 요청의 response에 쓰고, async dispatch에서는 view를 그리지 않는다
+            assertEquals(304, mvcResult.getResponse().getStatus());
+            asyncMockMvc.perform(asyncDispatch(mvcResult))
+                    .andExpect(forwardedUrl(null));
+        } finally {
+            dbTaskExecutor.stop();
+        }
+    }
+
+    @Test
+    public void listViewRequestWhenDbTasksAreFull() throws Exception {
+        DbTaskExecutor dbTaskExecutor = asyncExecutor();
+        MockMvc asyncMockMvc = MvcTestUtil.getMockMvc(articleController, dbTaskExecutor);
+
+        //하나뿐인 자리를 먼저 차지한다
+        dbTaskExecutor.toWebAsyncTask(() -> null);
+
+        try {
+            asyncMockMvc.perform(get("/article/list"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", ArticleController.RETRY_AFTER_SECONDS))
+                    .andExpect(view().name("/article/list"))
+                    .andExpect(model().attribute("errorMessage", ArticleController.BUSY_MESSAGE));
+        } finally {
+            dbTaskExecutor.stop();
+        }
+
+        Mockito.verify(articleService, Mockito.never()).findsByPageNumber(1, ArticleOrder.RECENT, ArticleService.PAGE_PER_ARTICLE_NUMBER, ArticleService.PAGENATION_INTERVAL_FROM_CURRENT_PAGENUMBER);
+    }
+
     @Test
     public void getArticleDetailViewRequestWithInvalidParameter() throws Exception {
 
@@ -227,10 +436,10 @@ public class ArticleControllerTest {
 
         String testTitle = "testTitle";
         String testContent = "testContent";
-        List<Article> querySelectedArticles = new ArrayList<Article>();
+        List<ArticleSummary> querySelectedArticles = new ArrayList<ArticleSummary>();
 
         for (int i = 1 ; i <= expectedResultSize ; ++i) {
-            Article article = new Article(new User(), testTitle+i, testContent+i);
+            ArticleSummary article = new ArticleSummary((long) i, testTitle+i, "testUser", new Date(), 0L);
             querySelectedArticles.add(article);
         }
 
@@ -246,7 +455,7 @@ public class ArticleControllerTest {
                 .andExpect(model().attributeExists("articles"));
 
 
-        List<Article> returnArticles = (List<Article>) resultActions.andReturn().getModelAndView().getModel().get("articles");
+        List<ArticleSummary> returnArticles = (List<ArticleSummary>) resultActions.andReturn().getModelAndView().getModel().get("articles");
         assertEquals(querySelectedArticles, returnArticles);
     }
 
@@ -297,6 +506,31 @@ public class ArticleControllerTest {
         assertEquals(errorMessage, ArticleService.VALIDATION_EXCEPTION_MESSAGE);
     }
 
+    @Test
+    public void modifyArticleWithConflict() throws Exception {
+
+        Article currentArticle = new Article(null, "currentTitle", "currentContent");
+        currentArticle.setId(1L);
+        currentArticle.setVersion(3L);
+
+        when(articleService.modify(any())).thenThrow(new ArticleConflictException(currentArticle));
+
+        MvcResult mvcResult = mockMvc.perform(put("/article/1")
+                        .param("title", "testTitle")
+                        .param("content", "testContent")
+                        .param("version", "2")
+        )
+                .andExpect(status().isConflict())
+                .andExpect(view().name("/article/register"))
+                .andExpect(model().attribute("currentArticle", currentArticle))
+                .andExpect(model().attribute("errorMessage", ArticleConflictException.CONFLICT_MESSAGE)).andReturn();
+
+        //사용자가 쓴 내용과 보고 있던 버전은 그대로 돌려준다
+        Article article = (Article) mvcResult.getModelAndView().getModel().get("article");
+        assertEquals("testTitle", article.getTitle());
+        assertEquals(2L, article.getVersion());
+    }
+
     @Test
     public void deleteArticle() throws Exception {
 
@@ -327,4 +561,22 @@ public class ArticleControllerTest {
                 .andExpect(status().isFound())
                 .andExpect(redirectedUrl("/article"));
     }
+
+    @Test
+    public void deleteArticleWithConflict() throws Exception {
+
+        Long articleId = 1L;
+
+        Mockito.doThrow(new ArticleConflictException(null)).when(articleService).delete(articleId);
+
+        mockMvc.perform(delete("/article/"+articleId))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("/article/"+articleId));
+    }
+
+    private static DbTaskExecutor asyncExecutor() {
+        DbTaskExecutor dbTaskExecutor = new DbTaskExecutor();
+        dbTaskExecutor.start(1, 0, 5000);
+        return dbTaskExecutor;
+    }
 }
\ No newline at end of file
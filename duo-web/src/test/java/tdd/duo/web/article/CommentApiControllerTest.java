@@ -0,0 +1,95 @@
+package tdd.duo.web.article;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import tdd.duo.domain.Comment;
+import tdd.duo.dto.CommentSummary;
+import tdd.duo.exception.ServiceBusyException;
+import tdd.duo.service.CommentService;
+import tdd.duo.web.MvcTestUtil;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CommentApiControllerTest {
+
+    @Mock
+    CommentService commentService;
+
+    @InjectMocks
+    CommentApiController commentApiController;
+
+    MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        this.mockMvc = MvcTestUtil.getMockMvc(commentApiController);
+    }
+
+    @Test
+    public void 마지막으로_받은_댓글_다음부터_JSON으로_내려준다() throws Exception {
+        when(commentService.findsAfter(1L, 10L, CommentApiController.DEFAULT_SIZE))
+                .thenReturn(Arrays.asList(summary(11L, "first"), summary(12L, "second")));
+
+        mockMvc.perform(get("/article/1/comments").param("after", "10"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json;charset=UTF-8"))
+                .andExpect(content().string(containsString("\"id\":11")))
+                .andExpect(content().string(containsString("\"content\":\"second\"")));
+    }
+
+    @Test
+    public void 등록한_댓글을_돌려준다() throws Exception {
+        when(commentService.createAsync(any(Comment.class))).thenReturn(summary(13L, "testContent"));
+
+        mockMvc.perform(post("/article/1/comments").param("content", "testContent"))
+                .andExpect(status().isCreated())
+                .andExpect(content().string(containsString("\"id\":13")))
+                .andExpect(content().string(containsString("\"authorName\":\"test\"")));
+    }
+
+    @Test
+    public void 잘못된_댓글은_400() throws Exception {
+        when(commentService.createAsync(any(Comment.class))).thenThrow(new IllegalArgumentException("invalid"));
+
+        mockMvc.perform(post("/article/1/comments").param("content", ""))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string(containsString("\"message\":\"invalid\"")));
+    }
+
+    @Test
+    public void 대기열이_차면_503() throws Exception {
+        when(commentService.createAsync(any(Comment.class))).thenThrow(new ServiceBusyException("busy"));
+
+        mockMvc.perform(post("/article/1/comments").param("content", "testContent"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void 댓글_삭제() throws Exception {
+        mockMvc.perform(delete("/article/1/comments/13"))
+                .andExpect(status().isNoContent());
+
+        verify(commentService).delete(13L);
+    }
+
+    private CommentSummary summary(Long id, String content) {
+        return new CommentSummary(id, 1L, "test", content, new Date());
+    }
+}
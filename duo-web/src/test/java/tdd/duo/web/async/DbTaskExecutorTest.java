@@ -0,0 +1,75 @@
+package tdd.duo.web.async;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import tdd.duo.exception.ServiceBusyException;
+
+import static org.junit.Assert.*;
+
+public class DbTaskExecutorTest {
+
+    DbTaskExecutor dbTaskExecutor = new DbTaskExecutor();
+
+    @After
+    public void tearDown() {
+        dbTaskExecutor.stop();
+    }
+
+    @Test
+    public void 시작하지_않으면_요청_thread에서_실행한다() {
+        assertFalse(dbTaskExecutor.isAsync());
+        assertEquals(false, dbTaskExecutor.getStatistics().get("async"));
+    }
+
+    @Test
+    public void 자리가_없으면_async를_시작하기_전에_거절한다() throws Exception {
+        dbTaskExecutor.start(1, 1, 1000);
+
+        dbTaskExecutor.toWebAsyncTask(() -> "/article/list");
+        dbTaskExecutor.toWebAsyncTask(() -> "/article/list");
+
+        try {
+            dbTaskExecutor.toWebAsyncTask(() -> "/article/list");
+            fail();
+        } catch (ServiceBusyException e) {
+            assertEquals(1L, dbTaskExecutor.getStatistics().get("rejected"));
+        }
+    }
+
+    @Test
+    public void 실행이_끝나면_자리를_돌려준다() throws Exception {
+        dbTaskExecutor.start(1, 0, 1000);
+
+        WebAsyncTask<Object> task = dbTaskExecutor.toWebAsyncTask(() -> "/article/list");
+        assertEquals(0, dbTaskExecutor.getStatistics().get("available"));
+
+        assertEquals("/article/list", task.getCallable().call());
+        assertEquals(1, dbTaskExecutor.getStatistics().get("available"));
+    }
+
+    @Test
+    public void view를_그리지_않는_결과는_빈_view로_돌려준다() throws Exception {
+        dbTaskExecutor.start(1, 0, 1000);
+
+        WebAsyncTask<Object> task = dbTaskExecutor.toWebAsyncTask(() -> null);
+
+        assertSame(DbTaskExecutor.NOT_RENDERED, task.getCallable().call());
+    }
+
+    @Test
+    public void 실패해도_자리를_돌려준다() throws Exception {
+        dbTaskExecutor.start(1, 0, 1000);
+
+        WebAsyncTask<Object> task = dbTaskExecutor.toWebAsyncTask(() -> {
+            throw new IllegalStateException();
+        });
+
+        try {
+            task.getCallable().call();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(1, dbTaskExecutor.getStatistics().get("available"));
+        }
+    }
+}
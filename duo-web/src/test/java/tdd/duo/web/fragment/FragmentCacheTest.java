@@ -0,0 +1,39 @@
+package tdd.duo.web.fragment;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FragmentCacheTest {
+
+    FragmentCache fragmentCache;
+
+    @Before
+    public void setUp() {
+        fragmentCache = new FragmentCache();
+    }
+
+    @Test
+    public void 그린_조각은_다음에_그대로_돌려준다() {
+        Fragment fragment = fragmentCache.get("v1");
+        assertFalse(fragment.isRendered());
+
+        fragment.rendered("<ol></ol>");
+
+        assertTrue(fragmentCache.get("v1").isRendered());
+        assertEquals("<ol></ol>", fragmentCache.get("v1").getHtml());
+        assertFalse(fragmentCache.get("v2").isRendered());
+    }
+
+    @Test
+    public void 오래_쓰지_않은_조각부터_밀려난다() {
+        fragmentCache.get("first").rendered("first");
+        for (int i = 0; i < FragmentCache.MAX_FRAGMENTS; i++)
+            fragmentCache.get("key" + i).rendered("html" + i);
+
+        assertEquals(FragmentCache.MAX_FRAGMENTS, fragmentCache.size());
+        assertFalse(fragmentCache.get("first").isRendered());
+        assertTrue(fragmentCache.get("key0").isRendered());
+    }
+}
@@ -0,0 +1,53 @@
+package tdd.duo.web.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import tdd.duo.web.MvcTestUtil;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HealthControllerTest {
+
+    @Mock
+    StartupMetrics startupMetrics;
+
+    @InjectMocks
+    HealthController healthController;
+
+    MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        this.mockMvc = MvcTestUtil.getMockMvc(healthController);
+    }
+
+    @Test
+    public void warm_up_중에는_503() throws Exception {
+        when(startupMetrics.isReady()).thenReturn(false);
+
+        mockMvc.perform(get("/health/ready"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(content().string(HealthController.WARMING_UP));
+
+        mockMvc.perform(get("/health/live"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void ready() throws Exception {
+        when(startupMetrics.isReady()).thenReturn(true);
+
+        mockMvc.perform(get("/health/ready"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(HealthController.READY));
+    }
+}
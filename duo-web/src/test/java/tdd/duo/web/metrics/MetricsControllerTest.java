@@ -0,0 +1,47 @@
+package tdd.duo.web.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import tdd.duo.web.MvcTestUtil;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MetricsControllerTest {
+
+    @Mock
+    RequestMetrics requestMetrics;
+
+    @Mock
+    StartupMetrics startupMetrics;
+
+    @InjectMocks
+    MetricsController metricsController;
+
+    MockMvc mockMvc;
+
+    @Before
+    public void setUp() {
+        this.mockMvc = MvcTestUtil.getMockMvc(metricsController);
+    }
+
+    @Test
+    public void metrics() throws Exception {
+        when(requestMetrics.toPrometheus()).thenReturn("duo_http_requests_total{handler=\"ArticleController.pageList\"} 3\n");
+        when(startupMetrics.toPrometheus()).thenReturn("duo_startup_seconds{phase=\"context\"} 2.5\n");
+
+        mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(RequestMetrics.CONTENT_TYPE))
+                .andExpect(content().string("duo_http_requests_total{handler=\"ArticleController.pageList\"} 3\n"
+                        + "duo_startup_seconds{phase=\"context\"} 2.5\n"));
+    }
+}
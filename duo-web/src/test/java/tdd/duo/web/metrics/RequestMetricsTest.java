@@ -0,0 +1,73 @@
+package tdd.duo.web.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+
+public class RequestMetricsTest {
+
+    RequestMetrics requestMetrics;
+    HandlerMethod handler;
+
+    @Before
+    public void setUp() throws Exception {
+        this.requestMetrics = new RequestMetrics();
+        this.handler = new HandlerMethod(new SampleController(), "detailView");
+    }
+
+    @Test
+    public void 같은_handler_method는_같은_기록에_모은다() throws Exception {
+        HandlerMethod other = new HandlerMethod(new SampleController(), "detailView");
+
+        assertSame(requestMetrics.get(handler), requestMetrics.get(other));
+    }
+
+    @Test
+    public void Prometheus_histogram은_누적_bucket과_합계를_초_단위로_내보낸다() throws Exception {
+        //3ms, 40ms, 2s
+        requestMetrics.get(handler).record(3_000, 2_000, 1_000, 500, false);
+        requestMetrics.get(handler).record(40_000, 30_000, 10_000, 5_000, false);
+        requestMetrics.get(handler).record(2_000_000, 2_000_000, -1, 0, true);
+
+        String text = requestMetrics.toPrometheus();
+
+        assertThat(text, containsString("# TYPE duo_http_requests_total counter\n"));
+        assertThat(text, containsString("duo_http_requests_total{handler=\"SampleController.detailView\"} 3\n"));
+        assertThat(text, containsString("duo_http_request_errors_total{handler=\"SampleController.detailView\"} 1\n"));
+        assertThat(text, containsString("# TYPE duo_http_request_duration_seconds histogram\n"));
+        assertThat(text, containsString("duo_http_request_duration_seconds_bucket{handler=\"SampleController.detailView\",phase=\"total\",le=\"0.001\"} 0\n"));
+        assertThat(text, containsString("duo_http_request_duration_seconds_bucket{handler=\"SampleController.detailView\",phase=\"total\",le=\"0.005\"} 1\n"));
+        assertThat(text, containsString("duo_http_request_duration_seconds_bucket{handler=\"SampleController.detailView\",phase=\"total\",le=\"0.05\"} 2\n"));
+        assertThat(text, containsString("duo_http_request_duration_seconds_bucket{handler=\"SampleController.detailView\",phase=\"total\",le=\"+Inf\"} 3\n"));
+        assertThat(text, containsString("duo_http_request_duration_seconds_sum{handler=\"SampleController.detailView\",phase=\"total\"} 2.043\n"));
+        assertThat(text, containsString("duo_http_request_duration_seconds_count{handler=\"SampleController.detailView\",phase=\"view\"} 2\n"));
+        assertThat(text, containsString("duo_http_request_duration_seconds_count{handler=\"SampleController.detailView\",phase=\"db\"} 3\n"));
+    }
+
+    @Test
+    public void 처음_요청의_시간을_따로_내보낸다() throws Exception {
+        requestMetrics.get(handler).record(1_500_000, 1_500_000, -1, 0, false);
+        requestMetrics.get(handler).record(3_000, 3_000, -1, 0, false);
+
+        assertThat(requestMetrics.toPrometheus(), containsString("duo_http_first_request_duration_seconds{handler=\"SampleController.detailView\"} 1.5\n"));
+    }
+
+    @Test
+    public void view를_그린_적이_없는_handler는_view_구간을_내보내지_않는다() throws Exception {
+        requestMetrics.get(handler).record(3_000, 3_000, -1, 0, false);
+
+        assertThat(requestMetrics.toPrometheus(), not(containsString("phase=\"view\"")));
+    }
+
+    static class SampleController {
+
+        public String detailView() {
+            return "/article/detail";
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package tdd.duo.web.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.core.env.Environment;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StartupMetricsTest {
+
+    @Mock
+    Environment environment;
+
+    @InjectMocks
+    StartupMetrics startupMetrics;
+
+    @Before
+    public void setUp() {
+        when(environment.getProperty(eq(StartupMetrics.PROPERTY_KEY_WARM_UP_ENABLED), eq(Boolean.class), eq(false))).thenReturn(false);
+    }
+
+    @Test
+    public void warm_up이_없으면_context가_뜨자마자_ready다() {
+        startupMetrics.onApplicationEvent(null);
+
+        assertTrue(startupMetrics.isReady());
+        assertThat(startupMetrics.toPrometheus(), containsString("duo_startup_seconds{phase=\"context\"} "));
+        assertThat(startupMetrics.toPrometheus(), containsString("duo_startup_seconds{phase=\"ready\"} "));
+    }
+
+    @Test
+    public void warm_up이_끝나야_ready다() {
+        when(environment.getProperty(eq(StartupMetrics.PROPERTY_KEY_WARM_UP_ENABLED), eq(Boolean.class), eq(false))).thenReturn(true);
+
+        startupMetrics.onApplicationEvent(null);
+        assertFalse(startupMetrics.isReady());
+        assertThat(startupMetrics.toPrometheus(), not(containsString("phase=\"ready\"")));
+
+        startupMetrics.markReady();
+        assertTrue(startupMetrics.isReady());
+    }
+}
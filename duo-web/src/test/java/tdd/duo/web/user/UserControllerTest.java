@@ -10,15 +10,20 @@ import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import tdd.duo.config.AppConfig;
 import tdd.duo.config.WebConfig;
 import tdd.duo.domain.User;
 import tdd.duo.domain.auth.Authentication;
 import tdd.duo.exception.AlreadyExistException;
 import tdd.duo.exception.PasswordMismatchException;
+import tdd.duo.exception.ValidationException;
 import tdd.duo.service.UserService;
 import tdd.duo.web.MvcTestUtil;
 
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -111,6 +116,29 @@ public class UserControllerTest {
     }
 
 
+    @Test
+    public void userRegisterWithFieldErrors() throws Exception {
+        User invalidUser = new User("invalid", "", "김우승", 0);
+
+        when(userService.create(any(User.class))).thenThrow(new ValidationException(invalidUser.validate()));
+
+        MvcResult result = mockMvc.perform(post("/user/register")
+                .param("email", "invalid")
+                .param("password", "")
+                .param("name", "김우승")
+                .param("age", "0"))
+
+                .andExpect(status().isOk())
+                .andExpect(forwardedUrl(WebConfig.RESOLVER_PREFIX + "/user/register" + WebConfig.RESOLVER_SUFFIX))
+                .andExpect(model().attributeExists("errorMessage", "fieldErrors"))
+                .andReturn();
+
+        Map<String, String> fieldErrors = (Map<String, String>) result.getModelAndView().getModel().get("fieldErrors");
+        assertEquals(3, fieldErrors.size());
+        assertEquals("이메일 형식이 올바르지 않습니다", fieldErrors.get("email"));
+    }
+
+
     // ------ Login Test
 
     @Test
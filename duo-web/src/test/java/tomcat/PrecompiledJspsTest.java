@@ -0,0 +1,14 @@
+package tomcat;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrecompiledJspsTest {
+
+    @Test
+    public void JspC와_같은_class_이름을_만든다() {
+        assertEquals("tdd.duo.jsp.WEB_002dINF.view.article.list_jsp", PrecompiledJsps.toClassName("/WEB-INF/view/article/list.jsp"));
+        assertEquals("tdd.duo.jsp.WEB_002dINF.view.home_jsp", PrecompiledJsps.toClassName("/WEB-INF/view/home.jsp"));
+    }
+}
@@ -53,7 +53,7 @@
             <div class="spliter"></div>
             <div class="comment">
                 <div>
-                    <strong>
+                    <strong id="comment_count">
                         <c:choose>
                             <c:when test="${not empty article.comments}">${fn:length(article.comments)} </c:when>
                             <c:otherwise>0</c:otherwise>
@@ -61,17 +61,19 @@
                     </strong> Comments
                 </div>
 
-                <c:forEach var="comment" items="${article.comments}">
-                    <div class="piece">
-                        <p class="author_name">${comment.author.name}</p>
-                        <p class="time">${comment.createdTime}</p>
-                        <p class="content">> ${comment.content}</p>
-                    </div>
-                </c:forEach>
+                <div id="comments" data-last-id="${empty article.comments ? 0 : article.comments[fn:length(article.comments) - 1].id}">
+                    <c:forEach var="comment" items="${article.comments}">
+                        <div class="piece">
+                            <p class="author_name">${comment.author.name}</p>
+                            <p class="time">${comment.createdTime}</p>
+                            <p class="content">> ${comment.content}</p>
+                        </div>
+                    </c:forEach>
+                </div>
                 <!-- Comment Input -->
                 <div id="input_container">
                     <div id="sub_container">
-                        <form method="post" action="/article/comment">
+                        <form id="comment_form" method="post" action="/article/comment">
                             <input type="hidden" name="articleId" value="${article.id}">
                             <textarea name="content" placeholder="댓글"></textarea>
                             <input type="submit" value="Submit">
@@ -88,6 +90,70 @@
         </div>
     </div>
 </div>
+<script>
+    //댓글을 쓰고 나서 페이지 전체를 다시 그리지 않고, 마지막으로 받은 댓글 다음 댓글만 받아서 붙인다
+    (function () {
+        var commentsUrl = '/article/${article.id}/comments';
+        var comments = document.getElementById('comments');
+        var count = document.getElementById('comment_count');
+        var form = document.getElementById('comment_form');
+        var lastId = Number(comments.getAttribute('data-last-id'));
+
+        function append(comment) {
+            if (comment.id <= lastId)
+                return;
+
+            var piece = document.createElement('div');
+            piece.className = 'piece';
+            [['author_name', comment.authorName], ['time', new Date(comment.createdTime).toString()], ['content', '> ' + comment.content]].forEach(function (field) {
+                var p = document.createElement('p');
+                p.className = field[0];
+                p.textContent = field[1];
+                piece.appendChild(p);
+            });
+
+            comments.appendChild(piece);
+            count.textContent = Number(count.textContent) + 1;
+            lastId = comment.id;
+        }
+
+        function request(method, url, body, callback) {
+            var xhr = new XMLHttpRequest();
+            xhr.open(method, url);
+            xhr.setRequestHeader('Accept', 'application/json');
+            if (body)
+                xhr.setRequestHeader('Content-Type', 'application/x-www-form-urlencoded; charset=UTF-8');
+            xhr.onload = function () {
+                callback(xhr.status, xhr.responseText ? JSON.parse(xhr.responseText) : null);
+            };
+            xhr.send(body);
+        }
+
+        function fetchNew() {
+            request('GET', commentsUrl + '?after=' + lastId, null, function (status, result) {
+                if (status === 200)
+                    result.forEach(append);
+            });
+        }
+
+        form.addEventListener('submit', function (event) {
+            event.preventDefault();
+            request('POST', commentsUrl, 'content=' + encodeURIComponent(form.content.value), function (status, result) {
+                if (status !== 201) {
+                    alert(result && result.message ? result.message : '댓글을 등록하지 못했습니다');
+                    return;
+                }
+
+                form.content.value = '';
+                //내 댓글 사이에 다른 사람 댓글이 있을 수 있으므로 새로 받아온다
+                fetchNew();
+            });
+        });
+
+        fetchNew();
+        setInterval(fetchNew, 5000);
+    })();
+</script>
 </body>
 </html>
 
@@ -7,6 +7,7 @@
 --%>
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
 <%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c" %>
+<%@ taglib uri="/WEB-INF/duo.tld" prefix="duo" %>
 <html>
 <head>
     <title>DUO - Article</title>
@@ -23,19 +24,48 @@
                 ${errorMessage}
             </div>
         </c:if>
+        <%-- 글목록과 페이지 이동은 fragment가 있으면 저장된 html을 그대로 쓴다 (ArticleController.pageList) --%>
+        <duo:fragment fragment="${fragment}">
+        <c:if test="${not empty sort}"><c:set var="listQuery" value="sort=${sort}&"/></c:if>
+        <%-- 기본값과 다른 페이지 크기, 이동 링크 수는 페이지를 옮겨도 유지한다 --%>
+        <c:if test="${not empty size}"><c:set var="listQuery" value="${listQuery}size=${size}&"/></c:if>
+        <c:if test="${not empty window}"><c:set var="listQuery" value="${listQuery}window=${window}&"/></c:if>
         <ol class="board">
             <a href="/article/register">새글쓰기</a>
+            <p class="sort">
+                <a href="/article/list">최신순</a> |
+                <a href="/article/list?sort=active">최근 활동순</a> |
+                <a href="/article/list?sort=views">조회순</a>
+            </p>
             <c:forEach var="article" items="${articles}">
                 <li>
                     <a href="/article/${article.id}">
                     <div class="row">
-                        <p class="title">> ${article.title}</p>
+                        <p class="title">> ${article.title} [${article.commentCount}]</p>
+                        <p class="author">${article.authorName}</p>
+                        <p class="view">${article.viewCount}</p>
                         <p class="time">${article.createdTime}</p>
                     </div>
                     </a>
                 </li>
             </c:forEach>
         </ol>
+        <c:choose>
+        <c:when test="${empty currentPage}">
+        <ol class="pagination">
+            <li><a href="/article/list?${listQuery}lastSeenId=0">&lt;&lt;</a></li>
+            <c:choose>
+                <c:when test="${empty nextLastSeenId}">
+                    <li class="disabled"><a href="#">&gt;</a></li>
+                </c:when>
+                <c:otherwise>
+                    <li><a href="/article/list?${listQuery}lastSeenId=${nextLastSeenId}">&gt;</a></li>
+                </c:otherwise>
+            </c:choose>
+            <li class="disabled"><a href="#">약 ${totalEndPage} 페이지</a></li>
+        </ol>
+        </c:when>
+        <c:otherwise>
         <ol class="pagination">
             <c:choose>
                 <c:when test="${currentPage == 1}">
@@ -43,12 +73,12 @@
                     <li class="disabled"><a href="#">&lt;</a></li>
                 </c:when>
                 <c:otherwise>
-                    <li><a href="/article/list?page=1">&lt;&lt;</a></li>
-                    <li><a href="/article/list?page=${currentPage-5}">&lt;</a></li>
+                    <li><a href="/article/list?${listQuery}page=1">&lt;&lt;</a></li>
+                    <li><a href="/article/list?${listQuery}page=${currentPage - pageWindow > 0 ? currentPage - pageWindow : 1}">&lt;</a></li>
                 </c:otherwise>
             </c:choose>
             <c:forEach var="i" begin="${startPage}" end="${endPage}">
-                <c:url var="pageUrl" value="/article/list?page=${i}" />
+                <c:url var="pageUrl" value="/article/list?${listQuery}page=${i}" />
                 <c:choose>
                     <c:when test="${i == currentPage}">
                         <li class="active"><a href="${pageUrl}"><c:out value="${i}" /></a></li>
@@ -59,16 +89,19 @@
                 </c:choose>
             </c:forEach>
             <c:choose>
-                <c:when test="${currentPage >= totalEndPage-5}">
+                <c:when test="${currentPage >= totalEndPage - pageWindow}">
                     <li class="disabled"><a href="#">&gt;</a></li>
                     <li class="disabled"><a href="#">&gt;&gt;</a></li>
                 </c:when>
                 <c:otherwise>
-                    <li><a href="/article/list?page=${currentPage + 5}">&gt;</a></li>
-                    <li><a href="/article/list?page=${totalEndPage}">&gt;&gt;</a></li>
+                    <li><a href="/article/list?${listQuery}page=${currentPage + pageWindow}">&gt;</a></li>
+                    <li><a href="/article/list?${listQuery}page=${totalEndPage}">&gt;&gt;</a></li>
                 </c:otherwise>
             </c:choose>
         </ol>
+        </c:otherwise>
+        </c:choose>
+        </duo:fragment>
     </div>
 </div>
 </body>
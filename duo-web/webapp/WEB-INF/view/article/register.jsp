@@ -23,11 +23,31 @@
                 ${errorMessage}
             </div>
         </c:if>
+        <c:choose>
+        <c:when test="${not empty article.id}">
+        <%-- 수정 실패 후 다시 보여주는 form. 충돌이면 최신 글의 version으로 다시 수정한다 --%>
+        <c:if test="${not empty currentArticle}">
+            <div class="current">
+                <p>최신 제목 : <c:out value="${currentArticle.title}"/></p>
+                <p>최신 내용 : <c:out value="${currentArticle.content}"/></p>
+            </div>
+        </c:if>
+        <form action="/article/${article.id}" method="post">
+            <input type="hidden" name="_method" value="PUT"/>
+            <input type="hidden" name="version" value="${empty currentArticle ? article.version : currentArticle.version}"/>
+            <input type="title" name="title" placeholder="제목" value="<c:out value="${article.title}"/>"/>
+            <textarea rows="10" name="content" placeholder="내용"><c:out value="${article.content}"/></textarea>
+            <input type="submit" content="수정"/>
+        </form>
+        </c:when>
+        <c:otherwise>
         <form action="/article" method="post">
             <input type="title" name="text" placeholder="제목"/>
             <textarea rows="10" name="content" placeholder="내용"></textarea>
             <input type="submit" content="작성"/>
         </form>
+        </c:otherwise>
+        </c:choose>
         <a href="/article/list">글목록</a>
     </div>
 </div>
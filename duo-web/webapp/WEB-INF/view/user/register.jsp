@@ -24,10 +24,17 @@
                     ${errorMessage}
             </div>
         </c:if>
+        <c:if test="${not empty fieldErrors}">
+            <ul class="errorMessage">
+                <c:forEach var="fieldError" items="${fieldErrors}">
+                    <li>${fieldError.value}</li>
+                </c:forEach>
+            </ul>
+        </c:if>
         <form action="/user/register" method="post">
-            <input type="email" name="email" placeholder="이메일"/>
+            <input type="email" name="email" placeholder="이메일" value="<c:out value="${user.email}"/>"/>
             <input type="password" name="password" placeholder="비밀번호"/>
-            <input type="text" name="name" placeholder="닉네임"/>
+            <input type="text" name="name" placeholder="닉네임" value="<c:out value="${user.name}"/>"/>
             <input type="number" name="age" placeholder="나이" min="0" step="1"/>
             <input type="submit" content="가입"/>
         </form>